@@ -0,0 +1,175 @@
+package org.hisp.dhis.common;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Continuation token for keyset (seek) paging. Identifies the last row of a
+ * page by its last updated timestamp and database identifier, which is the
+ * sort key of keyset paged queries ordered by last updated descending. The
+ * next page is then read with a range condition on the sort key instead of
+ * an offset, so the cost of fetching a page does not grow with its position.
+ * <p>
+ * The encoded form is opaque to clients, who should only pass back the token
+ * received with the previous page.
+ */
+public final class PageToken
+{
+    private static final String SEPARATOR = ",";
+
+    private final LocalDateTime lastUpdated;
+
+    private final long id;
+
+    private PageToken( LocalDateTime lastUpdated, long id )
+    {
+        this.lastUpdated = Preconditions.checkNotNull( lastUpdated );
+        this.id = id;
+    }
+
+    /**
+     * Creates a token pointing at the row with the given last updated
+     * timestamp and identifier. Sub-millisecond precision is retained when
+     * the given date is a {@link Timestamp}.
+     *
+     * @param lastUpdated the last updated timestamp of the last row.
+     * @param id the database identifier of the last row.
+     * @return a page token.
+     */
+    public static PageToken of( Date lastUpdated, long id )
+    {
+        Preconditions.checkNotNull( lastUpdated );
+
+        Timestamp timestamp = lastUpdated instanceof Timestamp ?
+            (Timestamp) lastUpdated : new Timestamp( lastUpdated.getTime() );
+
+        return new PageToken( timestamp.toLocalDateTime(), id );
+    }
+
+    /**
+     * Decodes the given token.
+     *
+     * @param token the encoded token.
+     * @return a page token.
+     * @throws IllegalQueryException if the token is not valid.
+     */
+    public static PageToken decode( String token )
+    {
+        try
+        {
+            String value = new String( Base64.getUrlDecoder().decode( token ), StandardCharsets.UTF_8 );
+
+            String[] parts = value.split( SEPARATOR );
+
+            if ( parts.length != 2 )
+            {
+                throw new IllegalQueryException( "Page token is not valid: `" + token + "`" );
+            }
+
+            return new PageToken( LocalDateTime.parse( parts[0] ), Long.parseLong( parts[1] ) );
+        }
+        catch ( IllegalArgumentException | DateTimeParseException ex )
+        {
+            throw new IllegalQueryException( "Page token is not valid: `" + token + "`" );
+        }
+    }
+
+    /**
+     * Returns the opaque, URL safe representation of this token.
+     */
+    public String encode()
+    {
+        String value = lastUpdated.toString() + SEPARATOR + id;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString( value.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    /**
+     * Returns the last updated timestamp as an ISO-8601 SQL literal. The value
+     * is rendered from the parsed timestamp and is hence safe to inline.
+     */
+    public String getLastUpdatedLiteral()
+    {
+        return "'" + lastUpdated.toString() + "'";
+    }
+
+    public Timestamp getLastUpdated()
+    {
+        return Timestamp.valueOf( lastUpdated );
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    // -------------------------------------------------------------------------
+    // Object methods
+    // -------------------------------------------------------------------------
+
+    @Override
+    public boolean equals( Object object )
+    {
+        if ( this == object )
+        {
+            return true;
+        }
+
+        if ( object == null || getClass() != object.getClass() )
+        {
+            return false;
+        }
+
+        PageToken other = (PageToken) object;
+
+        return id == other.id && lastUpdated.equals( other.lastUpdated );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash( lastUpdated, id );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[Last updated: " + lastUpdated + ", id: " + id + "]";
+    }
+}
@@ -50,6 +50,8 @@ public class Pager
 
     private String prevPage;
 
+    private String nextPageToken;
+
     public Pager()
     {
 
@@ -178,4 +180,22 @@ public class Pager
     {
         this.prevPage = prevPage;
     }
+
+    /**
+     * Continuation token for keyset paging, pointing at the last item of this
+     * page. Only present when keyset paging is used and more items may follow.
+     *
+     * @return the token for the next page.
+     */
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public String getNextPageToken()
+    {
+        return nextPageToken;
+    }
+
+    public void setNextPageToken( String nextPageToken )
+    {
+        this.nextPageToken = nextPageToken;
+    }
 }
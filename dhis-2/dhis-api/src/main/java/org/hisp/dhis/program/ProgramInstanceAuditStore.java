@@ -46,6 +46,13 @@ public interface ProgramInstanceAuditStore
      */
     void addProgramInstanceAudit( ProgramInstanceAudit programInstanceAudit );
 
+    /**
+     * Adds the given program instance audits with a single insert
+     *
+     * @param programInstanceAudits the audits to add
+     */
+    void addProgramInstanceAudits( List<ProgramInstanceAudit> programInstanceAudits );
+
     /**
      * Deletes program instance audit for the given program instance
      * 
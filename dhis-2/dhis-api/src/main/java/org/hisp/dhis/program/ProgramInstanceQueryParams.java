@@ -29,6 +29,7 @@ package org.hisp.dhis.program;
  */
 
 import org.hisp.dhis.common.OrganisationUnitSelectionMode;
+import org.hisp.dhis.common.PageToken;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.trackedentity.TrackedEntityInstance;
 import org.hisp.dhis.trackedentity.TrackedEntityType;
@@ -123,6 +124,23 @@ public class ProgramInstanceQueryParams
      */
     private boolean skipPaging;
 
+    /**
+     * Indicates whether to page by seeking past the last item of the previous
+     * page instead of by offset. Implied by a page token.
+     */
+    private boolean keysetPaging;
+
+    /**
+     * Token of the last item of the previous page for keyset paging.
+     */
+    private PageToken pageToken;
+
+    /**
+     * Token of the last item of the current page, set by the store when the
+     * page is full and keyset paging is used.
+     */
+    private PageToken nextPageToken;
+
     /**
      * Indicates whether to include soft-deleted enrollments
      */
@@ -278,6 +296,23 @@ public class ProgramInstanceQueryParams
         return (getPageWithDefault() - 1) * getPageSizeWithDefault();
     }
 
+    /**
+     * Indicates whether keyset paging is used, which is the case when
+     * explicitly requested or when a page token is given.
+     */
+    public boolean isKeysetPaging()
+    {
+        return !skipPaging && ( keysetPaging || pageToken != null );
+    }
+
+    /**
+     * Indicates whether a page token is specified.
+     */
+    public boolean hasPageToken()
+    {
+        return pageToken != null;
+    }
+
     /**
      * Sets paging properties to default values.
      */
@@ -457,6 +492,34 @@ public class ProgramInstanceQueryParams
         return this;
     }
 
+    public ProgramInstanceQueryParams setKeysetPaging( boolean keysetPaging )
+    {
+        this.keysetPaging = keysetPaging;
+        return this;
+    }
+
+    public PageToken getPageToken()
+    {
+        return pageToken;
+    }
+
+    public ProgramInstanceQueryParams setPageToken( PageToken pageToken )
+    {
+        this.pageToken = pageToken;
+        return this;
+    }
+
+    public PageToken getNextPageToken()
+    {
+        return nextPageToken;
+    }
+
+    public ProgramInstanceQueryParams setNextPageToken( PageToken nextPageToken )
+    {
+        this.nextPageToken = nextPageToken;
+        return this;
+    }
+
     public boolean isIncludeDeleted()
     {
         return includeDeleted;
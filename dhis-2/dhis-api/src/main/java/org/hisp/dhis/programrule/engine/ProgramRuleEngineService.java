@@ -30,7 +30,9 @@ package org.hisp.dhis.programrule.engine;
 
 import org.hisp.dhis.rules.models.RuleEffect;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by zubair@dhis2.org on 23.10.17.
@@ -39,5 +41,25 @@ public interface ProgramRuleEngineService
 {
     List<RuleEffect> evaluateEnrollment( long enrollment );
 
+    /**
+     * Evaluates the program rules for the given enrollments and implements
+     * the resulting actions. Meant for bulk operations, as the rule engine
+     * context is set up once per program.
+     *
+     * @param enrollments the identifiers of the enrollments.
+     * @return a mapping of enrollment identifier and the resulting rule effects.
+     */
+    Map<Long, List<RuleEffect>> evaluateEnrollments( Collection<Long> enrollments );
+
     List<RuleEffect> evaluateEvent( long event );
+
+    /**
+     * Evaluates the program rules for the given events and implements the
+     * resulting actions. Meant for bulk operations, as the events are loaded
+     * at once and the rule engine context is set up once per program.
+     *
+     * @param events the identifiers of the events.
+     * @return a mapping of event identifier and the resulting rule effects.
+     */
+    Map<Long, List<RuleEffect>> evaluateEvents( Collection<Long> events );
 }
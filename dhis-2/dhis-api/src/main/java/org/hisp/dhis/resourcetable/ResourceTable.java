@@ -32,8 +32,10 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.common.CodeGenerator;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * @author Lars Helge Overland
@@ -98,10 +100,39 @@ public abstract class ResourceTable<T>
         return "alter table " + getTempTableName() + " rename to " + getTableName() + ";";
     }
 
+    /**
+     * Writes content for the temporary resource table row by row to the given
+     * consumer. The default implementation writes the content provided by
+     * {@link #getPopulateTempTableContent()}. Resource tables with large
+     * content should override this method to produce rows one at a time
+     * instead of materializing all rows in memory.
+     *
+     * @param consumer the consumer of rows.
+     */
+    public void writeTempTableContent( Consumer<Object[]> consumer )
+    {
+        getPopulateTempTableContent().ifPresent( content -> content.forEach( consumer ) );
+    }
+
     // -------------------------------------------------------------------------
     // Protected methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Collects the rows written by {@link #writeTempTableContent(Consumer)}
+     * into a list.
+     *
+     * @return content for the temporary resource table.
+     */
+    protected Optional<List<Object[]>> collectTempTableContent()
+    {
+        List<Object[]> content = new ArrayList<>();
+
+        writeTempTableContent( content::add );
+
+        return Optional.of( content );
+    }
+
     protected String getRandomSuffix()
     {
         return CodeGenerator.generateCode( 5 );
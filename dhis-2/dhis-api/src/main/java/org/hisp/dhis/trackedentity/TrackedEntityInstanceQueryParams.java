@@ -32,6 +32,7 @@ import com.google.common.base.MoreObjects;
 import org.apache.commons.lang.time.DateUtils;
 import org.hisp.dhis.common.AssignedUserSelectionMode;
 import org.hisp.dhis.common.OrganisationUnitSelectionMode;
+import org.hisp.dhis.common.PageToken;
 import org.hisp.dhis.common.QueryFilter;
 import org.hisp.dhis.common.QueryItem;
 import org.hisp.dhis.event.EventStatus;
@@ -205,6 +206,23 @@ public class TrackedEntityInstanceQueryParams
      */
     private boolean skipPaging;
 
+    /**
+     * Indicates whether to page by seeking past the last item of the previous
+     * page instead of by offset. Implied by a page token.
+     */
+    private boolean keysetPaging;
+
+    /**
+     * Token of the last item of the previous page for keyset paging.
+     */
+    private PageToken pageToken;
+
+    /**
+     * Token of the last item of the current page, set by the store when the
+     * page is full and keyset paging is used.
+     */
+    private PageToken nextPageToken;
+
     /**
      * Indicates whether to include soft-deleted elements
      */
@@ -722,6 +740,23 @@ public class TrackedEntityInstanceQueryParams
         return (getPageWithDefault() - 1) * getPageSizeWithDefault();
     }
 
+    /**
+     * Indicates whether keyset paging is used, which is the case when
+     * explicitly requested or when a page token is given.
+     */
+    public boolean isKeysetPaging()
+    {
+        return !skipPaging && ( keysetPaging || pageToken != null );
+    }
+
+    /**
+     * Indicates whether a page token is specified.
+     */
+    public boolean hasPageToken()
+    {
+        return pageToken != null;
+    }
+
     /**
      * Sets paging properties to default values.
      */
@@ -766,6 +801,8 @@ public class TrackedEntityInstanceQueryParams
             .add( "pageSize", pageSize )
             .add( "totalPages", totalPages )
             .add( "skipPaging", skipPaging )
+            .add( "keysetPaging", keysetPaging )
+            .add( "pageToken", pageToken )
             .add( "includeDeleted", includeDeleted )
             .add( "includeAllAttributes", includeAllAttributes )
             .add( "internalSearch", internalSearch )
@@ -1043,6 +1080,34 @@ public class TrackedEntityInstanceQueryParams
         return this;
     }
 
+    public TrackedEntityInstanceQueryParams setKeysetPaging( boolean keysetPaging )
+    {
+        this.keysetPaging = keysetPaging;
+        return this;
+    }
+
+    public PageToken getPageToken()
+    {
+        return pageToken;
+    }
+
+    public TrackedEntityInstanceQueryParams setPageToken( PageToken pageToken )
+    {
+        this.pageToken = pageToken;
+        return this;
+    }
+
+    public PageToken getNextPageToken()
+    {
+        return nextPageToken;
+    }
+
+    public TrackedEntityInstanceQueryParams setNextPageToken( PageToken nextPageToken )
+    {
+        this.nextPageToken = nextPageToken;
+        return this;
+    }
+
     public boolean isIncludeDeleted()
     {
         return includeDeleted;
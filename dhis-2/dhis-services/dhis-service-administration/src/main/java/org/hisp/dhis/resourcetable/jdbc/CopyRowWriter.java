@@ -0,0 +1,179 @@
+package org.hisp.dhis.resourcetable.jdbc;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.function.Consumer;
+
+import org.postgresql.copy.CopyIn;
+
+/**
+ * Writes rows to a PostgreSQL copy operation in the text format. Rows are
+ * encoded into a buffer which is flushed to the copy operation when it
+ * exceeds a threshold, so that memory usage is independent of the number of
+ * rows.
+ */
+class CopyRowWriter
+    implements Consumer<Object[]>
+{
+    private static final int FLUSH_SIZE = 65536;
+
+    private static final char COLUMN_SEP = '\t';
+
+    private static final char ROW_SEP = '\n';
+
+    private static final String NULL = "\\N";
+
+    private final CopyIn copyIn;
+
+    private final StringBuilder buffer = new StringBuilder( FLUSH_SIZE * 2 );
+
+    private final DateFormat dateFormat = new SimpleDateFormat( "yyyy-MM-dd HH:mm:ss.SSS" );
+
+    CopyRowWriter( CopyIn copyIn )
+    {
+        this.copyIn = copyIn;
+    }
+
+    @Override
+    public void accept( Object[] row )
+    {
+        appendRow( buffer, row, dateFormat );
+
+        if ( buffer.length() >= FLUSH_SIZE )
+        {
+            flush();
+        }
+    }
+
+    /**
+     * Flushes remaining rows and completes the copy operation.
+     *
+     * @return the number of rows copied.
+     * @throws SQLException if the copy operation failed.
+     */
+    public long finish()
+        throws SQLException
+    {
+        flush();
+
+        return copyIn.endCopy();
+    }
+
+    private void flush()
+    {
+        if ( buffer.length() == 0 )
+        {
+            return;
+        }
+
+        byte[] bytes = buffer.toString().getBytes( StandardCharsets.UTF_8 );
+
+        try
+        {
+            copyIn.writeToCopy( bytes, 0, bytes.length );
+        }
+        catch ( SQLException ex )
+        {
+            throw new IllegalStateException( "Failed to write rows to copy operation", ex );
+        }
+
+        buffer.setLength( 0 );
+    }
+
+    // -------------------------------------------------------------------------
+    // Encoding
+    // -------------------------------------------------------------------------
+
+    /**
+     * Appends the given row to the given buffer in the PostgreSQL copy text
+     * format.
+     *
+     * @param buffer the buffer.
+     * @param row the row values.
+     * @param dateFormat the format for date values.
+     */
+    static void appendRow( StringBuilder buffer, Object[] row, DateFormat dateFormat )
+    {
+        for ( int i = 0; i < row.length; i++ )
+        {
+            if ( i > 0 )
+            {
+                buffer.append( COLUMN_SEP );
+            }
+
+            Object value = row[i];
+
+            if ( value == null )
+            {
+                buffer.append( NULL );
+            }
+            else if ( value instanceof Date )
+            {
+                buffer.append( dateFormat.format( (Date) value ) );
+            }
+            else
+            {
+                appendEscaped( buffer, value.toString() );
+            }
+        }
+
+        buffer.append( ROW_SEP );
+    }
+
+    private static void appendEscaped( StringBuilder buffer, String value )
+    {
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+
+            switch ( c )
+            {
+                case '\\':
+                    buffer.append( "\\\\" );
+                    break;
+                case '\t':
+                    buffer.append( "\\t" );
+                    break;
+                case '\n':
+                    buffer.append( "\\n" );
+                    break;
+                case '\r':
+                    buffer.append( "\\r" );
+                    break;
+                default:
+                    buffer.append( c );
+            }
+        }
+    }
+}
@@ -28,6 +28,7 @@ package org.hisp.dhis.resourcetable.jdbc;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,6 +42,10 @@ import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.resourcetable.ResourceTable;
 import org.hisp.dhis.resourcetable.ResourceTableStore;
 import org.hisp.dhis.system.util.Clock;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
@@ -55,6 +60,8 @@ public class JdbcResourceTableStore
 {
     private static final Log log = LogFactory.getLog( JdbcResourceTableStore.class );
 
+    private static final int BATCH_SIZE = 10000;
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -93,7 +100,6 @@ public class JdbcResourceTableStore
         final Clock clock = new Clock().startClock();
         final String createTableSql = resourceTable.getCreateTempTableStatement();
         final Optional<String> populateTableSql = resourceTable.getPopulateTempTableStatement();
-        final Optional<List<Object[]>> populateTableContent = resourceTable.getPopulateTempTableContent();
         final List<String> createIndexSql = resourceTable.getCreateIndexStatements();
         final String analyzeTableSql = statementBuilder.getAnalyze( resourceTable.getTableName() );
 
@@ -124,18 +130,11 @@ public class JdbcResourceTableStore
 
             jdbcTemplate.execute( populateTableSql.get() );
         }
-        else if ( populateTableContent.isPresent() )
+        else
         {
-            List<Object[]> content = populateTableContent.get();
-
-            log.debug( String.format( "Populate table content rows: '%d'", content.size() ) );
-
-            if ( content.size() > 0 )
-            {
-                int columns = content.get( 0 ).length;
+            long rows = populateTableContent( resourceTable );
 
-                batchUpdate( columns, resourceTable.getTempTableName(), content );
-            }
+            log.debug( String.format( "Populate table content rows: '%d'", rows ) );
         }
 
         // ---------------------------------------------------------------------
@@ -211,4 +210,68 @@ public class JdbcResourceTableStore
 
         jdbcTemplate.batchUpdate( builder.toString(), batchArgs );
     }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Streams the content of the given resource table into its temporary
+     * table. Uses the PostgreSQL copy operation when available, and falls
+     * back to batched inserts of bounded size otherwise.
+     *
+     * @param resourceTable the resource table.
+     * @return the number of rows written.
+     */
+    private long populateTableContent( ResourceTable<?> resourceTable )
+    {
+        final String tableName = resourceTable.getTempTableName();
+
+        return jdbcTemplate.execute( (ConnectionCallback<Long>) connection -> {
+
+            if ( connection.isWrapperFor( BaseConnection.class ) )
+            {
+                CopyManager copyManager = new CopyManager( connection.unwrap( BaseConnection.class ) );
+                CopyIn copyIn = copyManager.copyIn( "copy " + tableName + " from stdin" );
+
+                try
+                {
+                    CopyRowWriter writer = new CopyRowWriter( copyIn );
+
+                    resourceTable.writeTempTableContent( writer );
+
+                    return writer.finish();
+                }
+                finally
+                {
+                    if ( copyIn.isActive() )
+                    {
+                        copyIn.cancelCopy();
+                    }
+                }
+            }
+
+            final List<Object[]> batch = new ArrayList<>( BATCH_SIZE );
+            final long[] rows = { 0 };
+
+            resourceTable.writeTempTableContent( row -> {
+                batch.add( row );
+
+                if ( batch.size() >= BATCH_SIZE )
+                {
+                    rows[0] += batch.size();
+                    batchUpdate( row.length, tableName, batch );
+                    batch.clear();
+                }
+            } );
+
+            if ( !batch.isEmpty() )
+            {
+                rows[0] += batch.size();
+                batchUpdate( batch.get( 0 ).length, tableName, batch );
+            }
+
+            return rows[0];
+        } );
+    }
 }
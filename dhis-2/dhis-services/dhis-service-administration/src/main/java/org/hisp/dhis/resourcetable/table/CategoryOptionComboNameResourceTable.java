@@ -38,6 +38,7 @@ import org.hisp.dhis.resourcetable.ResourceTableType;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hisp.dhis.dataapproval.DataApprovalLevelService.APPROVAL_LEVEL_HIGHEST;
 
@@ -76,8 +77,12 @@ public class CategoryOptionComboNameResourceTable
     @Override
     public Optional<List<Object[]>> getPopulateTempTableContent()
     {
-        List<Object[]> batchArgs = new ArrayList<>();
+        return collectTempTableContent();
+    }
 
+    @Override
+    public void writeTempTableContent( Consumer<Object[]> consumer )
+    {
         for ( CategoryCombo combo : objects )
         {
             if ( !combo.isValid() )
@@ -96,11 +101,9 @@ public class CategoryOptionComboNameResourceTable
                 values.add( coc.getLatestStartDate() );
                 values.add( coc.getEarliestEndDate() );
 
-                batchArgs.add( values.toArray() );
+                consumer.accept( values.toArray() );
             }
         }
-
-        return Optional.of( batchArgs );
     }
 
     @Override
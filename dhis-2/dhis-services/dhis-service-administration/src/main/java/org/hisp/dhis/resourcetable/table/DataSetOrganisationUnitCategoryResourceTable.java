@@ -28,11 +28,11 @@ package org.hisp.dhis.resourcetable.table;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.hisp.dhis.category.CategoryCombo;
@@ -91,8 +91,12 @@ public class DataSetOrganisationUnitCategoryResourceTable
     @Override
     public Optional<List<Object[]>> getPopulateTempTableContent()
     {
-        List<Object[]> batchArgs = new ArrayList<>();
+        return collectTempTableContent();
+    }
 
+    @Override
+    public void writeTempTableContent( Consumer<Object[]> consumer )
+    {
         for ( DataSet dataSet : objects )
         {
             CategoryCombo categoryCombo = dataSet.getCategoryCombo();
@@ -116,7 +120,7 @@ public class DataSetOrganisationUnitCategoryResourceTable
 
                                 List<Object> values = Lists.newArrayList( dataSet.getId(), orgUnit.getId(), optionCombo.getId(), startDate, endDate );
 
-                                batchArgs.add( values.toArray() );
+                                consumer.accept( values.toArray() );
                             }
                         }
                     }
@@ -125,12 +129,10 @@ public class DataSetOrganisationUnitCategoryResourceTable
                 {
                     List<Object> values = Lists.newArrayList( dataSet.getId(), orgUnit.getId(), defaultOptionCombo.getId(), null, null );
 
-                    batchArgs.add( values.toArray() );
+                    consumer.accept( values.toArray() );
                 }
             }
         }
-
-        return Optional.of( batchArgs );
     }
 
     @Override
@@ -34,6 +34,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
@@ -95,8 +96,12 @@ public class OrganisationUnitStructureResourceTable
     @Override
     public Optional<List<Object[]>> getPopulateTempTableContent()
     {
-        List<Object[]> batchArgs = new ArrayList<>();
+        return collectTempTableContent();
+    }
 
+    @Override
+    public void writeTempTableContent( Consumer<Object[]> consumer )
+    {
         for ( int i = 0; i < organisationUnitLevels; i++ )
         {
             int level = i + 1;
@@ -131,11 +136,9 @@ public class OrganisationUnitStructureResourceTable
                     values.add( names.get( k ) );
                 }
 
-                batchArgs.add( values.toArray() );
+                consumer.accept( values.toArray() );
             }
         }
-
-        return Optional.of( batchArgs );
     }
 
     @Override
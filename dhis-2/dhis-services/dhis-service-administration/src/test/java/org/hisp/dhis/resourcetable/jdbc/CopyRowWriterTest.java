@@ -0,0 +1,72 @@
+package org.hisp.dhis.resourcetable.jdbc;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+public class CopyRowWriterTest
+{
+    @Test
+    public void testAppendRow()
+    {
+        StringBuilder buffer = new StringBuilder();
+
+        CopyRowWriter.appendRow( buffer, new Object[] { 1, "a\tb", null, 2.5 }, new SimpleDateFormat( "yyyy-MM-dd" ) );
+
+        assertEquals( "1\ta\\tb\t\\N\t2.5\n", buffer.toString() );
+    }
+
+    @Test
+    public void testAppendRowEscape()
+    {
+        StringBuilder buffer = new StringBuilder();
+
+        CopyRowWriter.appendRow( buffer, new Object[] { "x\\y", "line\r\nnext" }, new SimpleDateFormat( "yyyy-MM-dd" ) );
+
+        assertEquals( "x\\\\y\tline\\r\\nnext\n", buffer.toString() );
+    }
+
+    @Test
+    public void testAppendRowDate()
+    {
+        StringBuilder buffer = new StringBuilder();
+
+        Calendar calendar = new GregorianCalendar( 2019, Calendar.MARCH, 4, 10, 15, 30 );
+
+        CopyRowWriter.appendRow( buffer, new Object[] { "abc", calendar.getTime() }, new SimpleDateFormat( "yyyy-MM-dd HH:mm:ss.SSS" ) );
+
+        assertEquals( "abc\t2019-03-04 10:15:30.000\n", buffer.toString() );
+    }
+}
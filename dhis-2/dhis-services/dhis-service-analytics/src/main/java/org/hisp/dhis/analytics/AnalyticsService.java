@@ -176,4 +176,12 @@ public interface AnalyticsService
      * @param event the {@link ApplicationCacheClearedEvent}.
      */
     void handleApplicationCachesCleared( ApplicationCacheClearedEvent event );
+
+    /**
+     * Event handler for {@link AnalyticsTablesUpdatedEvent}. Invalidates
+     * cached analytics values covered by the analytics table update.
+     *
+     * @param event the {@link AnalyticsTablesUpdatedEvent}.
+     */
+    void handleAnalyticsTablesUpdated( AnalyticsTablesUpdatedEvent event );
 }
@@ -173,6 +173,27 @@ public interface AnalyticsTableManager
      */
     Future<?> applyAggregationLevels( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions, Collection<String> dataElements, int aggregationLevel );
 
+    /**
+     * Creates temporary rollup tables for the given analytics table partition,
+     * one for each of the given organisation unit levels. The rollup tables
+     * are populated from the temporary partition table. Table types which do
+     * not support rollups do nothing.
+     *
+     * @param partition the analytics table partition.
+     * @param levels the organisation unit levels.
+     * @return the number of rollup tables created.
+     */
+    int createRollupTables( AnalyticsTablePartition partition, List<Integer> levels );
+
+    /**
+     * Drops the rollup tables of the given analytics table partition and
+     * renames the temporary rollup tables as replacement.
+     *
+     * @param partition the analytics table partition.
+     * @param levels the organisation unit levels.
+     */
+    void swapRollupTables( AnalyticsTablePartition partition, List<Integer> levels );
+
     /**
      * Performs vacuum or optimization of the given table. The type of operation
      * performed is dependent on the underlying DBMS.
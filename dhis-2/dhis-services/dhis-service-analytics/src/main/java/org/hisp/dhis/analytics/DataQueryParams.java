@@ -1697,30 +1697,32 @@ public class DataQueryParams
      * Creates a mapping of permutation keys and mappings of data element operands
      * and values based on the given mapping of dimension option keys and
      * aggregated values. The data element dimension will be at index 0.
+     * <p>
+     * The permutation keys are backed by the aggregated data keys, and one
+     * dimensional item object is created per distinct data item, as the
+     * aggregated data map can contain millions of entries.
      *
      * @param aggregatedDataMap the aggregated data map.
      * @return a mapping of permutation keys and mappings of data element operands
      *         and values.
      */
-    public static MapMap<String, DimensionalItemObject, Double> getPermutationDimensionalItemValueMap( Map<String, Double> aggregatedDataMap )
+    public static MapMap<PermutationKey, DimensionalItemObject, Double> getPermutationDimensionalItemValueMap( Map<String, Double> aggregatedDataMap )
     {
-        MapMap<String, DimensionalItemObject, Double> permutationMap = new MapMap<>();
+        MapMap<PermutationKey, DimensionalItemObject, Double> permutationMap = new MapMap<>();
 
-        for ( String key : aggregatedDataMap.keySet() )
-        {
-            List<String> keys = Lists.newArrayList( key.split( DIMENSION_SEP ) );
+        Map<String, DimensionalItemObject> dimItemObjectMap = new HashMap<>();
 
-            String dimItem = keys.get( DX_INDEX );
-
-            keys.remove( DX_INDEX );
+        for ( Map.Entry<String, Double> entry : aggregatedDataMap.entrySet() )
+        {
+            String key = entry.getKey();
 
-            BaseDimensionalItemObject dimItemObject = new BaseDimensionalItemObject( dimItem );
+            int sepIndex = key.indexOf( DIMENSION_SEP );
 
-            String permKey = StringUtils.join( keys, DIMENSION_SEP );
+            String dimItem = sepIndex == -1 ? key : key.substring( 0, sepIndex );
 
-            Double value = aggregatedDataMap.get( key );
+            DimensionalItemObject dimItemObject = dimItemObjectMap.computeIfAbsent( dimItem, BaseDimensionalItemObject::new );
 
-            permutationMap.putEntry( permKey, dimItemObject, value );
+            permutationMap.putEntry( PermutationKey.withoutDataItem( key ), dimItemObject, entry.getValue() );
         }
 
         return permutationMap;
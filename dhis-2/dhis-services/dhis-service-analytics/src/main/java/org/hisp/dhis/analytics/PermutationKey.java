@@ -0,0 +1,137 @@
+package org.hisp.dhis.analytics;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.common.DimensionalObject.DIMENSION_SEP;
+
+/**
+ * Key of a permutation of dimension items, used to look up aggregated values
+ * during indicator calculation. The key is backed by a region of a dimension
+ * key string, which means that no characters are copied when the data item
+ * is stripped from the keys of large aggregated data maps. Two keys are equal
+ * when their regions contain the same characters, and the hash code equals
+ * the hash code of the string representation.
+ */
+public final class PermutationKey
+{
+    private final String key;
+
+    private final int offset;
+
+    private final int length;
+
+    private int hash;
+
+    // -------------------------------------------------------------------------
+    // Constructor
+    // -------------------------------------------------------------------------
+
+    private PermutationKey( String key, int offset )
+    {
+        this.key = key;
+        this.offset = offset;
+        this.length = key.length() - offset;
+    }
+
+    // -------------------------------------------------------------------------
+    // Static methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns a permutation key for the given string key.
+     *
+     * @param key the permutation key, dimension items separated by the
+     *        dimension separator.
+     */
+    public static PermutationKey of( String key )
+    {
+        return new PermutationKey( key, 0 );
+    }
+
+    /**
+     * Returns a permutation key for the given aggregated data key, which is the
+     * key without the data item at index 0. If the key has a single item, the
+     * permutation key is empty.
+     *
+     * @param dataKey the aggregated data key, dimension items separated by the
+     *        dimension separator.
+     */
+    public static PermutationKey withoutDataItem( String dataKey )
+    {
+        int sepIndex = dataKey.indexOf( DIMENSION_SEP );
+
+        return new PermutationKey( dataKey, sepIndex == -1 ? dataKey.length() : sepIndex + DIMENSION_SEP.length() );
+    }
+
+    // -------------------------------------------------------------------------
+    // equals, hashCode, toString
+    // -------------------------------------------------------------------------
+
+    @Override
+    public boolean equals( Object object )
+    {
+        if ( this == object )
+        {
+            return true;
+        }
+
+        if ( !(object instanceof PermutationKey) )
+        {
+            return false;
+        }
+
+        PermutationKey other = (PermutationKey) object;
+
+        return length == other.length && key.regionMatches( offset, other.key, other.offset, length );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int h = hash;
+
+        if ( h == 0 )
+        {
+            for ( int i = offset; i < key.length(); i++ )
+            {
+                h = 31 * h + key.charAt( i );
+            }
+
+            hash = h;
+        }
+
+        return h;
+    }
+
+    @Override
+    public String toString()
+    {
+        return key.substring( offset );
+    }
+}
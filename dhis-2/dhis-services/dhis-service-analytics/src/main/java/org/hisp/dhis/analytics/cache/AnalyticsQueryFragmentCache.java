@@ -0,0 +1,346 @@
+package org.hisp.dhis.analytics.cache;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.common.DimensionalObject.DIMENSION_SEP;
+import static org.hisp.dhis.common.DimensionalObject.PERIOD_DIM_ID;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.Partitions;
+import org.hisp.dhis.analytics.QueryKey;
+import org.hisp.dhis.analytics.table.PartitionUtils;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.period.Period;
+
+/**
+ * Cache for aggregated values of planned analytics sub-queries. Values are
+ * cached per period, so that a query which overlaps with previous queries,
+ * e.g. a "last 12 months" query run one month later, is answered from cache
+ * for the overlapping periods and only the remaining periods are retrieved
+ * from the database.
+ * <p>
+ * Cached values are invalidated per analytics table partition through a
+ * generation which is part of the cache key. A partial analytics table update
+ * for the last years invalidates the values of the updated years only, while
+ * a full update or an update of the latest partition, which can contain data
+ * for any year, invalidates all values. The fragment keys, including the
+ * generations, are captured when looking up a query and reused when caching
+ * the values retrieved for it, so that values read from tables which were
+ * replaced while the query was running are stored under the keys of the
+ * previous generation, which are no longer looked up.
+ * <p>
+ * The cache is kept in memory as the partition generations are local to
+ * the instance.
+ */
+public class AnalyticsQueryFragmentCache
+{
+    private static final String CACHE_REGION = "analyticsQueryFragment";
+
+    private final Cache<Fragment> fragmentCache;
+
+    /**
+     * Mapping of year and the generation from which the year and later years
+     * were invalidated.
+     */
+    private final ConcurrentNavigableMap<Integer, Long> invalidatedFromYear = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public AnalyticsQueryFragmentCache( CacheProvider cacheProvider, long expiration, long maxSize )
+    {
+        this.fragmentCache = cacheProvider.newCacheBuilder( Fragment.class ).forRegion( CACHE_REGION )
+            .expireAfterWrite( expiration, TimeUnit.SECONDS ).withMaximumSize( maxSize ).forceInMemory().build();
+    }
+
+    // -------------------------------------------------------------------------
+    // Public methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Indicates whether values for the given planned query can be cached per
+     * period. This requires that the query has a period dimension with a single
+     * period type, and no data approval constraints, which are specific to
+     * the current user.
+     *
+     * @param params the planned {@link DataQueryParams}.
+     * @return true if values for the query can be cached per period.
+     */
+    public boolean isCacheable( DataQueryParams params )
+    {
+        return params.getPeriodType() != null && params.hasDimension( PERIOD_DIM_ID ) &&
+            !params.getPeriods().isEmpty() && params.getDataApprovalLevels().isEmpty();
+    }
+
+    /**
+     * Returns the cached values for the periods of the given query, the
+     * periods for which no values are cached, and the fragment keys of the
+     * periods to be used when caching the values retrieved for them.
+     *
+     * @param params the planned {@link DataQueryParams}.
+     * @param tableType the {@link AnalyticsTableType}.
+     * @return a {@link CachedValues}.
+     */
+    public CachedValues get( DataQueryParams params, AnalyticsTableType tableType )
+    {
+        String baseKey = getBaseKey( params, tableType );
+
+        Map<String, Object> values = new HashMap<>();
+        List<DimensionalItemObject> missingPeriods = new ArrayList<>();
+        Map<String, String> fragmentKeys = new HashMap<>();
+
+        for ( DimensionalItemObject period : params.getPeriods() )
+        {
+            String fragmentKey = getFragmentKey( baseKey, period );
+            fragmentKeys.put( period.getDimensionItem(), fragmentKey );
+
+            Optional<Fragment> fragment = fragmentCache.getIfPresent( fragmentKey );
+
+            if ( fragment.isPresent() )
+            {
+                values.putAll( fragment.get().getValues() );
+            }
+            else
+            {
+                missingPeriods.add( period );
+            }
+        }
+
+        return new CachedValues( values, missingPeriods, fragmentKeys );
+    }
+
+    /**
+     * Caches the given values per period of the given query, under the
+     * fragment keys captured when the query was looked up. Periods without
+     * values are cached as empty fragments.
+     *
+     * @param params the planned {@link DataQueryParams}, which may be reduced
+     *        to the missing periods of the looked up query.
+     * @param cachedValues the {@link CachedValues} returned when looking up
+     *        the query.
+     * @param values the values retrieved for the query.
+     */
+    public void put( DataQueryParams params, CachedValues cachedValues, Map<String, Object> values )
+    {
+        final int periodIndex = params.getPeriodDimensionIndex();
+        final int dimensionCount = params.getDimensions().size();
+
+        Map<String, HashMap<String, Object>> periodValues = new HashMap<>();
+
+        params.getPeriods().forEach( p -> periodValues.put( p.getDimensionItem(), new HashMap<>() ) );
+
+        for ( Map.Entry<String, Object> entry : values.entrySet() )
+        {
+            String[] keyComponents = entry.getKey().split( DIMENSION_SEP );
+
+            HashMap<String, Object> fragmentValues = keyComponents.length == dimensionCount ?
+                periodValues.get( keyComponents[periodIndex] ) : null;
+
+            if ( fragmentValues == null )
+            {
+                return; // Key cannot be mapped to a period, skip caching
+            }
+
+            fragmentValues.put( entry.getKey(), entry.getValue() );
+        }
+
+        for ( DimensionalItemObject period : params.getPeriods() )
+        {
+            String fragmentKey = cachedValues.getFragmentKey( period );
+
+            if ( fragmentKey != null )
+            {
+                fragmentCache.put( fragmentKey, new Fragment( periodValues.get( period.getDimensionItem() ) ) );
+            }
+        }
+    }
+
+    /**
+     * Invalidates cached values covered by the given analytics table update.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     */
+    public void invalidate( AnalyticsTableUpdateParams params )
+    {
+        Date fromDate = params.getFromDate();
+
+        if ( params.isLatestUpdate() || fromDate == null )
+        {
+            invalidateAll();
+        }
+        else
+        {
+            invalidatedFromYear.put( PartitionUtils.getPartitions( fromDate, fromDate ).getAny(), generation.incrementAndGet() );
+        }
+    }
+
+    /**
+     * Invalidates all cached values.
+     */
+    public void invalidateAll()
+    {
+        invalidatedFromYear.put( Integer.MIN_VALUE, generation.incrementAndGet() );
+        fragmentCache.invalidateAll();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns a key for the given query which excludes the period dimension
+     * and the partitions, which both vary with the set of periods.
+     */
+    private String getBaseKey( DataQueryParams params, AnalyticsTableType tableType )
+    {
+        DataQueryParams query = DataQueryParams.newBuilder( params )
+            .removeDimension( PERIOD_DIM_ID ).build();
+
+        return new QueryKey()
+            .add( query.getKey() )
+            .add( tableType )
+            .add( params.getDataType() )
+            .add( params.getPeriodType() )
+            .add( params.getDataPeriodType() )
+            .add( params.isTimely() )
+            .add( params.isRestrictByOrgUnitOpeningClosedDate() )
+            .add( params.isRestrictByCategoryOptionStartEndDate() )
+            .add( params.getStartDateRestriction() )
+            .add( params.getEndDateRestriction() ).asPlainKey();
+    }
+
+    private String getFragmentKey( String baseKey, DimensionalItemObject period )
+    {
+        Partitions partitions = PartitionUtils.getPartitions( (Period) period );
+
+        QueryKey key = new QueryKey()
+            .add( baseKey )
+            .add( period.getDimensionItem() );
+
+        partitions.getPartitions().stream().sorted()
+            .forEach( year -> key.add( year ).add( getGeneration( year ) ) );
+
+        return key.build();
+    }
+
+    /**
+     * Returns the generation of the given year, i.e. the generation of the
+     * latest invalidation covering the year, or 0 if not invalidated.
+     */
+    private long getGeneration( Integer year )
+    {
+        return invalidatedFromYear.headMap( year, true ).values().stream()
+            .mapToLong( Long::longValue ).max().orElse( 0L );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive classes
+    // -------------------------------------------------------------------------
+
+    /**
+     * Cached values for a single period of a query.
+     */
+    public static class Fragment
+        implements Serializable
+    {
+        private final HashMap<String, Object> values;
+
+        public Fragment( HashMap<String, Object> values )
+        {
+            this.values = values;
+        }
+
+        public Map<String, Object> getValues()
+        {
+            return Collections.unmodifiableMap( values );
+        }
+    }
+
+    /**
+     * Values found in the cache for a query, the periods of the query for
+     * which no values were found, and the fragment keys of the periods at the
+     * time of the lookup.
+     */
+    public static class CachedValues
+    {
+        private final Map<String, Object> values;
+
+        private final List<DimensionalItemObject> missingPeriods;
+
+        private final Map<String, String> fragmentKeys;
+
+        public CachedValues( Map<String, Object> values, List<DimensionalItemObject> missingPeriods,
+            Map<String, String> fragmentKeys )
+        {
+            this.values = values;
+            this.missingPeriods = missingPeriods;
+            this.fragmentKeys = fragmentKeys;
+        }
+
+        public Map<String, Object> getValues()
+        {
+            return values;
+        }
+
+        public List<DimensionalItemObject> getMissingPeriods()
+        {
+            return missingPeriods;
+        }
+
+        public boolean hasMissingPeriods()
+        {
+            return !missingPeriods.isEmpty();
+        }
+
+        /**
+         * Returns the fragment key of the given period at the time of the
+         * lookup, or null if the period was not part of the looked up query.
+         */
+        public String getFragmentKey( DimensionalItemObject period )
+        {
+            return fragmentKeys.get( period.getDimensionItem() );
+        }
+    }
+}
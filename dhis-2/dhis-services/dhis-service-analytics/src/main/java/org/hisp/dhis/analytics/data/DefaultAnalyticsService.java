@@ -68,17 +68,21 @@ import org.hisp.dhis.analytics.AnalyticsMetaDataKey;
 import org.hisp.dhis.analytics.AnalyticsSecurityManager;
 import org.hisp.dhis.analytics.AnalyticsService;
 import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTablesUpdatedEvent;
 import org.hisp.dhis.analytics.DataQueryGroups;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataQueryService;
 import org.hisp.dhis.analytics.DimensionItem;
 import org.hisp.dhis.analytics.OutputFormat;
+import org.hisp.dhis.analytics.PermutationKey;
 import org.hisp.dhis.analytics.ProcessingHint;
 import org.hisp.dhis.analytics.QueryPlanner;
 import org.hisp.dhis.analytics.QueryPlannerParams;
 import org.hisp.dhis.analytics.QueryValidator;
 import org.hisp.dhis.analytics.RawAnalyticsManager;
 import org.hisp.dhis.analytics.SortOrder;
+import org.hisp.dhis.analytics.cache.AnalyticsQueryFragmentCache;
+import org.hisp.dhis.analytics.cache.AnalyticsQueryFragmentCache.CachedValues;
 import org.hisp.dhis.analytics.event.EventAnalyticsService;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.resolver.ExpressionResolver;
@@ -135,6 +139,7 @@ public class DefaultAnalyticsService
     private static final int MAX_QUERIES = 8;
     private static final int MAX_CACHE_ENTRIES = 20000;
     private static final String CACHE_REGION = "analyticsQueryResponse";
+    private static final int MAX_FRAGMENT_CACHE_ENTRIES = 100000;
 
     private final AnalyticsManager analyticsManager;
 
@@ -172,6 +177,8 @@ public class DefaultAnalyticsService
 
     private Cache<Grid> queryCache;
 
+    private AnalyticsQueryFragmentCache fragmentCache;
+
     @PostConstruct
     public void init()
     {
@@ -181,6 +188,8 @@ public class DefaultAnalyticsService
         queryCache = cacheProvider.newCacheBuilder( Grid.class ).forRegion( CACHE_REGION )
             .expireAfterWrite( expiration, TimeUnit.SECONDS ).withMaximumSize( enabled ? MAX_CACHE_ENTRIES : 0 ).build();
 
+        fragmentCache = new AnalyticsQueryFragmentCache( cacheProvider, expiration, enabled ? MAX_FRAGMENT_CACHE_ENTRIES : 0 );
+
         log.info( String.format( "Analytics server-side cache is enabled: %b with expiration: %d s", enabled, expiration ) );
     }
 
@@ -314,9 +323,19 @@ public class DefaultAnalyticsService
     public void handleApplicationCachesCleared( ApplicationCacheClearedEvent event )
     {
         queryCache.invalidateAll();
+        fragmentCache.invalidateAll();
         log.info( "Analytics cache cleared" );
     }
 
+    @Override
+    @EventListener
+    public void handleAnalyticsTablesUpdated( AnalyticsTablesUpdatedEvent event )
+    {
+        queryCache.invalidateAll();
+        fragmentCache.invalidate( event.getParams() );
+        log.info( "Analytics cache invalidated after analytics table update" );
+    }
+
     // -------------------------------------------------------------------------
     // Private business logic methods
     // -------------------------------------------------------------------------
@@ -488,15 +507,21 @@ public class DefaultAnalyticsService
 
             List<List<DimensionItem>> dimensionItemPermutations = dataSourceParams.getDimensionItemPermutations();
 
-            Map<String, Map<DimensionalItemObject, Double>> permutationDimensionItemValueMap = getPermutationDimensionItemValueMap( dataSourceParams );
+            Map<PermutationKey, Map<DimensionalItemObject, Double>> permutationDimensionItemValueMap = getPermutationDimensionItemValueMap( dataSourceParams );
 
             handleEmptyDimensionItemPermutations( dimensionItemPermutations );
 
+            List<PermutationKey> permKeys = dimensionItemPermutations.stream()
+                .map( dimensionItems -> PermutationKey.of( DimensionItem.asItemKey( dimensionItems ) ) )
+                .collect( Collectors.toList() );
+
             for ( Indicator indicator : indicators )
             {
-                for ( List<DimensionItem> dimensionItems : dimensionItemPermutations )
+                for ( int i = 0; i < dimensionItemPermutations.size(); i++ )
                 {
-                    String permKey = DimensionItem.asItemKey( dimensionItems );
+                    List<DimensionItem> dimensionItems = dimensionItemPermutations.get( i );
+
+                    PermutationKey permKey = permKeys.get( i );
 
                     Map<DimensionalItemObject, Double> valueMap = permutationDimensionItemValueMap.get( permKey );
 
@@ -1206,25 +1231,55 @@ public class DefaultAnalyticsService
 
         Map<String, Object> map = new HashMap<>();
 
+        final boolean fragmentCaching = dhisConfig.isAnalyticsCacheEnabled();
+
         for ( List<DataQueryParams> queries : queryGroups.getSequentialQueries() )
         {
             List<Future<Map<String, Object>>> futures = new ArrayList<>();
+            List<DataQueryParams> futureQueries = new ArrayList<>();
+            List<CachedValues> futureCachedValues = new ArrayList<>();
 
             for ( DataQueryParams query : queries )
             {
+                CachedValues cachedValues = null;
+
+                if ( fragmentCaching && fragmentCache.isCacheable( query ) )
+                {
+                    cachedValues = fragmentCache.get( query, tableType );
+
+                    map.putAll( cachedValues.getValues() );
+
+                    if ( !cachedValues.hasMissingPeriods() )
+                    {
+                        continue;
+                    }
+
+                    query = DataQueryParams.newBuilder( query )
+                        .withPeriods( cachedValues.getMissingPeriods(), query.getPeriodType() ).build();
+                }
+
                 futures.add( analyticsManager.getAggregatedDataValues( query, tableType, maxLimit ) );
+                futureQueries.add( query );
+                futureCachedValues.add( cachedValues );
             }
 
-            for ( Future<Map<String, Object>> future : futures )
+            for ( int i = 0; i < futures.size(); i++ )
             {
                 try
                 {
-                    Map<String, Object> taskValues = future.get();
+                    Map<String, Object> taskValues = futures.get( i ).get();
 
                     if ( taskValues != null )
                     {
                         map.putAll( taskValues );
                     }
+
+                    CachedValues cachedValues = futureCachedValues.get( i );
+
+                    if ( cachedValues != null )
+                    {
+                        fragmentCache.put( futureQueries.get( i ), cachedValues, taskValues != null ? taskValues : new HashMap<>() );
+                    }
                 }
                 catch ( Exception ex )
                 {
@@ -1320,7 +1375,7 @@ public class DefaultAnalyticsService
      *
      * @param params the {@link DataQueryParams}.
      */
-    private Map<String, Map<DimensionalItemObject, Double>> getPermutationDimensionItemValueMap( DataQueryParams params )
+    private Map<PermutationKey, Map<DimensionalItemObject, Double>> getPermutationDimensionItemValueMap( DataQueryParams params )
     {
         List<Indicator> indicators = asTypedList( params.getIndicators() );
 
@@ -34,6 +34,7 @@ import static org.hisp.dhis.common.DimensionalObject.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
 
 import org.apache.commons.logging.Log;
@@ -41,12 +42,15 @@ import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.analytics.*;
 import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.analytics.table.PartitionUtils;
+import org.hisp.dhis.analytics.table.RollupUtils;
 import org.hisp.dhis.common.*;
 import org.hisp.dhis.commons.collection.PaginatedList;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dataelement.DataElementGroup;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.util.MathUtils;
 import org.hisp.dhis.util.ObjectUtils;
 import org.springframework.stereotype.Component;
@@ -67,13 +71,18 @@ public class DefaultQueryPlanner
 
     private final PartitionManager partitionManager;
 
-    public DefaultQueryPlanner( QueryValidator queryValidator, PartitionManager partitionManager )
+    private final SystemSettingManager systemSettingManager;
+
+    public DefaultQueryPlanner( QueryValidator queryValidator, PartitionManager partitionManager,
+        SystemSettingManager systemSettingManager )
     {
         checkNotNull( queryValidator );
         checkNotNull( partitionManager );
+        checkNotNull( systemSettingManager );
 
         this.queryValidator = queryValidator;
         this.partitionManager = partitionManager;
+        this.systemSettingManager = systemSettingManager;
     }
 
     // -------------------------------------------------------------------------
@@ -104,6 +113,7 @@ public class DefaultQueryPlanner
             .add( q -> groupByDataPeriodType( q ) )
             .add( q -> groupByPeriod( q ) )
             .addAll( plannerParams.getQueryGroupers() )
+            .add( q -> Lists.newArrayList( withRollupTable( q, plannerParams ) ) )
             .build();
 
         for ( Function<DataQueryParams, List<DataQueryParams>> grouper : groupers )
@@ -171,6 +181,89 @@ public class DefaultQueryPlanner
             .build();
     }
 
+    // -------------------------------------------------------------------------
+    // Supportive rollup methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Routes the given query to the smallest rollup table which can answer
+     * the query. A rollup table can answer the query if the query aggregates
+     * numeric values with sum, does not reference organisation unit levels
+     * below the level of the rollup table or period types shorter than
+     * months, and does not depend on columns which are not part of rollup
+     * tables. Only rollup tables of the configured organisation unit levels
+     * are considered, and rollup tables must exist for all partitions of the
+     * query. The query is returned unchanged if no rollup table can answer
+     * the query.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @param plannerParams the {@link QueryPlannerParams}.
+     * @return a {@link DataQueryParams}.
+     */
+    private DataQueryParams withRollupTable( DataQueryParams params, QueryPlannerParams plannerParams )
+    {
+        if ( !isRollupEligible( params, plannerParams.getTableType() ) )
+        {
+            return params;
+        }
+
+        final List<Integer> levels = RollupUtils.getRollupLevels(
+            (String) systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_ROLLUP_ORG_UNIT_LEVELS ) );
+
+        if ( levels.isEmpty() )
+        {
+            return params;
+        }
+
+        final String tableName = plannerParams.getTableName();
+        final Set<String> tables = partitionManager.getAnalyticsPartitions( plannerParams.getTableType() );
+
+        for ( Integer level : levels )
+        {
+            boolean columnsExist = params.getDimensionsAndFilters().stream()
+                .allMatch( dim -> dim.getDimensionName() != null && RollupUtils.isRollupColumn( dim.getDimensionName(), level ) );
+
+            boolean partitionsExist = params.getPartitions().getPartitions().stream()
+                .allMatch( partition -> tables.contains( RollupUtils.getRollupPartitionName( tableName, level, partition ) ) );
+
+            if ( columnsExist && partitionsExist )
+            {
+                return DataQueryParams.newBuilder( params )
+                    .withTableName( RollupUtils.getRollupTableName( tableName, level ) )
+                    .build();
+            }
+        }
+
+        return params;
+    }
+
+    /**
+     * Indicates whether the given query can potentially be answered from
+     * a rollup table. Rollup tables are not used if the latest partition
+     * exists, as data in the latest partition has been removed from the
+     * yearly partitions after the rollup tables were built.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @param tableType the {@link AnalyticsTableType}.
+     */
+    private boolean isRollupEligible( DataQueryParams params, AnalyticsTableType tableType )
+    {
+        AnalyticsAggregationType aggType = params.getAggregationType();
+
+        return AnalyticsTableType.DATA_VALUE == tableType &&
+            !params.isSkipPartitioning() && params.hasPartitions() &&
+            !params.getPartitions().getPartitions().contains( AnalyticsTablePartition.LATEST_PARTITION ) &&
+            params.isDataType( DataType.NUMERIC ) &&
+            aggType != null && aggType.isAggregationType( AggregationType.SUM ) && !aggType.isFirstOrLastPeriodAggregationType() &&
+            !params.hasDataPeriodType() &&
+            !params.hasPreAggregateMeasureCriteria() &&
+            !params.isDataApproval() &&
+            !params.hasStartEndDate() &&
+            !params.isTimely() &&
+            !params.isRestrictByOrgUnitOpeningClosedDate() &&
+            !params.isRestrictByCategoryOptionStartEndDate();
+    }
+
     // -------------------------------------------------------------------------
     // Supportive split methods
     // -------------------------------------------------------------------------
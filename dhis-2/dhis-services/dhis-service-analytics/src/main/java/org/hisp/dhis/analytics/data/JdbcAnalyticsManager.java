@@ -651,7 +651,8 @@ public class JdbcAnalyticsManager
 
     /**
      * Retrieves data from the database based on the given query and SQL and puts
-     * into a value key and value mapping.
+     * into a value key and value mapping. The dimensions and the key builder are
+     * resolved once and reused for all rows, as result sets can be large.
      */
     private Map<String, Object> getKeyValueMap( DataQueryParams params, String sql, int maxLimit )
     {
@@ -661,6 +662,10 @@ public class JdbcAnalyticsManager
 
         SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
 
+        final List<DimensionalObject> dimensions = params.getDimensions();
+        final boolean textType = params.isDataType( TEXT );
+        final StringBuilder key = new StringBuilder();
+
         int counter = 0;
 
         while ( rowSet.next() )
@@ -670,9 +675,9 @@ public class JdbcAnalyticsManager
                 throw new IllegalQueryException( "Query result set exceeds max limit: " + maxLimit );
             }
 
-            StringBuilder key = new StringBuilder();
+            key.setLength( 0 );
 
-            for ( DimensionalObject dim : params.getDimensions() )
+            for ( DimensionalObject dim : dimensions )
             {
                 String value = dim.isFixed() ? dim.getDimensionName() : rowSet.getString( dim.getDimensionName() );
 
@@ -681,7 +686,7 @@ public class JdbcAnalyticsManager
 
             key.deleteCharAt( key.length() - 1 );
 
-            if ( params.isDataType( TEXT ) )
+            if ( textType )
             {
                 String value = rowSet.getString( VALUE_ID );
 
@@ -28,7 +28,11 @@ package org.hisp.dhis.analytics.event;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.List;
+import java.util.function.Consumer;
+
 import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.GridHeader;
 
 import org.hisp.dhis.analytics.Rectangle;
 
@@ -41,6 +45,18 @@ public interface EventAnalyticsManager
 
     Grid getEvents( EventQueryParams params, Grid grid, int maxLimit );
 
+    /**
+     * Retrieves the events for the given query and hands each row to the given
+     * consumer as it is read from the database, without collecting the result
+     * in memory. Rows are read through a forward-only cursor.
+     *
+     * @param params the {@link EventQueryParams}.
+     * @param headers the grid headers describing the row values.
+     * @param maxLimit the max number of records to return.
+     * @param consumer the consumer of rows.
+     */
+    void streamEvents( EventQueryParams params, List<GridHeader> headers, int maxLimit, Consumer<List<Object>> consumer );
+
     Grid getEventClusters( EventQueryParams params, Grid grid, int maxLimit );
 
     long getEventCount( EventQueryParams params );
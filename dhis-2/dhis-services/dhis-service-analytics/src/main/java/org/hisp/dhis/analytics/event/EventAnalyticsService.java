@@ -102,6 +102,16 @@ public interface EventAnalyticsService
      */
     Grid getEvents( EventQueryParams params );
 
+    /**
+     * Streams the events matching the given query to the given handler
+     * without holding the full result in memory. The handler first receives
+     * the headers and meta data, then each row as it is read.
+     *
+     * @param params the event query parameters.
+     * @param handler the {@link EventRowHandler}.
+     */
+    void streamEvents( EventQueryParams params, EventRowHandler handler );
+
     /**
      * Returns a list of event clusters matching the given query.
      *
@@ -76,29 +76,13 @@ public abstract class AbstractAnalyticsService
 
     protected Grid getGrid( EventQueryParams params )
     {
-        securityManager.decideAccessEventQuery( params );
-
-        queryValidator.validate( params );
-
-        params = new EventQueryParams.Builder( params )
-                .withStartEndDatesForPeriods()
-                .build();
+        params = prepareParams( params );
 
         // ---------------------------------------------------------------------
         // Headers
         // ---------------------------------------------------------------------
 
-        Grid grid = createGridWithHeaders( params );
-
-        for ( DimensionalObject dimension : params.getDimensions() )
-        {
-            grid.addHeader( new GridHeader( dimension.getDimension(), dimension.getDisplayProperty( params.getDisplayProperty() ), ValueType.TEXT, String.class.getName(), false, true ) );
-        }
-
-        for ( QueryItem item : params.getItems() )
-        {
-            grid.addHeader( new GridHeader( item.getItem().getUid(), item.getItem().getDisplayProperty( params.getDisplayProperty() ), item.getValueType(), item.getTypeAsString(), false, true, item.getOptionSet(), item.getLegendSet() ) );
-        }
+        Grid grid = getGridWithHeaders( params );
 
         // ---------------------------------------------------------------------
         // Data
@@ -125,14 +109,68 @@ public abstract class AbstractAnalyticsService
         // Paging
         // ---------------------------------------------------------------------
 
+        addPager( params, grid, count );
+
+        return grid;
+    }
+
+    /**
+     * Checks access, validates the given query and sets start and end dates
+     * for the periods of the query.
+     *
+     * @param params the query parameters.
+     * @return the prepared query parameters.
+     */
+    protected EventQueryParams prepareParams( EventQueryParams params )
+    {
+        securityManager.decideAccessEventQuery( params );
+
+        queryValidator.validate( params );
+
+        return new EventQueryParams.Builder( params )
+                .withStartEndDatesForPeriods()
+                .build();
+    }
+
+    /**
+     * Returns a grid with the fixed headers and a header for each dimension
+     * and item of the given query.
+     *
+     * @param params the query parameters.
+     * @return a grid without rows.
+     */
+    protected Grid getGridWithHeaders( EventQueryParams params )
+    {
+        Grid grid = createGridWithHeaders( params );
+
+        for ( DimensionalObject dimension : params.getDimensions() )
+        {
+            grid.addHeader( new GridHeader( dimension.getDimension(), dimension.getDisplayProperty( params.getDisplayProperty() ), ValueType.TEXT, String.class.getName(), false, true ) );
+        }
+
+        for ( QueryItem item : params.getItems() )
+        {
+            grid.addHeader( new GridHeader( item.getItem().getUid(), item.getItem().getDisplayProperty( params.getDisplayProperty() ), item.getValueType(), item.getTypeAsString(), false, true, item.getOptionSet(), item.getLegendSet() ) );
+        }
+
+        return grid;
+    }
+
+    /**
+     * Adds a pager to the meta data of the given grid if the query is paged.
+     *
+     * @param params the query parameters.
+     * @param grid the grid.
+     * @param count the total number of rows.
+     */
+    protected void addPager( EventQueryParams params, Grid grid, long count )
+    {
         if ( params.isPaging() )
         {
             Pager pager = new Pager( params.getPageWithDefault(), count, params.getPageSizeWithDefault() );
 
             grid.getMetaData().put( PAGER.getKey(), pager );
         }
-
-        return grid;
     }
 
     protected abstract Grid createGridWithHeaders( EventQueryParams params );
@@ -267,20 +305,36 @@ public abstract class AbstractAnalyticsService
 
     private void substituteData( Grid grid )
     {
-        for ( int i = 0; i < grid.getHeaders().size(); i++ )
+        Map<Integer, Map<String, String>> substitutionMaps = getDataIdSchemeMaps( grid.getHeaders() );
+
+        substitutionMaps.forEach( ( index, map ) -> grid.substituteMetaData( index, index, map ) );
+    }
+
+    /**
+     * Returns a map between column index and a map of option codes or legend
+     * identifiers to names for each header with an option set or legend set.
+     *
+     * @param headers the list of {@link GridHeader}.
+     * @return a map between column index and substitution map.
+     */
+    protected Map<Integer, Map<String, String>> getDataIdSchemeMaps( List<GridHeader> headers )
+    {
+        Map<Integer, Map<String, String>> substitutionMaps = new HashMap<>();
+
+        for ( int i = 0; i < headers.size(); i++ )
         {
-            GridHeader header = grid.getHeaders().get( i );
+            GridHeader header = headers.get( i );
 
             if ( header.hasOptionSet() )
             {
-                Map<String, String> optionMap = header.getOptionSetObject().getOptionCodePropertyMap( IdScheme.NAME );
-                grid.substituteMetaData( i, i, optionMap );
+                substitutionMaps.put( i, header.getOptionSetObject().getOptionCodePropertyMap( IdScheme.NAME ) );
             }
             else if ( header.hasLegendSet() )
             {
-                Map<String, String> legendMap = header.getLegendSetObject().getLegendUidPropertyMap( IdScheme.NAME );
-                grid.substituteMetaData( i, i, legendMap );
+                substitutionMaps.put( i, header.getLegendSetObject().getLegendUidPropertyMap( IdScheme.NAME ) );
             }
         }
+
+        return substitutionMaps;
     }
 }
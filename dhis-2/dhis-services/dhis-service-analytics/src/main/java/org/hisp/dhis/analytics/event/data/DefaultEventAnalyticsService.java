@@ -575,6 +575,54 @@ public class DefaultEventAnalyticsService
         return getGrid( params );
     }
 
+    @Override
+    public void streamEvents( EventQueryParams params, EventRowHandler handler )
+    {
+        params = prepareParams( params );
+
+        Grid grid = getGridWithHeaders( params );
+
+        addMetadata( params, grid );
+
+        Timer timer = new Timer().start().disablePrint();
+
+        EventQueryParams plannedParams = queryPlanner.planEventQuery( params );
+
+        timer.getSplitTime( "Planned event query, got partitions: " + plannedParams.getPartitions() );
+
+        boolean hasData = plannedParams.getPartitions().hasAny();
+
+        if ( params.isPaging() )
+        {
+            addPager( params, grid, hasData ? eventAnalyticsManager.getEventCount( plannedParams ) : 0 );
+        }
+
+        handler.start( grid );
+
+        if ( hasData )
+        {
+            List<GridHeader> headers = grid.getHeaders();
+
+            Map<Integer, Map<String, String>> substitutionMaps = params.hasDataIdScheme() ?
+                getDataIdSchemeMaps( headers ) : new HashMap<>();
+
+            eventAnalyticsManager.streamEvents( plannedParams, headers, queryValidator.getMaxLimit(), row -> {
+                substitutionMaps.forEach( ( index, map ) -> {
+                    String value = map.get( row.get( index ) );
+
+                    if ( value != null )
+                    {
+                        row.set( index, value );
+                    }
+                } );
+
+                handler.row( row );
+            } );
+
+            timer.getTime( "Streamed events" );
+        }
+    }
+
     @Override
     public Grid getEventClusters( EventQueryParams params )
     {
@@ -44,8 +44,15 @@ import static org.hisp.dhis.commons.util.TextUtils.getQuotedCommaDelimitedString
 import static org.hisp.dhis.commons.util.TextUtils.removeLastOr;
 import static org.hisp.dhis.util.DateUtils.getMediumDateString;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
@@ -53,6 +60,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.commons.math3.util.Precision;
 import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.AnalyticsTablesUpdatedEvent;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.Rectangle;
 import org.hisp.dhis.analytics.event.EventAnalyticsManager;
@@ -70,6 +78,7 @@ import org.hisp.dhis.common.OrganisationUnitSelectionMode;
 import org.hisp.dhis.common.QueryFilter;
 import org.hisp.dhis.common.QueryItem;
 import org.hisp.dhis.common.QueryTimeoutException;
+import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
 import org.hisp.dhis.commons.collection.ListUtils;
 import org.hisp.dhis.commons.util.ExpressionUtils;
 import org.hisp.dhis.commons.util.SqlHelper;
@@ -81,8 +90,10 @@ import org.hisp.dhis.program.AnalyticsPeriodBoundary;
 import org.hisp.dhis.program.AnalyticsType;
 import org.hisp.dhis.program.ProgramIndicatorService;
 import org.hisp.dhis.system.util.MathUtils;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
@@ -104,6 +115,26 @@ public class JdbcEventAnalyticsManager
 {
     private static final Log log = LogFactory.getLog( JdbcEventAnalyticsManager.class );
 
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private static final String EVENT_GEOMETRY_COL = "psigeometry";
+
+    private static final String EVENT_GEOHASH_COL = "psigeohash";
+
+    private static final int MAX_GEOHASH_PRECISION = 12;
+
+    /**
+     * Meters per degree of longitude in the web mercator projection (EPSG:3785)
+     * in which cluster sizes are given.
+     */
+    private static final double MERCATOR_METERS_PER_DEGREE = 111319.49;
+
+    /**
+     * Indicates whether analytics tables, mapped by table name, have the
+     * geohash column. Tables built before the column was introduced lack it.
+     */
+    private final ConcurrentMap<String, Boolean> geohashTables = new ConcurrentHashMap<>();
+
     public JdbcEventAnalyticsManager(JdbcTemplate jdbcTemplate, StatementBuilder statementBuilder,
                                      ProgramIndicatorService programIndicatorService,
                                      DefaultProgramIndicatorSubqueryBuilder programIndicatorSubqueryBuilder )
@@ -125,34 +156,91 @@ public class JdbcEventAnalyticsManager
     {
         log.debug( String.format( "Analytics event query SQL: %s", sql ) );
 
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
+        jdbcTemplate.query( sql, rs -> {
+            grid.addRow().addValuesAsList( getEventRow( params, grid.getHeaders(), rs ) );
+        } );
+    }
 
-        while ( rowSet.next() )
-        {
-            grid.addRow();
+    @Override
+    public void streamEvents( EventQueryParams params, List<GridHeader> headers, int maxLimit, Consumer<List<Object>> consumer )
+    {
+        String sql = getEventsOrEnrollmentsSql( params, maxLimit );
+
+        log.debug( String.format( "Analytics event stream SQL: %s", sql ) );
 
-            int index = 1;
+        withExceptionHandling( () -> jdbcTemplate.execute( (ConnectionCallback<Void>) connection -> {
 
-            for ( GridHeader header : grid.getHeaders() )
+            // PostgreSQL only reads through a cursor outside auto-commit mode
+
+            boolean autoCommit = connection.getAutoCommit();
+
+            if ( autoCommit )
             {
-                if ( ITEM_LONGITUDE.equals( header.getName() ) || ITEM_LATITUDE.equals( header.getName() ) )
-                {
-                    double val = rowSet.getDouble( index );
-                    grid.addValue( Precision.round( val, COORD_DEC ) );
-                }
-                else if ( Double.class.getName().equals( header.getType() ) && !header.hasLegendSet() )
+                connection.setAutoCommit( false );
+            }
+
+            try ( Statement statement = connection.createStatement( ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY ) )
+            {
+                statement.setFetchSize( STREAM_FETCH_SIZE );
+
+                try ( ResultSet rs = statement.executeQuery( sql ) )
                 {
-                    double val = rowSet.getDouble( index );
-                    grid.addValue( params.isSkipRounding() ? val : MathUtils.getRounded( val ) );
+                    while ( rs.next() )
+                    {
+                        consumer.accept( getEventRow( params, headers, rs ) );
+                    }
                 }
-                else
+            }
+            finally
+            {
+                if ( autoCommit )
                 {
-                    grid.addValue( rowSet.getString( index ) );
+                    connection.rollback();
+                    connection.setAutoCommit( true );
                 }
+            }
 
-                index++;
+            return null;
+        } ) );
+    }
+
+    /**
+     * Reads the current row of the given result set into a list of values
+     * corresponding to the given headers.
+     *
+     * @param params the {@link EventQueryParams}.
+     * @param headers the list of {@link GridHeader}.
+     * @param rs the result set positioned at a row.
+     * @return a list of values.
+     */
+    private List<Object> getEventRow( EventQueryParams params, List<GridHeader> headers, ResultSet rs )
+        throws SQLException
+    {
+        List<Object> row = new ArrayList<>( headers.size() );
+
+        int index = 1;
+
+        for ( GridHeader header : headers )
+        {
+            if ( ITEM_LONGITUDE.equals( header.getName() ) || ITEM_LATITUDE.equals( header.getName() ) )
+            {
+                double val = rs.getDouble( index );
+                row.add( Precision.round( val, COORD_DEC ) );
+            }
+            else if ( Double.class.getName().equals( header.getType() ) && !header.hasLegendSet() )
+            {
+                double val = rs.getDouble( index );
+                row.add( params.isSkipRounding() ? val : MathUtils.getRounded( val ) );
+            }
+            else
+            {
+                row.add( rs.getString( index ) );
             }
+
+            index++;
         }
+
+        return row;
     }
 
     @Override
@@ -176,8 +264,61 @@ public class JdbcEventAnalyticsManager
 
         sql += getWhereClause( params );
 
-        sql += "group by ST_SnapToGrid(ST_Transform(ST_SetSRID(ST_Centroid(" + quotedClusterField + "), 4326), 3785), " + params.getClusterSize() + ") ";
+        if ( EVENT_GEOMETRY_COL.equals( clusterField ) && hasGeohashColumn( params.getTableName() ) )
+        {
+            sql += "group by left(" + quoteAlias( EVENT_GEOHASH_COL ) + ", " + getGeohashPrecision( params.getClusterSize() ) + ") ";
+        }
+        else
+        {
+            sql += "group by ST_SnapToGrid(ST_Transform(ST_SetSRID(ST_Centroid(" + quotedClusterField + "), 4326), 3785), " + params.getClusterSize() + ") ";
+        }
+
+        return getEventClusters( grid, sql );
+    }
+
+    @EventListener
+    public void handleApplicationCachesCleared( ApplicationCacheClearedEvent event )
+    {
+        geohashTables.clear();
+    }
+
+    @EventListener
+    public void handleAnalyticsTablesUpdated( AnalyticsTablesUpdatedEvent event )
+    {
+        geohashTables.clear();
+    }
+
+    /**
+     * Indicates whether the given analytics table has the geohash column. The
+     * result is cached until the analytics tables are updated.
+     *
+     * @param tableName the analytics table name.
+     */
+    private boolean hasGeohashColumn( String tableName )
+    {
+        return geohashTables.computeIfAbsent( tableName, table -> {
+            final String sql =
+                "select count(column_name) from information_schema.columns " +
+                "where table_name = '" + table.toLowerCase() + "' " +
+                "and column_name = '" + EVENT_GEOHASH_COL + "'";
+
+            log.debug( "Geohash column exists SQL: " + sql );
 
+            Integer count = jdbcTemplate.queryForObject( sql, Integer.class );
+
+            if ( count == null || count == 0 )
+            {
+                log.info( String.format( "Geohash column not present in analytics table %s, using grid clustering", table ) );
+
+                return false;
+            }
+
+            return true;
+        } );
+    }
+
+    private Grid getEventClusters( Grid grid, String sql )
+    {
         log.debug( String.format( "Analytics event cluster SQL: %s", sql ) );
 
         SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
@@ -194,6 +335,32 @@ public class JdbcEventAnalyticsManager
         return grid;
     }
 
+    /**
+     * Returns the geohash precision, i.e. the geohash prefix length, of the
+     * smallest geohash cells which are at least as wide as the given cluster
+     * size. Geohash cells have a fixed width in degrees of longitude, which
+     * maps to a fixed width in the web mercator projection.
+     *
+     * @param clusterSize the cluster size in web mercator meters.
+     * @return a geohash precision between 1 and 12.
+     */
+    static int getGeohashPrecision( long clusterSize )
+    {
+        for ( int precision = MAX_GEOHASH_PRECISION; precision > 1; precision-- )
+        {
+            int longitudeBits = ( 5 * precision + 1 ) / 2;
+
+            double cellWidth = 360d / Math.pow( 2, longitudeBits ) * MERCATOR_METERS_PER_DEGREE;
+
+            if ( cellWidth >= clusterSize )
+            {
+                return precision;
+            }
+        }
+
+        return 1;
+    }
+
     @Override
     public long getEventCount( EventQueryParams params )
     {
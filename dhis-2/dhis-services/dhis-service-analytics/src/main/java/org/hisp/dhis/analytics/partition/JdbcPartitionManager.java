@@ -37,6 +37,7 @@ import java.util.stream.Collectors;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTablesUpdatedEvent;
 import org.hisp.dhis.analytics.Partitions;
 import org.hisp.dhis.analytics.table.PartitionUtils;
 import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
@@ -96,6 +97,18 @@ public class JdbcPartitionManager
         return count > 0;
     }
 
+    @Override
+    public Set<String> getTableColumns( String table )
+    {
+        final String sql =
+            "select column_name from information_schema.columns " +
+            "where table_name = '" + table + "'";
+
+        log.debug( "Table columns SQL: " + sql );
+
+        return new HashSet<>( jdbcTemplate.queryForList( sql, String.class ) );
+    }
+
     @Override
     public void filterNonExistingPartitions( Partitions partitions, String tableName )
     {
@@ -119,4 +132,12 @@ public class JdbcPartitionManager
         analyticsPartitions = new HashMap<>();
         log.info( "Analytics partition cache cleared" );
     }
+
+    @Override
+    @EventListener
+    public void handleAnalyticsTablesUpdated( AnalyticsTablesUpdatedEvent event )
+    {
+        analyticsPartitions = new HashMap<>();
+        log.info( "Analytics partition cache cleared after analytics table update" );
+    }
 }
@@ -31,6 +31,7 @@ package org.hisp.dhis.analytics.partition;
 import java.util.Set;
 
 import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTablesUpdatedEvent;
 import org.hisp.dhis.analytics.Partitions;
 import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
 
@@ -55,6 +56,14 @@ public interface PartitionManager
      */
     boolean tableExists( String table );
 
+    /**
+     * Returns the names of the columns of the given analytics table. Returns
+     * an empty set if the table does not exist.
+     *
+     * @param table the analytics table name.
+     */
+    Set<String> getTableColumns( String table );
+
     /**
      * Filters the set of integers for which a database partition table
      * exists.
@@ -70,4 +79,11 @@ public interface PartitionManager
      * @param event the {@link ApplicationCacheClearedEvent}.
      */
     void handleApplicationCachesCleared( ApplicationCacheClearedEvent event );
+
+    /**
+     * Event handler for {@link AnalyticsTablesUpdatedEvent}.
+     *
+     * @param event the {@link AnalyticsTablesUpdatedEvent}.
+     */
+    void handleAnalyticsTablesUpdated( AnalyticsTablesUpdatedEvent event );
 }
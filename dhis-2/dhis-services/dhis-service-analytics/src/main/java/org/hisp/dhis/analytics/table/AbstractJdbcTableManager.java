@@ -238,6 +238,17 @@ public abstract class AbstractJdbcTableManager
         }
     }
 
+    @Override
+    public int createRollupTables( AnalyticsTablePartition partition, List<Integer> levels )
+    {
+        return 0;
+    }
+
+    @Override
+    public void swapRollupTables( AnalyticsTablePartition partition, List<Integer> levels )
+    {
+    }
+
     @Override
     public void dropTempTable( AnalyticsTable table )
     {
@@ -617,7 +628,7 @@ public abstract class AbstractJdbcTableManager
      * @param tempTableName the temporary table name.
      * @param realTableName the real table name.
      */
-    private void swapTable( String tempTableName, String realTableName )
+    protected void swapTable( String tempTableName, String realTableName )
     {
         final String sql =
             "drop table if exists " + realTableName + " cascade; " +
@@ -29,6 +29,7 @@ package org.hisp.dhis.analytics.table;
  */
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.resourcetable.ResourceTableType.*;
 import static org.hisp.dhis.system.notification.NotificationLevel.ERROR;
 import static org.hisp.dhis.system.notification.NotificationLevel.INFO;
 import static org.hisp.dhis.util.DateUtils.getLongDateString;
@@ -44,8 +45,10 @@ import org.hisp.dhis.analytics.AnalyticsTableGenerator;
 import org.hisp.dhis.analytics.AnalyticsTableService;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.AnalyticsTablesUpdatedEvent;
 import org.hisp.dhis.commons.collection.CollectionUtils;
 import org.hisp.dhis.commons.util.DebugUtils;
+import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.message.MessageService;
 import org.hisp.dhis.resourcetable.ResourceTableService;
 import org.hisp.dhis.scheduling.JobConfiguration;
@@ -54,6 +57,7 @@ import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.notification.Notifier;
 import org.hisp.dhis.system.util.Clock;
 import org.hisp.dhis.util.DateUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 /**
@@ -75,21 +79,25 @@ public class DefaultAnalyticsTableGenerator
 
     private Notifier notifier;
 
+    private ApplicationEventPublisher eventPublisher;
+
     public DefaultAnalyticsTableGenerator( List<AnalyticsTableService> analyticsTableServices,
         ResourceTableService resourceTableService, MessageService messageService,
-        SystemSettingManager systemSettingManager, Notifier notifier )
+        SystemSettingManager systemSettingManager, Notifier notifier, ApplicationEventPublisher eventPublisher )
     {
         checkNotNull( analyticsTableServices );
         checkNotNull( resourceTableService );
         checkNotNull( messageService );
         checkNotNull( systemSettingManager );
         checkNotNull( notifier );
+        checkNotNull( eventPublisher );
 
         this.analyticsTableServices = analyticsTableServices;
         this.resourceTableService = resourceTableService;
         this.messageService = messageService;
         this.systemSettingManager = systemSettingManager;
         this.notifier = notifier;
+        this.eventPublisher = eventPublisher;
     }
 
     // -------------------------------------------------------------------------
@@ -124,7 +132,7 @@ public class DefaultAnalyticsTableGenerator
             if ( !params.isSkipResourceTables() && !params.isLatestUpdate() )
             {
                 notifier.notify( jobId, "Updating resource tables" );
-                generateResourceTables();
+                updateResourceTables( jobId );
             }
 
             for ( AnalyticsTableService service : analyticsTableServices )
@@ -164,6 +172,8 @@ public class DefaultAnalyticsTableGenerator
             systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE, params.getStartTime() );
             systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_RUNTIME, DateUtils.getPrettyInterval( clock.getSplitTime() ) );
         }
+
+        eventPublisher.publishEvent( new AnalyticsTablesUpdatedEvent( this, params ) );
     }
 
     @Override
@@ -184,7 +194,7 @@ public class DefaultAnalyticsTableGenerator
 
         try
         {
-            generateResourceTables();
+            updateResourceTables( jobId );
 
             notifier.notify( jobId, INFO, "Resource tables generated: " + clock.time(), true );
         }
@@ -202,24 +212,55 @@ public class DefaultAnalyticsTableGenerator
     // Supportive methods
     // -------------------------------------------------------------------------
 
-    private void generateResourceTables()
+    private void updateResourceTables( JobConfiguration jobId )
     {
         final Date startTime = new Date();
+        final int parallelism = getResourceTableParallelism();
+
+        log.info( String.format( "Resource table parallelism: %d", parallelism ) );
 
         resourceTableService.dropAllSqlViews();
-        resourceTableService.generateOrganisationUnitStructures();
-        resourceTableService.generateDataSetOrganisationUnitCategoryTable();
-        resourceTableService.generateCategoryOptionComboNames();
-        resourceTableService.generateDataElementGroupSetTable();
-        resourceTableService.generateIndicatorGroupSetTable();
-        resourceTableService.generateOrganisationUnitGroupSetTable();
-        resourceTableService.generateCategoryTable();
-        resourceTableService.generateDataElementTable();
-        resourceTableService.generatePeriodTable();
-        resourceTableService.generateDatePeriodTable();
-        resourceTableService.generateCategoryOptionComboTable();
+
+        // Org unit group set structure joins the org unit structure table
+        new ResourceTableScheduler()
+            .add( ORG_UNIT_STRUCTURE, resourceTableService::generateOrganisationUnitStructures )
+            .add( DATA_SET_ORG_UNIT_CATEGORY, resourceTableService::generateDataSetOrganisationUnitCategoryTable )
+            .add( CATEGORY_OPTION_COMBO_NAME, resourceTableService::generateCategoryOptionComboNames )
+            .add( DATA_ELEMENT_GROUP_SET_STRUCTURE, resourceTableService::generateDataElementGroupSetTable )
+            .add( INDICATOR_GROUP_SET_STRUCTURE, resourceTableService::generateIndicatorGroupSetTable )
+            .add( ORG_UNIT_GROUP_SET_STRUCTURE, resourceTableService::generateOrganisationUnitGroupSetTable, ORG_UNIT_STRUCTURE )
+            .add( CATEGORY_STRUCTURE, resourceTableService::generateCategoryTable )
+            .add( DATA_ELEMENT_STRUCTURE, resourceTableService::generateDataElementTable )
+            .add( PERIOD_STRUCTURE, resourceTableService::generatePeriodTable )
+            .add( DATE_PERIOD_STRUCTURE, resourceTableService::generateDatePeriodTable )
+            .add( DATA_ELEMENT_CATEGORY_OPTION_COMBO, resourceTableService::generateCategoryOptionComboTable )
+            .execute( parallelism, ( type, time ) -> notifier.notify( jobId,
+                String.format( "Resource table '%s' generated: %s", type.getTableName(), time ) ) );
+
         resourceTableService.createAllSqlViews();
 
         systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_RESOURCE_TABLES_UPDATE, startTime );
     }
+
+    /**
+     * Gets the number of resource tables to generate concurrently. Uses the
+     * explicit number from system setting if available. Falls back to the
+     * number of database server cores, or the cores of the current server
+     * runtime if not set.
+     */
+    private int getResourceTableParallelism()
+    {
+        Integer parallelism = (Integer) systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_RESOURCE_TABLE_PARALLELISM );
+
+        if ( parallelism != null && parallelism > 0 )
+        {
+            return parallelism;
+        }
+
+        Integer cores = (Integer) systemSettingManager.getSystemSetting( SettingKey.DATABASE_SERVER_CPUS );
+
+        cores = ( cores == null || cores == 0 ) ? SystemUtils.getCpuCores() : cores;
+
+        return cores > 2 ? ( cores - 1 ) : cores;
+    }
 }
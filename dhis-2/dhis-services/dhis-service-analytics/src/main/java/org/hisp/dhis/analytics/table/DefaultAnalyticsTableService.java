@@ -196,6 +196,19 @@ public class DefaultAnalyticsTableService
         analyzeTables( tables );
 
         clock.logTime( "Analyzed tables" );
+
+        final List<Integer> rollupLevels = RollupUtils.getRollupLevels(
+            (String) systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_ROLLUP_ORG_UNIT_LEVELS ) );
+
+        if ( !rollupLevels.isEmpty() )
+        {
+            notifier.notify( jobId, "Creating rollup tables" );
+
+            int rollupTables = createRollupTables( tables, rollupLevels );
+
+            clock.logTime( "Created rollup tables: " + rollupTables );
+        }
+
         notifier.notify( jobId, "Removing updated and deleted data" );
 
         tableManager.removeUpdatedData( params, tables );
@@ -205,6 +218,13 @@ public class DefaultAnalyticsTableService
 
         swapTables( params, tables );
 
+        if ( !rollupLevels.isEmpty() )
+        {
+            swapRollupTables( tables, rollupLevels );
+        }
+
+        dropStaleRollupTables( tableType, rollupLevels );
+
         clock.logTime( "Table update done: " + tableType.getTableName() );
         notifier.notify( jobId, "Table update done" );
     }
@@ -380,6 +400,56 @@ public class DefaultAnalyticsTableService
         ConcurrentUtils.waitForCompletion( futures );
     }
 
+    /**
+     * Creates rollup tables for the partitions of the given analytics tables.
+     *
+     * @param tables the list of {@link AnalyticsTable}.
+     * @param levels the organisation unit levels of the rollup tables.
+     * @return the number of rollup tables created.
+     */
+    private int createRollupTables( List<AnalyticsTable> tables, List<Integer> levels )
+    {
+        int rollupTables = 0;
+
+        for ( AnalyticsTablePartition partition : PartitionUtils.getTablePartitions( tables ) )
+        {
+            rollupTables += tableManager.createRollupTables( partition, levels );
+        }
+
+        return rollupTables;
+    }
+
+    /**
+     * Swaps the rollup tables for the partitions of the given analytics tables.
+     *
+     * @param tables the list of {@link AnalyticsTable}.
+     * @param levels the organisation unit levels of the rollup tables.
+     */
+    private void swapRollupTables( List<AnalyticsTable> tables, List<Integer> levels )
+    {
+        PartitionUtils.getTablePartitions( tables ).forEach( p -> tableManager.swapRollupTables( p, levels ) );
+    }
+
+    /**
+     * Drops the rollup tables of organisation unit levels which are no longer
+     * configured, so that they are not used to answer queries.
+     *
+     * @param tableType the {@link AnalyticsTableType}.
+     * @param levels the configured organisation unit levels of rollup tables.
+     */
+    private void dropStaleRollupTables( AnalyticsTableType tableType, List<Integer> levels )
+    {
+        List<String> staleTables = RollupUtils.getStaleRollupTables( tableType.getTableName(),
+            tableManager.getExistingDatabaseTables(), levels );
+
+        staleTables.forEach( table -> tableManager.dropTable( table ) );
+
+        if ( !staleTables.isEmpty() )
+        {
+            log.info( String.format( "Dropped stale rollup tables: %s", staleTables ) );
+        }
+    }
+
     /**
      * Analyzes the given analytics tables.
      *
@@ -39,13 +39,16 @@ import static org.hisp.dhis.util.DateUtils.getLongDateString;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.AnalyticsIndex;
 import org.hisp.dhis.analytics.AnalyticsTable;
 import org.hisp.dhis.analytics.AnalyticsTableColumn;
 import org.hisp.dhis.analytics.AnalyticsTableHookService;
@@ -55,6 +58,7 @@ import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
 import org.hisp.dhis.analytics.ColumnDataType;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.analytics.util.AnalyticsSqlUtils;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
 import org.hisp.dhis.category.Category;
 import org.hisp.dhis.category.CategoryOptionGroupSet;
@@ -206,16 +210,7 @@ public class JdbcAnalyticsTableManager
 
         String sql =
             "delete from " + quote( getAnalyticsTableType().getTableName() ) + " ax " +
-            "where ax.id in (" +
-                "select (de.uid || '-' || ps.iso || '-' || ou.uid || '-' || co.uid || '-' || ao.uid) as id " +
-                "from datavalue dv " +
-                "inner join dataelement de on dv.dataelementid=de.dataelementid " +
-                "inner join _periodstructure ps on dv.periodid=ps.periodid " +
-                "inner join organisationunit ou on dv.sourceid=ou.organisationunitid " +
-                "inner join categoryoptioncombo co on dv.categoryoptioncomboid=co.categoryoptioncomboid " +
-                "inner join categoryoptioncombo ao on dv.attributeoptioncomboid=ao.categoryoptioncomboid " +
-                "where dv.lastupdated >= '" + getLongDateString( partition.getStartDate() ) + "' " +
-                "and dv.lastupdated < '" + getLongDateString( partition.getEndDate() ) + "')";
+            "where ax.id in (" + getUpdatedDataIdSql( getLatestDataStartDate( partition ), partition.getEndDate() ) + ")";
 
         invokeTimeAndLog( sql, "Remove updated data values" );
     }
@@ -242,6 +237,11 @@ public class JdbcAnalyticsTableManager
         final String zeroValueClause = "(dv.value != '0' or de.aggregationtype in ('" + AggregationType.AVERAGE + ',' + AggregationType.AVERAGE_SUM_ORG_UNIT + "')" + zeroValueCondition + ") ";
         final String intClause = zeroValueClause + numericClause;
 
+        if ( isIncrementalLatestUpdate( partition ) )
+        {
+            populateUnchangedLatestData( partition );
+        }
+
         populateTable( params, partition, "cast(dv.value as " + dbl + ")", "null", ValueType.NUMERIC_TYPES, intClause );
         populateTable( params, partition, "1", "null", Sets.newHashSet( ValueType.BOOLEAN, ValueType.TRUE_ONLY ), "dv.value = 'true'" );
         populateTable( params, partition, "0", "null", Sets.newHashSet( ValueType.BOOLEAN ), "dv.value = 'false'" );
@@ -264,7 +264,7 @@ public class JdbcAnalyticsTableManager
         final boolean respectStartEndDates = (Boolean) systemSettingManager.getSystemSetting( SettingKey.RESPECT_META_DATA_START_END_DATES_IN_ANALYTICS_TABLE_EXPORT );
         final String approvalClause = getApprovalJoinClause( partition.getYear() );
         final String partitionClause = partition.isLatestPartition() ?
-            "and dv.lastupdated >= '" + getLongDateString( partition.getStartDate() ) + "' " :
+            "and dv.lastupdated >= '" + getLongDateString( getLatestDataStartDate( partition ) ) + "' " :
             "and ps.year = " + partition.getYear() + " ";
 
         String sql = "insert into " + partition.getTempTableName() + " (";
@@ -333,6 +333,118 @@ public class JdbcAnalyticsTableManager
         invokeTimeAndLog( sql, String.format( "Populate %s %s", tableName, valueTypes ) );
     }
 
+    /**
+     * Populates the given "latest" partition with the data of the existing
+     * "latest" partition which was not updated since the last successful
+     * analytics table update. Data which was updated is populated from the
+     * data value table, which means that only data updated since the last
+     * update must be processed.
+     *
+     * @param partition the "latest" {@link AnalyticsTablePartition}.
+     */
+    private void populateUnchangedLatestData( AnalyticsTablePartition partition )
+    {
+        String columnNames = StringUtils.join( getLatestTableColumns( partition ), "," );
+
+        String sql =
+            "insert into " + partition.getTempTableName() + " (" + columnNames + ") " +
+            "select " + columnNames + " " +
+            "from " + partition.getTableName() + " ax " +
+            "where not exists (" +
+                "select 1 from (" + getUpdatedDataIdSql( getLatestDataStartDate( partition ), partition.getEndDate() ) + ") ud " +
+                "where ud.id = ax.id)";
+
+        invokeTimeAndLog( sql, String.format( "Populate %s with unchanged latest data", partition.getTempTableName() ) );
+    }
+
+    /**
+     * Returns a sub-query for the identifiers of data values which were updated
+     * or deleted within the given time range.
+     *
+     * @param startDate the start date, inclusive.
+     * @param endDate the end date, exclusive.
+     */
+    private String getUpdatedDataIdSql( Date startDate, Date endDate )
+    {
+        return
+            "select (de.uid || '-' || ps.iso || '-' || ou.uid || '-' || co.uid || '-' || ao.uid) as id " +
+            "from datavalue dv " +
+            "inner join dataelement de on dv.dataelementid=de.dataelementid " +
+            "inner join _periodstructure ps on dv.periodid=ps.periodid " +
+            "inner join organisationunit ou on dv.sourceid=ou.organisationunitid " +
+            "inner join categoryoptioncombo co on dv.categoryoptioncomboid=co.categoryoptioncomboid " +
+            "inner join categoryoptioncombo ao on dv.attributeoptioncomboid=ao.categoryoptioncomboid " +
+            "where dv.lastupdated >= '" + getLongDateString( startDate ) + "' " +
+            "and dv.lastupdated < '" + getLongDateString( endDate ) + "'";
+    }
+
+    /**
+     * Indicates whether the given partition is a "latest" partition which can be
+     * updated incrementally, i.e. whether a "latest" partition was successfully
+     * generated after the last full analytics table update and still exists
+     * with the same columns. Columns change when for instance group sets,
+     * categories or organisation unit levels are added or removed, in which
+     * case the "latest" partition is fully rebuilt.
+     *
+     * @param partition the {@link AnalyticsTablePartition}.
+     */
+    private boolean isIncrementalLatestUpdate( AnalyticsTablePartition partition )
+    {
+        if ( !partition.isLatestPartition() )
+        {
+            return false;
+        }
+
+        Date lastFullTableUpdate = (Date) systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE );
+        Date lastLatestPartitionUpdate = (Date) systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE );
+
+        return lastFullTableUpdate != null && lastLatestPartitionUpdate != null &&
+            lastLatestPartitionUpdate.after( lastFullTableUpdate ) &&
+            hasSameColumns( partition );
+    }
+
+    /**
+     * Indicates whether the existing "latest" table exists and has the same
+     * set of columns as the given "latest" partition.
+     *
+     * @param partition the "latest" {@link AnalyticsTablePartition}.
+     */
+    private boolean hasSameColumns( AnalyticsTablePartition partition )
+    {
+        Set<String> existingColumns = partitionManager.getTableColumns( partition.getTableName() ).stream()
+            .map( AnalyticsSqlUtils::quote )
+            .collect( Collectors.toSet() );
+
+        return !existingColumns.isEmpty() && existingColumns.equals( new HashSet<>( getLatestTableColumns( partition ) ) );
+    }
+
+    /**
+     * Returns the quoted names of the dimension and value columns of the given
+     * "latest" partition.
+     *
+     * @param partition the "latest" {@link AnalyticsTablePartition}.
+     */
+    private List<String> getLatestTableColumns( AnalyticsTablePartition partition )
+    {
+        return ListUtils.union( partition.getMasterTable().getDimensionColumns(), partition.getMasterTable().getValueColumns() ).stream()
+            .map( AnalyticsTableColumn::getName )
+            .collect( Collectors.toList() );
+    }
+
+    /**
+     * Returns the start date of the data to populate for the given "latest"
+     * partition. For incremental updates this is the time of the last successful
+     * "latest" partition update, otherwise the start date of the partition.
+     *
+     * @param partition the "latest" {@link AnalyticsTablePartition}.
+     */
+    private Date getLatestDataStartDate( AnalyticsTablePartition partition )
+    {
+        return isIncrementalLatestUpdate( partition ) ?
+            (Date) systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE ) :
+            partition.getStartDate();
+    }
+
     /**
      * Returns sub-query for approval level. First looks for approval level in
      * data element resource table which will indicate level 0 (highest) if approval
@@ -507,6 +619,60 @@ public class JdbcAnalyticsTableManager
         return ConcurrentUtils.getImmediateFuture();
     }
 
+    @Override
+    public int createRollupTables( AnalyticsTablePartition partition, List<Integer> levels )
+    {
+        if ( partition.isLatestPartition() )
+        {
+            return 0; // Latest partition changes frequently, no rollups
+        }
+
+        for ( Integer level : levels )
+        {
+            final String rollupTableName = RollupUtils.getTempRollupPartitionName( getTableName(), level, partition.getYear() );
+
+            final String columnNames = StringUtils.join( partition.getMasterTable().getDimensionColumns().stream()
+                .map( AnalyticsTableColumn::getName )
+                .filter( col -> RollupUtils.isRollupColumn( col, level ) )
+                .collect( Collectors.toList() ), "," );
+
+            dropTable( rollupTableName );
+
+            final String sql =
+                "create table " + rollupTableName + " as " +
+                "select " + columnNames + ", sum(daysxvalue) as daysxvalue, sum(value) as value " +
+                "from " + partition.getTempTableName() + " " +
+                "where value is not null " +
+                "group by " + columnNames;
+
+            invokeTimeAndLog( sql, String.format( "Create rollup table: '%s'", rollupTableName ) );
+
+            AnalyticsIndex index = new AnalyticsIndex( rollupTableName, newArrayList( quote( "dx" ) ), null );
+
+            jdbcTemplate.execute( "create index " + index.getIndexName( getAnalyticsTableType() ) +
+                " on " + rollupTableName + " (" + quote( "dx" ) + ")" );
+
+            analyzeTable( rollupTableName );
+        }
+
+        return levels.size();
+    }
+
+    @Override
+    public void swapRollupTables( AnalyticsTablePartition partition, List<Integer> levels )
+    {
+        if ( partition.isLatestPartition() )
+        {
+            return;
+        }
+
+        for ( Integer level : levels )
+        {
+            swapTable( RollupUtils.getTempRollupPartitionName( getTableName(), level, partition.getYear() ),
+                RollupUtils.getRollupPartitionName( getTableName(), level, partition.getYear() ) );
+        }
+    }
+
     @Override
     @Async
     public Future<?> vacuumTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions )
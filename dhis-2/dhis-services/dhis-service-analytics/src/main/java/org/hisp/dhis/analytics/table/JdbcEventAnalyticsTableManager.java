@@ -116,6 +116,9 @@ public class JdbcEventAnalyticsTableManager
         new AnalyticsTableColumn( quote( "pistatus" ), CHARACTER_50, "pi.status" ),
         new AnalyticsTableColumn( quote( "psistatus" ), CHARACTER_50, "psi.status" ),
         new AnalyticsTableColumn( quote( "psigeometry" ), GEOMETRY, "psi.geometry" ).withIndexType( GEOMETRY_INDEX_TYPE ),
+        // Geohash of the event location, used for clustering events by geohash prefix
+        new AnalyticsTableColumn( quote( "psigeohash" ), TEXT, "CASE WHEN ST_Y(ST_Centroid(psi.geometry)) BETWEEN -90 AND 90 " +
+            "AND ST_X(ST_Centroid(psi.geometry)) BETWEEN -180 AND 180 THEN ST_GeoHash(ST_Centroid(psi.geometry), 12) ELSE null END" ).withSkipIndex( true ),
         // TODO latitude and longitude deprecated in 2.30, should be removed after 2.33
         new AnalyticsTableColumn( quote( "longitude" ), DOUBLE, "CASE WHEN 'POINT' = GeometryType(psi.geometry) THEN ST_X(psi.geometry) ELSE null END" ),
         new AnalyticsTableColumn( quote( "latitude" ), DOUBLE, "CASE WHEN 'POINT' = GeometryType(psi.geometry) THEN ST_Y(psi.geometry) ELSE null END" ),
@@ -0,0 +1,157 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+
+import org.hisp.dhis.resourcetable.ResourceTableType;
+import org.hisp.dhis.system.util.Clock;
+
+/**
+ * Generates resource tables according to their dependencies. Tables without
+ * dependencies between them are generated concurrently, bounded by the given
+ * parallelism. A table is generated only after all tables it depends on have
+ * been generated successfully.
+ */
+class ResourceTableScheduler
+{
+    private final Map<ResourceTableType, Task> tasks = new LinkedHashMap<>();
+
+    /**
+     * Adds a resource table generation task. The tables which the task
+     * depends on must have been added already, which rules out cycles.
+     *
+     * @param type the {@link ResourceTableType}.
+     * @param generator the task which generates the table.
+     * @param dependencies the tables which must be generated before this table.
+     * @return this scheduler.
+     */
+    ResourceTableScheduler add( ResourceTableType type, Runnable generator, ResourceTableType... dependencies )
+    {
+        checkNotNull( type );
+        checkNotNull( generator );
+        checkArgument( !tasks.containsKey( type ), "Resource table already added: " + type );
+
+        for ( ResourceTableType dependency : dependencies )
+        {
+            checkArgument( tasks.containsKey( dependency ), String.format(
+                "Resource table %s depends on %s which has not been added", type, dependency ) );
+        }
+
+        tasks.put( type, new Task( generator, Arrays.asList( dependencies ) ) );
+
+        return this;
+    }
+
+    /**
+     * Generates all added resource tables and waits for completion. Tables
+     * depending on a table which failed are not generated.
+     *
+     * @param parallelism the max number of tables to generate concurrently.
+     * @param listener callback receiving the table type and the elapsed time
+     *        after each successful generation, invoked one at a time.
+     * @throws RuntimeException the first exception thrown by a task.
+     */
+    void execute( int parallelism, BiConsumer<ResourceTableType, String> listener )
+    {
+        checkArgument( parallelism > 0, "Parallelism must be greater than zero" );
+
+        final ExecutorService executor = Executors.newFixedThreadPool( Math.min( parallelism, Math.max( 1, tasks.size() ) ) );
+        final Map<ResourceTableType, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+
+        try
+        {
+            for ( Map.Entry<ResourceTableType, Task> entry : tasks.entrySet() )
+            {
+                final ResourceTableType type = entry.getKey();
+                final Task task = entry.getValue();
+
+                List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+                task.dependencies.forEach( dependency -> dependencies.add( futures.get( dependency ) ) );
+
+                CompletableFuture<Void> future = CompletableFuture
+                    .allOf( dependencies.toArray( new CompletableFuture[0] ) )
+                    .thenRunAsync( () -> {
+                        Clock clock = new Clock().startClock();
+
+                        task.generator.run();
+
+                        notifyListener( listener, type, clock.time() );
+                    }, executor );
+
+                futures.put( type, future );
+            }
+
+            CompletableFuture.allOf( futures.values().toArray( new CompletableFuture[0] ) ).join();
+        }
+        catch ( CompletionException ex )
+        {
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw ex;
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private synchronized void notifyListener( BiConsumer<ResourceTableType, String> listener, ResourceTableType type, String time )
+    {
+        listener.accept( type, time );
+    }
+
+    private static class Task
+    {
+        private final Runnable generator;
+
+        private final List<ResourceTableType> dependencies;
+
+        Task( Runnable generator, List<ResourceTableType> dependencies )
+        {
+            this.generator = generator;
+            this.dependencies = dependencies;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.analytics.DataQueryParams.LEVEL_PREFIX;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.period.MonthlyPeriodType;
+import org.hisp.dhis.period.PeriodType;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Utilities for analytics rollup table handling. A rollup table is a
+ * pre-aggregated copy of an analytics table partition where organisation
+ * units are aggregated to a given level and periods are aggregated to
+ * months. Queries which do not reference organisation unit levels below the
+ * rollup level or period types shorter than months can be answered from the
+ * much smaller rollup table.
+ */
+public class RollupUtils
+{
+    private static final String ROLLUP_INFIX = "_rollup_l";
+
+    private static final String TEMP_SUFFIX = "_temp";
+
+    /**
+     * Columns of the analytics table which are not part of rollup tables.
+     */
+    private static final Set<String> EXCLUDED_COLUMNS = ImmutableSet.of(
+        "id", "ou", "level", "approvallevel", "pestartdate", "peenddate", "pe" );
+
+    /**
+     * Period columns which are shorter than months and hence not part of
+     * rollup tables.
+     */
+    private static final Set<String> EXCLUDED_PERIOD_COLUMNS = PeriodType.getAvailablePeriodTypes().stream()
+        .filter( pt -> pt.getFrequencyOrder() < MonthlyPeriodType.FREQUENCY_ORDER )
+        .map( pt -> pt.getName().toLowerCase() )
+        .collect( Collectors.toSet() );
+
+    /**
+     * Returns the name of the rollup table for the given analytics table name
+     * and organisation unit level.
+     *
+     * @param tableName the analytics table name.
+     * @param level the organisation unit level.
+     * @return the rollup table name.
+     */
+    public static String getRollupTableName( String tableName, int level )
+    {
+        return tableName + ROLLUP_INFIX + level;
+    }
+
+    /**
+     * Returns the name of the rollup table partition for the given analytics
+     * table name, organisation unit level and partition.
+     *
+     * @param tableName the analytics table name.
+     * @param level the organisation unit level.
+     * @param partition the partition.
+     * @return the rollup table partition name.
+     */
+    public static String getRollupPartitionName( String tableName, int level, Integer partition )
+    {
+        return PartitionUtils.getPartitionName( getRollupTableName( tableName, level ), partition );
+    }
+
+    /**
+     * Returns the name of the temporary rollup table partition for the given
+     * analytics table name, organisation unit level and partition.
+     *
+     * @param tableName the analytics table name.
+     * @param level the organisation unit level.
+     * @param partition the partition.
+     * @return the temporary rollup table partition name.
+     */
+    public static String getTempRollupPartitionName( String tableName, int level, Integer partition )
+    {
+        return PartitionUtils.getPartitionName( getRollupTableName( tableName, level ) + TEMP_SUFFIX, partition );
+    }
+
+    /**
+     * Returns the rollup tables of the given analytics table name among the
+     * given table names which do not belong to any of the given organisation
+     * unit levels. Such rollup tables were created for levels which are no
+     * longer configured. Temporary rollup tables are included.
+     *
+     * @param tableName the analytics table name.
+     * @param tables the existing table names.
+     * @param levels the configured organisation unit levels.
+     * @return a list of rollup table names.
+     */
+    public static List<String> getStaleRollupTables( String tableName, Collection<String> tables, Collection<Integer> levels )
+    {
+        final String prefix = tableName + ROLLUP_INFIX;
+
+        return tables.stream()
+            .filter( table -> table.startsWith( prefix ) )
+            .filter( table -> {
+                String level = StringUtils.substringBefore( StringUtils.removeStart( table, prefix ), PartitionUtils.SEP );
+                return StringUtils.isNumeric( level ) && !levels.contains( Integer.valueOf( level ) );
+            } )
+            .sorted()
+            .collect( Collectors.toList() );
+    }
+
+    /**
+     * Indicates whether the given column is part of a rollup table with the
+     * given organisation unit level.
+     *
+     * @param column the column name, may be quoted.
+     * @param level the organisation unit level.
+     * @return true if the column is part of the rollup table.
+     */
+    public static boolean isRollupColumn( String column, int level )
+    {
+        String name = StringUtils.remove( column, '"' );
+
+        if ( EXCLUDED_COLUMNS.contains( name ) || EXCLUDED_PERIOD_COLUMNS.contains( name ) )
+        {
+            return false;
+        }
+
+        if ( name.startsWith( LEVEL_PREFIX ) )
+        {
+            Integer columnLevel = Integer.valueOf( StringUtils.removeStart( name, LEVEL_PREFIX ) );
+
+            return columnLevel <= level;
+        }
+
+        return true;
+    }
+
+    /**
+     * Parses the given comma separated list of organisation unit levels.
+     * Invalid levels are ignored.
+     *
+     * @param levels the comma separated list of levels, may be null.
+     * @return a sorted list of distinct levels.
+     */
+    public static List<Integer> getRollupLevels( String levels )
+    {
+        return Arrays.stream( StringUtils.split( StringUtils.trimToEmpty( levels ), ',' ) )
+            .map( String::trim )
+            .filter( StringUtils::isNumeric )
+            .map( Integer::valueOf )
+            .filter( level -> level > 0 )
+            .distinct()
+            .sorted()
+            .collect( Collectors.toList() );
+    }
+}
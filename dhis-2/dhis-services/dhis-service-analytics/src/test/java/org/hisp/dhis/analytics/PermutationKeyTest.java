@@ -0,0 +1,102 @@
+package org.hisp.dhis.analytics;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.common.DimensionalObject.DIMENSION_SEP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class PermutationKeyTest
+{
+    @Test
+    public void testWithoutDataItemEqualsStringKey()
+    {
+        String dataKey = "fbfJHSPpUQD" + DIMENSION_SEP + "ImspTQPwCqd" + DIMENSION_SEP + "202001";
+
+        PermutationKey key = PermutationKey.withoutDataItem( dataKey );
+
+        assertEquals( getStringPermutationKey( dataKey ), key.toString() );
+        assertEquals( getStringPermutationKey( dataKey ).hashCode(), key.hashCode() );
+        assertEquals( PermutationKey.of( "ImspTQPwCqd" + DIMENSION_SEP + "202001" ), key );
+    }
+
+    @Test
+    public void testWithoutDataItemSingleItem()
+    {
+        PermutationKey key = PermutationKey.withoutDataItem( "fbfJHSPpUQD" );
+
+        assertEquals( getStringPermutationKey( "fbfJHSPpUQD" ), key.toString() );
+        assertEquals( StringUtils.EMPTY.hashCode(), key.hashCode() );
+        assertEquals( PermutationKey.of( StringUtils.EMPTY ), key );
+    }
+
+    @Test
+    public void testWithoutDataItemCompositeDataItem()
+    {
+        String dataKey = "fbfJHSPpUQD.pq2XI5kz2BY" + DIMENSION_SEP + "ImspTQPwCqd";
+
+        PermutationKey key = PermutationKey.withoutDataItem( dataKey );
+
+        assertEquals( getStringPermutationKey( dataKey ), key.toString() );
+        assertEquals( PermutationKey.of( "ImspTQPwCqd" ), key );
+    }
+
+    @Test
+    public void testNotEquals()
+    {
+        PermutationKey keyA = PermutationKey.withoutDataItem( "fbfJHSPpUQD" + DIMENSION_SEP + "ImspTQPwCqd" + DIMENSION_SEP + "202001" );
+        PermutationKey keyB = PermutationKey.withoutDataItem( "fbfJHSPpUQD" + DIMENSION_SEP + "ImspTQPwCqd" + DIMENSION_SEP + "202002" );
+        PermutationKey keyC = PermutationKey.withoutDataItem( "fbfJHSPpUQD" + DIMENSION_SEP + "ImspTQPwCqd" );
+
+        assertNotEquals( keyA, keyB );
+        assertNotEquals( keyA, keyC );
+        assertNotEquals( keyC, keyA );
+        assertNotEquals( keyA, keyA.toString() );
+    }
+
+    /**
+     * Returns the permutation key the way it was built before typed keys, by
+     * splitting the key, removing the data item and joining the remainder.
+     */
+    private String getStringPermutationKey( String dataKey )
+    {
+        List<String> keys = Lists.newArrayList( dataKey.split( DIMENSION_SEP ) );
+
+        keys.remove( DataQueryParams.DX_INDEX );
+
+        return StringUtils.join( keys, DIMENSION_SEP );
+    }
+}
@@ -0,0 +1,179 @@
+package org.hisp.dhis.analytics.cache;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.cache.AnalyticsQueryFragmentCache.CachedValues;
+import org.hisp.dhis.cache.DefaultCacheProvider;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.period.Period;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class AnalyticsQueryFragmentCacheTest
+    extends DhisConvenienceTest
+{
+    private AnalyticsQueryFragmentCache fragmentCache;
+
+    private DataElement deA;
+
+    private Period peA;
+    private Period peB;
+    private Period peC;
+
+    @Before
+    public void setUp()
+    {
+        fragmentCache = new AnalyticsQueryFragmentCache( new DefaultCacheProvider(), 3600, 1000 );
+
+        deA = createDataElement( 'A' );
+
+        peA = createPeriod( "201911" );
+        peB = createPeriod( "201912" );
+        peC = createPeriod( "202001" );
+    }
+
+    @Test
+    public void testIsCacheable()
+    {
+        assertTrue( fragmentCache.isCacheable( getParams( peA, peB ) ) );
+        assertFalse( fragmentCache.isCacheable( DataQueryParams.newBuilder()
+            .withDataElements( Lists.newArrayList( deA ) )
+            .withFilterPeriods( Lists.newArrayList( peA ) ).build() ) );
+    }
+
+    @Test
+    public void testGetPartialHit()
+    {
+        Map<String, Object> values = new HashMap<>();
+        values.put( deA.getUid() + "-201911", 3d );
+        values.put( deA.getUid() + "-201912", 5d );
+
+        put( getParams( peA, peB ), values );
+
+        CachedValues cachedValues = fragmentCache.get( getParams( peB, peC ), AnalyticsTableType.DATA_VALUE );
+
+        assertEquals( 1, cachedValues.getValues().size() );
+        assertEquals( 5d, cachedValues.getValues().get( deA.getUid() + "-201912" ) );
+        assertEquals( Lists.newArrayList( peC ), cachedValues.getMissingPeriods() );
+    }
+
+    @Test
+    public void testGetEmptyPeriod()
+    {
+        Map<String, Object> values = new HashMap<>();
+        values.put( deA.getUid() + "-201911", 3d );
+
+        put( getParams( peA, peB ), values );
+
+        CachedValues cachedValues = fragmentCache.get( getParams( peA, peB ), AnalyticsTableType.DATA_VALUE );
+
+        assertEquals( 1, cachedValues.getValues().size() );
+        assertFalse( cachedValues.hasMissingPeriods() );
+    }
+
+    @Test
+    public void testGetOtherTableType()
+    {
+        put( getParams( peA ), new HashMap<>() );
+
+        CachedValues cachedValues = fragmentCache.get( getParams( peA ), AnalyticsTableType.COMPLETENESS );
+
+        assertEquals( Lists.newArrayList( peA ), cachedValues.getMissingPeriods() );
+    }
+
+    @Test
+    public void testInvalidateLastYears()
+    {
+        put( getParams( peB, peC ), new HashMap<>() );
+
+        fragmentCache.invalidate( AnalyticsTableUpdateParams.newBuilder()
+            .withLastYears( 1 )
+            .withToday( getDate( 2020, 6, 1 ) ).build() );
+
+        CachedValues cachedValues = fragmentCache.get( getParams( peB, peC ), AnalyticsTableType.DATA_VALUE );
+
+        assertEquals( Lists.newArrayList( peC ), cachedValues.getMissingPeriods() );
+    }
+
+    @Test
+    public void testInvalidateLatestPartition()
+    {
+        put( getParams( peB, peC ), new HashMap<>() );
+
+        fragmentCache.invalidate( AnalyticsTableUpdateParams.newBuilder()
+            .withLatestPartition().build() );
+
+        CachedValues cachedValues = fragmentCache.get( getParams( peB, peC ), AnalyticsTableType.DATA_VALUE );
+
+        assertEquals( Lists.newArrayList( peB, peC ), cachedValues.getMissingPeriods() );
+    }
+
+    @Test
+    public void testInvalidateBetweenGetAndPut()
+    {
+        DataQueryParams params = getParams( peB, peC );
+
+        CachedValues lookup = fragmentCache.get( params, AnalyticsTableType.DATA_VALUE );
+
+        fragmentCache.invalidate( AnalyticsTableUpdateParams.newBuilder()
+            .withLatestPartition().build() );
+
+        fragmentCache.put( params, lookup, new HashMap<>() );
+
+        CachedValues cachedValues = fragmentCache.get( params, AnalyticsTableType.DATA_VALUE );
+
+        assertEquals( Lists.newArrayList( peB, peC ), cachedValues.getMissingPeriods() );
+    }
+
+    private void put( DataQueryParams params, Map<String, Object> values )
+    {
+        fragmentCache.put( params, fragmentCache.get( params, AnalyticsTableType.DATA_VALUE ), values );
+    }
+
+    private DataQueryParams getParams( Period... periods )
+    {
+        return DataQueryParams.newBuilder()
+            .withDataElements( Lists.newArrayList( deA ) )
+            .withPeriods( Lists.newArrayList( periods ), "Monthly" )
+            .build();
+    }
+}
@@ -0,0 +1,167 @@
+package org.hisp.dhis.analytics.data;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
+import static org.hisp.dhis.analytics.DataQueryParams.DISPLAY_NAME_DATA_X;
+import static org.hisp.dhis.analytics.DataQueryParams.DISPLAY_NAME_ORGUNIT;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.hisp.dhis.analytics.AnalyticsAggregationType;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.DataQueryGroups;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.Partitions;
+import org.hisp.dhis.analytics.QueryPlannerParams;
+import org.hisp.dhis.analytics.QueryValidator;
+import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.category.CategoryCombo;
+import org.hisp.dhis.common.BaseDimensionalObject;
+import org.hisp.dhis.common.DimensionType;
+import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.MonthlyPeriodType;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class DefaultQueryPlannerRollupTest
+{
+    private DefaultQueryPlanner subject;
+
+    @Mock
+    private QueryValidator queryValidator;
+
+    @Mock
+    private PartitionManager partitionManager;
+
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Before
+    public void setUp()
+    {
+        subject = new DefaultQueryPlanner( queryValidator, partitionManager, systemSettingManager );
+
+        doAnswer( invocation -> {
+            Partitions partitions = invocation.getArgument( 0 );
+            partitions.getPartitions().remove( AnalyticsTablePartition.LATEST_PARTITION );
+            return null;
+        } ).when( partitionManager ).filterNonExistingPartitions( any( Partitions.class ), anyString() );
+
+        when( partitionManager.getAnalyticsPartitions( AnalyticsTableType.DATA_VALUE ) ).thenReturn(
+            Sets.newHashSet( "analytics_2014", "analytics_rollup_l1_2014", "analytics_rollup_l2_2014" ) );
+    }
+
+    @Test
+    public void testUseConfiguredRollupLevel()
+    {
+        mockRollupLevels( "2" );
+
+        assertEquals( "analytics_rollup_l2", getPlannedTableName() );
+    }
+
+    @Test
+    public void testIgnoreStaleRollupLevel()
+    {
+        mockRollupLevels( "3" );
+
+        assertEquals( "analytics", getPlannedTableName() );
+    }
+
+    @Test
+    public void testIgnoreRollupTablesWhenNoLevelsConfigured()
+    {
+        mockRollupLevels( "" );
+
+        assertEquals( "analytics", getPlannedTableName() );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void mockRollupLevels( String levels )
+    {
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_ROLLUP_ORG_UNIT_LEVELS ) ).thenReturn( levels );
+    }
+
+    /**
+     * Plans a sum query for a numeric data element, monthly periods and a
+     * filter on an organisation unit at level 2 and returns the table name
+     * of the single planned query.
+     */
+    private String getPlannedTableName()
+    {
+        OrganisationUnit ouA = createOrganisationUnit( 'A' );
+        OrganisationUnit ouB = createOrganisationUnit( 'B', ouA );
+        ouB.setPath( "/" + ouA.getUid() + "/" + ouB.getUid() );
+
+        List<DimensionalItemObject> periods = Lists.newArrayList(
+            new MonthlyPeriodType().createPeriod( new DateTime( 2014, 4, 1, 0, 0 ).toDate() ) );
+
+        DataQueryParams params = DataQueryParams.newBuilder()
+            .withDimensions( Lists.newArrayList(
+                new BaseDimensionalObject( "pe", DimensionType.PERIOD, periods ),
+                new BaseDimensionalObject( "dx", DimensionType.DATA_X, DISPLAY_NAME_DATA_X, "display name",
+                    Lists.newArrayList( createDataElement( 'A', new CategoryCombo() ) ) ) ) )
+            .withFilters( Lists.newArrayList(
+                new BaseDimensionalObject( "ou", DimensionType.ORGANISATION_UNIT, null, DISPLAY_NAME_ORGUNIT,
+                    ImmutableList.of( ouB ) ) ) )
+            .withAggregationType( AnalyticsAggregationType.SUM ).build();
+
+        DataQueryGroups queryGroups = subject.planQuery( params,
+            QueryPlannerParams.newBuilder().withTableType( AnalyticsTableType.DATA_VALUE ).build() );
+
+        assertEquals( 1, queryGroups.getAllQueries().size() );
+
+        return queryGroups.getAllQueries().get( 0 ).getTableName();
+    }
+}
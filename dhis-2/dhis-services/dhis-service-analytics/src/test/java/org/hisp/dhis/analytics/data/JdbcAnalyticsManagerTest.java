@@ -89,7 +89,7 @@ public class JdbcAnalyticsManagerTest
     {
         QueryPlanner queryPlanner = new DefaultQueryPlanner(
             new DefaultQueryValidator( this.systemSettingManager, nestedIndicatorCyclicDependencyInspector ),
-            partitionManager );
+            partitionManager, systemSettingManager );
 
         mockRowSet();
 
@@ -36,6 +36,7 @@ import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataType;
 import org.hisp.dhis.analytics.DimensionItem;
 import org.hisp.dhis.analytics.Partitions;
+import org.hisp.dhis.analytics.PermutationKey;
 import org.hisp.dhis.analytics.QueryPlanner;
 import org.hisp.dhis.analytics.QueryPlannerParams;
 import org.hisp.dhis.analytics.AnalyticsTableType;
@@ -306,14 +307,14 @@ public class QueryPlannerTest
         aggregatedDataMap.put( deB.getUid() + COMPOSITE_DIM_OBJECT_PLAIN_SEP + coc.getUid() + DIMENSION_SEP + ouB.getUid() + DIMENSION_SEP + "2000Q1", 7d );
         aggregatedDataMap.put( deB.getUid() + COMPOSITE_DIM_OBJECT_PLAIN_SEP + coc.getUid() + DIMENSION_SEP + ouB.getUid() + DIMENSION_SEP + "2000Q2", 8d );
 
-        MapMap<String, DimensionalItemObject, Double> permutationMap = DataQueryParams.getPermutationDimensionalItemValueMap( aggregatedDataMap );
+        MapMap<PermutationKey, DimensionalItemObject, Double> permutationMap = DataQueryParams.getPermutationDimensionalItemValueMap( aggregatedDataMap );
 
         assertNotNull( permutationMap );
 
-        String ouAQ1Key = ouA.getUid() + DIMENSION_SEP + "2000Q1";
-        String ouAQ2Key = ouA.getUid() + DIMENSION_SEP + "2000Q2";
-        String ouBQ1Key = ouB.getUid() + DIMENSION_SEP + "2000Q1";
-        String ouBQ2Key = ouB.getUid() + DIMENSION_SEP + "2000Q2";
+        PermutationKey ouAQ1Key = PermutationKey.of( ouA.getUid() + DIMENSION_SEP + "2000Q1" );
+        PermutationKey ouAQ2Key = PermutationKey.of( ouA.getUid() + DIMENSION_SEP + "2000Q2" );
+        PermutationKey ouBQ1Key = PermutationKey.of( ouB.getUid() + DIMENSION_SEP + "2000Q1" );
+        PermutationKey ouBQ2Key = PermutationKey.of( ouB.getUid() + DIMENSION_SEP + "2000Q2" );
 
         Map<DimensionalItemObject, Double> ouAQ1 = permutationMap.get( ouAQ1Key );
         Map<DimensionalItemObject, Double> ouAQ2 = permutationMap.get( ouAQ2Key );
@@ -363,14 +364,14 @@ public class QueryPlannerTest
         aggregatedDataMap.put( deB.getUid() + DIMENSION_SEP + ouB.getUid() + DIMENSION_SEP + "200101", 7d );
         aggregatedDataMap.put( deB.getUid() + DIMENSION_SEP + ouB.getUid() + DIMENSION_SEP + "200102", 8d );
 
-        MapMap<String, DimensionalItemObject, Double> permutationMap = DataQueryParams.getPermutationDimensionalItemValueMap( aggregatedDataMap );
+        MapMap<PermutationKey, DimensionalItemObject, Double> permutationMap = DataQueryParams.getPermutationDimensionalItemValueMap( aggregatedDataMap );
 
         assertNotNull( permutationMap );
 
-        String ouAM1Key = ouA.getUid() + DIMENSION_SEP + "200101";
-        String ouAM2Key = ouA.getUid() + DIMENSION_SEP + "200102";
-        String ouBM1Key = ouB.getUid() + DIMENSION_SEP + "200101";
-        String ouBM2Key = ouB.getUid() + DIMENSION_SEP + "200102";
+        PermutationKey ouAM1Key = PermutationKey.of( ouA.getUid() + DIMENSION_SEP + "200101" );
+        PermutationKey ouAM2Key = PermutationKey.of( ouA.getUid() + DIMENSION_SEP + "200102" );
+        PermutationKey ouBM1Key = PermutationKey.of( ouB.getUid() + DIMENSION_SEP + "200101" );
+        PermutationKey ouBM2Key = PermutationKey.of( ouB.getUid() + DIMENSION_SEP + "200102" );
 
         Map<DimensionalItemObject, Double> ouAM1 = permutationMap.get( ouAM1Key );
         Map<DimensionalItemObject, Double> ouAM2 = permutationMap.get( ouAM2Key );
@@ -421,14 +422,14 @@ public class QueryPlannerTest
         aggregatedDataMap.put( deB.getUid() + COMPOSITE_DIM_OBJECT_PLAIN_SEP + coc.getUid() + DIMENSION_SEP + ouB.getUid() + DIMENSION_SEP + "2000Q1", 7d );
         aggregatedDataMap.put( deB.getUid() + COMPOSITE_DIM_OBJECT_PLAIN_SEP + coc.getUid() + DIMENSION_SEP + ouB.getUid() + DIMENSION_SEP + "2000Q2", 8d );
 
-        MapMap<String, DimensionalItemObject, Double> permutationMap = DataQueryParams.getPermutationDimensionalItemValueMap( aggregatedDataMap );
+        MapMap<PermutationKey, DimensionalItemObject, Double> permutationMap = DataQueryParams.getPermutationDimensionalItemValueMap( aggregatedDataMap );
 
         assertNotNull( permutationMap );
 
-        String ouAQ1Key = ouA.getUid() + DIMENSION_SEP + "2000Q1";
-        String ouAQ2Key = ouA.getUid() + DIMENSION_SEP + "2000Q2";
-        String ouBQ1Key = ouB.getUid() + DIMENSION_SEP + "2000Q1";
-        String ouBQ2Key = ouB.getUid() + DIMENSION_SEP + "2000Q2";
+        PermutationKey ouAQ1Key = PermutationKey.of( ouA.getUid() + DIMENSION_SEP + "2000Q1" );
+        PermutationKey ouAQ2Key = PermutationKey.of( ouA.getUid() + DIMENSION_SEP + "2000Q2" );
+        PermutationKey ouBQ1Key = PermutationKey.of( ouB.getUid() + DIMENSION_SEP + "2000Q1" );
+        PermutationKey ouBQ2Key = PermutationKey.of( ouB.getUid() + DIMENSION_SEP + "2000Q2" );
 
         Map<DimensionalItemObject, Double> ouAQ1 = permutationMap.get( ouAQ1Key );
         Map<DimensionalItemObject, Double> ouAQ2 = permutationMap.get( ouAQ2Key );
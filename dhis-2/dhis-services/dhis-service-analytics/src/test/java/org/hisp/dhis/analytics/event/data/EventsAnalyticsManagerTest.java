@@ -33,12 +33,25 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.mock;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.hisp.dhis.analytics.AnalyticsAggregationType;
+import org.hisp.dhis.analytics.AnalyticsTablesUpdatedEvent;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.event.data.programIndicator.DefaultProgramIndicatorSubqueryBuilder;
 import org.hisp.dhis.common.*;
@@ -59,7 +72,9 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 
 /**
  * @author Luciano Fiandesio
@@ -101,7 +116,7 @@ public class EventsAnalyticsManagerTest extends EventAnalyticsTest
 
         subject.getEvents( createRequestParams(), createGrid(), 100 );
 
-        verify( jdbcTemplate ).queryForRowSet( sql.capture() );
+        verify( jdbcTemplate ).query( sql.capture(), any( RowCallbackHandler.class ) );
 
         String expected = "select psi,ps,executiondate,ST_AsGeoJSON(psigeometry, 6) as geometry,longitude,latitude,ouname,oucode,ax.\"monthly\",ax.\"ou\"  from " + getTable( programA.getUid() )
                 + " as ax where ax.\"monthly\" in ('2000Q1') and (ax.\"uidlevel0\" = 'ouabcdefghA' ) limit 101";
@@ -116,7 +131,7 @@ public class EventsAnalyticsManagerTest extends EventAnalyticsTest
 
         subject.getEvents( createRequestParams(), createGrid(), 100 );
 
-        verify( jdbcTemplate ).queryForRowSet( sql.capture() );
+        verify( jdbcTemplate ).query( sql.capture(), any( RowCallbackHandler.class ) );
 
         String expected = "ax.\"monthly\",ax.\"ou\"  from " + getTable( programA.getUid() )
             + " as ax where ax.\"monthly\" in ('2000Q1') and (ax.\"uidlevel0\" = 'ouabcdefghA' ) limit 101";
@@ -132,7 +147,7 @@ public class EventsAnalyticsManagerTest extends EventAnalyticsTest
         subject.getEvents( createRequestParams( programStage ), createGrid(),
                 100 );
 
-        verify( jdbcTemplate ).queryForRowSet( sql.capture() );
+        verify( jdbcTemplate ).query( sql.capture(), any( RowCallbackHandler.class ) );
 
         String expected = "ax.\"monthly\",ax.\"ou\"  from " + getTable( programA.getUid() )
             + " as ax where ax.\"monthly\" in ('2000Q1') and (ax.\"uidlevel0\" = 'ouabcdefghA' ) and ax.\"ps\" = '"
@@ -149,7 +164,7 @@ public class EventsAnalyticsManagerTest extends EventAnalyticsTest
         subject.getEvents( createRequestParams( programStage, ValueType.INTEGER ), createGrid(),
                 100 );
 
-        verify( jdbcTemplate ).queryForRowSet( sql.capture() );
+        verify( jdbcTemplate ).query( sql.capture(), any( RowCallbackHandler.class ) );
 
         String expected = "ax.\"monthly\",ax.\"ou\",ax.\"fWIAEtYVEGk\"  from " + getTable( programA.getUid() )
             + " as ax where ax.\"monthly\" in ('2000Q1') and (ax.\"uidlevel0\" = 'ouabcdefghA' ) and ax.\"ps\" = '"
@@ -166,7 +181,7 @@ public class EventsAnalyticsManagerTest extends EventAnalyticsTest
         subject.getEvents( createRequestParamsWithFilter( programStage, ValueType.INTEGER ), createGrid(),
                 100 );
 
-        verify( jdbcTemplate ).queryForRowSet( sql.capture() );
+        verify( jdbcTemplate ).query( sql.capture(), any( RowCallbackHandler.class ) );
 
         String expected = "ax.\"monthly\",ax.\"ou\",ax.\"fWIAEtYVEGk\"  from " + getTable( programA.getUid() )
             + " as ax where ax.\"monthly\" in ('2000Q1') and (ax.\"uidlevel0\" = 'ouabcdefghA' ) and ax.\"ps\" = '"
@@ -184,7 +199,7 @@ public class EventsAnalyticsManagerTest extends EventAnalyticsTest
         subject.getEvents( createRequestParams( programStage, ValueType.TEXT ), createGrid(),
                 100 );
 
-        verify( jdbcTemplate ).queryForRowSet( sql.capture() );
+        verify( jdbcTemplate ).query( sql.capture(), any( RowCallbackHandler.class ) );
 
         String expected = "ax.\"monthly\",ax.\"ou\",ax.\"fWIAEtYVEGk\"  from " + getTable( programA.getUid() )
             + " as ax where ax.\"monthly\" in ('2000Q1') and (ax.\"uidlevel0\" = 'ouabcdefghA' ) and ax.\"ps\" = '"
@@ -200,7 +215,7 @@ public class EventsAnalyticsManagerTest extends EventAnalyticsTest
 
         subject.getEvents( createRequestParamsWithFilter( programStage, ValueType.TEXT ), createGrid(), 100 );
 
-        verify( jdbcTemplate ).queryForRowSet( sql.capture() );
+        verify( jdbcTemplate ).query( sql.capture(), any( RowCallbackHandler.class ) );
 
         String expected = "ax.\"monthly\",ax.\"ou\",ax.\"fWIAEtYVEGk\"  from " + getTable( programA.getUid() )
             + " as ax where ax.\"monthly\" in ('2000Q1') and (ax.\"uidlevel0\" = 'ouabcdefghA' ) and ax.\"ps\" = '"
@@ -209,6 +224,39 @@ public class EventsAnalyticsManagerTest extends EventAnalyticsTest
         assertSql( expected, sql.getValue() );
     }
 
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void verifyStreamEventsReadsThroughCursor()
+        throws SQLException
+    {
+        Connection connection = mock( Connection.class );
+        Statement statement = mock( Statement.class );
+        ResultSet resultSet = mock( ResultSet.class );
+
+        when( connection.getAutoCommit() ).thenReturn( true );
+        when( connection.createStatement( ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY ) ).thenReturn( statement );
+        when( statement.executeQuery( anyString() ) ).thenReturn( resultSet );
+        when( resultSet.next() ).thenReturn( true ).thenReturn( false );
+        when( resultSet.getString( 1 ) ).thenReturn( "Discharged" );
+        when( resultSet.getString( 2 ) ).thenReturn( "201701" );
+        when( resultSet.getDouble( 3 ) ).thenReturn( 12.3456 );
+        when( jdbcTemplate.execute( any( ConnectionCallback.class ) ) )
+            .thenAnswer( invocation -> ((ConnectionCallback<?>) invocation.getArgument( 0 )).doInConnection( connection ) );
+
+        List<List<Object>> rows = new ArrayList<>();
+
+        subject.streamEvents( createRequestParams(), createGrid().getHeaders(), 100, rows::add );
+
+        verify( statement ).executeQuery( sql.capture() );
+        verify( statement ).setFetchSize( anyInt() );
+        verify( connection ).setAutoCommit( false );
+        verify( connection ).setAutoCommit( true );
+
+        assertThat( sql.getValue(), containsString( "limit 101" ) );
+        assertThat( rows, hasSize( 1 ) );
+        assertThat( rows.get( 0 ), is( Arrays.asList( "Discharged", "201701", 12.3 ) ) );
+    }
+
     @Test
     public void verifyGetAggregatedEventQuery()
     {
@@ -296,6 +344,68 @@ public class EventsAnalyticsManagerTest extends EventAnalyticsTest
 
     }
 
+    @Test
+    public void verifyGetEventClustersWithGeohashColumn()
+    {
+        mockEmptyRowSet();
+
+        when( jdbcTemplate.queryForObject( anyString(), eq( Integer.class ) ) ).thenReturn( 1 );
+
+        subject.getEventClusters( createClusterRequestParams(), createGrid(), 100 );
+
+        verify( jdbcTemplate ).queryForObject( sql.capture(), eq( Integer.class ) );
+
+        assertThat( sql.getValue(), containsString( "table_name = '" + getTable( programA.getUid() ).toLowerCase() + "' " ) );
+        assertThat( sql.getValue(), containsString( "column_name = 'psigeohash'" ) );
+
+        verify( jdbcTemplate ).queryForRowSet( sql.capture() );
+
+        assertThat( sql.getValue(), containsString( "from " + getTable( programA.getUid() ) + " as ax where " ) );
+        assertThat( sql.getValue(), containsString( "ax.\"psigeometry\" && ST_MakeEnvelope(-10,-10,10,10,4326) " ) );
+        assertThat( sql.getValue(), containsString( "group by left(ax.\"psigeohash\", 6) " ) );
+    }
+
+    @Test
+    public void verifyGetEventClustersWithoutGeohashColumn()
+    {
+        mockEmptyRowSet();
+
+        when( jdbcTemplate.queryForObject( anyString(), eq( Integer.class ) ) ).thenReturn( 0 );
+
+        subject.getEventClusters( createClusterRequestParams(), createGrid(), 100 );
+
+        verify( jdbcTemplate ).queryForRowSet( sql.capture() );
+
+        assertThat( sql.getValue(), containsString( "group by ST_SnapToGrid(ST_Transform(ST_SetSRID(ST_Centroid(ax.\"psigeometry\"), 4326), 3785), 1000) " ) );
+    }
+
+    @Test
+    public void verifyGeohashColumnCheckedOncePerTableUpdate()
+    {
+        mockEmptyRowSet();
+
+        when( jdbcTemplate.queryForObject( anyString(), eq( Integer.class ) ) ).thenReturn( 1 );
+
+        subject.getEventClusters( createClusterRequestParams(), createGrid(), 100 );
+        subject.getEventClusters( createClusterRequestParams(), createGrid(), 100 );
+
+        verify( jdbcTemplate, times( 1 ) ).queryForObject( anyString(), eq( Integer.class ) );
+
+        subject.handleAnalyticsTablesUpdated( new AnalyticsTablesUpdatedEvent( this, null ) );
+        subject.getEventClusters( createClusterRequestParams(), createGrid(), 100 );
+
+        verify( jdbcTemplate, times( 2 ) ).queryForObject( anyString(), eq( Integer.class ) );
+    }
+
+    private EventQueryParams createClusterRequestParams()
+    {
+        return new EventQueryParams.Builder( createRequestParams() )
+            .withCoordinateField( "psigeometry" )
+            .withClusterSize( 1000L )
+            .withBbox( "-10,-10,10,10" )
+            .build();
+    }
+
     private EventQueryParams createRequestParamsWithFilter( ValueType queryItemValueType )
     {
         EventQueryParams.Builder params = new EventQueryParams.Builder( createRequestParams( queryItemValueType ) );
@@ -35,6 +35,7 @@ import static org.hisp.dhis.common.DataDimensionType.ATTRIBUTE;
 import static org.hisp.dhis.common.DimensionType.ORGANISATION_UNIT;
 import static org.hisp.dhis.common.DimensionType.PROGRAM_ATTRIBUTE;
 import static org.hisp.dhis.common.DimensionalObject.ORGUNIT_DIM_ID;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.mockito.junit.MockitoJUnit.rule;
 
@@ -185,6 +186,15 @@ public class JdbcEventAnalyticsManagerTest
         assertThat( actualSql, isEmptyString() );
     }
 
+    @Test
+    public void testGetGeohashPrecision()
+    {
+        assertEquals( 12, JdbcEventAnalyticsManager.getGeohashPrecision( 0 ) );
+        assertEquals( 7, JdbcEventAnalyticsManager.getGeohashPrecision( 100 ) );
+        assertEquals( 6, JdbcEventAnalyticsManager.getGeohashPrecision( 1000 ) );
+        assertEquals( 1, JdbcEventAnalyticsManager.getGeohashPrecision( 10000000 ) );
+    }
+
     private Category stubCategory( final String name, final String uid, final List<CategoryOption> categoryOptions )
     {
         final Category category = new Category( name, ATTRIBUTE );
@@ -40,16 +40,21 @@ import org.springframework.jdbc.core.JdbcTemplate;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTableColumn;
 import org.hisp.dhis.analytics.AnalyticsTableHookService;
 import org.hisp.dhis.analytics.AnalyticsTableManager;
 import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.ColumnDataType;
 import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.common.IdentifiableObjectManager;
@@ -62,8 +67,14 @@ import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.database.DatabaseInfo;
 import org.joda.time.DateTime;
 
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
+import static org.hisp.dhis.util.DateUtils.getLongDateString;
 
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertEquals;
@@ -80,6 +91,9 @@ public class JdbcAnalyticsTableManagerTest
     @Mock
     private JdbcTemplate jdbcTemplate;
 
+    @Mock
+    private PartitionManager partitionManager;
+
     @Rule
     public MockitoRule mockitoRule = MockitoJUnit.rule();
 
@@ -91,7 +105,7 @@ public class JdbcAnalyticsTableManagerTest
         subject = new JdbcAnalyticsTableManager( mock( IdentifiableObjectManager.class ), mock( OrganisationUnitService.class ),
             mock( CategoryService.class ), systemSettingManager, mock( DataApprovalLevelService.class ),
             mock( ResourceTableService.class ), mock( AnalyticsTableHookService.class ), mock( StatementBuilder.class ),
-            mock( PartitionManager.class ), mock( DatabaseInfo.class ), jdbcTemplate );
+            partitionManager, mock( DatabaseInfo.class ), jdbcTemplate );
     }
 
     @Test
@@ -183,4 +197,131 @@ public class JdbcAnalyticsTableManagerTest
 
         subject.getAnalyticsTables( params );
     }
+
+    @Test
+    public void testRemoveUpdatedDataIncrementalLatestUpdate()
+    {
+        Date lastFullTableUpdate = new DateTime( 2019, 3, 1, 2, 0 ).toDate();
+        Date lastLatestPartitionUpdate = new DateTime( 2019, 3, 1, 9, 0 ).toDate();
+        Date startTime = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( startTime )
+            .withLatestPartition()
+            .build();
+
+        AnalyticsTable table = getLatestTable( lastFullTableUpdate, startTime );
+
+        when( systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE ) ).thenReturn( lastFullTableUpdate );
+        when( systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE ) ).thenReturn( lastLatestPartitionUpdate );
+        when( partitionManager.getTableColumns( table.getLatestPartition().getTableName() ) ).thenReturn( Sets.newHashSet( "id", "uidlevel1", "value" ) );
+
+        subject.removeUpdatedData( params, Lists.newArrayList( table ) );
+
+        verify( jdbcTemplate ).execute( contains( "dv.lastupdated >= '" + getLongDateString( lastLatestPartitionUpdate ) + "'" ) );
+    }
+
+    @Test
+    public void testRemoveUpdatedDataFirstLatestUpdate()
+    {
+        Date lastFullTableUpdate = new DateTime( 2019, 3, 1, 2, 0 ).toDate();
+        Date startTime = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( startTime )
+            .withLatestPartition()
+            .build();
+
+        AnalyticsTable table = new AnalyticsTable( AnalyticsTableType.DATA_VALUE, Lists.newArrayList(), Lists.newArrayList() );
+        table.addPartitionTable( AnalyticsTablePartition.LATEST_PARTITION, lastFullTableUpdate, startTime );
+
+        when( systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE ) ).thenReturn( lastFullTableUpdate );
+        when( systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE ) ).thenReturn( null );
+
+        subject.removeUpdatedData( params, Lists.newArrayList( table ) );
+
+        verify( jdbcTemplate ).execute( contains( "dv.lastupdated >= '" + getLongDateString( lastFullTableUpdate ) + "'" ) );
+    }
+
+    @Test
+    public void testPopulateTableIncrementalLatestUpdate()
+    {
+        Date lastFullTableUpdate = new DateTime( 2019, 3, 1, 2, 0 ).toDate();
+        Date lastLatestPartitionUpdate = new DateTime( 2019, 3, 1, 9, 0 ).toDate();
+        Date startTime = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( startTime )
+            .withLatestPartition()
+            .build();
+
+        AnalyticsTablePartition partition = getLatestTable( lastFullTableUpdate, startTime ).getLatestPartition();
+
+        mockPopulateTableSettings( lastFullTableUpdate, lastLatestPartitionUpdate );
+        when( partitionManager.getTableColumns( partition.getTableName() ) ).thenReturn( Sets.newHashSet( "id", "uidlevel1", "value" ) );
+
+        subject.populateTablesAsync( params, new ConcurrentLinkedQueue<>( Lists.newArrayList( partition ) ) );
+
+        verify( jdbcTemplate ).execute(
+            "insert into " + partition.getTempTableName() + " (\"id\",\"uidlevel1\",\"value\") " +
+            "select \"id\",\"uidlevel1\",\"value\" " +
+            "from " + partition.getTableName() + " ax " +
+            "where not exists (select 1 from (select (de.uid || '-' || ps.iso || '-' || ou.uid || '-' || co.uid || '-' || ao.uid) as id " +
+            "from datavalue dv " +
+            "inner join dataelement de on dv.dataelementid=de.dataelementid " +
+            "inner join _periodstructure ps on dv.periodid=ps.periodid " +
+            "inner join organisationunit ou on dv.sourceid=ou.organisationunitid " +
+            "inner join categoryoptioncombo co on dv.categoryoptioncomboid=co.categoryoptioncomboid " +
+            "inner join categoryoptioncombo ao on dv.attributeoptioncomboid=ao.categoryoptioncomboid " +
+            "where dv.lastupdated >= '" + getLongDateString( lastLatestPartitionUpdate ) + "' " +
+            "and dv.lastupdated < '" + getLongDateString( startTime ) + "') ud " +
+            "where ud.id = ax.id)" );
+
+        verify( jdbcTemplate, atLeastOnce() ).execute( contains( "and dv.lastupdated >= '" + getLongDateString( lastLatestPartitionUpdate ) + "' " ) );
+    }
+
+    @Test
+    public void testPopulateTableLatestUpdateChangedColumns()
+    {
+        Date lastFullTableUpdate = new DateTime( 2019, 3, 1, 2, 0 ).toDate();
+        Date lastLatestPartitionUpdate = new DateTime( 2019, 3, 1, 9, 0 ).toDate();
+        Date startTime = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( startTime )
+            .withLatestPartition()
+            .build();
+
+        AnalyticsTablePartition partition = getLatestTable( lastFullTableUpdate, startTime ).getLatestPartition();
+
+        mockPopulateTableSettings( lastFullTableUpdate, lastLatestPartitionUpdate );
+        when( partitionManager.getTableColumns( partition.getTableName() ) ).thenReturn( Sets.newHashSet( "id", "uidlevel1", "uidlevel2", "value" ) );
+
+        subject.populateTablesAsync( params, new ConcurrentLinkedQueue<>( Lists.newArrayList( partition ) ) );
+
+        verify( jdbcTemplate, never() ).execute( contains( "from " + partition.getTableName() + " ax" ) );
+        verify( jdbcTemplate, atLeastOnce() ).execute( contains( "and dv.lastupdated >= '" + getLongDateString( lastFullTableUpdate ) + "' " ) );
+    }
+
+    private AnalyticsTable getLatestTable( Date startDate, Date endDate )
+    {
+        AnalyticsTable table = new AnalyticsTable( AnalyticsTableType.DATA_VALUE,
+            Lists.newArrayList(
+                new AnalyticsTableColumn( quote( "id" ), ColumnDataType.TEXT, "id" ),
+                new AnalyticsTableColumn( quote( "uidlevel1" ), ColumnDataType.CHARACTER_11, "ous.\"uidlevel1\"" ) ),
+            Lists.newArrayList(
+                new AnalyticsTableColumn( quote( "value" ), ColumnDataType.DOUBLE, "value" ) ) );
+        table.addPartitionTable( AnalyticsTablePartition.LATEST_PARTITION, startDate, endDate );
+
+        return table;
+    }
+
+    private void mockPopulateTableSettings( Date lastFullTableUpdate, Date lastLatestPartitionUpdate )
+    {
+        when( systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE ) ).thenReturn( lastFullTableUpdate );
+        when( systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE ) ).thenReturn( lastLatestPartitionUpdate );
+        when( systemSettingManager.getSystemSetting( SettingKey.SKIP_DATA_TYPE_VALIDATION_IN_ANALYTICS_TABLE_EXPORT ) ).thenReturn( false );
+        when( systemSettingManager.getSystemSetting( SettingKey.SKIP_ZERO_VALUES_IN_ANALYTICS_TABLE_EXPORT ) ).thenReturn( false );
+        when( systemSettingManager.getSystemSetting( SettingKey.RESPECT_META_DATA_START_END_DATES_IN_ANALYTICS_TABLE_EXPORT ) ).thenReturn( false );
+    }
 }
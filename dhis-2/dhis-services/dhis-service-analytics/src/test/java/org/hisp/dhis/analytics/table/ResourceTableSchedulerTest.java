@@ -0,0 +1,100 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.resourcetable.ResourceTableType.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hisp.dhis.resourcetable.ResourceTableType;
+import org.junit.Test;
+
+public class ResourceTableSchedulerTest
+{
+    @Test
+    public void testExecuteRespectsDependencies()
+    {
+        List<ResourceTableType> generated = Collections.synchronizedList( new ArrayList<>() );
+        List<ResourceTableType> notified = new ArrayList<>();
+
+        new ResourceTableScheduler()
+            .add( ORG_UNIT_STRUCTURE, () -> generated.add( ORG_UNIT_STRUCTURE ) )
+            .add( CATEGORY_OPTION_COMBO_NAME, () -> generated.add( CATEGORY_OPTION_COMBO_NAME ) )
+            .add( PERIOD_STRUCTURE, () -> generated.add( PERIOD_STRUCTURE ) )
+            .add( ORG_UNIT_GROUP_SET_STRUCTURE, () -> generated.add( ORG_UNIT_GROUP_SET_STRUCTURE ), ORG_UNIT_STRUCTURE )
+            .add( CATEGORY_STRUCTURE, () -> generated.add( CATEGORY_STRUCTURE ), CATEGORY_OPTION_COMBO_NAME, PERIOD_STRUCTURE )
+            .execute( 3, ( type, time ) -> notified.add( type ) );
+
+        assertEquals( 5, generated.size() );
+        assertEquals( 5, notified.size() );
+        assertTrue( generated.indexOf( ORG_UNIT_STRUCTURE ) < generated.indexOf( ORG_UNIT_GROUP_SET_STRUCTURE ) );
+        assertTrue( generated.indexOf( CATEGORY_OPTION_COMBO_NAME ) < generated.indexOf( CATEGORY_STRUCTURE ) );
+        assertTrue( generated.indexOf( PERIOD_STRUCTURE ) < generated.indexOf( CATEGORY_STRUCTURE ) );
+    }
+
+    @Test
+    public void testExecuteSkipsDependentsOfFailedTable()
+    {
+        List<ResourceTableType> generated = Collections.synchronizedList( new ArrayList<>() );
+
+        ResourceTableScheduler scheduler = new ResourceTableScheduler()
+            .add( ORG_UNIT_STRUCTURE, () -> {
+                throw new IllegalStateException( "Failed" );
+            } )
+            .add( PERIOD_STRUCTURE, () -> generated.add( PERIOD_STRUCTURE ) )
+            .add( ORG_UNIT_GROUP_SET_STRUCTURE, () -> generated.add( ORG_UNIT_GROUP_SET_STRUCTURE ), ORG_UNIT_STRUCTURE );
+
+        try
+        {
+            scheduler.execute( 2, ( type, time ) -> {} );
+
+            fail( "Expected exception" );
+        }
+        catch ( IllegalStateException ex )
+        {
+            assertEquals( "Failed", ex.getMessage() );
+        }
+
+        assertTrue( generated.contains( PERIOD_STRUCTURE ) );
+        assertFalse( generated.contains( ORG_UNIT_GROUP_SET_STRUCTURE ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testAddUnknownDependency()
+    {
+        new ResourceTableScheduler()
+            .add( ORG_UNIT_GROUP_SET_STRUCTURE, () -> {}, ORG_UNIT_STRUCTURE );
+    }
+}
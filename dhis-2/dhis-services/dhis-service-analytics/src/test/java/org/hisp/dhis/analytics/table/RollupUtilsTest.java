@@ -0,0 +1,84 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class RollupUtilsTest
+{
+    @Test
+    public void testGetRollupPartitionName()
+    {
+        assertEquals( "analytics_rollup_l2", RollupUtils.getRollupTableName( "analytics", 2 ) );
+        assertEquals( "analytics_rollup_l2_2019", RollupUtils.getRollupPartitionName( "analytics", 2, 2019 ) );
+        assertEquals( "analytics_rollup_l2_temp_2019", RollupUtils.getTempRollupPartitionName( "analytics", 2, 2019 ) );
+    }
+
+    @Test
+    public void testIsRollupColumn()
+    {
+        assertTrue( RollupUtils.isRollupColumn( "\"dx\"", 2 ) );
+        assertTrue( RollupUtils.isRollupColumn( "\"uidlevel1\"", 2 ) );
+        assertTrue( RollupUtils.isRollupColumn( "uidlevel2", 2 ) );
+        assertTrue( RollupUtils.isRollupColumn( "\"monthly\"", 2 ) );
+        assertTrue( RollupUtils.isRollupColumn( "\"quarterly\"", 2 ) );
+        assertTrue( RollupUtils.isRollupColumn( "\"financialapril\"", 2 ) );
+        assertFalse( RollupUtils.isRollupColumn( "\"uidlevel3\"", 2 ) );
+        assertFalse( RollupUtils.isRollupColumn( "\"weekly\"", 2 ) );
+        assertFalse( RollupUtils.isRollupColumn( "\"daily\"", 2 ) );
+        assertFalse( RollupUtils.isRollupColumn( "\"ou\"", 2 ) );
+        assertFalse( RollupUtils.isRollupColumn( "\"approvallevel\"", 2 ) );
+    }
+
+    @Test
+    public void testGetRollupLevels()
+    {
+        assertEquals( Lists.newArrayList( 1, 2, 3 ), RollupUtils.getRollupLevels( "3, 1,2,x,2" ) );
+        assertTrue( RollupUtils.getRollupLevels( null ).isEmpty() );
+        assertTrue( RollupUtils.getRollupLevels( "" ).isEmpty() );
+    }
+
+    @Test
+    public void testGetStaleRollupTables()
+    {
+        assertEquals( Lists.newArrayList( "analytics_rollup_l1_2019", "analytics_rollup_l1_2020", "analytics_rollup_l1_temp_2020" ),
+            RollupUtils.getStaleRollupTables( "analytics", Lists.newArrayList(
+                "analytics", "analytics_2019", "analytics_rollup_l3_2019", "analytics_rollup_l1_2019",
+                "analytics_rollup_l1_2020", "analytics_rollup_l1_temp_2020", "analytics_completeness_2019" ), Lists.newArrayList( 2, 3 ) ) );
+
+        assertTrue( RollupUtils.getStaleRollupTables( "analytics", Lists.newArrayList(
+            "analytics_2019", "analytics_rollup_l3_2019" ), Lists.newArrayList( 3 ) ).isEmpty() );
+    }
+}
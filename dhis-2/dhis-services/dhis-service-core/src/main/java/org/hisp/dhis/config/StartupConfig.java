@@ -47,6 +47,7 @@ import org.hisp.dhis.scheduling.JobConfigurationService;
 import org.hisp.dhis.scheduling.SchedulingManager;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.startup.*;
+import org.hisp.dhis.trackedentity.TrackedEntityAttributeSearchIndexService;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.UserService;
 import org.springframework.context.annotation.Bean;
@@ -143,6 +144,17 @@ public class StartupConfig
         return upgrader;
     }
 
+    @Bean( "org.hisp.dhis.startup.TrackedEntityAttributeSearchIndexUpgrader" )
+    public TrackedEntityAttributeSearchIndexUpgrader trackedEntityAttributeSearchIndexUpgrader(
+        TrackedEntityAttributeSearchIndexService searchIndexService )
+    {
+        TrackedEntityAttributeSearchIndexUpgrader upgrader = new TrackedEntityAttributeSearchIndexUpgrader( searchIndexService );
+        upgrader.setRunlevel( 14 );
+        upgrader.setName( "TrackedEntityAttributeSearchIndexUpgrader" );
+        upgrader.setSkipInTests( true );
+        return upgrader;
+    }
+
     @Bean
     public SchedulerStart schedulerStart( SystemSettingManager systemSettingManager,
         JobConfigurationService jobConfigurationService, SchedulingManager schedulingManager,
@@ -42,12 +42,16 @@ import java.util.stream.Collectors;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.springframework.util.ObjectUtils.isEmpty;
 
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import com.google.common.collect.ImmutableMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.analytics.DataType;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
 import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.common.*;
 import org.hisp.dhis.constant.Constant;
@@ -156,6 +160,17 @@ public class DefaultExpressionService
         .put( SIMPLE_TEST, COMMON_EXPRESSION_FUNCTIONS )
         .build();
 
+    /**
+     * Numeric expressions compiled for evaluation, by parse type and
+     * expression. Empty if the expression can not be compiled.
+     */
+    private static final Cache<Optional<CompiledExpression>> COMPILED_EXPRESSIONS =
+        new SimpleCacheBuilder<Optional<CompiledExpression>>().forRegion( "compiledExpressions" )
+        .expireAfterAccess( 10, TimeUnit.MINUTES )
+        .withInitialCapacity( 10000 )
+        .withMaximumSize( 50000 )
+        .build();
+
     // -------------------------------------------------------------------------
     // Constructor
     // -------------------------------------------------------------------------
@@ -266,11 +281,15 @@ public class DefaultExpressionService
 
         Integer days = periods != null ? getDaysFromPeriods( periods ) : null;
 
-        Double denominatorValue = getExpressionValue( indicator.getDenominator(), INDICATOR_EXPRESSION,
-            valueMap, constantMap, orgUnitCountMap, days, SKIP_IF_ALL_VALUES_MISSING );
+        Map<String, Double> itemValueMap = getItemValueMap( valueMap );
+
+        Double denominatorValue = castDouble( calculateExpressionValue( indicator.getDenominator(), INDICATOR_EXPRESSION,
+            itemValueMap, constantMap, orgUnitCountMap, days, SKIP_IF_ALL_VALUES_MISSING,
+            DEFAULT_SAMPLE_PERIODS, new MapMap<>() ) );
 
-        Double numeratorValue = getExpressionValue( indicator.getNumerator(), INDICATOR_EXPRESSION,
-            valueMap, constantMap, orgUnitCountMap, days, SKIP_IF_ALL_VALUES_MISSING );
+        Double numeratorValue = castDouble( calculateExpressionValue( indicator.getNumerator(), INDICATOR_EXPRESSION,
+            itemValueMap, constantMap, orgUnitCountMap, days, SKIP_IF_ALL_VALUES_MISSING,
+            DEFAULT_SAMPLE_PERIODS, new MapMap<>() ) );
 
         if ( denominatorValue != null && denominatorValue != 0d && numeratorValue != null )
         {
@@ -501,21 +520,41 @@ public class DefaultExpressionService
             return null;
         }
 
-        CommonExpressionVisitor visitor = newVisitor( parseType,
-            FUNCTION_EVALUATE, ITEM_EVALUATE, samplePeriods,
-            constantMap );
-
-        Map<String, Double> itemValueMap = valueMap.entrySet().stream().collect(
-            Collectors.toMap( e -> e.getKey().getDimensionItem(), Map.Entry::getValue ) );
-
         MapMap<Period, String, Double> periodItemValueMap = new MapMap<>();
 
         for ( Period p : periodValueMap.keySet() )
         {
-            periodItemValueMap.put( p, periodValueMap.get( p ).entrySet().stream().collect(
-                Collectors.toMap( e -> e.getKey().getDimensionItem(), Map.Entry::getValue ) ) );
+            periodItemValueMap.put( p, getItemValueMap( periodValueMap.get( p ) ) );
+        }
+
+        return calculateExpressionValue( expression, parseType, getItemValueMap( valueMap ), constantMap,
+            orgUnitCountMap, days, missingValueStrategy, samplePeriods, periodItemValueMap );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Gets the value of an expression, using the values of dimensional
+     * items keyed by dimension item identifier. Numeric expressions are
+     * evaluated through their compiled form if they can be compiled.
+     */
+    private Object calculateExpressionValue( String expression, ParseType parseType,
+        Map<String, Double> itemValueMap, Map<String, Constant> constantMap,
+        Map<String, Integer> orgUnitCountMap, Integer days,
+        MissingValueStrategy missingValueStrategy,
+        List<Period> samplePeriods, MapMap<Period, String, Double> periodItemValueMap )
+    {
+        if ( isEmpty( expression ) )
+        {
+            return null;
         }
 
+        CommonExpressionVisitor visitor = newVisitor( parseType,
+            FUNCTION_EVALUATE, ITEM_EVALUATE, samplePeriods,
+            constantMap );
+
         visitor.setItemValueMap( itemValueMap );
         visitor.setPeriodItemValueMap( periodItemValueMap );
         visitor.setOrgUnitCountMap( orgUnitCountMap );
@@ -525,7 +564,11 @@ public class DefaultExpressionService
             visitor.setDays( Double.valueOf( days ) );
         }
 
-        Object value = visit( expression, parseType.getDataType(), visitor, true );
+        CompiledExpression compiled = getCompiledExpression( expression, parseType );
+
+        Object value = compiled != null ?
+            evaluate( expression, parseType.getDataType(), () -> compiled.evaluate( visitor ), true ) :
+            visit( expression, parseType.getDataType(), visitor, true );
 
         int itemsFound = visitor.getItemsFound();
         int itemValuesFound = visitor.getItemValuesFound();
@@ -564,9 +607,51 @@ public class DefaultExpressionService
         return value;
     }
 
-    // -------------------------------------------------------------------------
-    // Supportive methods
-    // -------------------------------------------------------------------------
+    /**
+     * Gets the compiled form of a numeric expression, from the cache if
+     * possible.
+     *
+     * @param expression the expression.
+     * @param parseType the type of expression.
+     * @return the compiled expression, or null if it can not be compiled.
+     */
+    private CompiledExpression getCompiledExpression( String expression, ParseType parseType )
+    {
+        if ( parseType.getDataType() != DataType.NUMERIC )
+        {
+            return null;
+        }
+
+        return COMPILED_EXPRESSIONS.get( parseType.name() + ":" + expression, key -> compile( expression, parseType ) )
+            .flatMap( compiled -> compiled )
+            .orElse( null );
+    }
+
+    private Optional<CompiledExpression> compile( String expression, ParseType parseType )
+    {
+        try
+        {
+            return Optional.ofNullable( Parser.compile( expression,
+                PARSE_TYPE_EXPRESSION_FUNCTIONS.get( parseType ), PARSE_TYPE_EXPRESSION_ITEMS.get( parseType ) ) );
+        }
+        catch ( ParserException ex )
+        {
+            return Optional.empty(); // Reported when visiting the expression
+        }
+    }
+
+    /**
+     * Converts a map of values by dimensional item object to a map of values
+     * by dimension item identifier.
+     */
+    private Map<String, Double> getItemValueMap( Map<DimensionalItemObject, Double> valueMap )
+    {
+        Map<String, Double> itemValueMap = new HashMap<>( valueMap.size() * 2 );
+
+        valueMap.forEach( ( item, value ) -> itemValueMap.put( item.getDimensionItem(), value ) );
+
+        return itemValueMap;
+    }
 
     /**
      * Creates a new ExpressionItemsVisitor object.
@@ -625,10 +710,24 @@ public class DefaultExpressionService
      * @return the expression value.
      */
     private Object visit( String expression, DataType dataType, CommonExpressionVisitor visitor, boolean logWarnings )
+    {
+        return evaluate( expression, dataType, () -> Parser.visit( expression, visitor ), logWarnings );
+    }
+
+    /**
+     * Evaluates an expression and returns the expected expression type.
+     *
+     * @param expression the expresion to evaluate.
+     * @param dataType the expected data type of the expression value.
+     * @param evaluator the supplier of the raw expression value.
+     * @param logWarnings whether to log warnings or not.
+     * @return the expression value.
+     */
+    private Object evaluate( String expression, DataType dataType, Supplier<Object> evaluator, boolean logWarnings )
     {
         try
         {
-            Object result = Parser.visit( expression, visitor );
+            Object result = evaluator.get();
 
             switch( dataType )
             {
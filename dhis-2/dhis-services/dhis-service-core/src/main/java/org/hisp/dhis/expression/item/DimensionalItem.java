@@ -31,6 +31,7 @@ package org.hisp.dhis.expression.item;
 import org.hisp.dhis.common.DimensionalItemId;
 import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.parser.expression.CommonExpressionVisitor;
+import org.hisp.dhis.parser.expression.CompiledExpression;
 import org.hisp.dhis.parser.expression.ParserExceptionWithoutContext;
 
 import static org.hisp.dhis.parser.expression.ParserUtils.DOUBLE_VALUE_IF_NULL;
@@ -83,6 +84,14 @@ public abstract class DimensionalItem
         return visitor.handleNulls( value );
     }
 
+    @Override
+    public final CompiledExpression.Node compile( ItemContext ctx )
+    {
+        final String id = getId( ctx );
+
+        return visitor -> (Double) visitor.handleNulls( visitor.getItemValueMap().get( id ) );
+    }
+
     /**
      * Constructs the DimensionalItemId object for this item.
      *
@@ -30,6 +30,7 @@ package org.hisp.dhis.expression.item;
 
 import org.hisp.dhis.organisationunit.OrganisationUnitGroup;
 import org.hisp.dhis.parser.expression.CommonExpressionVisitor;
+import org.hisp.dhis.parser.expression.CompiledExpression;
 import org.hisp.dhis.parser.expression.ParserExceptionWithoutContext;
 
 import static org.hisp.dhis.parser.expression.ParserUtils.DOUBLE_VALUE_IF_NULL;
@@ -79,6 +80,23 @@ public class ItemOrgUnitGroup
         return count.doubleValue();
     }
 
+    @Override
+    public CompiledExpression.Node compile( ItemContext ctx )
+    {
+        final String uid = ctx.uid0.getText();
+
+        return visitor -> {
+            Integer count = visitor.getOrgUnitCountMap().get( uid );
+
+            if ( count == null ) // Shouldn't happen for a valid expression.
+            {
+                throw new ParserExceptionWithoutContext( "Can't find count for organisation unit " + uid );
+            }
+
+            return count.doubleValue();
+        };
+    }
+
     @Override
     public Object regenerate( ItemContext ctx, CommonExpressionVisitor visitor )
     {
@@ -94,6 +94,8 @@ public class DefaultPreheatService implements PreheatService
 {
     private static final Log log = LogFactory.getLog( DefaultPreheatService.class );
 
+    private static final int IDENTIFIER_PARTITION_SIZE = 20000;
+
     private final SchemaService schemaService;
 
     private final QueryService queryService;
@@ -171,9 +173,7 @@ public class DefaultPreheatService implements PreheatService
 
             for ( Class<? extends IdentifiableObject> klass : params.getClasses() )
             {
-                Query query = Query.from( schemaService.getDynamicSchema( klass ) );
-                query.setUser( preheat.getUser() );
-                List<? extends IdentifiableObject> objects = queryService.query( query );
+                List<? extends IdentifiableObject> objects = queryAll( klass, preheat.getUser() );
 
                 if ( PreheatIdentifier.UID == params.getPreheatIdentifier() || PreheatIdentifier.AUTO == params.getPreheatIdentifier() )
                 {
@@ -198,57 +198,43 @@ public class DefaultPreheatService implements PreheatService
             Map<Class<? extends IdentifiableObject>, Set<String>> uidMap = references.get( PreheatIdentifier.UID );
             Map<Class<? extends IdentifiableObject>, Set<String>> codeMap = references.get( PreheatIdentifier.CODE );
 
-            if ( uidMap != null && (PreheatIdentifier.UID == params.getPreheatIdentifier() || PreheatIdentifier.AUTO == params.getPreheatIdentifier()) )
-            {
-                for ( Class<? extends IdentifiableObject> klass : uidMap.keySet() )
-                {
-                    List<List<String>> identifiers = Lists.partition( Lists.newArrayList( uidMap.get( klass ) ), 20000 );
+            boolean preheatUid = uidMap != null && (PreheatIdentifier.UID == params.getPreheatIdentifier() || PreheatIdentifier.AUTO == params.getPreheatIdentifier());
+            boolean preheatCode = codeMap != null && (PreheatIdentifier.CODE == params.getPreheatIdentifier() || PreheatIdentifier.AUTO == params.getPreheatIdentifier());
 
-                    if ( !identifiers.isEmpty() )
-                    {
-                        for ( List<String> ids : identifiers )
-                        {
-                            Query query = Query.from( schemaService.getDynamicSchema( klass ) );
-                            query.setUser( preheat.getUser() );
-                            query.add( Restrictions.in( "id", ids ) );
-                            List<? extends IdentifiableObject> objects = queryService.query( query );
-                            preheat.put( PreheatIdentifier.UID, objects );
-                        }
-                    }
-                }
-            }
+            // the imported classes are loaded in full for the uniqueness checks, so references to
+            // those classes are resolved from the loaded objects instead of being queried again
 
-            if ( codeMap != null && (PreheatIdentifier.CODE == params.getPreheatIdentifier() || PreheatIdentifier.AUTO == params.getPreheatIdentifier()) )
+            for ( Class<? extends IdentifiableObject> klass : klasses )
             {
-                for ( Class<? extends IdentifiableObject> klass : codeMap.keySet() )
-                {
-                    List<List<String>> identifiers = Lists.partition( Lists.newArrayList( codeMap.get( klass ) ), 20000 );
+                List<? extends IdentifiableObject> objects = queryAll( klass, preheat.getUser() );
 
-                    if ( !identifiers.isEmpty() )
-                    {
-                        for ( List<String> ids : identifiers )
-                        {
-                            Query query = Query.from( schemaService.getDynamicSchema( klass ) );
-                            query.setUser( preheat.getUser() );
-                            query.add( Restrictions.in( "code", ids ) );
-                            List<? extends IdentifiableObject> objects = queryService.query( query );
-                            preheat.put( PreheatIdentifier.CODE, objects );
-                        }
-                    }
+                if ( preheatUid && uidMap.containsKey( klass ) )
+                {
+                    Set<String> uids = uidMap.remove( klass );
+                    preheat.put( PreheatIdentifier.UID, objects.stream().filter( o -> uids.contains( o.getUid() ) ).collect( Collectors.toList() ) );
                 }
-            }
 
-            for ( Class<? extends IdentifiableObject> klass : klasses )
-            {
-                Query query = Query.from( schemaService.getDynamicSchema( klass ) );
-                query.setUser( preheat.getUser() );
-                List<? extends IdentifiableObject> objects = queryService.query( query );
+                if ( preheatCode && codeMap.containsKey( klass ) )
+                {
+                    Set<String> codes = codeMap.remove( klass );
+                    preheat.put( PreheatIdentifier.CODE, objects.stream().filter( o -> codes.contains( o.getCode() ) ).collect( Collectors.toList() ) );
+                }
 
                 if ( !objects.isEmpty() )
                 {
                     uniqueCollectionMap.put( klass, new ArrayList<>( objects ) );
                 }
             }
+
+            if ( preheatUid )
+            {
+                uidMap.forEach( ( klass, uids ) -> preheat.put( PreheatIdentifier.UID, queryByIdentifiers( klass, "id", uids, preheat.getUser() ) ) );
+            }
+
+            if ( preheatCode )
+            {
+                codeMap.forEach( ( klass, codes ) -> preheat.put( PreheatIdentifier.CODE, queryByIdentifiers( klass, "code", codes, preheat.getUser() ) ) );
+            }
         }
 
         if ( uniqueCollectionMap.containsKey( User.class ) )
@@ -288,6 +274,29 @@ public class DefaultPreheatService implements PreheatService
         return preheat;
     }
 
+    private List<? extends IdentifiableObject> queryAll( Class<? extends IdentifiableObject> klass, User user )
+    {
+        Query query = Query.from( schemaService.getDynamicSchema( klass ) );
+        query.setUser( user );
+
+        return queryService.query( query );
+    }
+
+    private List<IdentifiableObject> queryByIdentifiers( Class<? extends IdentifiableObject> klass, String property, Set<String> identifiers, User user )
+    {
+        List<IdentifiableObject> objects = new ArrayList<>();
+
+        for ( List<String> ids : Lists.partition( Lists.newArrayList( identifiers ), IDENTIFIER_PARTITION_SIZE ) )
+        {
+            Query query = Query.from( schemaService.getDynamicSchema( klass ) );
+            query.setUser( user );
+            query.add( Restrictions.in( property, ids ) );
+            objects.addAll( queryService.query( query ) );
+        }
+
+        return objects;
+    }
+
     private void handleSecurity( Map<Class<? extends IdentifiableObject>, List<IdentifiableObject>> objects, PreheatIdentifier identifier, Preheat preheat )
     {
         objects.forEach( ( klass, list ) -> list.forEach( object ->
@@ -534,7 +543,7 @@ public class DefaultPreheatService implements PreheatService
                         if ( !uidMap.containsKey( itemKlass ) ) uidMap.put( itemKlass, new HashSet<>() );
                         if ( !codeMap.containsKey( itemKlass ) ) codeMap.put( itemKlass, new HashSet<>() );
 
-                        Object reference = ReflectionUtils.invokeMethod( object, p.getGetterMethod() );
+                        Object reference = ReflectionUtils.invokeGetter( object, p );
 
                         if ( reference != null )
                         {
@@ -544,7 +553,7 @@ public class DefaultPreheatService implements PreheatService
                     }
                     else
                     {
-                        Collection<IdentifiableObject> reference = ReflectionUtils.invokeMethod( object, p.getGetterMethod() );
+                        Collection<IdentifiableObject> reference = ReflectionUtils.invokeGetter( object, p );
                         reference.forEach( identifiableObject -> addIdentifiers( map, identifiableObject ) );
 
                         if ( DataElementOperand.class.isAssignableFrom( p.getItemKlass() ) )
@@ -717,7 +726,7 @@ public class DefaultPreheatService implements PreheatService
                 {
                     if ( !p.isCollection() )
                     {
-                        IdentifiableObject reference = ReflectionUtils.invokeMethod( object, p.getGetterMethod() );
+                        IdentifiableObject reference = ReflectionUtils.invokeGetter( object, p );
 
                         if ( reference != null )
                         {
@@ -735,7 +744,7 @@ public class DefaultPreheatService implements PreheatService
                     else
                     {
                         Collection<IdentifiableObject> refObjects = ReflectionUtils.newCollectionInstance( p.getKlass() );
-                        Collection<IdentifiableObject> references = ReflectionUtils.invokeMethod( object, p.getGetterMethod() );
+                        Collection<IdentifiableObject> references = ReflectionUtils.invokeGetter( object, p );
 
                         if ( references != null )
                         {
@@ -805,7 +814,7 @@ public class DefaultPreheatService implements PreheatService
                         list.addAll( targets.get( property.getItemKlass() ) );
                     }
 
-                    objects.forEach( o -> list.addAll( ReflectionUtils.invokeMethod( o, property.getGetterMethod() ) ) );
+                    objects.forEach( o -> list.addAll( ReflectionUtils.invokeGetter( o, property ) ) );
                     targets.put( property.getItemKlass(), list );
                 }
                 else
@@ -817,7 +826,7 @@ public class DefaultPreheatService implements PreheatService
                         list.addAll( targets.get( property.getKlass() ) );
                     }
 
-                    objects.forEach( o -> list.add( ReflectionUtils.invokeMethod( o, property.getGetterMethod() ) ) );
+                    objects.forEach( o -> list.add( ReflectionUtils.invokeGetter( o, property ) ) );
                     targets.put( property.getKlass(), list );
                 }
             }
@@ -867,24 +876,24 @@ public class DefaultPreheatService implements PreheatService
 
             if ( !property.isCollection() )
             {
-                IdentifiableObject refObject = ReflectionUtils.invokeMethod( object, property.getGetterMethod() );
+                IdentifiableObject refObject = ReflectionUtils.invokeGetter( object, property );
                 IdentifiableObject ref = getPersistedObject( preheat, identifier, refObject );
 
                 ref = connectDefaults( preheat, property, object, refObject, ref );
 
                 if ( ref != null && ref.getId() == 0 )
                 {
-                    ReflectionUtils.invokeMethod( object, property.getSetterMethod(), (Object) null );
+                    ReflectionUtils.invokeSetter( object, property, null );
                 }
                 else
                 {
-                    ReflectionUtils.invokeMethod( object, property.getSetterMethod(), ref );
+                    ReflectionUtils.invokeSetter( object, property, ref );
                 }
             }
             else
             {
                 Collection<IdentifiableObject> objects = ReflectionUtils.newCollectionInstance( property.getKlass() );
-                Collection<IdentifiableObject> refObjects = ReflectionUtils.invokeMethod( object, property.getGetterMethod() );
+                Collection<IdentifiableObject> refObjects = ReflectionUtils.invokeGetter( object, property );
 
                 for ( IdentifiableObject refObject : refObjects )
                 {
@@ -892,7 +901,7 @@ public class DefaultPreheatService implements PreheatService
                     if ( ref != null && ref.getId() != 0 ) objects.add( ref );
                 }
 
-                ReflectionUtils.invokeMethod( object, property.getSetterMethod(), objects );
+                ReflectionUtils.invokeSetter( object, property, objects );
             }
         }
     }
@@ -971,7 +980,7 @@ public class DefaultPreheatService implements PreheatService
             uniqueProperties.forEach( property ->
             {
                 if ( !map.containsKey( property.getName() ) ) map.put( property.getName(), new HashMap<>() );
-                Object value = ReflectionUtils.invokeMethod( object, property.getGetterMethod() );
+                Object value = ReflectionUtils.invokeGetter( object, property );
                 if ( value != null ) map.get( property.getName() ).put( value, object.getUid() );
             } );
         }
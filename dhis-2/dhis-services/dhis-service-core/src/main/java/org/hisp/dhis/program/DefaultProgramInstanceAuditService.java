@@ -30,6 +30,9 @@ package org.hisp.dhis.program;
 
 import java.util.List;
 
+import javax.annotation.PreDestroy;
+
+import org.hisp.dhis.system.audit.BufferedAuditWriter;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -51,10 +54,19 @@ public class DefaultProgramInstanceAuditService
 
     private final ProgramInstanceAuditStore programInstanceAuditStore;
 
+    private final BufferedAuditWriter<ProgramInstanceAudit> auditWriter;
+
     public DefaultProgramInstanceAuditService( ProgramInstanceAuditStore programInstanceAuditStore )
     {
         checkNotNull( programInstanceAuditStore );
         this.programInstanceAuditStore = programInstanceAuditStore;
+        this.auditWriter = new BufferedAuditWriter<>( "program-instance", programInstanceAuditStore::addProgramInstanceAudits );
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        auditWriter.shutdown();
     }
 
     // -------------------------------------------------------------------------
@@ -62,16 +74,16 @@ public class DefaultProgramInstanceAuditService
     // -------------------------------------------------------------------------
 
     @Override
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void addProgramInstanceAudit( ProgramInstanceAudit programInstanceAudit )
     {
-        programInstanceAuditStore.addProgramInstanceAudit( programInstanceAudit );
+        auditWriter.add( programInstanceAudit );
     }
 
     @Override
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void deleteProgramInstanceAudit( ProgramInstance programInstance )
     {
+        auditWriter.flush();
         programInstanceAuditStore.deleteProgramInstanceAudit( programInstance );
     }
 
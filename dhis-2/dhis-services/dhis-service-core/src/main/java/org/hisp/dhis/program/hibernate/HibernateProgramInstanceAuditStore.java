@@ -43,6 +43,7 @@ import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Function;
 
@@ -70,6 +71,32 @@ public class HibernateProgramInstanceAuditStore
         save( programInstanceAudit );
     }
 
+    @Override
+    public void addProgramInstanceAudits( List<ProgramInstanceAudit> programInstanceAudits )
+    {
+        if ( programInstanceAudits.isEmpty() )
+        {
+            return;
+        }
+
+        String sql = "insert into programinstanceaudit " +
+            "(programinstanceauditid, programinstanceid, created, accessedby, audittype, comment) values " +
+            String.join( ",", Collections.nCopies( programInstanceAudits.size(), "(nextval('hibernate_sequence'),?,?,?,?,?)" ) );
+
+        List<Object> args = new ArrayList<>();
+
+        for ( ProgramInstanceAudit audit : programInstanceAudits )
+        {
+            args.add( audit.getProgramInstance().getId() );
+            args.add( audit.getCreated() );
+            args.add( audit.getAccessedBy() );
+            args.add( audit.getAuditType().name() );
+            args.add( audit.getComment() );
+        }
+
+        jdbcTemplate.update( sql, args.toArray() );
+    }
+
     @Override
     public void deleteProgramInstanceAudit( ProgramInstance programInstance )
     {
@@ -37,6 +37,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.Predicate;
@@ -46,6 +47,7 @@ import org.apache.commons.lang.time.DateUtils;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.Query;
 import org.hisp.dhis.common.OrganisationUnitSelectionMode;
+import org.hisp.dhis.common.PageToken;
 import org.hisp.dhis.common.hibernate.HibernateIdentifiableObjectStore;
 import org.hisp.dhis.commons.util.SqlHelper;
 import org.hisp.dhis.deletedobject.DeletedObjectService;
@@ -72,6 +74,15 @@ public class HibernateProgramInstanceStore
     extends HibernateIdentifiableObjectStore<ProgramInstance>
     implements ProgramInstanceStore
 {
+    /**
+     * Seeks past the enrollment identified by the page token, in the order of
+     * {@link #KEYSET_ORDER_HQL}.
+     */
+    private static final String KEYSET_HQL = " (pi.lastUpdated < :keysetLastUpdated or " +
+        "(pi.lastUpdated = :keysetLastUpdated and pi.id < :keysetId)) ";
+
+    private static final String KEYSET_ORDER_HQL = " order by pi.lastUpdated desc, pi.id desc ";
+
     private static final Set<NotificationTrigger> SCHEDULED_PROGRAM_INSTANCE_TRIGGERS =
         Sets.intersection(
             NotificationTrigger.getAllApplicableToProgramInstance(),
@@ -97,7 +108,10 @@ public class HibernateProgramInstanceStore
 
     private String buildCountProgramInstanceHql( ProgramInstanceQueryParams params )
     {
-        return buildProgramInstanceHql( params ).replaceFirst( "from ProgramInstance pi", "select count(distinct uid) from ProgramInstance pi" );
+        return buildProgramInstanceHql( params )
+            .replaceFirst( "from ProgramInstance pi", "select count(distinct uid) from ProgramInstance pi" )
+            .replaceFirst( "(where|and) " + Pattern.quote( KEYSET_HQL ), "" )
+            .replaceFirst( Pattern.quote( KEYSET_ORDER_HQL ), "" );
     }
 
     @Override
@@ -107,13 +121,32 @@ public class HibernateProgramInstanceStore
 
         Query<ProgramInstance> query = getQuery( hql );
 
-        if ( params.isPaging() )
+        if ( params.isKeysetPaging() )
+        {
+            if ( params.hasPageToken() )
+            {
+                query.setParameter( "keysetLastUpdated", params.getPageToken().getLastUpdated() );
+                query.setParameter( "keysetId", params.getPageToken().getId() );
+            }
+
+            query.setMaxResults( params.getPageSizeWithDefault() );
+        }
+        else if ( params.isPaging() )
         {
             query.setFirstResult( params.getOffset() );
             query.setMaxResults( params.getPageSizeWithDefault() );
         }
 
-        return query.list();
+        List<ProgramInstance> programInstances = query.list();
+
+        if ( params.isKeysetPaging() && !programInstances.isEmpty() && programInstances.size() >= params.getPageSizeWithDefault() )
+        {
+            ProgramInstance last = programInstances.get( programInstances.size() - 1 );
+
+            params.setNextPageToken( PageToken.of( last.getLastUpdated(), last.getId() ) );
+        }
+
+        return programInstances;
     }
 
     private String buildProgramInstanceHql( ProgramInstanceQueryParams params )
@@ -193,6 +226,16 @@ public class HibernateProgramInstanceStore
             hql += hlp.whereAnd() + " pi.deleted is false ";
         }
 
+        if ( params.isKeysetPaging() && params.hasPageToken() )
+        {
+            hql += hlp.whereAnd() + KEYSET_HQL;
+        }
+
+        if ( params.isKeysetPaging() )
+        {
+            hql += KEYSET_ORDER_HQL;
+        }
+
         return hql;
     }
 
@@ -0,0 +1,413 @@
+package org.hisp.dhis.trackedentity;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.program.ProgramTrackedEntityAttribute;
+import org.hisp.dhis.util.Timer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Maintains one partial trigram index per searchable text attribute over
+ * {@code lower(value)} of the tracked entity attribute value table. The
+ * indexes serve the {@code lower(value) like '%...%'} and equality filters
+ * issued by tracked entity instance search, and are kept up to date by the
+ * database as attribute values change. Requires the PostgreSQL
+ * {@code pg_trgm} extension.
+ * <p>
+ * The indexes are reconciled at startup and after commit of a change which
+ * can make an attribute searchable or not, which is a change of the unique
+ * flag or value type of an attribute, or of the searchable flag of a tracked
+ * entity type or program attribute. Reconciliations requested while one is
+ * pending are coalesced.
+ */
+@Service( "org.hisp.dhis.trackedentity.TrackedEntityAttributeSearchIndexService" )
+public class DefaultTrackedEntityAttributeSearchIndexService
+    implements TrackedEntityAttributeSearchIndexService
+{
+    private static final Log log = LogFactory.getLog( DefaultTrackedEntityAttributeSearchIndexService.class );
+
+    static final String INDEX_PREFIX = "in_teav_trgm_";
+
+    /**
+     * Mapped classes and the properties which determine whether an attribute
+     * is searchable.
+     */
+    private static final Map<Class<?>, Set<String>> SEARCHABLE_PROPERTIES = ImmutableMap.of(
+        TrackedEntityAttribute.class, ImmutableSet.of( "unique", "valueType" ),
+        TrackedEntityTypeAttribute.class, ImmutableSet.of( "searchable" ),
+        ProgramTrackedEntityAttribute.class, ImmutableSet.of( "searchable" ) );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DhisConfigurationProvider config;
+
+    private final SessionFactory sessionFactory;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor( runnable -> {
+        Thread thread = new Thread( runnable, "tracker-search-index" );
+        thread.setDaemon( true );
+        return thread;
+    } );
+
+    private final AtomicBoolean reconcilePending = new AtomicBoolean();
+
+    public DefaultTrackedEntityAttributeSearchIndexService( JdbcTemplate jdbcTemplate, DhisConfigurationProvider config,
+        SessionFactory sessionFactory )
+    {
+        checkNotNull( jdbcTemplate );
+        checkNotNull( config );
+        checkNotNull( sessionFactory );
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
+        this.sessionFactory = sessionFactory;
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        EventListenerRegistry registry = sessionFactory.unwrap( SessionFactoryImplementor.class )
+            .getServiceRegistry().getService( EventListenerRegistry.class );
+
+        ReconcileListener listener = new ReconcileListener();
+
+        registry.appendListeners( EventType.POST_COMMIT_INSERT, listener );
+        registry.appendListeners( EventType.POST_COMMIT_UPDATE, listener );
+        registry.appendListeners( EventType.POST_COMMIT_DELETE, listener );
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    // -------------------------------------------------------------------------
+    // TrackedEntityAttributeSearchIndexService implementation
+    // -------------------------------------------------------------------------
+
+    @Async
+    @Override
+    public void updateSearchIndexes()
+    {
+        reconcileIndexes();
+    }
+
+    /**
+     * Creates missing and invalid search indexes and drops search indexes of
+     * attributes which are no longer searchable.
+     */
+    synchronized void reconcileIndexes()
+    {
+        if ( !config.isEnabled( ConfigurationKey.TRACKER_SEARCH_INDEX_ENABLED ) )
+        {
+            return;
+        }
+
+        if ( !isTrigramSupport() )
+        {
+            log.warn( "Extension pg_trgm is not installed, tracked entity attribute search indexes are not created. " +
+                "Execute \"create extension pg_trgm;\" as a superuser to enable them." );
+            return;
+        }
+
+        Timer timer = new Timer().start().disablePrint();
+
+        Map<String, Boolean> existingIndexes = getExistingIndexes();
+
+        for ( Long attributeId : getSearchableTextAttributeIds() )
+        {
+            String indexName = INDEX_PREFIX + attributeId;
+
+            Boolean valid = existingIndexes.remove( indexName );
+
+            if ( Boolean.TRUE.equals( valid ) )
+            {
+                continue;
+            }
+
+            if ( valid != null )
+            {
+                dropIndex( indexName ); // Left invalid by an interrupted build
+            }
+
+            createIndex( indexName, attributeId );
+        }
+
+        existingIndexes.keySet().forEach( this::dropIndex );
+
+        log.info( String.format( "Updated tracked entity attribute search indexes in %d ms", timer.getTimeInMs() ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Requests a reconciliation of the search indexes in the background,
+     * unless one is already pending.
+     */
+    private void scheduleReconcile()
+    {
+        if ( !executor.isShutdown() && reconcilePending.compareAndSet( false, true ) )
+        {
+            executor.execute( () -> {
+                reconcilePending.set( false );
+                reconcileIndexes();
+            } );
+        }
+    }
+
+    private static boolean isSearchableEntity( Class<?> klass )
+    {
+        return klass != null && SEARCHABLE_PROPERTIES.keySet().stream().anyMatch( k -> k.isAssignableFrom( klass ) );
+    }
+
+    /**
+     * Indicates whether the given update of a searchable entity changed a
+     * property which determines whether an attribute is searchable. Updates
+     * without dirty properties are treated as searchable.
+     */
+    private static boolean isSearchableUpdate( PostUpdateEvent event )
+    {
+        if ( !isSearchableEntity( event.getEntity().getClass() ) )
+        {
+            return false;
+        }
+
+        if ( event.getDirtyProperties() == null )
+        {
+            return true;
+        }
+
+        Set<String> properties = SEARCHABLE_PROPERTIES.entrySet().stream()
+            .filter( entry -> entry.getKey().isInstance( event.getEntity() ) )
+            .flatMap( entry -> entry.getValue().stream() )
+            .collect( Collectors.toSet() );
+
+        String[] propertyNames = event.getPersister().getPropertyNames();
+
+        return Arrays.stream( event.getDirtyProperties() )
+            .anyMatch( index -> properties.contains( propertyNames[index] ) );
+    }
+
+    private boolean isTrigramSupport()
+    {
+        try
+        {
+            jdbcTemplate.execute( "create extension if not exists pg_trgm" );
+        }
+        catch ( Exception ex )
+        {
+            log.debug( "Could not create extension pg_trgm", ex );
+        }
+
+        try
+        {
+            return jdbcTemplate.queryForObject( "select count(*) from pg_extension where extname = 'pg_trgm'", Integer.class ) > 0;
+        }
+        catch ( Exception ex )
+        {
+            log.debug( "Could not check for extension pg_trgm", ex );
+            return false;
+        }
+    }
+
+    /**
+     * Returns a map of existing search index names and whether the index is
+     * valid.
+     */
+    private Map<String, Boolean> getExistingIndexes()
+    {
+        final String sql =
+            "select c.relname, i.indisvalid from pg_index i " +
+            "inner join pg_class c on i.indexrelid = c.oid " +
+            "inner join pg_class t on i.indrelid = t.oid " +
+            "where t.relname = 'trackedentityattributevalue' " +
+            "and c.relname like '" + INDEX_PREFIX + "%'";
+
+        Map<String, Boolean> indexes = new HashMap<>();
+
+        jdbcTemplate.query( sql, rs -> {
+            indexes.put( rs.getString( "relname" ), rs.getBoolean( "indisvalid" ) );
+        } );
+
+        return indexes;
+    }
+
+    /**
+     * Returns the identifiers of text attributes which are unique or searchable
+     * for a tracked entity type or a program.
+     */
+    private List<Long> getSearchableTextAttributeIds()
+    {
+        final String valueTypes = ValueType.TEXT_TYPES.stream()
+            .map( valueType -> "'" + valueType.name() + "'" )
+            .collect( Collectors.joining( "," ) );
+
+        final String sql =
+            "select tea.trackedentityattributeid from trackedentityattribute tea " +
+            "where tea.valuetype in (" + valueTypes + ") " +
+            "and (tea.uniquefield = true " +
+            "or exists (select 1 from trackedentitytypeattribute teta " +
+                "where teta.trackedentityattributeid = tea.trackedentityattributeid and teta.searchable = true) " +
+            "or exists (select 1 from program_attributes pa " +
+                "where pa.trackedentityattributeid = tea.trackedentityattributeid and pa.searchable = true))";
+
+        return jdbcTemplate.queryForList( sql, Long.class );
+    }
+
+    private void createIndex( String indexName, Long attributeId )
+    {
+        final String sql = "create index concurrently " + indexName + " on trackedentityattributevalue " +
+            "using gin (lower(value) gin_trgm_ops) where trackedentityattributeid = " + attributeId;
+
+        try
+        {
+            Timer timer = new Timer().start().disablePrint();
+
+            jdbcTemplate.execute( sql );
+
+            log.info( String.format( "Created search index %s in %d ms", indexName, timer.getTimeInMs() ) );
+        }
+        catch ( Exception ex )
+        {
+            log.warn( String.format( "Failed to create search index %s", indexName ), ex );
+        }
+    }
+
+    private void dropIndex( String indexName )
+    {
+        try
+        {
+            jdbcTemplate.execute( "drop index concurrently if exists " + indexName );
+
+            log.info( String.format( "Dropped search index %s", indexName ) );
+        }
+        catch ( Exception ex )
+        {
+            log.warn( String.format( "Failed to drop search index %s", indexName ), ex );
+        }
+    }
+
+    /**
+     * Reconciles the search indexes after commit of a change which can make
+     * an attribute searchable or not. Hibernate invokes all post commit
+     * listeners once any of them requires post commit handling of an entity,
+     * so the entity is checked in every callback.
+     */
+    private class ReconcileListener
+        implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener
+    {
+        @Override
+        public void onPostInsert( PostInsertEvent event )
+        {
+            if ( isSearchableEntity( event.getEntity().getClass() ) )
+            {
+                scheduleReconcile();
+            }
+        }
+
+        @Override
+        public void onPostUpdate( PostUpdateEvent event )
+        {
+            if ( isSearchableUpdate( event ) )
+            {
+                scheduleReconcile();
+            }
+        }
+
+        @Override
+        public void onPostDelete( PostDeleteEvent event )
+        {
+            if ( isSearchableEntity( event.getEntity().getClass() ) )
+            {
+                scheduleReconcile();
+            }
+        }
+
+        @Override
+        public void onPostInsertCommitFailed( PostInsertEvent event )
+        {
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed( PostUpdateEvent event )
+        {
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed( PostDeleteEvent event )
+        {
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding( EntityPersister persister )
+        {
+            return isSearchableEntity( persister.getMappedClass() );
+        }
+    }
+}
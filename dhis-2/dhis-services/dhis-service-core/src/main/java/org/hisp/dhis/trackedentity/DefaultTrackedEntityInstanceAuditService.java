@@ -29,10 +29,11 @@ package org.hisp.dhis.trackedentity;
  */
 
 import org.hisp.dhis.audit.payloads.TrackedEntityInstanceAudit;
+import org.hisp.dhis.system.audit.BufferedAuditWriter;
 import org.springframework.stereotype.Service;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PreDestroy;
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -51,11 +52,20 @@ public class DefaultTrackedEntityInstanceAuditService
     // -------------------------------------------------------------------------
     private final TrackedEntityInstanceAuditStore trackedEntityInstanceAuditStore;
 
+    private final BufferedAuditWriter<TrackedEntityInstanceAudit> auditWriter;
+
     public DefaultTrackedEntityInstanceAuditService( TrackedEntityInstanceAuditStore trackedEntityInstanceAuditStore )
     {
         checkNotNull( trackedEntityInstanceAuditStore );
 
         this.trackedEntityInstanceAuditStore = trackedEntityInstanceAuditStore;
+        this.auditWriter = new BufferedAuditWriter<>( "tracked-entity-instance", trackedEntityInstanceAuditStore::addTrackedEntityInstanceAudits );
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        auditWriter.shutdown();
     }
 
     // -------------------------------------------------------------------------
@@ -63,17 +73,16 @@ public class DefaultTrackedEntityInstanceAuditService
     // -------------------------------------------------------------------------
 
     @Override
-    @Async
-    @Transactional
     public void addTrackedEntityInstanceAudit( TrackedEntityInstanceAudit trackedEntityInstanceAudit )
     {
-        trackedEntityInstanceAuditStore.addTrackedEntityInstanceAudit( trackedEntityInstanceAudit );
+        auditWriter.add( trackedEntityInstanceAudit );
     }
 
     @Override
     @Transactional
     public void deleteTrackedEntityInstanceAudit( TrackedEntityInstance trackedEntityInstance )
     {
+        auditWriter.flush();
         trackedEntityInstanceAuditStore.deleteTrackedEntityInstanceAudit( trackedEntityInstance );
     }
 
@@ -29,6 +29,7 @@ package org.hisp.dhis.trackedentity.hibernate;
  */
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Function;
 
@@ -71,6 +72,32 @@ public class HibernateTrackedEntityInstanceAuditStore
         getSession().save( trackedEntityInstanceAudit );
     }
 
+    @Override
+    public void addTrackedEntityInstanceAudits( List<TrackedEntityInstanceAudit> trackedEntityInstanceAudits )
+    {
+        if ( trackedEntityInstanceAudits.isEmpty() )
+        {
+            return;
+        }
+
+        String sql = "insert into trackedentityinstanceaudit " +
+            "(trackedentityinstanceauditid, trackedentityinstance, created, accessedby, audittype, comment) values " +
+            String.join( ",", Collections.nCopies( trackedEntityInstanceAudits.size(), "(nextval('trackedentityinstanceaudit_sequence'),?,?,?,?,?)" ) );
+
+        List<Object> args = new ArrayList<>();
+
+        for ( TrackedEntityInstanceAudit audit : trackedEntityInstanceAudits )
+        {
+            args.add( audit.getTrackedEntityInstance() );
+            args.add( audit.getCreated() );
+            args.add( audit.getAccessedBy() );
+            args.add( audit.getAuditType().name() );
+            args.add( audit.getComment() );
+        }
+
+        jdbcTemplate.update( sql, args.toArray() );
+    }
+
     @Override
     public void deleteTrackedEntityInstanceAudit( TrackedEntityInstance trackedEntityInstance )
     {
@@ -37,6 +37,8 @@ import static org.hisp.dhis.util.DateUtils.*;
 
 import java.util.*;
 import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.Predicate;
@@ -49,6 +51,7 @@ import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.query.Query;
 import org.hisp.dhis.common.OrganisationUnitSelectionMode;
+import org.hisp.dhis.common.PageToken;
 import org.hisp.dhis.common.QueryFilter;
 import org.hisp.dhis.common.QueryItem;
 import org.hisp.dhis.common.QueryOperator;
@@ -83,6 +86,15 @@ public class HibernateTrackedEntityInstanceStore
 {
     private static final Log log = LogFactory.getLog( HibernateTrackedEntityInstanceStore.class );
 
+    /**
+     * Seeks past the instance identified by the page token, in the order of
+     * {@link #KEYSET_ORDER_HQL}.
+     */
+    private static final String KEYSET_HQL = " (tei.lastUpdated < :keysetLastUpdated or " +
+        "(tei.lastUpdated = :keysetLastUpdated and tei.id < :keysetId)) ";
+
+    private static final String KEYSET_ORDER_HQL = " order by tei.lastUpdated desc, tei.id desc ";
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -132,13 +144,32 @@ public class HibernateTrackedEntityInstanceStore
 
         Query<TrackedEntityInstance> query = getQuery( hql );
 
-        if ( params.isPaging() )
+        if ( params.isKeysetPaging() )
+        {
+            if ( params.hasPageToken() )
+            {
+                query.setParameter( "keysetLastUpdated", params.getPageToken().getLastUpdated() );
+                query.setParameter( "keysetId", params.getPageToken().getId() );
+            }
+
+            query.setMaxResults( params.getPageSizeWithDefault() );
+        }
+        else if ( params.isPaging() )
         {
             query.setFirstResult( params.getOffset() );
             query.setMaxResults( params.getPageSizeWithDefault() );
         }
 
-        return query.list();
+        List<TrackedEntityInstance> instances = query.list();
+
+        if ( params.isKeysetPaging() && !instances.isEmpty() && instances.size() >= params.getPageSizeWithDefault() )
+        {
+            TrackedEntityInstance last = instances.get( instances.size() - 1 );
+
+            params.setNextPageToken( PageToken.of( last.getLastUpdated(), last.getId() ) );
+        }
+
+        return instances;
     }
 
     private String buildTrackedEntityInstanceCountHql( TrackedEntityInstanceQueryParams params )
@@ -150,7 +181,9 @@ public class HibernateTrackedEntityInstanceStore
             .replaceFirst( "inner join fetch psi.assignedUser", "inner join psi.assignedUser" )
             .replaceFirst( "inner join fetch tei.programOwners", "inner join tei.programOwners" )
             .replaceFirst( "order by case when pi.status = 'ACTIVE' then 1 when pi.status = 'COMPLETED' then 2 else 3 end asc, tei.lastUpdated desc ", "" )
-            .replaceFirst( "order by tei.lastUpdated desc ", "" );
+            .replaceFirst( "order by tei.lastUpdated desc ", "" )
+            .replaceFirst( "(where|and) " + Pattern.quote( KEYSET_HQL ), "" )
+            .replaceFirst( Pattern.quote( KEYSET_ORDER_HQL ), "" );
     }
 
     private String buildTrackedEntityInstanceHql( TrackedEntityInstanceQueryParams params )
@@ -303,11 +336,30 @@ public class HibernateTrackedEntityInstanceStore
         {
             QueryFilter queryFilter = params.getQuery();
 
-            String encodedFilter = queryFilter.getSqlFilter( statementBuilder.encode( queryFilter.getFilter(), false ) );
+            String encodedFilter = queryFilter.getSqlFilter( statementBuilder.encode( StringUtils.lowerCase( queryFilter.getFilter() ), false ) );
 
             hql += hlp.whereAnd() + " exists (from TrackedEntityAttributeValue teav where teav.entityInstance=tei";
 
-            hql += " and teav.plainValue " + queryFilter.getSqlOperator() + encodedFilter + ")";
+            if ( params.hasAttributesOrFilters() )
+            {
+                // Match per attribute identifier to allow use of partial search indexes
+
+                SqlHelper orHlp = new SqlHelper( true );
+
+                hql += " and (";
+
+                for ( Long attributeId : getAttributeIds( params.getAttributesAndFilters() ) )
+                {
+                    hql += orHlp.or() + "(teav.attribute.id=" + attributeId +
+                        " and lower(teav.plainValue) " + queryFilter.getSqlOperator() + encodedFilter + ")";
+                }
+
+                hql += "))";
+            }
+            else
+            {
+                hql += " and lower(teav.plainValue) " + queryFilter.getSqlOperator() + encodedFilter + ")";
+            }
         }
 
         if ( params.hasFilters() )
@@ -320,7 +372,9 @@ public class HibernateTrackedEntityInstanceStore
 
                     hql += hlp.whereAnd() + " exists (from TrackedEntityAttributeValue teav where teav.entityInstance=tei";
 
-                    hql += " and teav.attribute.uid='" + queryItem.getItemId() + "'";
+                    // Filter on the attribute identifier to allow use of partial search indexes
+
+                    hql += " and teav.attribute.id=" + queryItem.getItem().getId();
 
                     if ( queryItem.isNumeric() )
                     {
@@ -339,7 +393,16 @@ public class HibernateTrackedEntityInstanceStore
             hql += hlp.whereAnd() + " tei.deleted is false ";
         }
 
-        if ( params.hasProgram() )
+        if ( params.isKeysetPaging() && params.hasPageToken() )
+        {
+            hql += hlp.whereAnd() + KEYSET_HQL;
+        }
+
+        if ( params.isKeysetPaging() )
+        {
+            hql += KEYSET_ORDER_HQL;
+        }
+        else if ( params.hasProgram() )
         {
             hql += " order by case when pi.status = 'ACTIVE' then 1 when pi.status = 'COMPLETED' then 2 else 3 end asc, tei.lastUpdated desc ";
         }
@@ -480,7 +543,6 @@ public class HibernateTrackedEntityInstanceStore
         final String regexp = statementBuilder.getRegexpMatch();
         final String wordStart = statementBuilder.getRegexpWordStart();
         final String wordEnd = statementBuilder.getRegexpWordEnd();
-        final String anyChar = "\\.*?";
 
         String sql = "from trackedentityinstance tei "
             + "inner join trackedentitytype te on tei.trackedentitytypeid = te.trackedentitytypeid ";
@@ -613,9 +675,6 @@ public class HibernateTrackedEntityInstanceStore
 
         if ( params.isOrQuery() && params.hasAttributesOrFilters() )
         {
-            final String start = params.getQuery().isOperator( QueryOperator.LIKE ) ? anyChar : wordStart;
-            final String end = params.getQuery().isOperator( QueryOperator.LIKE ) ? anyChar : wordEnd;
-
             sql += hlp.whereAnd() + " (";
 
             List<String> queryTokens = getTokens( params.getQuery().getFilter() );
@@ -630,7 +689,18 @@ public class HibernateTrackedEntityInstanceStore
                 {
                     final String col = statementBuilder.columnQuote( item.getItemId() );
 
-                    sql += col + ".value " + regexp + " '" + start + StringUtils.lowerCase( query ) + end + "' or ";
+                    // The like condition on the lower case value allows use of partial search indexes
+
+                    final String like = "lower(" + col + ".value) like '%" + escapeLikeWildcards( StringUtils.lowerCase( query ) ) + "%' escape '\\'";
+
+                    if ( params.getQuery().isOperator( QueryOperator.LIKE ) )
+                    {
+                        sql += like + " or ";
+                    }
+                    else
+                    {
+                        sql += "(" + like + " and " + col + ".value " + regexp + " '" + wordStart + StringUtils.lowerCase( query ) + wordEnd + "') or ";
+                    }
                 }
 
                 sql = removeLastOr( sql ) + ") and ";
@@ -903,4 +973,21 @@ public class HibernateTrackedEntityInstanceStore
 
         return StringUtils.EMPTY;
     }
+
+    /**
+     * Escapes the LIKE wildcards and the escape character in the given value,
+     * to be used with a backslash escape clause.
+     */
+    private String escapeLikeWildcards( String value )
+    {
+        return value.replace( "\\", "\\\\" ).replace( "%", "\\%" ).replace( "_", "\\_" );
+    }
+
+    private List<Long> getAttributeIds( Collection<QueryItem> items )
+    {
+        return items.stream()
+            .map( item -> item.getItem().getId() )
+            .distinct()
+            .collect( Collectors.toList() );
+    }
 }
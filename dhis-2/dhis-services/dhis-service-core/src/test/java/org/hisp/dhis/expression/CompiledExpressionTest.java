@@ -0,0 +1,198 @@
+package org.hisp.dhis.expression;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.parser.expression.ParserUtils.COMMON_EXPRESSION_FUNCTIONS;
+import static org.hisp.dhis.parser.expression.ParserUtils.DEFAULT_SAMPLE_PERIODS;
+import static org.hisp.dhis.parser.expression.ParserUtils.FUNCTION_EVALUATE;
+import static org.hisp.dhis.parser.expression.ParserUtils.ITEM_EVALUATE;
+import static org.hisp.dhis.parser.expression.ParserUtils.castDouble;
+import static org.hisp.dhis.parser.expression.antlr.ExpressionParser.C_BRACE;
+import static org.hisp.dhis.parser.expression.antlr.ExpressionParser.HASH_BRACE;
+import static org.hisp.dhis.parser.expression.antlr.ExpressionParser.OUG_BRACE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+import java.util.Map;
+
+import org.hisp.dhis.common.DimensionService;
+import org.hisp.dhis.constant.Constant;
+import org.hisp.dhis.expression.item.DimItemDataElementAndOperand;
+import org.hisp.dhis.expression.item.ItemOrgUnitGroup;
+import org.hisp.dhis.organisationunit.OrganisationUnitGroupService;
+import org.hisp.dhis.parser.expression.CommonExpressionVisitor;
+import org.hisp.dhis.parser.expression.CompiledExpression;
+import org.hisp.dhis.parser.expression.ExprItem;
+import org.hisp.dhis.parser.expression.Parser;
+import org.hisp.dhis.parser.expression.item.ItemConstant;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Verifies that compiled expressions evaluate to the same values and count
+ * the same items and item values as expressions evaluated by visiting the
+ * parse tree.
+ */
+public class CompiledExpressionTest
+{
+    private static final Map<Integer, ExprItem> ITEMS = ImmutableMap.<Integer, ExprItem>builder()
+        .put( HASH_BRACE, new DimItemDataElementAndOperand() )
+        .put( C_BRACE, new ItemConstant() )
+        .put( OUG_BRACE, new ItemOrgUnitGroup() )
+        .build();
+
+    private static final Map<String, Double> ITEM_VALUES = ImmutableMap.of(
+        "dataElemenA", 12d,
+        "dataElemenB", 5d,
+        "dataElemenA.catOptCombA", 3d,
+        "dataElemenZ", 0d );
+
+    private static final Map<String, Constant> CONSTANTS = ImmutableMap.of(
+        "constantAAA", new Constant( "ConstantA", 2.5 ) );
+
+    private static final Map<String, Integer> ORG_UNIT_COUNTS = ImmutableMap.of(
+        "orgUnitGrpA", 7 );
+
+    private final DimensionService dimensionService = mock( DimensionService.class );
+
+    private final OrganisationUnitGroupService organisationUnitGroupService = mock( OrganisationUnitGroupService.class );
+
+    @Test
+    public void testArithmetic()
+    {
+        assertCompiledEquals( "1 + 2 * 3 - 4 / 8" );
+        assertCompiledEquals( "(1 + 2) * (3 - 4) / 8" );
+        assertCompiledEquals( "-#{dataElemenA} + +#{dataElemenB}" );
+        assertCompiledEquals( "#{dataElemenA} - -#{dataElemenB}" );
+        assertCompiledEquals( "#{dataElemenA} * #{dataElemenA.catOptCombA} / #{dataElemenB}" );
+        assertCompiledEquals( "0.1 + 0.2" );
+    }
+
+    @Test
+    public void testMathOperators()
+    {
+        assertCompiledEquals( "#{dataElemenA} ^ 2" );
+        assertCompiledEquals( "2 ^ 3 ^ 2" );
+        assertCompiledEquals( "-2 ^ 2" );
+        assertCompiledEquals( "#{dataElemenA} ^ 0.5" );
+        assertCompiledEquals( "-8 ^ (1 / 3)" );
+        assertCompiledEquals( "#{dataElemenA} % #{dataElemenB}" );
+        assertCompiledEquals( "-#{dataElemenA} % #{dataElemenB}" );
+        assertCompiledEquals( "7.5 % 2" );
+    }
+
+    @Test
+    public void testDivisionByZero()
+    {
+        assertCompiledEquals( "#{dataElemenA} / 0" );
+        assertCompiledEquals( "-#{dataElemenA} / #{dataElemenZ}" );
+        assertCompiledEquals( "#{dataElemenZ} / #{dataElemenZ}" );
+        assertCompiledEquals( "#{dataElemenA} % 0" );
+        assertCompiledEquals( "0 ^ -1" );
+    }
+
+    @Test
+    public void testMissingValues()
+    {
+        assertCompiledEquals( "#{dataElemenC}" );
+        assertCompiledEquals( "#{dataElemenA} + #{dataElemenC}" );
+        assertCompiledEquals( "#{dataElemenC} + #{dataElemenD}" );
+        assertCompiledEquals( "#{dataElemenA} / #{dataElemenC}" );
+        assertCompiledEquals( "#{dataElemenA.catOptCombB} * #{dataElemenA.catOptCombA}" );
+    }
+
+    @Test
+    public void testConstantsAndOrgUnitGroups()
+    {
+        assertCompiledEquals( "#{dataElemenA} * C{constantAAA}" );
+        assertCompiledEquals( "OUG{orgUnitGrpA} / C{constantAAA}" );
+        assertCompiledEquals( "#{dataElemenC} + OUG{orgUnitGrpA}" );
+    }
+
+    @Test
+    public void testNotCompiled()
+    {
+        assertNotCompiled( "greatest(#{dataElemenA},#{dataElemenB})" );
+        assertNotCompiled( "if(#{dataElemenA} > 1,1,0)" );
+        assertNotCompiled( "isNull(#{dataElemenC})" );
+        assertNotCompiled( "#{dataElemenA} + firstNonNull(#{dataElemenC},1)" );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Asserts that the given expression compiles and that the compiled form
+     * gives the same value and missing value counts as visiting.
+     */
+    private void assertCompiledEquals( String expression )
+    {
+        CompiledExpression compiled = Parser.compile( expression, COMMON_EXPRESSION_FUNCTIONS, ITEMS );
+
+        assertNotNull( expression, compiled );
+
+        CommonExpressionVisitor visitingVisitor = newVisitor();
+        CommonExpressionVisitor compiledVisitor = newVisitor();
+
+        Double visited = castDouble( Parser.visit( expression, visitingVisitor ) );
+        Double evaluated = compiled.evaluate( compiledVisitor );
+
+        assertEquals( expression, visited, evaluated );
+        assertEquals( expression, visitingVisitor.getItemsFound(), compiledVisitor.getItemsFound() );
+        assertEquals( expression, visitingVisitor.getItemValuesFound(), compiledVisitor.getItemValuesFound() );
+    }
+
+    private void assertNotCompiled( String expression )
+    {
+        assertNull( expression, Parser.compile( expression, COMMON_EXPRESSION_FUNCTIONS, ITEMS ) );
+    }
+
+    private CommonExpressionVisitor newVisitor()
+    {
+        CommonExpressionVisitor visitor = CommonExpressionVisitor.newBuilder()
+            .withFunctionMap( COMMON_EXPRESSION_FUNCTIONS )
+            .withItemMap( ITEMS )
+            .withFunctionMethod( FUNCTION_EVALUATE )
+            .withItemMethod( ITEM_EVALUATE )
+            .withConstantMap( CONSTANTS )
+            .withDimensionService( dimensionService )
+            .withOrganisationUnitGroupService( organisationUnitGroupService )
+            .withSamplePeriods( DEFAULT_SAMPLE_PERIODS )
+            .buildForExpressions();
+
+        visitor.setItemValueMap( ITEM_VALUES );
+        visitor.setOrgUnitCountMap( ORG_UNIT_COUNTS );
+
+        return visitor;
+    }
+}
@@ -420,6 +420,39 @@ public class PreheatServiceTest
         assertTrue( preheat.containsKey( PreheatIdentifier.CODE, User.class, user.getCode() ) );
     }
 
+    @Test
+    public void testPreheatReferenceImportedClassAUTO()
+    {
+        DataElement de1 = createDataElement( 'A' );
+        DataElement de2 = createDataElement( 'B' );
+        DataElement de3 = createDataElement( 'C' );
+
+        manager.save( de1 );
+        manager.save( de2 );
+        manager.save( de3 );
+
+        PreheatParams params = new PreheatParams();
+        params.setPreheatIdentifier( PreheatIdentifier.AUTO );
+        params.setPreheatMode( PreheatMode.REFERENCE );
+
+        params.getObjects().put( DataElement.class, Lists.newArrayList( de1, de2 ) );
+
+        preheatService.validate( params );
+        Preheat preheat = preheatService.preheat( params );
+
+        assertTrue( preheat.containsKey( PreheatIdentifier.UID, DataElement.class, de1.getUid() ) );
+        assertTrue( preheat.containsKey( PreheatIdentifier.UID, DataElement.class, de2.getUid() ) );
+        assertFalse( preheat.containsKey( PreheatIdentifier.UID, DataElement.class, de3.getUid() ) );
+        assertTrue( preheat.containsKey( PreheatIdentifier.CODE, DataElement.class, de1.getCode() ) );
+        assertTrue( preheat.containsKey( PreheatIdentifier.CODE, DataElement.class, de2.getCode() ) );
+        assertFalse( preheat.containsKey( PreheatIdentifier.CODE, DataElement.class, de3.getCode() ) );
+
+        Map<Object, String> names = preheat.getUniquenessMap().get( DataElement.class ).get( "name" );
+
+        assertEquals( 3, names.size() );
+        assertEquals( de3.getUid(), names.get( de3.getName() ) );
+    }
+
     @Test
     public void testPreheatReferenceWithScanUID()
     {
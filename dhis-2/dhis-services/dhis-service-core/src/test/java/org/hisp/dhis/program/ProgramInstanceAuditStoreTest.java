@@ -0,0 +1,188 @@
+package org.hisp.dhis.program;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.common.AuditType;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.system.audit.BufferedAuditWriter;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Verifies that buffered program instance audits are written through
+ * {@link ProgramInstanceAuditStore#addProgramInstanceAudits(List)}.
+ */
+public class ProgramInstanceAuditStoreTest
+    extends IntegrationTestBase
+{
+    @Autowired
+    private ProgramInstanceAuditStore auditStore;
+
+    @Autowired
+    private ProgramInstanceService programInstanceService;
+
+    @Autowired
+    private ProgramService programService;
+
+    @Autowired
+    private OrganisationUnitService organisationUnitService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ProgramInstance programInstanceA;
+
+    private ProgramInstance programInstanceB;
+
+    @Override
+    public void setUpTest()
+    {
+        OrganisationUnit ouA = createOrganisationUnit( 'A' );
+        organisationUnitService.addOrganisationUnit( ouA );
+
+        Program programA = createProgram( 'A', new HashSet<>(), ouA );
+        programService.addProgram( programA );
+
+        programInstanceA = createProgramInstance( programA );
+        programInstanceB = createProgramInstance( programA );
+    }
+
+    @Test
+    public void testAddProgramInstanceAuditsThroughBuffer()
+    {
+        BufferedAuditWriter<ProgramInstanceAudit> writer =
+            new BufferedAuditWriter<>( "test", auditStore::addProgramInstanceAudits );
+
+        try
+        {
+            writer.add( new ProgramInstanceAudit( programInstanceA, "Comment A", "userA", AuditType.READ ) );
+            writer.add( new ProgramInstanceAudit( programInstanceA, "userB", AuditType.SEARCH ) );
+            writer.add( new ProgramInstanceAudit( programInstanceB, "userA", AuditType.READ ) );
+
+            writer.flush();
+
+            assertEquals( 0, writer.size() );
+        }
+        finally
+        {
+            writer.shutdown();
+        }
+
+        ProgramInstanceAuditQueryParams params = new ProgramInstanceAuditQueryParams();
+        params.setProgramInstances( Sets.newHashSet( programInstanceA ) );
+
+        List<ProgramInstanceAudit> audits = auditStore.getProgramInstanceAudits( params );
+
+        assertEquals( 2, audits.size() );
+        assertEquals( 2, auditStore.getProgramInstanceAuditsCount( params ) );
+        assertTrue( audits.stream().allMatch( audit -> audit.getCreated() != null ) );
+
+        Map<String, ProgramInstanceAudit> auditsByUser = audits.stream()
+            .collect( Collectors.toMap( ProgramInstanceAudit::getAccessedBy, audit -> audit ) );
+
+        assertEquals( AuditType.READ, auditsByUser.get( "userA" ).getAuditType() );
+        assertEquals( "Comment A", auditsByUser.get( "userA" ).getComment() );
+        assertEquals( programInstanceA.getUid(), auditsByUser.get( "userA" ).getProgramInstance().getUid() );
+        assertEquals( AuditType.SEARCH, auditsByUser.get( "userB" ).getAuditType() );
+
+        params.setProgramInstances( Sets.newHashSet( programInstanceB ) );
+
+        assertEquals( 1, auditStore.getProgramInstanceAuditsCount( params ) );
+    }
+
+    @Test
+    public void testAddProgramInstanceAuditsSequenceIds()
+    {
+        auditStore.addProgramInstanceAudits( Lists.newArrayList(
+            new ProgramInstanceAudit( programInstanceA, "userA", AuditType.READ ),
+            new ProgramInstanceAudit( programInstanceA, "userA", AuditType.READ ) ) );
+
+        auditStore.addProgramInstanceAudits( Lists.newArrayList(
+            new ProgramInstanceAudit( programInstanceA, "userB", AuditType.SEARCH ) ) );
+
+        List<Long> ids = jdbcTemplate.queryForList( "select programinstanceauditid from programinstanceaudit " +
+            "where programinstanceid = ? order by programinstanceauditid", Long.class, programInstanceA.getId() );
+
+        Long lastValue = jdbcTemplate.queryForObject( "select last_value from hibernate_sequence", Long.class );
+
+        assertEquals( 3, ids.size() );
+        assertEquals( 3, Sets.newHashSet( ids ).size() );
+        assertTrue( ids.get( 0 ) > programInstanceB.getId() );
+        assertEquals( lastValue, ids.get( 2 ) );
+    }
+
+    @Test
+    public void testAddEmptyProgramInstanceAudits()
+    {
+        auditStore.addProgramInstanceAudits( Lists.newArrayList() );
+
+        ProgramInstanceAuditQueryParams params = new ProgramInstanceAuditQueryParams();
+        params.setProgramInstances( Sets.newHashSet( programInstanceA, programInstanceB ) );
+
+        assertEquals( 0, auditStore.getProgramInstanceAuditsCount( params ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private ProgramInstance createProgramInstance( Program program )
+    {
+        ProgramInstance programInstance = new ProgramInstance();
+        programInstance.setProgram( program );
+        programInstance.setAutoFields();
+        programInstance.setEnrollmentDate( new Date() );
+        programInstance.setIncidentDate( new Date() );
+        programInstance.setStatus( ProgramStatus.ACTIVE );
+        programInstanceService.addProgramInstance( programInstance );
+
+        return programInstance;
+    }
+
+    @Override
+    public boolean emptyDatabaseAfterTest()
+    {
+        return true;
+    }
+}
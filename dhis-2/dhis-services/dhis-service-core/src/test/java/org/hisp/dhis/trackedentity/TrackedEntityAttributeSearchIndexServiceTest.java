@@ -0,0 +1,149 @@
+package org.hisp.dhis.trackedentity;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.hibernate.SessionFactory;
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Verifies that {@link DefaultTrackedEntityAttributeSearchIndexService}
+ * creates and drops the partial search indexes of tracked entity attributes.
+ */
+public class TrackedEntityAttributeSearchIndexServiceTest
+    extends IntegrationTestBase
+{
+    private static final long RECONCILE_TIMEOUT_MS = 30000;
+
+    @Autowired
+    private TrackedEntityAttributeService attributeService;
+
+    @Autowired
+    private DhisConfigurationProvider config;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private DefaultTrackedEntityAttributeSearchIndexService searchIndexService;
+
+    @Override
+    public void setUpTest()
+    {
+        searchIndexService = new DefaultTrackedEntityAttributeSearchIndexService( jdbcTemplate, config, sessionFactory );
+    }
+
+    @Test
+    public void testReconcileIndexes()
+    {
+        TrackedEntityAttribute atA = createTrackedEntityAttribute( 'A' );
+        TrackedEntityAttribute atB = createTrackedEntityAttribute( 'B', ValueType.NUMBER );
+        atA.setUnique( true );
+        atB.setUnique( true );
+        attributeService.addTrackedEntityAttribute( atA );
+        attributeService.addTrackedEntityAttribute( atB );
+
+        searchIndexService.reconcileIndexes();
+
+        assertTrue( indexExists( atA ) );
+        assertFalse( indexExists( atB ) );
+
+        atA.setUnique( false );
+        attributeService.updateTrackedEntityAttribute( atA );
+
+        searchIndexService.reconcileIndexes();
+
+        assertFalse( indexExists( atA ) );
+    }
+
+    @Test
+    public void testReconcileIndexesAfterCommit()
+        throws InterruptedException
+    {
+        TrackedEntityAttribute atA = createTrackedEntityAttribute( 'A' );
+        attributeService.addTrackedEntityAttribute( atA );
+
+        atA.setUnique( true );
+        attributeService.updateTrackedEntityAttribute( atA );
+
+        assertTrue( awaitIndex( atA, true ) );
+
+        atA.setUnique( false );
+        attributeService.updateTrackedEntityAttribute( atA );
+
+        assertTrue( awaitIndex( atA, false ) );
+    }
+
+    @Override
+    public boolean emptyDatabaseAfterTest()
+    {
+        return true;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private boolean indexExists( TrackedEntityAttribute attribute )
+    {
+        return jdbcTemplate.queryForObject( "select count(*) from pg_indexes where indexname = ?", Integer.class,
+            DefaultTrackedEntityAttributeSearchIndexService.INDEX_PREFIX + attribute.getId() ) > 0;
+    }
+
+    /**
+     * Waits for the background reconciliation to create or drop the search
+     * index of the given attribute.
+     */
+    private boolean awaitIndex( TrackedEntityAttribute attribute, boolean exists )
+        throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + RECONCILE_TIMEOUT_MS;
+
+        while ( indexExists( attribute ) != exists )
+        {
+            if ( System.currentTimeMillis() > deadline )
+            {
+                return false;
+            }
+
+            Thread.sleep( 100 );
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,170 @@
+package org.hisp.dhis.trackedentity;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.audit.payloads.TrackedEntityInstanceAudit;
+import org.hisp.dhis.common.AuditType;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.system.audit.BufferedAuditWriter;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Verifies that buffered tracked entity instance audits are written through
+ * {@link TrackedEntityInstanceAuditStore#addTrackedEntityInstanceAudits(List)}.
+ */
+public class TrackedEntityInstanceAuditStoreTest
+    extends IntegrationTestBase
+{
+    @Autowired
+    private TrackedEntityInstanceAuditStore auditStore;
+
+    @Autowired
+    private TrackedEntityInstanceService trackedEntityInstanceService;
+
+    @Autowired
+    private OrganisationUnitService organisationUnitService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TrackedEntityInstance teiA;
+
+    private TrackedEntityInstance teiB;
+
+    @Override
+    public void setUpTest()
+    {
+        OrganisationUnit ouA = createOrganisationUnit( 'A' );
+        organisationUnitService.addOrganisationUnit( ouA );
+
+        teiA = createTrackedEntityInstance( ouA );
+        teiB = createTrackedEntityInstance( ouA );
+        trackedEntityInstanceService.addTrackedEntityInstance( teiA );
+        trackedEntityInstanceService.addTrackedEntityInstance( teiB );
+    }
+
+    @Test
+    public void testAddTrackedEntityInstanceAuditsThroughBuffer()
+    {
+        BufferedAuditWriter<TrackedEntityInstanceAudit> writer =
+            new BufferedAuditWriter<>( "test", auditStore::addTrackedEntityInstanceAudits );
+
+        TrackedEntityInstanceAudit auditA = new TrackedEntityInstanceAudit( teiA.getUid(), "userA", AuditType.READ );
+        auditA.setComment( "Comment A" );
+        TrackedEntityInstanceAudit auditB = new TrackedEntityInstanceAudit( teiA.getUid(), "userB", AuditType.SEARCH );
+        TrackedEntityInstanceAudit auditC = new TrackedEntityInstanceAudit( teiB.getUid(), "userA", AuditType.READ );
+
+        try
+        {
+            writer.add( auditA );
+            writer.add( auditB );
+            writer.add( auditC );
+
+            writer.flush();
+
+            assertEquals( 0, writer.size() );
+        }
+        finally
+        {
+            writer.shutdown();
+        }
+
+        TrackedEntityInstanceAuditQueryParams params = new TrackedEntityInstanceAuditQueryParams();
+        params.setTrackedEntityInstances( Sets.newHashSet( teiA.getUid() ) );
+
+        List<TrackedEntityInstanceAudit> audits = auditStore.getTrackedEntityInstanceAudits( params );
+
+        assertEquals( 2, audits.size() );
+        assertEquals( 2, auditStore.getTrackedEntityInstanceAuditsCount( params ) );
+        assertTrue( audits.stream().allMatch( audit -> audit.getCreated() != null ) );
+
+        Map<String, TrackedEntityInstanceAudit> auditsByUser = audits.stream()
+            .collect( Collectors.toMap( TrackedEntityInstanceAudit::getAccessedBy, audit -> audit ) );
+
+        assertEquals( AuditType.READ, auditsByUser.get( "userA" ).getAuditType() );
+        assertEquals( "Comment A", auditsByUser.get( "userA" ).getComment() );
+        assertEquals( AuditType.SEARCH, auditsByUser.get( "userB" ).getAuditType() );
+
+        params.setTrackedEntityInstances( Sets.newHashSet( teiB.getUid() ) );
+
+        assertEquals( 1, auditStore.getTrackedEntityInstanceAuditsCount( params ) );
+    }
+
+    @Test
+    public void testAddTrackedEntityInstanceAuditsSequenceIds()
+    {
+        auditStore.addTrackedEntityInstanceAudits( Lists.newArrayList(
+            new TrackedEntityInstanceAudit( teiA.getUid(), "userA", AuditType.READ ),
+            new TrackedEntityInstanceAudit( teiA.getUid(), "userA", AuditType.READ ) ) );
+
+        auditStore.addTrackedEntityInstanceAudits( Lists.newArrayList(
+            new TrackedEntityInstanceAudit( teiA.getUid(), "userB", AuditType.SEARCH ) ) );
+
+        List<Long> ids = jdbcTemplate.queryForList( "select trackedentityinstanceauditid from trackedentityinstanceaudit " +
+            "where trackedentityinstance = ? order by trackedentityinstanceauditid", Long.class, teiA.getUid() );
+
+        Long lastValue = jdbcTemplate.queryForObject( "select last_value from trackedentityinstanceaudit_sequence", Long.class );
+
+        assertEquals( 3, ids.size() );
+        assertEquals( 3, Sets.newHashSet( ids ).size() );
+        assertTrue( ids.get( 0 ) > 0 );
+        assertEquals( lastValue, ids.get( 2 ) );
+    }
+
+    @Test
+    public void testAddEmptyTrackedEntityInstanceAudits()
+    {
+        auditStore.addTrackedEntityInstanceAudits( Lists.newArrayList() );
+
+        TrackedEntityInstanceAuditQueryParams params = new TrackedEntityInstanceAuditQueryParams();
+        params.setTrackedEntityInstances( Sets.newHashSet( teiA.getUid(), teiB.getUid() ) );
+
+        assertEquals( 0, auditStore.getTrackedEntityInstanceAuditsCount( params ) );
+    }
+
+    @Override
+    public boolean emptyDatabaseAfterTest()
+    {
+        return true;
+    }
+}
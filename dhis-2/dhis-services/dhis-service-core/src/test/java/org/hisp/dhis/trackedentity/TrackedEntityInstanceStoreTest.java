@@ -32,6 +32,7 @@ import org.hisp.dhis.DhisSpringTest;
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.OrganisationUnitSelectionMode;
+import org.hisp.dhis.common.QueryFilter;
 import org.hisp.dhis.common.QueryItem;
 import org.hisp.dhis.common.QueryOperator;
 import org.hisp.dhis.common.ValueType;
@@ -289,6 +290,46 @@ public class TrackedEntityInstanceStoreTest
         assertTrue( teis.contains( teiE ) );
     }
 
+    @Test
+    public void testQueryByQueryFilter()
+    {
+        teiStore.save( teiA );
+        teiStore.save( teiB );
+        teiStore.save( teiC );
+        teiStore.save( teiD );
+
+        attributeValueService.addTrackedEntityAttributeValue( new TrackedEntityAttributeValue( atA, teiA, "Male" ) );
+        attributeValueService.addTrackedEntityAttributeValue( new TrackedEntityAttributeValue( atA, teiB, "Female" ) );
+        attributeValueService.addTrackedEntityAttributeValue( new TrackedEntityAttributeValue( atA, teiC, "Unknown" ) );
+        attributeValueService.addTrackedEntityAttributeValue( new TrackedEntityAttributeValue( atB, teiD, "Tale" ) );
+
+        dbmsManager.flushSession();
+
+        // Match is case insensitive and limited to the given attributes
+
+        TrackedEntityInstanceQueryParams params = new TrackedEntityInstanceQueryParams()
+            .setQuery( new QueryFilter( QueryOperator.LIKE, "ALE" ) )
+            .addAttribute( new QueryItem( atA ) );
+
+        List<TrackedEntityInstance> teis = teiStore.getTrackedEntityInstances( params );
+
+        assertEquals( 2, teis.size() );
+        assertTrue( teis.contains( teiA ) );
+        assertTrue( teis.contains( teiB ) );
+
+        // Match on any attribute without given attributes
+
+        params = new TrackedEntityInstanceQueryParams()
+            .setQuery( new QueryFilter( QueryOperator.LIKE, "ALE" ) );
+
+        teis = teiStore.getTrackedEntityInstances( params );
+
+        assertEquals( 3, teis.size() );
+        assertTrue( teis.contains( teiA ) );
+        assertTrue( teis.contains( teiB ) );
+        assertTrue( teis.contains( teiD ) );
+    }
+
     @Test
     public void testProgramAttributeOfTypeOrgUnitIsResolvedToOrgUnitName()
     {
@@ -66,6 +66,8 @@ public class ImportOptions
 
     private boolean skipExistingCheck;
 
+    private boolean batchExistingCheck;
+
     private boolean sharing;
 
     private boolean skipNotifications;
@@ -126,6 +128,7 @@ public class ImportOptions
         options.importStrategy = this.importStrategy;
         options.mergeMode = this.mergeMode;
         options.skipExistingCheck = this.skipExistingCheck;
+        options.batchExistingCheck = this.batchExistingCheck;
         options.sharing = this.sharing;
         options.skipNotifications = this.skipNotifications;
         options.datasetAllowsPeriods = this.datasetAllowsPeriods;
@@ -268,6 +271,13 @@ public class ImportOptions
         return skipExistingCheck;
     }
 
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public boolean isBatchExistingCheck()
+    {
+        return batchExistingCheck;
+    }
+
     @JsonProperty
     @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
     public boolean isSharing()
@@ -499,6 +509,12 @@ public class ImportOptions
         return this;
     }
 
+    public ImportOptions setBatchExistingCheck( boolean batchExistingCheck )
+    {
+        this.batchExistingCheck = batchExistingCheck;
+        return this;
+    }
+
     public ImportOptions setSharing( boolean sharing )
     {
         this.sharing = sharing;
@@ -611,6 +627,7 @@ public class ImportOptions
             .add( "importStrategy", importStrategy )
             .add( "mergeMode", mergeMode )
             .add( "skipExistingCheck", skipExistingCheck )
+            .add( "batchExistingCheck", batchExistingCheck )
             .add( "ignoreEmptyCollection", ignoreEmptyCollection )
             .add( "sharing", sharing )
             .add( "skipNotifications", skipNotifications )
@@ -33,7 +33,9 @@ import org.hisp.dhis.datavalue.DataExportParams;
 
 import java.io.OutputStream;
 import java.io.Writer;
+import java.util.Collection;
 import java.util.Date;
+import java.util.Map;
 
 /**
  * @author Lars Helge Overland
@@ -66,4 +68,17 @@ public interface DataValueSetStore
      */
     void writeDataValueSetJson( Date lastUpdated, OutputStream outputStream, IdSchemes idSchemes, int pageSize,
         int page );
+
+    /**
+     * Retrieves the persisted state of the given data values using a single
+     * query. Data values are matched on data element, period, organisation unit,
+     * category option combo and attribute option combo. Soft deleted data
+     * values are included.
+     *
+     * @param dataValues the data values to look up, must have identifiers.
+     * @return a mapping from each given data value which exists to its
+     *         persisted state.
+     */
+    Map<org.hisp.dhis.datavalue.DataValue, org.hisp.dhis.datavalue.DataValue> getExistingDataValues(
+        Collection<org.hisp.dhis.datavalue.DataValue> dataValues );
 }
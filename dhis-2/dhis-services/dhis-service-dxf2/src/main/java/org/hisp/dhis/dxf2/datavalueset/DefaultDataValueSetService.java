@@ -42,6 +42,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -101,7 +102,6 @@ import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodService;
 import org.hisp.dhis.period.PeriodType;
-import org.hisp.dhis.render.DefaultRenderService;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.security.Authorities;
 import org.hisp.dhis.security.acl.AclService;
@@ -140,6 +140,7 @@ public class DefaultDataValueSetService
 
     private static final String ERROR_OBJECT_NEEDED_TO_COMPLETE = "Must be provided to complete data set";
     private static final int CACHE_MISS_THRESHOLD = 250;
+    private static final int EXISTING_CHECK_BATCH_SIZE = 1000;
 
     private final IdentifiableObjectManager identifiableObjectManager;
 
@@ -616,10 +617,12 @@ public class DefaultDataValueSetService
     @Transactional
     public ImportSummary saveDataValueSetJson( InputStream in, ImportOptions importOptions, JobConfiguration id )
     {
+        DataValueSet dataValueSet = null;
+
         try
         {
             in = StreamUtils.wrapAndCheckCompressionFormat( in );
-            DataValueSet dataValueSet = DefaultRenderService.getJsonMapper().readValue( in, DataValueSet.class );
+            dataValueSet = new StreamingJsonDataValueSetReader( in );
             return saveDataValueSet( importOptions, id, dataValueSet );
         }
         catch ( Exception ex )
@@ -628,6 +631,13 @@ public class DefaultDataValueSetService
             notifier.notify( id, ERROR, "Process failed: " + ex.getMessage(), true );
             return new ImportSummary( ImportStatus.ERROR, "The import process failed: " + ex.getMessage() );
         }
+        finally
+        {
+            if ( dataValueSet != null )
+            {
+                dataValueSet.close(); // Deletes the temporary copy of the stream
+            }
+        }
     }
 
     @Override
@@ -750,6 +760,7 @@ public class DefaultDataValueSetService
 
         boolean dryRun = dataValueSet.getDryRun() != null ? dataValueSet.getDryRun() : importOptions.isDryRun();
         boolean skipExistingCheck = importOptions.isSkipExistingCheck();
+        boolean batchExistingCheck = importOptions.isBatchExistingCheck() && !skipExistingCheck;
         boolean strictPeriods = importOptions.isStrictPeriods() || (Boolean) systemSettingManager.getSystemSetting( SettingKey.DATA_IMPORT_STRICT_PERIODS );
         boolean strictDataElements = importOptions.isStrictDataElements() || (Boolean) systemSettingManager.getSystemSetting( SettingKey.DATA_IMPORT_STRICT_DATA_ELEMENTS );
         boolean strictCategoryOptionCombos = importOptions.isStrictCategoryOptionCombos() || (Boolean) systemSettingManager.getSystemSetting( SettingKey.DATA_IMPORT_STRICT_CATEGORY_OPTION_COMBOS );
@@ -892,9 +903,8 @@ public class DefaultDataValueSetService
         BatchHandler<DataValue> dataValueBatchHandler = batchHandlerFactory.createBatchHandler( DataValueBatchHandler.class ).init();
         BatchHandler<DataValueAudit> auditBatchHandler = batchHandlerFactory.createBatchHandler( DataValueAuditBatchHandler.class ).init();
 
-        int importCount = 0;
-        int updateCount = 0;
-        int deleteCount = 0;
+        ImportCount importCount = new ImportCount();
+        List<PendingDataValue> pendingValues = new ArrayList<>();
         int totalCount = 0;
 
         // ---------------------------------------------------------------------
@@ -1249,152 +1259,228 @@ public class DefaultDataValueSetService
             // Save, update or delete data value
             // -----------------------------------------------------------------
 
-            DataValue existingValue = !skipExistingCheck ? dataValueBatchHandler.findObject( internalValue ) : null;
+            if ( batchExistingCheck )
+            {
+                pendingValues.add( new PendingDataValue( internalValue, actualDataValue ) );
 
-            // -----------------------------------------------------------------
-            // Check soft deleted data values on update and import
-            // -----------------------------------------------------------------
+                if ( pendingValues.size() >= EXISTING_CHECK_BATCH_SIZE )
+                {
+                    saveDataValues( pendingValues, strategy, dryRun, skipAudit, dataValueBatchHandler, auditBatchHandler, importCount );
+                }
+            }
+            else
+            {
+                DataValue existingValue = !skipExistingCheck ? dataValueBatchHandler.findObject( internalValue ) : null;
+
+                saveDataValue( internalValue, existingValue, actualDataValue, strategy, dryRun, skipAudit,
+                    dataValueBatchHandler, auditBatchHandler, importCount );
+            }
+        }
+
+        saveDataValues( pendingValues, strategy, dryRun, skipAudit, dataValueBatchHandler, auditBatchHandler, importCount );
+
+        dataValueBatchHandler.flush();
+        auditBatchHandler.flush();
+
+        importCount.setIgnored( totalCount - importCount.getImported() - importCount.getUpdated() - importCount.getDeleted() );
+
+        summary.setImportCount( importCount );
+        summary.setStatus( summary.getConflicts().isEmpty() ? ImportStatus.SUCCESS : ImportStatus.WARNING );
+        summary.setDescription( "Import process completed successfully" );
+
+        clock.logTime( "Data value import done, total: " + totalCount + ", import: " + importCount.getImported() +
+            ", update: " + importCount.getUpdated() + ", delete: " + importCount.getDeleted() );
+        notifier.notify( id, notificationLevel, "Import done", true ).addJobSummary( id, notificationLevel, summary, ImportSummary.class );
+
+        dataValueSet.close();
 
-            if ( !skipExistingCheck && existingValue != null && !existingValue.isDeleted() )
+        return summary;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Saves the given pending data values. The persisted state of all data
+     * values is retrieved with a single query instead of one query per data
+     * value. The given list is cleared.
+     *
+     * @param pendingValues the pending data values.
+     */
+    private void saveDataValues( List<PendingDataValue> pendingValues, ImportStrategy strategy, boolean dryRun, boolean skipAudit,
+        BatchHandler<DataValue> dataValueBatchHandler, BatchHandler<DataValueAudit> auditBatchHandler, ImportCount importCount )
+    {
+        if ( pendingValues.isEmpty() )
+        {
+            return;
+        }
+
+        Map<DataValue, DataValue> existingValues = dataValueSetStore.getExistingDataValues(
+            pendingValues.stream().map( PendingDataValue::getDataValue ).collect( Collectors.toList() ) );
+
+        for ( PendingDataValue pendingValue : pendingValues )
+        {
+            DataValue internalValue = pendingValue.getDataValue();
+
+            boolean updated = saveDataValue( internalValue, existingValues.get( internalValue ), pendingValue.getActualDataValue(),
+                strategy, dryRun, skipAudit, dataValueBatchHandler, auditBatchHandler, importCount );
+
+            if ( updated )
             {
-                if ( strategy.isCreateAndUpdate() || strategy.isUpdate() )
-                {
-                    AuditType auditType = AuditType.UPDATE;
+                existingValues.put( internalValue, internalValue ); // Subsequent duplicates see the updated state
+            }
+        }
 
-                    if ( internalValue.isNullValue() || internalValue.isDeleted() )
-                    {
-                        internalValue.setDeleted( true );
+        pendingValues.clear();
+    }
 
-                        auditType = AuditType.DELETE;
+    /**
+     * Saves, updates or deletes the given data value depending on the import
+     * strategy and the persisted state of the data value.
+     *
+     * @param internalValue the data value to import.
+     * @param existingValue the persisted data value, null if none exists.
+     * @param actualDataValue the persisted file resource data value to delete, can be null.
+     * @return true if an existing data value was updated, false otherwise.
+     */
+    private boolean saveDataValue( DataValue internalValue, DataValue existingValue, DataValue actualDataValue,
+        ImportStrategy strategy, boolean dryRun, boolean skipAudit, BatchHandler<DataValue> dataValueBatchHandler,
+        BatchHandler<DataValueAudit> auditBatchHandler, ImportCount importCount )
+    {
+        final DataElement dataElement = internalValue.getDataElement();
+        final String storedBy = internalValue.getStoredBy();
 
-                        deleteCount++;
-                    }
-                    else
-                    {
-                        updateCount++;
-                    }
+        // ---------------------------------------------------------------------
+        // Check soft deleted data values on update and import
+        // ---------------------------------------------------------------------
 
-                    if ( !dryRun )
-                    {
-                        dataValueBatchHandler.updateObject( internalValue );
+        if ( existingValue != null && !existingValue.isDeleted() )
+        {
+            if ( strategy.isCreateAndUpdate() || strategy.isUpdate() )
+            {
+                AuditType auditType = AuditType.UPDATE;
 
-                        if ( !skipAudit )
-                        {
-                            DataValueAudit auditValue = new DataValueAudit( internalValue, existingValue.getValue(), storedBy, auditType );
+                if ( internalValue.isNullValue() || internalValue.isDeleted() )
+                {
+                    internalValue.setDeleted( true );
 
-                            auditBatchHandler.addObject( auditValue );
-                        }
+                    auditType = AuditType.DELETE;
 
-                        if ( dataElement.isFileType() )
-                        {
-                            FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
+                    importCount.incrementDeleted();
+                }
+                else
+                {
+                    importCount.incrementUpdated();
+                }
 
-                            fr.setAssigned( true );
+                if ( !dryRun )
+                {
+                    dataValueBatchHandler.updateObject( internalValue );
 
-                            fileResourceService.updateFileResource( fr );
-                        }
+                    if ( !skipAudit )
+                    {
+                        DataValueAudit auditValue = new DataValueAudit( internalValue, existingValue.getValue(), storedBy, auditType );
+
+                        auditBatchHandler.addObject( auditValue );
+                    }
+
+                    if ( dataElement.isFileType() )
+                    {
+                        FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
+
+                        fr.setAssigned( true );
 
+                        fileResourceService.updateFileResource( fr );
                     }
+
+                    return true;
                 }
-                else if ( strategy.isDelete() )
-                {
-                    internalValue.setDeleted( true );
+            }
+            else if ( strategy.isDelete() )
+            {
+                internalValue.setDeleted( true );
 
-                    deleteCount++;
+                importCount.incrementDeleted();
 
-                    if ( !dryRun )
+                if ( !dryRun )
+                {
+                    if ( dataElement.isFileType() && actualDataValue != null )
                     {
-                        if ( dataElement.isFileType() && actualDataValue != null )
-                        {
-                            FileResource fr = fileResourceService.getFileResource( actualDataValue.getValue() );
+                        FileResource fr = fileResourceService.getFileResource( actualDataValue.getValue() );
 
-                            fileResourceService.updateFileResource( fr );
-                        }
+                        fileResourceService.updateFileResource( fr );
+                    }
 
-                        dataValueBatchHandler.updateObject( internalValue );
+                    dataValueBatchHandler.updateObject( internalValue );
 
-                        if ( !skipAudit )
-                        {
-                            DataValueAudit auditValue = new DataValueAudit( internalValue, existingValue.getValue(), storedBy, AuditType.DELETE );
+                    if ( !skipAudit )
+                    {
+                        DataValueAudit auditValue = new DataValueAudit( internalValue, existingValue.getValue(), storedBy, AuditType.DELETE );
 
-                            auditBatchHandler.addObject( auditValue );
-                        }
+                        auditBatchHandler.addObject( auditValue );
                     }
+
+                    return true;
                 }
             }
-            else
+        }
+        else
+        {
+            if ( strategy.isCreateAndUpdate() || strategy.isCreate() )
             {
-                if ( strategy.isCreateAndUpdate() || strategy.isCreate() )
+                if ( !internalValue.isNullValue() ) // Ignore null values
                 {
-                    if ( !internalValue.isNullValue() ) // Ignore null values
+                    if ( existingValue != null && existingValue.isDeleted() )
                     {
-                        if ( existingValue != null && existingValue.isDeleted() )
+                        importCount.incrementImported();
+
+                        if ( !dryRun )
                         {
-                            importCount++;
+                            dataValueBatchHandler.updateObject( internalValue );
 
-                            if ( !dryRun )
+                            if ( dataElement.isFileType() )
                             {
-                                dataValueBatchHandler.updateObject( internalValue );
-
-                                if ( dataElement.isFileType() )
-                                {
-                                    FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
+                                FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
 
-                                    fr.setAssigned( true );
+                                fr.setAssigned( true );
 
-                                    fileResourceService.updateFileResource( fr );
-                                }
+                                fileResourceService.updateFileResource( fr );
                             }
+
+                            return true;
                         }
-                        else
+                    }
+                    else
+                    {
+                        boolean added = false;
+
+                        if ( !dryRun )
                         {
-                            boolean added = false;
+                            added = dataValueBatchHandler.addObject( internalValue );
 
-                            if ( !dryRun )
+                            if ( added && dataElement.isFileType() )
                             {
-                                added = dataValueBatchHandler.addObject( internalValue );
-
-                                if ( added && dataElement.isFileType() )
-                                {
-                                    FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
+                                FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
 
-                                    fr.setAssigned( true );
+                                fr.setAssigned( true );
 
-                                    fileResourceService.updateFileResource( fr );
-                                }
+                                fileResourceService.updateFileResource( fr );
                             }
+                        }
 
-                            if ( dryRun || added )
-                            {
-                                importCount++;
-                            }
+                        if ( dryRun || added )
+                        {
+                            importCount.incrementImported();
                         }
                     }
                 }
             }
         }
 
-        dataValueBatchHandler.flush();
-        auditBatchHandler.flush();
-
-        int ignores = totalCount - importCount - updateCount - deleteCount;
-
-        summary.setImportCount( new ImportCount( importCount, updateCount, ignores, deleteCount ) );
-        summary.setStatus( summary.getConflicts().isEmpty() ? ImportStatus.SUCCESS : ImportStatus.WARNING );
-        summary.setDescription( "Import process completed successfully" );
-
-        clock.logTime( "Data value import done, total: " + totalCount + ", import: " + importCount + ", update: " + updateCount + ", delete: " + deleteCount );
-        notifier.notify( id, notificationLevel, "Import done", true ).addJobSummary( id, notificationLevel, summary, ImportSummary.class );
-
-        dataValueSet.close();
-
-        return summary;
+        return false;
     }
 
-    // -------------------------------------------------------------------------
-    // Supportive methods
-    // -------------------------------------------------------------------------
-
     private void handleComplete( DataSet dataSet, Date completeDate, Period period, OrganisationUnit orgUnit,
         CategoryOptionCombo attributeOptionCombo, String currentUserName, ImportSummary summary )
     {
@@ -1449,4 +1535,30 @@ public class DefaultDataValueSetService
     {
         return dataSet.isLocked( user, period, null ) && (skipLockExceptionCheck || lockExceptionStore.getCount( dataSet, period, organisationUnit ) == 0L);
     }
+
+    /**
+     * Data value which is validated and awaiting to be saved.
+     */
+    private static class PendingDataValue
+    {
+        private final DataValue dataValue;
+
+        private final DataValue actualDataValue;
+
+        PendingDataValue( DataValue dataValue, DataValue actualDataValue )
+        {
+            this.dataValue = dataValue;
+            this.actualDataValue = actualDataValue;
+        }
+
+        DataValue getDataValue()
+        {
+            return dataValue;
+        }
+
+        DataValue getActualDataValue()
+        {
+            return actualDataValue;
+        }
+    }
 }
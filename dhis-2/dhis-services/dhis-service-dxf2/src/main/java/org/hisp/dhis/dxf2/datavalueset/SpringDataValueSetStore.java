@@ -50,7 +50,10 @@ import java.io.OutputStream;
 import java.io.Writer;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.hisp.dhis.common.IdentifiableObjectUtils.getIdentifiers;
 import static org.hisp.dhis.commons.util.TextUtils.getCommaDelimitedString;
@@ -126,6 +129,63 @@ public class SpringDataValueSetStore
         writeDataValueSet( sql, new DataExportParams(), null, dataValueSet );
     }
 
+    @Override
+    public Map<org.hisp.dhis.datavalue.DataValue, org.hisp.dhis.datavalue.DataValue> getExistingDataValues(
+        Collection<org.hisp.dhis.datavalue.DataValue> dataValues )
+    {
+        final Map<org.hisp.dhis.datavalue.DataValue, org.hisp.dhis.datavalue.DataValue> existingMap = new HashMap<>();
+
+        if ( dataValues.isEmpty() )
+        {
+            return existingMap;
+        }
+
+        final Map<String, org.hisp.dhis.datavalue.DataValue> keyMap = new HashMap<>();
+
+        final StringBuilder keys = new StringBuilder();
+
+        for ( org.hisp.dhis.datavalue.DataValue dataValue : dataValues )
+        {
+            String key = getKey( dataValue.getDataElement().getId(), dataValue.getPeriod().getId(), dataValue.getSource().getId(),
+                dataValue.getCategoryOptionCombo().getId(), dataValue.getAttributeOptionCombo().getId() );
+
+            if ( keyMap.putIfAbsent( key, dataValue ) == null )
+            {
+                keys.append( "(" ).append( key ).append( ")," );
+            }
+        }
+
+        final String sql =
+            "select dataelementid, periodid, sourceid, categoryoptioncomboid, attributeoptioncomboid, " +
+            "value, storedby, comment, followup, deleted " +
+            "from datavalue " +
+            "where (dataelementid, periodid, sourceid, categoryoptioncomboid, attributeoptioncomboid) " +
+            "in (" + TextUtils.removeLastComma( keys.toString() ) + ")";
+
+        log.debug( "Get existing data values SQL: " + sql );
+
+        jdbcTemplate.query( sql, rs -> {
+            org.hisp.dhis.datavalue.DataValue dataValue = keyMap.get( getKey( rs.getLong( "dataelementid" ), rs.getLong( "periodid" ),
+                rs.getLong( "sourceid" ), rs.getLong( "categoryoptioncomboid" ), rs.getLong( "attributeoptioncomboid" ) ) );
+
+            if ( dataValue != null )
+            {
+                org.hisp.dhis.datavalue.DataValue existing = new org.hisp.dhis.datavalue.DataValue( dataValue.getDataElement(),
+                    dataValue.getPeriod(), dataValue.getSource(), dataValue.getCategoryOptionCombo(), dataValue.getAttributeOptionCombo() );
+
+                existing.setValue( rs.getString( "value" ) );
+                existing.setStoredBy( rs.getString( "storedby" ) );
+                existing.setComment( rs.getString( "comment" ) );
+                existing.setFollowup( rs.getBoolean( "followup" ) );
+                existing.setDeleted( rs.getBoolean( "deleted" ) );
+
+                existingMap.put( dataValue, existing );
+            }
+        } );
+
+        return existingMap;
+    }
+
     private String buildDataValueSql( Date lastUpdated, IdSchemes idSchemes )
     {
         String deScheme = idSchemes.getDataElementIdScheme().getIdentifiableString().toLowerCase();
@@ -201,6 +261,11 @@ public class SpringDataValueSetStore
     // Supportive methods
     //--------------------------------------------------------------------------
 
+    private String getKey( long dataElementId, long periodId, long orgUnitId, long categoryOptionComboId, long attributeOptionComboId )
+    {
+        return dataElementId + "," + periodId + "," + orgUnitId + "," + categoryOptionComboId + "," + attributeOptionComboId;
+    }
+
     private String getDataValueSql( DataExportParams params )
     {
         IdSchemes idScheme = params.getOutputIdSchemes() != null ? params.getOutputIdSchemes() : new IdSchemes();
@@ -0,0 +1,251 @@
+package org.hisp.dhis.dxf2.datavalueset;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.hisp.dhis.dxf2.datavalue.DataValue;
+import org.hisp.dhis.render.DefaultRenderService;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Pull based reader of JSON data value sets. Data values are parsed lazily,
+ * one at a time, from the underlying stream, which means that the memory
+ * footprint is independent of the number of data values.
+ * <p>
+ * JSON object members are unordered, so the properties of the data value set,
+ * such as data set and period, may appear before or after the
+ * {@code dataValues} array. The stream is therefore copied to a temporary
+ * file, which is read twice: first to read the properties while skipping the
+ * data values, then to read the data values. All properties are known before
+ * the first data value is returned. The temporary file is deleted when the
+ * reader is closed.
+ */
+public class StreamingJsonDataValueSetReader
+    extends DataValueSet
+{
+    private static final String FIELD_DATAVALUES = "dataValues";
+
+    private final ObjectMapper mapper;
+
+    private final File file;
+
+    private final JsonParser parser;
+
+    private boolean inDataValues;
+
+    private DataValue nextDataValue;
+
+    //--------------------------------------------------------------------------
+    // Constructor
+    //--------------------------------------------------------------------------
+
+    public StreamingJsonDataValueSetReader( InputStream in )
+    {
+        this.mapper = DefaultRenderService.getJsonMapper();
+
+        try
+        {
+            this.file = Files.createTempFile( "dhis2-datavalueset", ".json" ).toFile();
+        }
+        catch ( IOException ex )
+        {
+            throw new RuntimeException( "Failed to read data value set", ex );
+        }
+
+        try
+        {
+            Files.copy( in, file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+
+            readProperties();
+
+            this.parser = mapper.getFactory().createParser( file );
+            this.inDataValues = seekDataValues();
+        }
+        catch ( IOException ex )
+        {
+            file.delete();
+            throw new RuntimeException( "Failed to read data value set", ex );
+        }
+        catch ( RuntimeException ex )
+        {
+            file.delete();
+            throw ex;
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // DataValueSet implementation
+    //--------------------------------------------------------------------------
+
+    @Override
+    public boolean hasNextDataValue()
+    {
+        if ( nextDataValue != null )
+        {
+            return true;
+        }
+
+        if ( !inDataValues )
+        {
+            return false;
+        }
+
+        try
+        {
+            JsonToken token = parser.nextToken();
+
+            if ( token == JsonToken.START_OBJECT )
+            {
+                nextDataValue = mapper.readValue( parser, DataValue.class );
+                return true;
+            }
+
+            inDataValues = false;
+
+            return false;
+        }
+        catch ( IOException ex )
+        {
+            throw new RuntimeException( "Failed to read data value", ex );
+        }
+    }
+
+    @Override
+    public DataValue getNextDataValue()
+    {
+        if ( !hasNextDataValue() )
+        {
+            throw new IllegalStateException( "No more data values" );
+        }
+
+        DataValue dataValue = nextDataValue;
+        nextDataValue = null;
+        return dataValue;
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            parser.close();
+        }
+        catch ( IOException ignored )
+        {
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Supportive methods
+    //--------------------------------------------------------------------------
+
+    /**
+     * Reads all properties of the data value set, skipping the data values
+     * array, and sets them on this data value set.
+     */
+    private void readProperties()
+        throws IOException
+    {
+        ObjectNode properties = mapper.createObjectNode();
+
+        try ( JsonParser propertyParser = mapper.getFactory().createParser( file ) )
+        {
+            if ( propertyParser.nextToken() != JsonToken.START_OBJECT )
+            {
+                throw new IllegalArgumentException( "Data value set must be a JSON object" );
+            }
+
+            JsonToken token;
+
+            while ( (token = propertyParser.nextToken()) == JsonToken.FIELD_NAME )
+            {
+                String field = propertyParser.getCurrentName();
+                token = propertyParser.nextToken();
+
+                if ( FIELD_DATAVALUES.equals( field ) && token == JsonToken.START_ARRAY )
+                {
+                    propertyParser.skipChildren();
+                    continue;
+                }
+
+                properties.set( field, mapper.readTree( propertyParser ) );
+            }
+
+            if ( token != JsonToken.END_OBJECT )
+            {
+                throw new IllegalArgumentException( "Unexpected token in data value set: " + token );
+            }
+        }
+
+        if ( properties.size() > 0 )
+        {
+            mapper.readerForUpdating( this ).readValue( properties );
+        }
+    }
+
+    /**
+     * Advances the parser to the start of the data values array, skipping
+     * the properties of the data value set.
+     *
+     * @return true if the data values array was found, false otherwise.
+     */
+    private boolean seekDataValues()
+        throws IOException
+    {
+        parser.nextToken();
+
+        while ( parser.nextToken() == JsonToken.FIELD_NAME )
+        {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if ( FIELD_DATAVALUES.equals( field ) && token == JsonToken.START_ARRAY )
+            {
+                return true;
+            }
+
+            parser.skipChildren();
+        }
+
+        return false;
+    }
+}
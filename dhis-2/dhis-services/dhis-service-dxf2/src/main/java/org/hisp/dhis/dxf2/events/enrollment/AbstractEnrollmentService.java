@@ -205,6 +205,11 @@ public abstract class AbstractEnrollmentService
         List<ProgramInstance> programInstances = programInstanceService.getProgramInstances( params );
         enrollments.setEnrollments( getEnrollments( programInstances ) );
 
+        if ( enrollments.getPager() != null && params.getNextPageToken() != null )
+        {
+            enrollments.getPager().setNextPageToken( params.getNextPageToken().encode() );
+        }
+
         return enrollments;
     }
 
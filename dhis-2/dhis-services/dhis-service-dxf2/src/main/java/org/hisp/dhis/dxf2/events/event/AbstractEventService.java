@@ -684,6 +684,11 @@ public abstract class AbstractEventService
 
         List<Event> eventList = eventStore.getEvents( params, organisationUnits, Collections.emptyMap() );
 
+        if ( events.getPager() != null && params.getNextPageToken() != null )
+        {
+            events.getPager().setNextPageToken( params.getNextPageToken().encode() );
+        }
+
         for ( Event event : eventList )
         {
             if ( trackerOwnershipAccessManager.hasAccess( user,
@@ -2206,6 +2211,11 @@ public abstract class AbstractEventService
             violation = "Duration is not valid: " + params.getLastUpdatedDuration();
         }
 
+        if ( params.isKeysetPaging() && params.hasOrders() )
+        {
+            violation = "Order cannot be specified with keyset paging, events are ordered by last updated";
+        }
+
         if ( violation != null )
         {
             log.warn( "Validation failed: " + violation );
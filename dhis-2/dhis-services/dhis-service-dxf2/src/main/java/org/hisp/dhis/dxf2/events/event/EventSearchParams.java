@@ -32,6 +32,7 @@ import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.common.AssignedUserSelectionMode;
 import org.hisp.dhis.common.IdSchemes;
 import org.hisp.dhis.common.OrganisationUnitSelectionMode;
+import org.hisp.dhis.common.PageToken;
 import org.hisp.dhis.common.QueryItem;
 import org.hisp.dhis.event.EventStatus;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
@@ -131,6 +132,23 @@ public class EventSearchParams
 
     private boolean skipPaging;
 
+    /**
+     * Indicates whether to page by seeking past the last item of the previous
+     * page instead of by offset. Implied by a page token.
+     */
+    private boolean keysetPaging;
+
+    /**
+     * Token of the last item of the previous page for keyset paging.
+     */
+    private PageToken pageToken;
+
+    /**
+     * Token of the last item of the current page, set by the store when the
+     * page is full and keyset paging is used.
+     */
+    private PageToken nextPageToken;
+
     private List<Order> orders;
 
     private List<String> gridOrders;
@@ -198,6 +216,20 @@ public class EventSearchParams
         return (getPageWithDefault() - 1) * getPageSizeWithDefault();
     }
 
+    /**
+     * Indicates whether keyset paging is used, which is the case when
+     * explicitly requested or when a page token is given.
+     */
+    public boolean isKeysetPaging()
+    {
+        return !skipPaging && ( keysetPaging || pageToken != null );
+    }
+
+    public boolean hasPageToken()
+    {
+        return pageToken != null;
+    }
+
     /**
      * Sets paging properties to default values.
      */
@@ -250,6 +282,14 @@ public class EventSearchParams
         return filters != null && !filters.isEmpty();
     }
 
+    /**
+     * Indicates whether this search params specify any orders.
+     */
+    public boolean hasOrders()
+    {
+        return ( orders != null && !orders.isEmpty() ) || ( gridOrders != null && !gridOrders.isEmpty() );
+    }
+
     /**
      * Null-safe check for skip event ID parameter.
      */
@@ -540,6 +580,34 @@ public class EventSearchParams
         return this;
     }
 
+    public EventSearchParams setKeysetPaging( boolean keysetPaging )
+    {
+        this.keysetPaging = keysetPaging;
+        return this;
+    }
+
+    public PageToken getPageToken()
+    {
+        return pageToken;
+    }
+
+    public EventSearchParams setPageToken( PageToken pageToken )
+    {
+        this.pageToken = pageToken;
+        return this;
+    }
+
+    public PageToken getNextPageToken()
+    {
+        return nextPageToken;
+    }
+
+    public EventSearchParams setNextPageToken( PageToken nextPageToken )
+    {
+        this.nextPageToken = nextPageToken;
+        return this;
+    }
+
     public boolean isIncludeAttributes()
     {
         return includeAttributes;
@@ -40,6 +40,7 @@ import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.common.IdScheme;
 import org.hisp.dhis.common.IdSchemes;
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.PageToken;
 import org.hisp.dhis.common.QueryFilter;
 import org.hisp.dhis.common.QueryItem;
 import org.hisp.dhis.common.QueryOperator;
@@ -48,6 +49,7 @@ import org.hisp.dhis.commons.collection.CachingMap;
 import org.hisp.dhis.commons.util.SqlHelper;
 import org.hisp.dhis.commons.util.TextUtils;
 import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.datasource.ReadReplicaRoutingDataSource;
 import org.hisp.dhis.dxf2.events.enrollment.EnrollmentStatus;
 import org.hisp.dhis.dxf2.events.report.EventRow;
 import org.hisp.dhis.dxf2.events.trackedentity.Attribute;
@@ -98,6 +100,17 @@ public class JdbcEventStore
 {
     private static final Log log = LogFactory.getLog( JdbcEventStore.class );
 
+    /**
+     * Max replication lag in seconds accepted for read replicas, as events
+     * are often read back shortly after being written.
+     */
+    private static final int MAX_REPLICA_STALENESS_SECONDS = 5;
+
+    /**
+     * Order of keyset paged queries, unique through the event identifier.
+     */
+    private static final String KEYSET_ORDER_QUERY = "order by psi_lastupdated desc, psi_id desc ";
+
     private static final Map<String, String> QUERY_PARAM_COL_MAP = ImmutableMap.<String, String>builder()
         .put( "event", "psi_uid" ).put( "program", "p_uid" ).put( "programStage", "ps_uid" )
         .put( "enrollment", "pi_uid" ).put( "enrollmentStatus", "pi_status" ).put( "orgUnit", "ou_uid" )
@@ -162,14 +175,25 @@ public class JdbcEventStore
         List<Event> events = new ArrayList<>();
 
         String sql = buildSql( params, organisationUnits, user );
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
+        SqlRowSet rowSet = queryForRowSet( sql );
 
         log.debug( "Event query SQL: " + sql );
 
         Set<String> notes = new HashSet<>();
 
+        Set<Long> pageEventIds = new HashSet<>();
+        PageToken lastRowToken = null;
+
         while ( rowSet.next() )
         {
+            if ( params.isKeysetPaging() && rowSet.getString( "psi_uid" ) != null )
+            {
+                long eventId = rowSet.getLong( "psi_id" );
+
+                pageEventIds.add( eventId );
+                lastRowToken = PageToken.of( rowSet.getTimestamp( "psi_lastupdated" ), eventId );
+            }
+
             if ( rowSet.getString( "psi_uid" ) == null || (params.getCategoryOptionCombo() == null && !isSuperUser && !userHasAccess( rowSet )) )
             {
                 continue;
@@ -303,6 +327,13 @@ public class JdbcEventStore
             }
         }
 
+        if ( pageEventIds.size() >= params.getPageSizeWithDefault() )
+        {
+            // Rows are ordered by the keyset, hence the last row is of the last event of the page
+
+            params.setNextPageToken( lastRowToken );
+        }
+
         IdSchemes idSchemes = ObjectUtils.firstNonNull( params.getIdSchemes(), new IdSchemes() );
         IdScheme dataElementIdScheme = idSchemes.getDataElementIdScheme();
 
@@ -323,6 +354,12 @@ public class JdbcEventStore
         return events;
     }
 
+    private SqlRowSet queryForRowSet( String sql )
+    {
+        return ReadReplicaRoutingDataSource.withMaxStaleness( MAX_REPLICA_STALENESS_SECONDS,
+            () -> jdbcTemplate.queryForRowSet( sql ) );
+    }
+
     private void validateIdentifiersPresence( SqlRowSet rowSet, IdSchemes idSchemes,
         boolean validateCategoryOptionCombo )
     {
@@ -360,7 +397,7 @@ public class JdbcEventStore
     {
         String sql = buildGridSql( params, organisationUnits );
 
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
+        SqlRowSet rowSet = queryForRowSet( sql );
 
         log.debug( "Event query SQL: " + sql );
 
@@ -405,7 +442,7 @@ public class JdbcEventStore
         List<EventRow> eventRows = new ArrayList<>();
 
         String sql = buildSql( params, organisationUnits, user );
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
+        SqlRowSet rowSet = queryForRowSet( sql );
 
         log.debug( "Event query SQL: " + sql );
 
@@ -585,7 +622,7 @@ public class JdbcEventStore
         }
         else
         {
-            sql = getEventSelectQuery( params, organisationUnits, user );
+            sql = "select count(*) " + getEventFromWhereQuery( params, organisationUnits, user, new SqlHelper() );
         }
 
         sql = sql.replaceFirst( "select .*? from", "select count(*) from" );
@@ -596,7 +633,10 @@ public class JdbcEventStore
 
         log.debug( "Event query count SQL: " + sql );
 
-        return jdbcTemplate.queryForObject( sql, Integer.class );
+        final String countSql = sql;
+
+        return ReadReplicaRoutingDataSource.withMaxStaleness( MAX_REPLICA_STALENESS_SECONDS,
+            () -> jdbcTemplate.queryForObject( countSql, Integer.class ) );
     }
 
     private DataValue convertEventDataValueIntoDtoDataValue( EventDataValue eventDataValue )
@@ -668,7 +708,9 @@ public class JdbcEventStore
     /**
      * Query is based on three sub queries on event, data value and comment,
      * which are joined using program stage instance id. The purpose of the
-     * separate queries is to be able to page properly on events.
+     * separate queries is to be able to page properly on events. For keyset
+     * paging, the event sub query is restricted to a page of distinct event
+     * identifiers, as it returns one row per event and category option.
      */
     private String buildSql( EventSearchParams params, List<OrganisationUnit> organisationUnits, User user )
     {
@@ -700,8 +742,6 @@ public class JdbcEventStore
 
     private String getEventSelectQuery( EventSearchParams params, List<OrganisationUnit> organisationUnits, User user )
     {
-        List<Long> orgUnitIds = getIdentifiers( organisationUnits );
-
         SqlHelper hlp = new SqlHelper();
 
         String sql = "select " + getEventSelectIdentifiersByIdScheme( params.getIdSchemes() ) + " psi.uid as psi_uid, "
@@ -730,8 +770,49 @@ public class JdbcEventStore
 
         sql += "pi.uid as pi_uid, pi.status as pi_status, pi.followup as pi_followup, "
             + "p.type as p_type, ps.uid as ps_uid, ou.name as ou_name, "
-            + "tei.trackedentityinstanceid as tei_id, tei.uid as tei_uid, teiou.uid as tei_ou, teiou.name as tei_ou_name, tei.created as tei_created, tei.inactive as tei_inactive "
-            + "from programstageinstance psi "
+            + "tei.trackedentityinstanceid as tei_id, tei.uid as tei_uid, teiou.uid as tei_ou, teiou.name as tei_ou_name, tei.created as tei_created, tei.inactive as tei_inactive ";
+
+        sql += getEventFromWhereQuery( params, organisationUnits, user, hlp );
+
+        if ( params.isKeysetPaging() )
+        {
+            sql += hlp.whereAnd() + " psi.programstageinstanceid in (" + getEventKeysetPageQuery( params, organisationUnits, user ) + ") ";
+        }
+
+        return sql;
+    }
+
+    /**
+     * Returns the identifiers of the events of the next keyset page. Paging
+     * is done on distinct events, as the event query returns one row per
+     * event and category option.
+     */
+    private String getEventKeysetPageQuery( EventSearchParams params, List<OrganisationUnit> organisationUnits, User user )
+    {
+        SqlHelper hlp = new SqlHelper();
+
+        String sql = "select psi_id from (select distinct psi.programstageinstanceid as psi_id, psi.lastupdated as psi_lastupdated ";
+
+        sql += getEventFromWhereQuery( params, organisationUnits, user, hlp );
+
+        if ( params.hasPageToken() )
+        {
+            sql += hlp.whereAnd() + getKeysetQuery( params.getPageToken() );
+        }
+
+        sql += KEYSET_ORDER_QUERY + "limit " + params.getPageSizeWithDefault() + ") as psi_page";
+
+        return sql;
+    }
+
+    /**
+     * From, join and where clause of the event query.
+     */
+    private String getEventFromWhereQuery( EventSearchParams params, List<OrganisationUnit> organisationUnits, User user, SqlHelper hlp )
+    {
+        List<Long> orgUnitIds = getIdentifiers( organisationUnits );
+
+        String sql = "from programstageinstance psi "
             + "inner join programinstance pi on pi.programinstanceid=psi.programinstanceid "
             + "inner join program p on p.programid=pi.programid "
             + "inner join programstage ps on ps.programstageid=psi.programstageid "
@@ -1177,7 +1258,7 @@ public class JdbcEventStore
     {
         String sql = " ";
 
-        if ( params.isPaging() )
+        if ( params.isPaging() && !params.isKeysetPaging() )
         {
             sql += "limit " + params.getPageSizeWithDefault() + " offset " + params.getOffset() + " ";
         }
@@ -1238,8 +1319,23 @@ public class JdbcEventStore
         return "order by lastUpdated desc ";
     }
 
+    /**
+     * Returns the condition which seeks past the event identified by the given
+     * page token, in the order of {@link #KEYSET_ORDER_QUERY}.
+     */
+    private String getKeysetQuery( PageToken pageToken )
+    {
+        return " (psi.lastupdated, psi.programstageinstanceid) < (" + pageToken.getLastUpdatedLiteral() +
+            "::timestamp, " + pageToken.getId() + ") ";
+    }
+
     private String getOrderQuery( EventSearchParams params )
     {
+        if ( params.isKeysetPaging() )
+        {
+            return KEYSET_ORDER_QUERY;
+        }
+
         ArrayList<String> orderFields = new ArrayList<String>();
 
         if ( params.getGridOrders() != null )
@@ -1380,7 +1476,7 @@ public class JdbcEventStore
                         "from dataelement de where de.uid in (" + dataElementsUidsSqlString + ") " +
                         "and de.attributevalues ? '" + idScheme.getAttribute() + "'";
 
-                SqlRowSet deRowSet = jdbcTemplate.queryForRowSet( deSql );
+                SqlRowSet deRowSet = queryForRowSet( deSql );
 
                 while ( deRowSet.next() )
                 {
@@ -64,6 +64,7 @@ import org.hisp.dhis.dxf2.common.OrderParams;
 import org.hisp.dhis.eventchart.EventChart;
 import org.hisp.dhis.eventreport.EventReport;
 import org.hisp.dhis.fieldfilter.Defaults;
+import org.hisp.dhis.fieldfilter.FieldFilterCollectionNode;
 import org.hisp.dhis.fieldfilter.FieldFilterParams;
 import org.hisp.dhis.fieldfilter.FieldFilterService;
 import org.hisp.dhis.indicator.Indicator;
@@ -74,7 +75,6 @@ import org.hisp.dhis.legend.LegendSet;
 import org.hisp.dhis.mapping.MapView;
 import org.hisp.dhis.node.NodeUtils;
 import org.hisp.dhis.node.config.InclusionStrategy;
-import org.hisp.dhis.node.types.CollectionNode;
 import org.hisp.dhis.node.types.ComplexNode;
 import org.hisp.dhis.node.types.RootNode;
 import org.hisp.dhis.node.types.SimpleNode;
@@ -220,9 +220,9 @@ public class DefaultMetadataExportService implements MetadataExportService
             FieldFilterParams fieldFilterParams = new FieldFilterParams( metadata.get( klass ), params.getFields( klass ), params.getDefaults(), params.getSkipSharing() );
             fieldFilterParams.setUser( params.getUser() );
 
-            CollectionNode collectionNode = fieldFilterService.toCollectionNode( klass, fieldFilterParams );
+            FieldFilterCollectionNode collectionNode = fieldFilterService.toStreamingCollectionNode( klass, fieldFilterParams );
 
-            if ( !collectionNode.getChildren().isEmpty() )
+            if ( !collectionNode.isEmpty() )
             {
                 rootNode.addChild( collectionNode );
             }
@@ -583,7 +583,7 @@ public class DefaultObjectBundleValidationService implements ObjectBundleValidat
 
                 if ( !p.isCollection() )
                 {
-                    IdentifiableObject refObject = ReflectionUtils.invokeMethod( object, p.getGetterMethod() );
+                    IdentifiableObject refObject = ReflectionUtils.invokeGetter( object, p );
                     IdentifiableObject ref = preheat.get( identifier, refObject );
 
                     if ( ref == null && refObject != null && !preheat.isDefault( refObject ) )
@@ -598,7 +598,7 @@ public class DefaultObjectBundleValidationService implements ObjectBundleValidat
                 else
                 {
                     Collection<IdentifiableObject> objects = ReflectionUtils.newCollectionInstance( p.getKlass() );
-                    Collection<IdentifiableObject> refObjects = ReflectionUtils.invokeMethod( object, p.getGetterMethod() );
+                    Collection<IdentifiableObject> refObjects = ReflectionUtils.invokeGetter( object, p );
 
                     if ( refObjects != null )
                     {
@@ -621,7 +621,7 @@ public class DefaultObjectBundleValidationService implements ObjectBundleValidat
                             }
                         }
 
-                        ReflectionUtils.invokeMethod( object, p.getSetterMethod(), objects );
+                        ReflectionUtils.invokeSetter( object, p, objects );
                     }
                 }
             } );
@@ -786,7 +786,7 @@ public class DefaultObjectBundleValidationService implements ObjectBundleValidat
                 uniquenessMap.put( property.getName(), new HashMap<>() );
             }
 
-            Object value = ReflectionUtils.invokeMethod( object, property.getGetterMethod() );
+            Object value = ReflectionUtils.invokeGetter( object, property );
 
             if ( value != null )
             {
@@ -56,13 +56,13 @@ public class PeriodTypeObjectBundleHook extends AbstractObjectBundleHook
         {
             if ( PeriodType.class.isAssignableFrom( property.getKlass() ) )
             {
-                PeriodType periodType = ReflectionUtils.invokeMethod( object, property.getGetterMethod() );
+                PeriodType periodType = ReflectionUtils.invokeGetter( object, property );
 
                 if ( periodType != null )
                 {
                     periodType = bundle.getPreheat().getPeriodTypeMap().get( periodType.getName() );
                     periodType = periodService.reloadPeriodType( periodType );
-                    ReflectionUtils.invokeMethod( object, property.getSetterMethod(), periodType );
+                    ReflectionUtils.invokeSetter( object, property, periodType );
                 }
             }
         }
@@ -77,12 +77,12 @@ public class PeriodTypeObjectBundleHook extends AbstractObjectBundleHook
         {
             if ( PeriodType.class.isAssignableFrom( property.getKlass() ) )
             {
-                PeriodType periodType = ReflectionUtils.invokeMethod( object, property.getGetterMethod() );
+                PeriodType periodType = ReflectionUtils.invokeGetter( object, property );
 
                 if ( periodType != null )
                 {
                     periodType = bundle.getPreheat().getPeriodTypeMap().get( periodType.getName() );
-                    ReflectionUtils.invokeMethod( object, property.getSetterMethod(), periodType );
+                    ReflectionUtils.invokeSetter( object, property, periodType );
                 }
             }
         }
@@ -41,10 +41,12 @@ import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.AuditType;
 import org.hisp.dhis.common.IdScheme;
 import org.hisp.dhis.common.IdSchemes;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.dbms.DbmsManager;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dataelement.DataElementService;
 import org.hisp.dhis.dataset.CompleteDataSetRegistration;
@@ -53,6 +55,7 @@ import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.dataset.DataSetService;
 import org.hisp.dhis.datavalue.DataValue;
 import org.hisp.dhis.datavalue.DataValueAudit;
+import org.hisp.dhis.datavalue.DataValueService;
 import org.hisp.dhis.dxf2.common.ImportOptions;
 import org.hisp.dhis.dxf2.importsummary.ImportStatus;
 import org.hisp.dhis.dxf2.importsummary.ImportSummary;
@@ -130,6 +133,12 @@ public class DataValueSetServiceTest
     @Autowired
     private UserService _userService;
 
+    @Autowired
+    private DataValueService dataValueService;
+
+    @Autowired
+    private DbmsManager dbmsManager;
+
     private Attribute attribute;
 
     private CategoryOptionCombo ocDef;
@@ -446,6 +455,163 @@ public class DataValueSetServiceTest
         assertImportDataValues( summary );
     }
 
+    @Test
+    public void testImportDataValuesXmlWithBatchExistingCheck()
+        throws Exception
+    {
+        in = new ClassPathResource( "datavalueset/dataValueSetB.xml" ).getInputStream();
+
+        ImportOptions importOptions = new ImportOptions()
+            .setBatchExistingCheck( true );
+
+        ImportSummary summary = dataValueSetService.saveDataValueSet( in, importOptions );
+
+        assertEquals( summary.getConflicts().toString(), 0, summary.getConflicts().size() );
+        assertEquals( 12, summary.getImportCount().getImported() );
+        assertEquals( 0, summary.getImportCount().getUpdated() );
+        assertEquals( 0, summary.getImportCount().getDeleted() );
+        assertEquals( 0, summary.getImportCount().getIgnored() );
+        assertEquals( ImportStatus.SUCCESS, summary.getStatus() );
+
+        assertImportDataValues( summary );
+    }
+
+    @Test
+    public void testImportDataValuesUpdatedWithBatchExistingCheck()
+        throws Exception
+    {
+        addDataValues( false );
+
+        in = new ClassPathResource( "datavalueset/dataValueSetA.xml" ).getInputStream();
+
+        ImportOptions importOptions = new ImportOptions()
+            .setBatchExistingCheck( true );
+
+        ImportSummary summary = dataValueSetService.saveDataValueSet( in, importOptions );
+
+        assertEquals( summary.getConflicts().toString(), 0, summary.getConflicts().size() );
+        assertEquals( 0, summary.getImportCount().getImported() );
+        assertEquals( 3, summary.getImportCount().getUpdated() );
+        assertEquals( 0, summary.getImportCount().getDeleted() );
+        assertEquals( ImportStatus.SUCCESS, summary.getStatus() );
+
+        List<DataValue> dataValues = mockDataValueBatchHandler.getUpdates();
+        List<DataValueAudit> auditValues = mockDataValueAuditBatchHandler.getInserts();
+
+        assertEquals( 0, mockDataValueBatchHandler.getInserts().size() );
+        assertEquals( 3, dataValues.size() );
+        assertTrue( dataValues.contains( new DataValue( deA, peA, ouA, ocDef, ocDef ) ) );
+        assertTrue( dataValues.contains( new DataValue( deA, peA, ouB, ocDef, ocDef ) ) );
+        assertTrue( dataValues.contains( new DataValue( deA, peB, ouA, ocDef, ocDef ) ) );
+        assertEquals( "10001", dataValues.get( 0 ).getValue() );
+
+        assertEquals( 3, auditValues.size() );
+        assertEquals( AuditType.UPDATE, auditValues.get( 0 ).getAuditType() );
+        assertEquals( "1", auditValues.get( 0 ).getValue() );
+    }
+
+    @Test
+    public void testImportDataValuesDeletedWithBatchExistingCheck()
+        throws Exception
+    {
+        addDataValues( false );
+
+        in = new ClassPathResource( "datavalueset/dataValueSetADeleted.xml" ).getInputStream();
+
+        ImportOptions importOptions = new ImportOptions()
+            .setBatchExistingCheck( true );
+
+        ImportSummary summary = dataValueSetService.saveDataValueSet( in, importOptions );
+
+        assertEquals( summary.getConflicts().toString(), 0, summary.getConflicts().size() );
+        assertEquals( 0, summary.getImportCount().getImported() );
+        assertEquals( 0, summary.getImportCount().getUpdated() );
+        assertEquals( 3, summary.getImportCount().getDeleted() );
+        assertEquals( ImportStatus.SUCCESS, summary.getStatus() );
+
+        List<DataValue> dataValues = mockDataValueBatchHandler.getUpdates();
+        List<DataValueAudit> auditValues = mockDataValueAuditBatchHandler.getInserts();
+
+        assertEquals( 3, dataValues.size() );
+        assertTrue( dataValues.stream().allMatch( DataValue::isDeleted ) );
+
+        assertEquals( 3, auditValues.size() );
+        assertTrue( auditValues.stream().allMatch( audit -> AuditType.DELETE == audit.getAuditType() ) );
+    }
+
+    @Test
+    public void testImportDataValuesDeleteStrategyWithBatchExistingCheck()
+        throws Exception
+    {
+        addDataValues( false );
+
+        in = new ClassPathResource( "datavalueset/dataValueSetA.xml" ).getInputStream();
+
+        ImportOptions importOptions = new ImportOptions()
+            .setImportStrategy( ImportStrategy.DELETE )
+            .setBatchExistingCheck( true );
+
+        ImportSummary summary = dataValueSetService.saveDataValueSet( in, importOptions );
+
+        assertEquals( summary.getConflicts().toString(), 0, summary.getConflicts().size() );
+        assertEquals( 0, summary.getImportCount().getImported() );
+        assertEquals( 0, summary.getImportCount().getUpdated() );
+        assertEquals( 3, summary.getImportCount().getDeleted() );
+
+        List<DataValue> dataValues = mockDataValueBatchHandler.getUpdates();
+
+        assertEquals( 3, dataValues.size() );
+        assertTrue( dataValues.stream().allMatch( DataValue::isDeleted ) );
+        assertEquals( 3, mockDataValueAuditBatchHandler.getInserts().size() );
+    }
+
+    @Test
+    public void testImportDataValuesSoftDeletedWithBatchExistingCheck()
+        throws Exception
+    {
+        addDataValues( true );
+
+        in = new ClassPathResource( "datavalueset/dataValueSetA.xml" ).getInputStream();
+
+        ImportOptions importOptions = new ImportOptions()
+            .setBatchExistingCheck( true );
+
+        ImportSummary summary = dataValueSetService.saveDataValueSet( in, importOptions );
+
+        assertEquals( summary.getConflicts().toString(), 0, summary.getConflicts().size() );
+        assertEquals( 3, summary.getImportCount().getImported() );
+        assertEquals( 0, summary.getImportCount().getUpdated() );
+        assertEquals( 0, summary.getImportCount().getDeleted() );
+        assertEquals( ImportStatus.SUCCESS, summary.getStatus() );
+
+        List<DataValue> dataValues = mockDataValueBatchHandler.getUpdates();
+
+        assertEquals( 0, mockDataValueBatchHandler.getInserts().size() );
+        assertEquals( 3, dataValues.size() );
+        assertTrue( dataValues.stream().noneMatch( DataValue::isDeleted ) );
+        assertEquals( 0, mockDataValueAuditBatchHandler.getInserts().size() );
+    }
+
+    @Test
+    public void testImportDataValuesSoftDeletedDeleteStrategyWithBatchExistingCheck()
+        throws Exception
+    {
+        addDataValues( true );
+
+        in = new ClassPathResource( "datavalueset/dataValueSetA.xml" ).getInputStream();
+
+        ImportOptions importOptions = new ImportOptions()
+            .setImportStrategy( ImportStrategy.DELETE )
+            .setBatchExistingCheck( true );
+
+        ImportSummary summary = dataValueSetService.saveDataValueSet( in, importOptions );
+
+        assertEquals( 0, summary.getImportCount().getDeleted() );
+        assertEquals( 3, summary.getImportCount().getIgnored() );
+        assertEquals( 0, mockDataValueBatchHandler.getUpdates().size() );
+        assertEquals( 0, mockDataValueBatchHandler.getInserts().size() );
+    }
+
     @Test
     public void testImportDataValuesXmlWithCodeB()
         throws Exception
@@ -1237,6 +1403,31 @@ public class DataValueSetServiceTest
         assertTrue( dataValues.contains( new DataValue( deC, peB, ouB, ocDef, ocDef ) ) );
     }
 
+    /**
+     * Persists the data values of dataValueSetA.xml with values 1, 2 and 3.
+     *
+     * @param deleted whether the data values are soft deleted.
+     */
+    private void addDataValues( boolean deleted )
+    {
+        List<DataValue> dataValues = Lists.newArrayList(
+            new DataValue( deA, peA, ouA, ocDef, ocDef, "1" ),
+            new DataValue( deA, peA, ouB, ocDef, ocDef, "2" ),
+            new DataValue( deA, peB, ouA, ocDef, ocDef, "3" ) );
+
+        for ( DataValue dataValue : dataValues )
+        {
+            dataValueService.addDataValue( dataValue );
+
+            if ( deleted )
+            {
+                dataValueService.deleteDataValue( dataValue );
+            }
+        }
+
+        dbmsManager.flushSession();
+    }
+
     private Period createMonthlyPeriod( Date monthStart )
     {
         Date monthEnd = DateUtils.addDays( DateUtils.addMonths( monthStart, 1 ), -1 );
@@ -0,0 +1,125 @@
+package org.hisp.dhis.dxf2.datavalueset;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.hisp.dhis.dxf2.datavalue.DataValue;
+import org.junit.Test;
+
+public class StreamingJsonDataValueSetReaderTest
+{
+    @Test
+    public void testReadDataValueSet()
+    {
+        DataValueSet dataValueSet = getReader( "{\"dataSet\":\"pBOMPrpg1QX\",\"period\":\"201901\",\"orgUnit\":\"DiszpKrYNg8\"," +
+            "\"dataValues\":[{\"dataElement\":\"f7n9E0hX8qk\",\"value\":\"12\"},{\"dataElement\":\"Ix2HsbDMLea\",\"value\":\"14\"}]}" );
+
+        assertEquals( "pBOMPrpg1QX", dataValueSet.getDataSet() );
+        assertEquals( "201901", dataValueSet.getPeriod() );
+        assertEquals( "DiszpKrYNg8", dataValueSet.getOrgUnit() );
+
+        assertTrue( dataValueSet.hasNextDataValue() );
+        DataValue dataValue = dataValueSet.getNextDataValue();
+        assertEquals( "f7n9E0hX8qk", dataValue.getDataElement() );
+        assertEquals( "12", dataValue.getValue() );
+
+        assertTrue( dataValueSet.hasNextDataValue() );
+        dataValue = dataValueSet.getNextDataValue();
+        assertEquals( "Ix2HsbDMLea", dataValue.getDataElement() );
+        assertEquals( "14", dataValue.getValue() );
+
+        assertFalse( dataValueSet.hasNextDataValue() );
+
+        dataValueSet.close();
+    }
+
+    @Test
+    public void testReadDataValueSetPropertiesAfterDataValues()
+    {
+        DataValueSet dataValueSet = getReader( "{\"dataValues\":[{\"dataElement\":\"f7n9E0hX8qk\",\"value\":\"12\"}]," +
+            "\"dryRun\":true,\"orgUnit\":\"DiszpKrYNg8\",\"period\":\"201901\"}" );
+
+        assertTrue( dataValueSet.getDryRun() );
+        assertEquals( "DiszpKrYNg8", dataValueSet.getOrgUnit() );
+        assertEquals( "201901", dataValueSet.getPeriod() );
+
+        assertTrue( dataValueSet.hasNextDataValue() );
+        assertEquals( "f7n9E0hX8qk", dataValueSet.getNextDataValue().getDataElement() );
+        assertFalse( dataValueSet.hasNextDataValue() );
+
+        dataValueSet.close();
+    }
+
+    @Test
+    public void testReadDataValueSetPropertiesAroundDataValues()
+    {
+        DataValueSet dataValueSet = getReader( "{\"dataSet\":\"pBOMPrpg1QX\",\"dataValues\":[{\"dataElement\":\"f7n9E0hX8qk\"," +
+            "\"value\":\"12\"},{\"dataElement\":\"Ix2HsbDMLea\",\"value\":\"14\"}],\"period\":\"201901\"}" );
+
+        assertEquals( "pBOMPrpg1QX", dataValueSet.getDataSet() );
+        assertEquals( "201901", dataValueSet.getPeriod() );
+
+        assertTrue( dataValueSet.hasNextDataValue() );
+        assertEquals( "f7n9E0hX8qk", dataValueSet.getNextDataValue().getDataElement() );
+        assertTrue( dataValueSet.hasNextDataValue() );
+        assertEquals( "Ix2HsbDMLea", dataValueSet.getNextDataValue().getDataElement() );
+        assertFalse( dataValueSet.hasNextDataValue() );
+
+        dataValueSet.close();
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testReadDataValueSetNotObject()
+    {
+        getReader( "[{\"dataElement\":\"f7n9E0hX8qk\",\"value\":\"12\"}]" );
+    }
+
+    @Test
+    public void testReadDataValueSetWithoutDataValues()
+    {
+        DataValueSet dataValueSet = getReader( "{\"dataSet\":\"pBOMPrpg1QX\",\"dryRun\":true}" );
+
+        assertEquals( "pBOMPrpg1QX", dataValueSet.getDataSet() );
+        assertTrue( dataValueSet.getDryRun() );
+        assertFalse( dataValueSet.hasNextDataValue() );
+
+        dataValueSet.close();
+    }
+
+    private DataValueSet getReader( String json )
+    {
+        return new StreamingJsonDataValueSetReader( new ByteArrayInputStream( json.getBytes( StandardCharsets.UTF_8 ) ) );
+    }
+}
@@ -29,22 +29,30 @@ package org.hisp.dhis.dxf2.events.event;
  */
 
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.PageToken;
 import org.hisp.dhis.dxf2.events.report.EventRow;
 import org.hisp.dhis.jdbc.statementbuilder.PostgreSQLStatementBuilder;
 import org.hisp.dhis.user.CurrentUserService;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -90,6 +98,72 @@ public class JdbcEventStoreTest
         verify( rowSet, times( 4 ) ).getString( "psi_eventdatavalues" );
     }
 
+    @Test
+    public void verifyKeysetPagingQueryPagesOnDistinctEvents()
+    {
+        EventSearchParams eventSearchParams = new EventSearchParams()
+            .setKeysetPaging( true )
+            .setPageSize( 2 )
+            .setPageToken( PageToken.of( Timestamp.valueOf( "2020-01-20 10:30:00" ), 42 ) );
+
+        subject.getEvents( eventSearchParams, new ArrayList<>(), new HashMap<>() );
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass( String.class );
+        verify( jdbcTemplate ).queryForRowSet( sql.capture() );
+
+        assertThat( sql.getValue(), containsString( "psi.programstageinstanceid in (select psi_id from " +
+            "(select distinct psi.programstageinstanceid as psi_id, psi.lastupdated as psi_lastupdated from" ) );
+        assertThat( sql.getValue(), containsString( "(psi.lastupdated, psi.programstageinstanceid) < " +
+            "('2020-01-20T10:30'::timestamp, 42) order by psi_lastupdated desc, psi_id desc limit 2) as psi_page" ) );
+        assertThat( sql.getValue(), not( containsString( "offset" ) ) );
+    }
+
+    @Test
+    public void verifyNextPageTokenIsSetOnFullPage()
+    {
+        mockKeysetRowSet();
+        EventSearchParams eventSearchParams = new EventSearchParams()
+            .setKeysetPaging( true )
+            .setPageSize( 2 );
+
+        subject.getEvents( eventSearchParams, new ArrayList<>(), new HashMap<>() );
+
+        assertEquals( PageToken.of( Timestamp.valueOf( "2020-01-20 10:30:00" ), 1 ), eventSearchParams.getNextPageToken() );
+    }
+
+    @Test
+    public void verifyNextPageTokenIsNotSetOnLastPage()
+    {
+        mockKeysetRowSet();
+        EventSearchParams eventSearchParams = new EventSearchParams()
+            .setKeysetPaging( true )
+            .setPageSize( 3 );
+
+        subject.getEvents( eventSearchParams, new ArrayList<>(), new HashMap<>() );
+
+        assertNull( eventSearchParams.getNextPageToken() );
+    }
+
+    /**
+     * Simulates a page of two events, where the first event has two category
+     * option rows.
+     */
+    private void mockKeysetRowSet()
+    {
+        mockRowSet();
+
+        when( rowSet.getLong( "psi_id" ) ).thenReturn( 2L ).thenReturn( 2L ).thenReturn( 1L );
+        when( rowSet.getTimestamp( "psi_lastupdated" ) )
+            .thenReturn( Timestamp.valueOf( "2020-01-21 08:00:00" ) )
+            .thenReturn( Timestamp.valueOf( "2020-01-21 08:00:00" ) )
+            .thenReturn( Timestamp.valueOf( "2020-01-20 10:30:00" ) );
+
+        when( rowSet.getString( "psi_status" ) ).thenReturn( "ACTIVE" );
+        when( rowSet.getString( "pi_status" ) ).thenReturn( "ACTIVE" );
+        when( rowSet.getString( "coc_identifier" ) ).thenReturn( "CocUID00001" );
+        when( rowSet.getString( "deco_uid" ) ).thenReturn( "DecoUID0001" );
+    }
+
     private void mockRowSet()
     {
         // Simulate 3 rows
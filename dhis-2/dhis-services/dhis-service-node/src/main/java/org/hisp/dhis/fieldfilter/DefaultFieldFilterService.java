@@ -162,8 +162,6 @@ public class DefaultFieldFilterService implements FieldFilterService
     @Override
     public CollectionNode toCollectionNode( Class<?> wrapper, FieldFilterParams params )
     {
-        String fields = params.getFields() == null ? "" : Joiner.on( "," ).join( params.getFields() );
-
         Schema rootSchema = schemaService.getDynamicSchema( wrapper );
 
         CollectionNode collectionNode = new CollectionNode( rootSchema.getCollectionName() );
@@ -171,6 +169,59 @@ public class DefaultFieldFilterService implements FieldFilterService
 
         List<?> objects = params.getObjects();
 
+        if ( params.getObjects().isEmpty() )
+        {
+            return collectionNode;
+        }
+
+        final FieldMap finalFieldMap = getFieldMap( params );
+
+        if ( params.getUser() == null )
+        {
+            params.setUser( currentUserService.getCurrentUser() );
+        }
+
+        objects.forEach( object -> {
+            AbstractNode node = buildNode( finalFieldMap, wrapper, object, params.getUser(), params.getDefaults() );
+
+            if ( node != null )
+            {
+                collectionNode.addChild( node );
+            }
+        } );
+
+        return collectionNode;
+    }
+
+    @Override
+    public FieldFilterCollectionNode toStreamingCollectionNode( Class<?> wrapper, FieldFilterParams params )
+    {
+        Schema rootSchema = schemaService.getDynamicSchema( wrapper );
+
+        if ( params.getUser() == null )
+        {
+            params.setUser( currentUserService.getCurrentUser() );
+        }
+
+        FieldFilterCollectionNode collectionNode = new FieldFilterCollectionNode( rootSchema.getCollectionName(), this, wrapper, params );
+        collectionNode.setNamespace( rootSchema.getNamespace() );
+
+        return collectionNode;
+    }
+
+    Schema getDynamicSchema( Class<?> klass )
+    {
+        return schemaService.getDynamicSchema( klass );
+    }
+
+    /**
+     * Creates the field map for the given parameters. If no fields are given,
+     * all properties of the first object are included.
+     */
+    FieldMap getFieldMap( FieldFilterParams params )
+    {
+        String fields = params.getFields() == null ? "" : Joiner.on( "," ).join( params.getFields() );
+
         if ( params.getSkipSharing() )
         {
             final List<String> fieldList = CollectionUtils.isEmpty( params.getFields() ) ? Collections.singletonList( "*" ) : params.getFields();
@@ -179,16 +230,12 @@ public class DefaultFieldFilterService implements FieldFilterService
                 .filter( org.apache.commons.lang3.StringUtils::isNotBlank ).distinct().collect( Collectors.joining( "," ) );
         }
 
-        if ( params.getObjects().isEmpty() )
-        {
-            return collectionNode;
-        }
-
         FieldMap fieldMap = new FieldMap();
-        Schema schema = schemaService.getDynamicSchema( objects.get( 0 ).getClass() );
 
         if ( StringUtils.isEmpty( fields ) )
         {
+            Schema schema = schemaService.getDynamicSchema( params.getObjects().get( 0 ).getClass() );
+
             for ( Property property : schema.getProperties() )
             {
                 fieldMap.put( property.getName(), new FieldMap() );
@@ -199,23 +246,7 @@ public class DefaultFieldFilterService implements FieldFilterService
             fieldMap = fieldParser.parse( fields );
         }
 
-        final FieldMap finalFieldMap = fieldMap;
-
-        if ( params.getUser() == null )
-        {
-            params.setUser( currentUserService.getCurrentUser() );
-        }
-
-        objects.forEach( object -> {
-            AbstractNode node = buildNode( finalFieldMap, wrapper, object, params.getUser(), params.getDefaults() );
-
-            if ( node != null )
-            {
-                collectionNode.addChild( node );
-            }
-        } );
-
-        return collectionNode;
+        return fieldMap;
     }
 
     private AbstractNode buildNode( FieldMap fieldMap, Class<?> klass, Object object, User user, Defaults defaults )
@@ -224,13 +255,13 @@ public class DefaultFieldFilterService implements FieldFilterService
         return buildNode( fieldMap, klass, object, user, schema.getName(), defaults );
     }
 
-    private boolean mayExclude( Class<?> klass, Defaults defaults )
+    boolean mayExclude( Class<?> klass, Defaults defaults )
     {
         return Defaults.EXCLUDE == defaults && IdentifiableObject.class.isAssignableFrom( klass ) &&
             ( Preheat.isDefaultClass( klass ) || klass.isInterface() || ( klass.getModifiers() & Modifier.ABSTRACT ) != 0 );
     }
 
-    private boolean shouldExclude( Object object, Defaults defaults )
+    boolean shouldExclude( Object object, Defaults defaults )
     {
         return Defaults.EXCLUDE == defaults && IdentifiableObject.class.isInstance( object ) &&
             Preheat.isDefaultClass( (IdentifiableObject) object ) && "default".equals( ((IdentifiableObject) object).getName() );
@@ -253,6 +284,46 @@ public class DefaultFieldFilterService implements FieldFilterService
             return null;
         }
 
+        prepareObject( fieldMap, schema, object, user );
+
+        for ( String fieldKey : fieldMap.keySet() )
+        {
+            Property property = getReadableProperty( schema, fieldKey );
+
+            if ( property == null )
+            {
+                continue;
+            }
+
+            Object returnValue = ReflectionUtils.invokeGetter( object, property );
+
+            if ( returnValue == null && property.isCollection() )
+            {
+                continue;
+            }
+
+            Class<?> propertyClass = getPropertyClass( property, returnValue );
+            FieldMap fieldValue = fieldMap.get( fieldKey );
+
+            updateFields( fieldValue, property.isCollection() ? property.getItemKlass() : propertyClass );
+
+            AbstractNode child = buildChildNode( property, fieldValue, returnValue, propertyClass, user, defaults );
+
+            if ( child != null )
+            {
+                complexNode.addChild( processChildNode( child, fieldKey, property, fieldValue ) );
+            }
+        }
+
+        return complexNode;
+    }
+
+    /**
+     * Expands the field map for the given object, and sets the transient
+     * access and attribute values of the object if they are requested.
+     */
+    void prepareObject( FieldMap fieldMap, Schema schema, Object object, User user )
+    {
         updateFields( fieldMap, schema.getKlass() );
 
         if ( fieldMap.containsKey( "access" ) && schema.isIdentifiableObject() )
@@ -265,159 +336,170 @@ public class DefaultFieldFilterService implements FieldFilterService
             AttributeValue attributeValue = (AttributeValue) object;
             attributeValue.setAttribute( attributeService.getAttribute( attributeValue.getAttribute().getUid() ) );
         }
+    }
 
-        for ( String fieldKey : fieldMap.keySet() )
+    /**
+     * Returns the readable property with the given name, or null if the schema
+     * has no such property.
+     */
+    Property getReadableProperty( Schema schema, String fieldKey )
+    {
+        Property property = schema.getProperty( fieldKey );
+
+        if ( property == null || !property.isReadable() )
         {
-            AbstractNode child = null;
-            Property property = schema.getProperty( fieldKey );
+            // throw new FieldFilterException( fieldKey, schema );
+            log.debug( "Unknown field property `" + fieldKey + "`, available fields are " + schema.getPropertyMap().keySet() );
+            return null;
+        }
 
-            if ( property == null || !property.isReadable() )
-            {
-                // throw new FieldFilterException( fieldKey, schema );
-                log.debug( "Unknown field property `" + fieldKey + "`, available fields are " + schema.getPropertyMap().keySet() );
-                continue;
-            }
+        return property;
+    }
 
-            Object returnValue = ReflectionUtils.invokeMethod( object, property.getGetterMethod() );
-            Class<?> propertyClass = property.getKlass();
-            Schema propertySchema = schemaService.getDynamicSchema( propertyClass );
-            if ( returnValue != null && propertySchema.getProperties().isEmpty() && !property.isCollection() && property.getKlass().isInterface() && !property.isIdentifiableObject() )
-            {
-                // try to retrieve schema from concrete class
-                propertyClass = returnValue.getClass();
-                propertySchema = schemaService.getDynamicSchema( propertyClass );
-            }
+    /**
+     * Returns the class to render the value of the given property with. For
+     * interface types without a schema, the class of the value is used.
+     */
+    Class<?> getPropertyClass( Property property, Object returnValue )
+    {
+        Class<?> propertyClass = property.getKlass();
+        Schema propertySchema = schemaService.getDynamicSchema( propertyClass );
 
-            FieldMap fieldValue = fieldMap.get( fieldKey );
+        if ( returnValue != null && propertySchema.getProperties().isEmpty() && !property.isCollection() && property.getKlass().isInterface() && !property.isIdentifiableObject() )
+        {
+            // try to retrieve schema from concrete class
+            propertyClass = returnValue.getClass();
+        }
 
-            if ( returnValue == null && property.isCollection() )
-            {
-                continue;
-            }
+        return propertyClass;
+    }
+
+    /**
+     * Builds the node for a single property value, without the name and transformers
+     * applied, see {@link #processChildNode(AbstractNode, String, Property, FieldMap)}.
+     */
+    AbstractNode buildChildNode( Property property, FieldMap fieldValue, Object returnValue, Class<?> propertyClass, User user, Defaults defaults )
+    {
+        AbstractNode child = null;
+        Schema propertySchema = schemaService.getDynamicSchema( propertyClass );
+
+        if ( fieldValue.isEmpty() )
+        {
+            List<String> fields = Preset.defaultAssociationPreset().getFields();
 
             if ( property.isCollection() )
             {
-                updateFields( fieldValue, property.getItemKlass() );
-            }
-            else
-            {
-                updateFields( fieldValue, propertyClass );
-            }
+                Collection<?> collection = (Collection<?>) returnValue;
 
-            if ( fieldValue.isEmpty() )
-            {
-                List<String> fields = Preset.defaultAssociationPreset().getFields();
+                child = new CollectionNode( property.getCollectionName(), collection.size() );
+                child.setNamespace( property.getNamespace() );
 
-                if ( property.isCollection() )
+                if ( property.isIdentifiableObject() && isProperIdObject( property.getItemKlass() ) )
                 {
-                    Collection<?> collection = (Collection<?>) returnValue;
+                    final boolean mayExclude = collection.isEmpty() || mayExclude( property.getItemKlass(), defaults );
 
-                    child = new CollectionNode( property.getCollectionName(), collection.size() );
-                    child.setNamespace( property.getNamespace() );
-
-                    if ( property.isIdentifiableObject() && isProperIdObject( property.getItemKlass() ) )
+                    for ( Object collectionObject : collection )
                     {
-                        final boolean mayExclude = collection.isEmpty() || mayExclude( property.getItemKlass(), defaults );
-
-                        for ( Object collectionObject : collection )
+                        if ( !mayExclude || !shouldExclude( collectionObject, defaults ) )
                         {
-                            if ( !mayExclude || !shouldExclude( collectionObject, defaults ) )
-                            {
-                                child.addChild( getProperties( property, collectionObject, fields ) );
-                            }
+                            child.addChild( getProperties( property, collectionObject, fields ) );
                         }
                     }
-                    else if ( !property.isSimple() )
-                    {
-                        FieldMap map = getFullFieldMap( schemaService.getDynamicSchema( property.getItemKlass() ) );
-
-                        for ( Object collectionObject : collection )
-                        {
-                            Node node = buildNode( map, property.getItemKlass(), collectionObject, user, defaults );
+                }
+                else if ( !property.isSimple() )
+                {
+                    FieldMap map = getFullFieldMap( schemaService.getDynamicSchema( property.getItemKlass() ) );
 
-                            if ( node != null && !node.getChildren().isEmpty() )
-                            {
-                                child.addChild( node );
-                            }
-                        }
-                    }
-                    else
+                    for ( Object collectionObject : collection )
                     {
-                        if ( collection != null )
+                        Node node = buildNode( map, property.getItemKlass(), collectionObject, user, defaults );
+
+                        if ( node != null && !node.getChildren().isEmpty() )
                         {
-                            for ( Object collectionObject : collection )
-                            {
-                                SimpleNode simpleNode = child.addChild( new SimpleNode( property.getName(), collectionObject ) );
-                                simpleNode.setProperty( property );
-                            }
+                            child.addChild( node );
                         }
                     }
                 }
-                else if ( property.isIdentifiableObject() && isProperIdObject( propertyClass ) )
+                else
                 {
-                    if ( !shouldExclude( returnValue, defaults ) )
+                    if ( collection != null )
                     {
-                        child = getProperties( property, returnValue, fields );
+                        for ( Object collectionObject : collection )
+                        {
+                            SimpleNode simpleNode = child.addChild( new SimpleNode( property.getName(), collectionObject ) );
+                            simpleNode.setProperty( property );
+                        }
                     }
                 }
-                else
+            }
+            else if ( property.isIdentifiableObject() && isProperIdObject( propertyClass ) )
+            {
+                if ( !shouldExclude( returnValue, defaults ) )
                 {
-                    if ( propertySchema.getProperties().isEmpty() )
-                    {
-                        SimpleNode simpleNode = new SimpleNode( fieldKey, returnValue );
-                        simpleNode.setAttribute( property.isAttribute() );
-                        simpleNode.setNamespace( property.getNamespace() );
-
-                        child = simpleNode;
-                    }
-                    else
-                    {
-                        child = buildNode( getFullFieldMap( propertySchema ), propertyClass, returnValue, user, defaults );
-                    }
+                    child = getProperties( property, returnValue, fields );
                 }
             }
             else
             {
-                if ( property.isCollection() )
+                if ( propertySchema.getProperties().isEmpty() )
                 {
-                    child = new CollectionNode( property.getCollectionName() );
-                    child.setNamespace( property.getNamespace() );
+                    SimpleNode simpleNode = new SimpleNode( property.getName(), returnValue );
+                    simpleNode.setAttribute( property.isAttribute() );
+                    simpleNode.setNamespace( property.getNamespace() );
 
-                    for ( Object collectionObject : (Collection<?>) returnValue )
-                    {
-                        Node node = buildNode( fieldValue, property.getItemKlass(), collectionObject, user, property.getName(), defaults );
-
-                        if ( !node.getChildren().isEmpty() )
-                        {
-                            child.addChild( node );
-                        }
-                    }
+                    child = simpleNode;
                 }
                 else
                 {
-                    child = buildNode( fieldValue, propertyClass, returnValue, user, defaults );
+                    child = buildNode( getFullFieldMap( propertySchema ), propertyClass, returnValue, user, defaults );
                 }
             }
-
-            if ( child != null )
+        }
+        else
+        {
+            if ( property.isCollection() )
             {
-                child.setName( fieldKey );
-                child.setProperty( property );
+                child = new CollectionNode( property.getCollectionName() );
+                child.setNamespace( property.getNamespace() );
 
-                // TODO fix ugly hack, will be replaced by custom field serializer/deserializer
-                if ( child.isSimple() && PeriodType.class.isInstance( (((SimpleNode) child).getValue()) ) )
+                for ( Object collectionObject : (Collection<?>) returnValue )
                 {
-                    child = new SimpleNode( child.getName(), ((PeriodType) ((SimpleNode) child).getValue()).getName() );
-                }
+                    Node node = buildNode( fieldValue, property.getItemKlass(), collectionObject, user, property.getName(), defaults );
 
-                complexNode.addChild( fieldValue.getPipeline().process( child ) );
+                    if ( !node.getChildren().isEmpty() )
+                    {
+                        child.addChild( node );
+                    }
+                }
+            }
+            else
+            {
+                child = buildNode( fieldValue, propertyClass, returnValue, user, defaults );
             }
         }
 
-        return complexNode;
+        return child;
+    }
+
+    /**
+     * Names the given property node and runs it through the transformers of
+     * the field.
+     */
+    Node processChildNode( AbstractNode child, String fieldKey, Property property, FieldMap fieldValue )
+    {
+        child.setName( fieldKey );
+        child.setProperty( property );
+
+        // TODO fix ugly hack, will be replaced by custom field serializer/deserializer
+        if ( child.isSimple() && PeriodType.class.isInstance( (((SimpleNode) child).getValue()) ) )
+        {
+            child = new SimpleNode( child.getName(), ((PeriodType) ((SimpleNode) child).getValue()).getName() );
+        }
+
+        return fieldValue.getPipeline().process( child );
     }
 
-    private void updateFields( FieldMap fieldMap, Class<?> klass )
+    void updateFields( FieldMap fieldMap, Class<?> klass )
     {
         if ( fieldMap.isEmpty() )
         {
@@ -534,7 +616,7 @@ public class DefaultFieldFilterService implements FieldFilterService
         }
     }
 
-    private FieldMap getFullFieldMap( Schema schema )
+    FieldMap getFullFieldMap( Schema schema )
     {
         FieldMap fieldMap = new FieldMap();
 
@@ -554,7 +636,7 @@ public class DefaultFieldFilterService implements FieldFilterService
         return fieldMap;
     }
 
-    private ComplexNode getProperties( Property currentProperty, Object object, List<String> fields )
+    ComplexNode getProperties( Property currentProperty, Object object, List<String> fields )
     {
         if ( object == null )
         {
@@ -592,7 +674,7 @@ public class DefaultFieldFilterService implements FieldFilterService
                 continue;
             }
 
-            Object returnValue = ReflectionUtils.invokeMethod( object, property.getGetterMethod() );
+            Object returnValue = ReflectionUtils.invokeGetter( object, property );
 
             SimpleNode simpleNode = new SimpleNode( field, returnValue );
             simpleNode.setAttribute( property.isAttribute() );
@@ -616,7 +698,7 @@ public class DefaultFieldFilterService implements FieldFilterService
             "id", baseIdentifiableIdProperty, ( (BaseIdentifiableObject) object ).getUid() ) );
     }
 
-    private boolean isProperIdObject( Class<?> klass )
+    boolean isProperIdObject( Class<?> klass )
     {
         return !(UserCredentials.class.isAssignableFrom( klass ) || EmbeddedObject.class.isAssignableFrom( klass ));
     }
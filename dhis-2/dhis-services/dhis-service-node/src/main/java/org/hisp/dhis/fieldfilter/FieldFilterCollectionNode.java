@@ -0,0 +1,122 @@
+package org.hisp.dhis.fieldfilter;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.hisp.dhis.node.Node;
+import org.hisp.dhis.node.config.InclusionStrategy;
+import org.hisp.dhis.node.types.CollectionNode;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Collection node which defers field filtering of its objects until it is
+ * serialized. The JSON serializer writes the objects directly through
+ * {@link #writeJson(JsonGenerator, InclusionStrategy)}, any other access to
+ * the children builds them through {@link FieldFilterService#toCollectionNode(Class, FieldFilterParams)}.
+ */
+public class FieldFilterCollectionNode extends CollectionNode
+{
+    private final DefaultFieldFilterService fieldFilterService;
+
+    private final Class<?> wrapper;
+
+    private final FieldFilterParams params;
+
+    private boolean materialized;
+
+    FieldFilterCollectionNode( String name, DefaultFieldFilterService fieldFilterService, Class<?> wrapper, FieldFilterParams params )
+    {
+        super( name );
+        this.fieldFilterService = fieldFilterService;
+        this.wrapper = wrapper;
+        this.params = params;
+    }
+
+    /**
+     * Indicates whether the child nodes have been built.
+     */
+    public boolean isMaterialized()
+    {
+        return materialized;
+    }
+
+    /**
+     * Indicates whether this collection has no children, without building them.
+     */
+    public boolean isEmpty()
+    {
+        if ( materialized )
+        {
+            return getUnorderedChildren().isEmpty();
+        }
+
+        return params.getObjects().stream()
+            .allMatch( object -> object != null && fieldFilterService.shouldExclude( object, params.getDefaults() ) );
+    }
+
+    /**
+     * Writes this collection with the field filtered objects to the given generator.
+     *
+     * @param generator the {@link JsonGenerator}.
+     * @param inclusionStrategy the {@link InclusionStrategy} of the serialized root node.
+     */
+    public void writeJson( JsonGenerator generator, InclusionStrategy inclusionStrategy ) throws IOException
+    {
+        boolean inCollection = getParent() != null && getParent().isCollection();
+
+        new FieldFilterJsonWriter( fieldFilterService, generator, inclusionStrategy, params.getUser(), params.getDefaults() )
+            .writeCollection( inCollection ? null : getName(), wrapper, params );
+    }
+
+    @Override
+    public List<Node> getUnorderedChildren()
+    {
+        materialize();
+        return super.getUnorderedChildren();
+    }
+
+    @Override
+    public List<Node> getChildren()
+    {
+        materialize();
+        return super.getChildren();
+    }
+
+    private void materialize()
+    {
+        if ( !materialized )
+        {
+            materialized = true;
+            addChildren( fieldFilterService.toCollectionNode( wrapper, params ).getUnorderedChildren() );
+        }
+    }
+}
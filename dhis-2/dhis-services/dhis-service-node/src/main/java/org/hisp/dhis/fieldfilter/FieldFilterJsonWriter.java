@@ -0,0 +1,572 @@
+package org.hisp.dhis.fieldfilter;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.hisp.dhis.common.BaseIdentifiableObject;
+import org.hisp.dhis.node.AbstractNode;
+import org.hisp.dhis.node.Node;
+import org.hisp.dhis.node.Preset;
+import org.hisp.dhis.node.config.InclusionStrategy;
+import org.hisp.dhis.node.serializers.Jackson2JsonNodeSerializer;
+import org.hisp.dhis.node.types.SimpleNode;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.schema.Property;
+import org.hisp.dhis.schema.Schema;
+import org.hisp.dhis.system.util.ReflectionUtils;
+import org.hisp.dhis.user.User;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Writes field filtered objects directly to a {@link JsonGenerator} without
+ * building a node tree. The output is the same as serializing the nodes built
+ * by {@link DefaultFieldFilterService#toCollectionNode(Class, FieldFilterParams)}:
+ * properties are written in node order, i.e. attributes, simple values, complex
+ * values and collections, and the inclusion strategy is applied the same way.
+ * Properties with node transformers are built as nodes, since transformers
+ * operate on nodes.
+ */
+class FieldFilterJsonWriter
+{
+    private static final int ORDER_ATTRIBUTE = 10;
+
+    private static final int ORDER_SIMPLE = 20;
+
+    private static final int ORDER_COMPLEX = 30;
+
+    private static final int ORDER_COLLECTION = 40;
+
+    private final DefaultFieldFilterService fieldFilterService;
+
+    private final JsonGenerator generator;
+
+    private final InclusionStrategy inclusionStrategy;
+
+    private final User user;
+
+    private final Defaults defaults;
+
+    FieldFilterJsonWriter( DefaultFieldFilterService fieldFilterService, JsonGenerator generator,
+        InclusionStrategy inclusionStrategy, User user, Defaults defaults )
+    {
+        this.fieldFilterService = fieldFilterService;
+        this.generator = generator;
+        this.inclusionStrategy = inclusionStrategy;
+        this.user = user;
+        this.defaults = defaults;
+    }
+
+    /**
+     * Writes the objects of the given parameters as an array.
+     *
+     * @param name the field name of the array, null if written as array element.
+     * @param wrapper the class to use the schema of.
+     * @param params the {@link FieldFilterParams}.
+     */
+    void writeCollection( String name, Class<?> wrapper, FieldFilterParams params ) throws IOException
+    {
+        List<?> objects = params.getObjects();
+        ArrayWriter array = new ArrayWriter( name );
+
+        if ( !objects.isEmpty() )
+        {
+            FieldMap fieldMap = fieldFilterService.getFieldMap( params );
+
+            // null objects are simple nodes, which are ordered before complex nodes
+
+            for ( Object object : objects )
+            {
+                if ( object == null )
+                {
+                    array.beforeElement();
+                    writeSimple( null, null );
+                }
+            }
+
+            for ( Object object : objects )
+            {
+                if ( object != null && !fieldFilterService.shouldExclude( object, defaults ) )
+                {
+                    array.beforeElement();
+                    writeObject( null, getFields( fieldMap, wrapper, object ) );
+                }
+            }
+        }
+
+        array.end();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Reads the fields of the given object in node order. The object must not
+     * be null or excluded by the defaults.
+     */
+    private List<Field> getFields( FieldMap fieldMap, Class<?> klass, Object object )
+    {
+        Schema schema = fieldFilterService.getDynamicSchema( klass );
+
+        fieldFilterService.prepareObject( fieldMap, schema, object, user );
+
+        List<Field> fields = new ArrayList<>( fieldMap.size() );
+
+        for ( String fieldKey : fieldMap.keySet() )
+        {
+            Property property = fieldFilterService.getReadableProperty( schema, fieldKey );
+
+            if ( property == null )
+            {
+                continue;
+            }
+
+            Object returnValue = ReflectionUtils.invokeGetter( object, property );
+
+            if ( returnValue == null && property.isCollection() )
+            {
+                continue;
+            }
+
+            Class<?> propertyClass = fieldFilterService.getPropertyClass( property, returnValue );
+            FieldMap fieldValue = fieldMap.get( fieldKey );
+
+            fieldFilterService.updateFields( fieldValue, property.isCollection() ? property.getItemKlass() : propertyClass );
+
+            Field field = fieldValue.getPipeline().isEmpty() ?
+                getField( fieldKey, property, fieldValue, returnValue, propertyClass ) :
+                getNodeField( fieldKey, property, fieldValue, returnValue, propertyClass );
+
+            if ( field != null )
+            {
+                fields.add( field );
+            }
+        }
+
+        fields.sort( Comparator.comparingInt( field -> field.order ) );
+
+        return fields;
+    }
+
+    /**
+     * Mirrors {@link DefaultFieldFilterService#buildChildNode}.
+     */
+    private Field getField( String fieldKey, Property property, FieldMap fieldValue, Object returnValue, Class<?> propertyClass )
+    {
+        if ( property.isCollection() )
+        {
+            if ( !fieldValue.isEmpty() )
+            {
+                return new Field( FieldType.OBJECT_COLLECTION, fieldKey, property, returnValue, fieldValue, property.getItemKlass(), ORDER_COLLECTION );
+            }
+            else if ( property.isIdentifiableObject() && fieldFilterService.isProperIdObject( property.getItemKlass() ) )
+            {
+                return new Field( FieldType.REFERENCE_COLLECTION, fieldKey, property, returnValue, null, null, ORDER_COLLECTION );
+            }
+            else if ( !property.isSimple() )
+            {
+                FieldMap map = fieldFilterService.getFullFieldMap( fieldFilterService.getDynamicSchema( property.getItemKlass() ) );
+
+                return new Field( FieldType.OBJECT_COLLECTION, fieldKey, property, returnValue, map, property.getItemKlass(), ORDER_COLLECTION );
+            }
+
+            return new Field( FieldType.SIMPLE_COLLECTION, fieldKey, property, returnValue, null, null, ORDER_COLLECTION );
+        }
+
+        if ( !fieldValue.isEmpty() )
+        {
+            return getObjectField( fieldKey, property, returnValue, fieldValue, propertyClass );
+        }
+
+        if ( property.isIdentifiableObject() && fieldFilterService.isProperIdObject( propertyClass ) )
+        {
+            if ( returnValue == null || fieldFilterService.shouldExclude( returnValue, defaults ) )
+            {
+                return null;
+            }
+
+            return new Field( FieldType.REFERENCE, fieldKey, property, returnValue, null, null, ORDER_COMPLEX );
+        }
+
+        Schema propertySchema = fieldFilterService.getDynamicSchema( propertyClass );
+
+        if ( propertySchema.getProperties().isEmpty() )
+        {
+            return getSimpleField( fieldKey, property, returnValue, property.isAttribute() );
+        }
+
+        return getObjectField( fieldKey, property, returnValue, fieldFilterService.getFullFieldMap( propertySchema ), propertyClass );
+    }
+
+    private Field getSimpleField( String fieldKey, Property property, Object value, boolean attribute )
+    {
+        if ( value instanceof PeriodType )
+        {
+            return new Field( FieldType.SIMPLE, fieldKey, property, ((PeriodType) value).getName(), null, null, ORDER_SIMPLE );
+        }
+
+        return new Field( FieldType.SIMPLE, fieldKey, property, value, null, null, attribute ? ORDER_ATTRIBUTE : ORDER_SIMPLE );
+    }
+
+    private Field getObjectField( String fieldKey, Property property, Object value, FieldMap fieldMap, Class<?> klass )
+    {
+        if ( value == null )
+        {
+            return getSimpleField( fieldKey, property, null, false );
+        }
+
+        if ( fieldFilterService.shouldExclude( value, defaults ) )
+        {
+            return null;
+        }
+
+        return new Field( FieldType.OBJECT, fieldKey, property, value, fieldMap, klass, ORDER_COMPLEX );
+    }
+
+    private Field getNodeField( String fieldKey, Property property, FieldMap fieldValue, Object returnValue, Class<?> propertyClass )
+    {
+        AbstractNode child = fieldFilterService.buildChildNode( property, fieldValue, returnValue, propertyClass, user, defaults );
+
+        if ( child == null )
+        {
+            return null;
+        }
+
+        Node node = fieldFilterService.processChildNode( child, fieldKey, property, fieldValue );
+
+        if ( node == null || node.getName() == null )
+        {
+            return null;
+        }
+
+        return new Field( FieldType.NODE, fieldKey, property, node, null, null, node.getOrder() );
+    }
+
+    private void writeField( Field field ) throws IOException
+    {
+        switch ( field.type )
+        {
+            case SIMPLE:
+                writeSimple( field.name, field.value );
+                break;
+            case REFERENCE:
+                writeReference( field.name, field.property, field.value );
+                break;
+            case OBJECT:
+                writeObject( field.name, getFields( field.fieldMap, field.klass, field.value ) );
+                break;
+            case REFERENCE_COLLECTION:
+                writeReferenceCollection( field );
+                break;
+            case OBJECT_COLLECTION:
+                writeObjectCollection( field );
+                break;
+            case SIMPLE_COLLECTION:
+                writeSimpleCollection( field );
+                break;
+            case NODE:
+                writeNode( (Node) field.value, false );
+                break;
+        }
+    }
+
+    private void writeSimple( String name, Object value ) throws IOException
+    {
+        if ( !inclusionStrategy.include( value ) )
+        {
+            return;
+        }
+
+        if ( name != null )
+        {
+            generator.writeFieldName( name );
+        }
+
+        Jackson2JsonNodeSerializer.writeValue( generator, value );
+    }
+
+    private void writeObject( String name, List<Field> fields ) throws IOException
+    {
+        if ( !inclusionStrategy.include( fields ) )
+        {
+            return;
+        }
+
+        writeStartObject( name );
+
+        for ( Field field : fields )
+        {
+            writeField( field );
+        }
+
+        generator.writeEndObject();
+    }
+
+    /**
+     * Mirrors {@link DefaultFieldFilterService#getProperties}.
+     */
+    private void writeReference( String name, Property property, Object object ) throws IOException
+    {
+        List<String> fields = Preset.defaultAssociationPreset().getFields();
+
+        if ( object instanceof BaseIdentifiableObject && fields.size() == 1 && "id".equals( fields.get( 0 ) ) )
+        {
+            writeStartObject( name );
+            writeSimple( "id", ((BaseIdentifiableObject) object).getUid() );
+            generator.writeEndObject();
+            return;
+        }
+
+        Schema schema = fieldFilterService.getDynamicSchema( property.isCollection() ? property.getItemKlass() : property.getKlass() );
+
+        List<String> referenceFields = fields.stream()
+            .filter( field -> schema.getProperty( field ) != null )
+            .sorted( Comparator.comparing( field -> !schema.getProperty( field ).isAttribute() ) )
+            .collect( Collectors.toList() );
+
+        if ( !inclusionStrategy.include( referenceFields ) )
+        {
+            return;
+        }
+
+        writeStartObject( name );
+
+        for ( String field : referenceFields )
+        {
+            writeSimple( field, ReflectionUtils.invokeGetter( object, schema.getProperty( field ) ) );
+        }
+
+        generator.writeEndObject();
+    }
+
+    private void writeReferenceCollection( Field field ) throws IOException
+    {
+        Collection<?> collection = (Collection<?>) field.value;
+        boolean mayExclude = collection.isEmpty() || fieldFilterService.mayExclude( field.property.getItemKlass(), defaults );
+        ArrayWriter array = new ArrayWriter( field.name );
+
+        for ( Object object : collection )
+        {
+            if ( object != null && ( !mayExclude || !fieldFilterService.shouldExclude( object, defaults ) ) )
+            {
+                array.beforeElement();
+                writeReference( null, field.property, object );
+            }
+        }
+
+        array.end();
+    }
+
+    private void writeObjectCollection( Field field ) throws IOException
+    {
+        ArrayWriter array = new ArrayWriter( field.name );
+
+        for ( Object object : (Collection<?>) field.value )
+        {
+            if ( object == null || fieldFilterService.shouldExclude( object, defaults ) )
+            {
+                continue;
+            }
+
+            List<Field> fields = getFields( field.fieldMap, field.klass, object );
+
+            if ( !fields.isEmpty() )
+            {
+                array.beforeElement();
+                writeObject( null, fields );
+            }
+        }
+
+        array.end();
+    }
+
+    private void writeSimpleCollection( Field field ) throws IOException
+    {
+        ArrayWriter array = new ArrayWriter( field.name );
+
+        for ( Object object : (Collection<?>) field.value )
+        {
+            array.beforeElement();
+            writeSimple( null, object );
+        }
+
+        array.end();
+    }
+
+    /**
+     * Writes a node the way the JSON node serializer does.
+     */
+    private void writeNode( Node node, boolean inCollection ) throws IOException
+    {
+        String name = inCollection ? null : node.getName();
+
+        switch ( node.getType() )
+        {
+            case SIMPLE:
+                writeSimple( name, ((SimpleNode) node).getValue() );
+                break;
+            case COMPLEX:
+                if ( inclusionStrategy.include( node.getChildren() ) )
+                {
+                    writeStartObject( name );
+
+                    for ( Node child : node.getChildren() )
+                    {
+                        writeNode( child, false );
+                    }
+
+                    generator.writeEndObject();
+                }
+                break;
+            case COLLECTION:
+                if ( inclusionStrategy.include( node.getChildren() ) )
+                {
+                    writeStartArray( name );
+
+                    for ( Node child : node.getChildren() )
+                    {
+                        writeNode( child, true );
+                    }
+
+                    generator.writeEndArray();
+                }
+                break;
+        }
+    }
+
+    private void writeStartObject( String name ) throws IOException
+    {
+        if ( name == null )
+        {
+            generator.writeStartObject();
+        }
+        else
+        {
+            generator.writeObjectFieldStart( name );
+        }
+    }
+
+    private void writeStartArray( String name ) throws IOException
+    {
+        if ( name == null )
+        {
+            generator.writeStartArray();
+        }
+        else
+        {
+            generator.writeArrayFieldStart( name );
+        }
+    }
+
+    /**
+     * Writes the start of an array before its first element, so that elements
+     * can be written as they are read. Empty arrays are subject to the
+     * inclusion strategy.
+     */
+    private class ArrayWriter
+    {
+        private final String name;
+
+        private boolean started;
+
+        ArrayWriter( String name )
+        {
+            this.name = name;
+        }
+
+        void beforeElement() throws IOException
+        {
+            if ( !started )
+            {
+                writeStartArray( name );
+                started = true;
+            }
+        }
+
+        void end() throws IOException
+        {
+            if ( !started )
+            {
+                if ( !inclusionStrategy.include( Collections.emptyList() ) )
+                {
+                    return;
+                }
+
+                writeStartArray( name );
+            }
+
+            generator.writeEndArray();
+        }
+    }
+
+    private enum FieldType
+    {
+        SIMPLE, REFERENCE, OBJECT, REFERENCE_COLLECTION, OBJECT_COLLECTION, SIMPLE_COLLECTION, NODE
+    }
+
+    /**
+     * A property value of an object, read before writing so that the properties
+     * can be written in node order.
+     */
+    private static final class Field
+    {
+        private final FieldType type;
+
+        private final String name;
+
+        private final Property property;
+
+        private final Object value;
+
+        private final FieldMap fieldMap;
+
+        private final Class<?> klass;
+
+        private final int order;
+
+        Field( FieldType type, String name, Property property, Object value, FieldMap fieldMap, Class<?> klass, int order )
+        {
+            this.type = type;
+            this.name = name;
+            this.property = property;
+            this.value = value;
+            this.fieldMap = fieldMap;
+            this.klass = klass;
+            this.order = order;
+        }
+    }
+}
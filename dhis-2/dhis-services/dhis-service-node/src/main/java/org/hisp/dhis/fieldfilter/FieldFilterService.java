@@ -51,4 +51,12 @@ public interface FieldFilterService
      * Perform inclusion/exclusion on a list of objects.
      */
     CollectionNode toCollectionNode( Class<?> wrapper, FieldFilterParams params );
+
+    /**
+     * Perform inclusion/exclusion on a list of objects when the returned node is
+     * serialized. The JSON serializer writes the objects directly to the output
+     * stream without building child nodes, other serializers build the child
+     * nodes on first access.
+     */
+    FieldFilterCollectionNode toStreamingCollectionNode( Class<?> wrapper, FieldFilterParams params );
 }
@@ -75,6 +75,11 @@ public class LinearNodePipeline implements NodePipeline
         return node;
     }
 
+    public boolean isEmpty()
+    {
+        return nodeTransformers.isEmpty();
+    }
+
     public void addTransformer( NodeTransformer nodeTransformer )
     {
         nodeTransformers.add( new NodeTransformerWithArgs( checkNotNull( nodeTransformer ), new ArrayList<>() ) );
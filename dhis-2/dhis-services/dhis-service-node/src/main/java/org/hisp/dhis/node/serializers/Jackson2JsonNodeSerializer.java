@@ -34,6 +34,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.collect.Lists;
 import com.vividsolutions.jts.geom.Geometry;
+import org.hisp.dhis.fieldfilter.FieldFilterCollectionNode;
 import org.hisp.dhis.node.AbstractNodeSerializer;
 import org.hisp.dhis.node.types.CollectionNode;
 import org.hisp.dhis.node.types.ComplexNode;
@@ -44,6 +45,7 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.context.annotation.ScopedProxyMode;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Date;
 import java.util.List;
@@ -114,32 +116,12 @@ public class Jackson2JsonNodeSerializer extends AbstractNodeSerializer
     @Override
     protected void startWriteSimpleNode( SimpleNode simpleNode ) throws Exception
     {
-        Object value = simpleNode.getValue();
-
-        if ( Date.class.isAssignableFrom( simpleNode.getValue().getClass() ) )
-        {
-            value = DateUtils.getIso8601NoTz( (Date) value );
-        }
-
-        if ( Geometry.class.isAssignableFrom( simpleNode.getValue().getClass() ) )
+        if ( !simpleNode.getParent().isCollection() )
         {
             generator.writeFieldName( simpleNode.getName() );
-            generator.writeRawValue( objectMapper.writeValueAsString( value ) );
-            return;
         }
 
-        if ( simpleNode.getParent().isCollection() )
-        {
-            generator.writeObject( value );
-        }
-        else if ( value instanceof String )
-        {
-            generator.writeStringField( simpleNode.getName(), (String) value );
-        }
-        else
-        {
-            generator.writeObjectField( simpleNode.getName(), value );
-        }
+        writeValue( generator, simpleNode.getValue() );
     }
 
     @Override
@@ -179,9 +161,44 @@ public class Jackson2JsonNodeSerializer extends AbstractNodeSerializer
         }
     }
 
+    @Override
+    protected void writeCollectionNode( CollectionNode collectionNode ) throws Exception
+    {
+        if ( collectionNode instanceof FieldFilterCollectionNode && !((FieldFilterCollectionNode) collectionNode).isMaterialized() )
+        {
+            ((FieldFilterCollectionNode) collectionNode).writeJson( generator, config.getInclusionStrategy() );
+            return;
+        }
+
+        super.writeCollectionNode( collectionNode );
+    }
+
     @Override
     protected void endWriteCollectionNode( CollectionNode collectionNode ) throws Exception
     {
         generator.writeEndArray();
     }
+
+    /**
+     * Writes a simple value to the given generator. Dates are written as ISO 8601
+     * strings and geometries as GeoJSON.
+     *
+     * @param generator the {@link JsonGenerator}.
+     * @param value the value, can be null.
+     */
+    public static void writeValue( JsonGenerator generator, Object value ) throws IOException
+    {
+        if ( value instanceof Date )
+        {
+            generator.writeString( DateUtils.getIso8601NoTz( (Date) value ) );
+        }
+        else if ( value instanceof Geometry )
+        {
+            generator.writeRawValue( objectMapper.writeValueAsString( value ) );
+        }
+        else
+        {
+            generator.writeObject( value );
+        }
+    }
 }
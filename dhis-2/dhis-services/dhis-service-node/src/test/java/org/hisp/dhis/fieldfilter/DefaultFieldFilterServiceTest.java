@@ -35,6 +35,8 @@ import org.hisp.dhis.category.Category;
 import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.node.Node;
 import org.hisp.dhis.node.NodeTransformer;
+import org.hisp.dhis.node.NodeUtils;
+import org.hisp.dhis.node.serializers.Jackson2JsonNodeSerializer;
 import org.hisp.dhis.node.transformers.PluckNodeTransformer;
 import org.hisp.dhis.node.types.CollectionNode;
 import org.hisp.dhis.node.types.ComplexNode;
@@ -55,10 +57,13 @@ import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
 import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -307,6 +312,101 @@ public class DefaultFieldFilterServiceTest
         Assert.assertThat( ouNames, Matchers.containsInAnyOrder( "Test 1", "Test 2" ) );
     }
 
+    @Test
+    public void streamingCollectionNodeMatchesCollectionNode() throws Exception
+    {
+        final List<List<String>> fieldLists = Arrays.asList(
+            Arrays.asList( "id", "name", "code", "startDate", "organisationUnits" ),
+            Arrays.asList( "id", "organisationUnits[id,name,code]" ),
+            Arrays.asList( "id", "organisationUnits~pluck(name)[id,name]" ),
+            Arrays.asList( "id", "organisationUnits[id,parent]" ) );
+
+        for ( List<String> fields : fieldLists )
+        {
+            final String expected = toJson( service.toCollectionNode( CategoryOption.class,
+                new FieldFilterParams( createCategoryOptions(), fields ) ) );
+
+            final FieldFilterCollectionNode collectionNode = service.toStreamingCollectionNode( CategoryOption.class,
+                new FieldFilterParams( createCategoryOptions(), fields ) );
+
+            Assert.assertEquals( expected, toJson( collectionNode ) );
+            Assert.assertFalse( collectionNode.isMaterialized() );
+        }
+    }
+
+    @Test
+    public void streamingCollectionNodeDefaultClass() throws Exception
+    {
+        final CategoryOption co1 = new CategoryOption();
+        co1.setUid( "abc1" );
+
+        final CategoryOption co2 = new CategoryOption();
+        co2.setUid( "abc2" );
+        co2.setName( "default" );
+
+        final Category category = new Category();
+        category.setUid( "def1" );
+        category.getCategoryOptions().add( co1 );
+        category.getCategoryOptions().add( co2 );
+
+        final FieldFilterParams params = new FieldFilterParams( Collections.singletonList( category ), Arrays.asList( "id", "categoryOptions" ), Defaults.EXCLUDE );
+        final String expected = toJson( service.toCollectionNode( Category.class, params ) );
+
+        Assert.assertEquals( expected, toJson( service.toStreamingCollectionNode( Category.class, params ) ) );
+        Assert.assertFalse( expected.contains( "abc2" ) );
+    }
+
+    @Test
+    public void streamingCollectionNodeMaterializesChildren()
+    {
+        final FieldFilterCollectionNode collectionNode = service.toStreamingCollectionNode( CategoryOption.class,
+            new FieldFilterParams( createCategoryOptions(), Arrays.asList( "id", "name" ) ) );
+
+        Assert.assertFalse( collectionNode.isEmpty() );
+        Assert.assertFalse( collectionNode.isMaterialized() );
+        Assert.assertEquals( 2, collectionNode.getChildren().size() );
+        Assert.assertTrue( collectionNode.isMaterialized() );
+    }
+
+    private List<CategoryOption> createCategoryOptions()
+    {
+        final OrganisationUnit parent = new OrganisationUnit();
+        parent.setUid( "par1" );
+        parent.setName( "Parent" );
+
+        final OrganisationUnit ou1 = new OrganisationUnit();
+        ou1.setUid( "abc1" );
+        ou1.setName( "OU 1" );
+        ou1.setCode( "OU1" );
+        ou1.setParent( parent );
+
+        final OrganisationUnit ou2 = new OrganisationUnit();
+        ou2.setUid( "abc2" );
+        ou2.setName( "OU 2" );
+
+        final CategoryOption option1 = new CategoryOption();
+        option1.setUid( "def1" );
+        option1.setName( "Option 1" );
+        option1.setStartDate( new Date( 1546300800000L ) );
+        option1.getOrganisationUnits().add( ou1 );
+        option1.getOrganisationUnits().add( ou2 );
+
+        final CategoryOption option2 = new CategoryOption();
+        option2.setUid( "def2" );
+        option2.setName( "Option 2" );
+        option2.setCode( "OPT2" );
+
+        return Arrays.asList( option1, option2 );
+    }
+
+    private String toJson( CollectionNode collectionNode ) throws Exception
+    {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new Jackson2JsonNodeSerializer().serialize( NodeUtils.createMetadata( collectionNode ), outputStream );
+
+        return new String( outputStream.toByteArray(), StandardCharsets.UTF_8 );
+    }
+
     private Node getNamedNode( @Nonnull Collection<? extends Node> nodes, @Nonnull String name )
     {
         return nodes.stream().filter( n -> name.equals( n.getName() ) ).findFirst().orElse( null );
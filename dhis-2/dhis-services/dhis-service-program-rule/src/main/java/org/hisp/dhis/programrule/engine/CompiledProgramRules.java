@@ -0,0 +1,93 @@
+package org.hisp.dhis.programrule.engine;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.hisp.dhis.rules.models.Rule;
+import org.hisp.dhis.rules.models.RuleVariable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The program rules of a program which are implemented on the server side,
+ * mapped to the rule engine model. Holds everything about the rules which
+ * does not depend on the evaluated enrollment or the current user, so that it
+ * can be cached per program.
+ */
+public final class CompiledProgramRules
+{
+    public static final CompiledProgramRules EMPTY = new CompiledProgramRules(
+        ImmutableList.of(), ImmutableList.of(), ImmutableSet.of() );
+
+    private final List<Rule> rules;
+
+    private final List<RuleVariable> ruleVariables;
+
+    private final Set<String> orgUnitGroups;
+
+    /**
+     * @param rules the mapped rules.
+     * @param ruleVariables the mapped rule variables.
+     * @param orgUnitGroups the identifiers of the organisation unit groups
+     *        referred to by d2:inOrgUnitGroup in the rule conditions.
+     */
+    public CompiledProgramRules( Collection<Rule> rules, Collection<RuleVariable> ruleVariables, Collection<String> orgUnitGroups )
+    {
+        this.rules = ImmutableList.copyOf( rules );
+        this.ruleVariables = ImmutableList.copyOf( ruleVariables );
+        this.orgUnitGroups = ImmutableSet.copyOf( orgUnitGroups );
+    }
+
+    public List<Rule> getRules()
+    {
+        return rules;
+    }
+
+    public List<RuleVariable> getRuleVariables()
+    {
+        return ruleVariables;
+    }
+
+    public Set<String> getOrgUnitGroups()
+    {
+        return orgUnitGroups;
+    }
+
+    /**
+     * Indicates whether there are no rules to evaluate on the server side.
+     */
+    public boolean isEmpty()
+    {
+        return rules.isEmpty();
+    }
+}
@@ -30,6 +30,7 @@ package org.hisp.dhis.programrule.engine;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.commons.util.DebugUtils;
 import org.hisp.dhis.program.ProgramInstance;
 import org.hisp.dhis.program.ProgramInstanceService;
@@ -65,20 +66,24 @@ public class DefaultProgramRuleEngineService
     private final ProgramInstanceService programInstanceService;
 
     private final ProgramStageInstanceService programStageInstanceService;
+
+    private final IdentifiableObjectManager manager;
     
     public DefaultProgramRuleEngineService( ProgramRuleEngine programRuleEngine,
         List<RuleActionImplementer> ruleActionImplementers, ProgramInstanceService programInstanceService,
-        ProgramStageInstanceService programStageInstanceService )
+        ProgramStageInstanceService programStageInstanceService, IdentifiableObjectManager manager )
     {
         checkNotNull( programRuleEngine );
         checkNotNull( ruleActionImplementers );
         checkNotNull( programInstanceService );
         checkNotNull( programStageInstanceService );
+        checkNotNull( manager );
 
         this.programRuleEngine = programRuleEngine;
         this.ruleActionImplementers = ruleActionImplementers;
         this.programInstanceService = programInstanceService;
         this.programStageInstanceService = programStageInstanceService;
+        this.manager = manager;
     }
 
     @Override
@@ -111,6 +116,45 @@ public class DefaultProgramRuleEngineService
         return ruleEffects;
     }
 
+    @Override
+    public Map<Long, List<RuleEffect>> evaluateEnrollments( Collection<Long> programInstances )
+    {
+        Map<Long, List<RuleEffect>> ruleEffects = new HashMap<>();
+
+        List<ProgramInstance> pis = manager.getById( ProgramInstance.class, programInstances );
+
+        Map<String, List<RuleEffect>> enrollmentEffects = new HashMap<>();
+
+        try
+        {
+            enrollmentEffects = programRuleEngine.evaluateEnrollments( pis );
+        }
+        catch( Exception ex )
+        {
+            log.error( DebugUtils.getStackTrace( ex ) );
+            log.error( DebugUtils.getStackTrace( ex.getCause() ) );
+        }
+
+        for ( ProgramInstance pi : pis )
+        {
+            List<RuleEffect> effects = enrollmentEffects.getOrDefault( pi.getUid(), new ArrayList<>() );
+
+            for ( RuleEffect effect : effects )
+            {
+                ruleActionImplementers.stream().filter( i -> i.accept( effect.ruleAction() ) ).forEach( i ->
+                {
+                    log.debug( String.format( "Invoking action implementer: %s", i.getClass().getSimpleName() ) );
+
+                    i.implement( effect, pi );
+                } );
+            }
+
+            ruleEffects.put( pi.getId(), effects );
+        }
+
+        return ruleEffects;
+    }
+
     @Override
     public List<RuleEffect> evaluateEvent( long programStageInstance )
     {
@@ -140,4 +184,43 @@ public class DefaultProgramRuleEngineService
 
         return ruleEffects;
     }
+
+    @Override
+    public Map<Long, List<RuleEffect>> evaluateEvents( Collection<Long> programStageInstances )
+    {
+        Map<Long, List<RuleEffect>> ruleEffects = new HashMap<>();
+
+        List<ProgramStageInstance> psis = manager.getById( ProgramStageInstance.class, programStageInstances );
+
+        Map<String, List<RuleEffect>> eventEffects = new HashMap<>();
+
+        try
+        {
+            eventEffects = programRuleEngine.evaluateEvents( psis );
+        }
+        catch( Exception ex )
+        {
+            log.error( DebugUtils.getStackTrace( ex ) );
+            log.error( DebugUtils.getStackTrace( ex.getCause() ) );
+        }
+
+        for ( ProgramStageInstance psi : psis )
+        {
+            List<RuleEffect> effects = eventEffects.getOrDefault( psi.getUid(), new ArrayList<>() );
+
+            for ( RuleEffect effect : effects )
+            {
+                ruleActionImplementers.stream().filter( i -> i.accept( effect.ruleAction() ) ).forEach( i ->
+                {
+                    log.debug( String.format( "Invoking action implementer: %s", i.getClass().getSimpleName() ) );
+
+                    i.implement( effect, psi );
+                } );
+            }
+
+            ruleEffects.put( psi.getId(), effects );
+        }
+
+        return ruleEffects;
+    }
 }
@@ -0,0 +1,208 @@
+package org.hisp.dhis.programrule.engine;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
+import org.hisp.dhis.commons.util.SystemUtils;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramStage;
+import org.hisp.dhis.programrule.ProgramRule;
+import org.hisp.dhis.programrule.ProgramRuleAction;
+import org.hisp.dhis.programrule.ProgramRuleVariable;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Cache of {@link CompiledProgramRules} per program. The cache is invalidated
+ * when a transaction which created, updated or deleted metadata used for
+ * mapping the rules of a program is committed.
+ */
+@Component( "org.hisp.dhis.programrule.engine.ProgramRuleCache" )
+public class ProgramRuleCache
+{
+    private static final Log log = LogFactory.getLog( ProgramRuleCache.class );
+
+    private static final Set<Class<?>> INVALIDATING_CLASSES = ImmutableSet.of( ProgramRule.class, ProgramRuleAction.class,
+        ProgramRuleVariable.class, Program.class, ProgramStage.class, DataElement.class, TrackedEntityAttribute.class );
+
+    private final CacheProvider cacheProvider;
+
+    private final SessionFactory sessionFactory;
+
+    private final Environment env;
+
+    private Cache<CompiledProgramRules> compiledRulesCache;
+
+    public ProgramRuleCache( CacheProvider cacheProvider, SessionFactory sessionFactory, Environment env )
+    {
+        checkNotNull( cacheProvider );
+        checkNotNull( sessionFactory );
+        checkNotNull( env );
+
+        this.cacheProvider = cacheProvider;
+        this.sessionFactory = sessionFactory;
+        this.env = env;
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        compiledRulesCache = cacheProvider.newCacheBuilder( CompiledProgramRules.class )
+            .forRegion( "compiledProgramRules" )
+            .expireAfterWrite( 1, TimeUnit.HOURS )
+            .withMaximumSize( SystemUtils.isTestRun( env.getActiveProfiles() ) ? 0 : 1000 )
+            .forceInMemory()
+            .build();
+
+        EventListenerRegistry registry = sessionFactory.unwrap( SessionFactoryImplementor.class )
+            .getServiceRegistry().getService( EventListenerRegistry.class );
+
+        InvalidationListener listener = new InvalidationListener();
+
+        registry.appendListeners( EventType.POST_COMMIT_INSERT, listener );
+        registry.appendListeners( EventType.POST_COMMIT_UPDATE, listener );
+        registry.appendListeners( EventType.POST_COMMIT_DELETE, listener );
+    }
+
+    /**
+     * Returns the compiled rules of the given program, compiling them with
+     * the given function if not cached.
+     *
+     * @param program the program.
+     * @param compiler the function compiling the rules of the program.
+     * @return the {@link CompiledProgramRules}.
+     */
+    public CompiledProgramRules get( Program program, Function<Program, CompiledProgramRules> compiler )
+    {
+        return compiledRulesCache.get( program.getUid(), uid -> compiler.apply( program ) )
+            .orElse( CompiledProgramRules.EMPTY );
+    }
+
+    public void invalidateAll()
+    {
+        compiledRulesCache.invalidateAll();
+    }
+
+    @EventListener
+    public void handleApplicationCachesCleared( ApplicationCacheClearedEvent event )
+    {
+        invalidateAll();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void invalidate( Object entity )
+    {
+        if ( entity != null && INVALIDATING_CLASSES.stream().anyMatch( klass -> klass.isInstance( entity ) ) )
+        {
+            log.debug( "Compiled program rules invalidated by change of " + entity.getClass().getSimpleName() );
+
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Invalidates the cache after commit of a change of an entity which is
+     * used for compiling program rules. Not a Spring bean on purpose, as the
+     * auditing listeners are wired by the Hibernate listener interfaces.
+     */
+    private class InvalidationListener
+        implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener
+    {
+        @Override
+        public void onPostInsert( PostInsertEvent event )
+        {
+            invalidate( event.getEntity() );
+        }
+
+        @Override
+        public void onPostUpdate( PostUpdateEvent event )
+        {
+            invalidate( event.getEntity() );
+        }
+
+        @Override
+        public void onPostDelete( PostDeleteEvent event )
+        {
+            invalidate( event.getEntity() );
+        }
+
+        @Override
+        public void onPostInsertCommitFailed( PostInsertEvent event )
+        {
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed( PostUpdateEvent event )
+        {
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed( PostDeleteEvent event )
+        {
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding( EntityPersister persister )
+        {
+            Class<?> mappedClass = persister.getMappedClass();
+
+            return mappedClass != null && INVALIDATING_CLASSES.stream().anyMatch( klass -> klass.isAssignableFrom( mappedClass ) );
+        }
+    }
+}
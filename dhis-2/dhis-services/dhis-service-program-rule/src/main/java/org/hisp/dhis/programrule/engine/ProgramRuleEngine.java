@@ -86,11 +86,13 @@ public class ProgramRuleEngine
 
     private final ConstantService constantService;
 
+    private final ProgramRuleCache programRuleCache;
+
     public ProgramRuleEngine( ProgramRuleEntityMapperService programRuleEntityMapperService,
         ProgramRuleExpressionEvaluator programRuleExpressionEvaluator, ProgramRuleService programRuleService,
         ProgramRuleVariableService programRuleVariableService,
         OrganisationUnitGroupService organisationUnitGroupService, RuleVariableInMemoryMap inMemoryMap,
-        CurrentUserService currentUserService, ConstantService constantService )
+        CurrentUserService currentUserService, ConstantService constantService, ProgramRuleCache programRuleCache )
     {
 
         checkNotNull( programRuleEntityMapperService );
@@ -101,6 +103,7 @@ public class ProgramRuleEngine
         checkNotNull( currentUserService );
         checkNotNull( inMemoryMap );
         checkNotNull( constantService );
+        checkNotNull( programRuleCache );
 
         this.programRuleEntityMapperService = programRuleEntityMapperService;
         this.programRuleExpressionEvaluator = programRuleExpressionEvaluator;
@@ -110,6 +113,7 @@ public class ProgramRuleEngine
         this.inMemoryMap = inMemoryMap;
         this.currentUserService = currentUserService;
         this.constantService = constantService;
+        this.programRuleCache = programRuleCache;
     }
 
     public List<RuleEffect> evaluateEnrollment(ProgramInstance enrollment )
@@ -121,15 +125,13 @@ public class ProgramRuleEngine
 
         List<RuleEffect> ruleEffects = new ArrayList<>();
 
-        List<ProgramRule> implementableProgramRules = getImplementableRules( enrollment.getProgram() );
+        CompiledProgramRules compiledRules = getCompiledRules( enrollment.getProgram() );
 
-        if ( implementableProgramRules.isEmpty() ) // if implementation does not exist on back end side
+        if ( compiledRules.isEmpty() ) // if implementation does not exist on back end side
         {
             return ruleEffects;
         }
 
-        List<ProgramRuleVariable> programRuleVariables = programRuleVariableService.getProgramRuleVariable( enrollment.getProgram() );
-
         RuleEnrollment ruleEnrollment = programRuleEntityMapperService.toMappedRuleEnrollment( enrollment );
 
         List<RuleEvent> ruleEvents = programRuleEntityMapperService.toMappedRuleEvents( enrollment.getProgramStageInstances() );
@@ -138,7 +140,7 @@ public class ProgramRuleEngine
 
         try
         {
-            ruleEngine = ruleEngineBuilder( implementableProgramRules, programRuleVariables ).events( ruleEvents ).build();
+            ruleEngine = ruleEngineBuilder( ruleEngineContext( compiledRules ) ).events( ruleEvents ).build();
 
             ruleEffects = ruleEngine.evaluate( ruleEnrollment  ).call();
 
@@ -153,6 +155,58 @@ public class ProgramRuleEngine
         return ruleEffects;
     }
 
+    /**
+     * Evaluates the given enrollments. The rule engine context, i.e. the
+     * mapped rules, constants and supplementary data, is created once per
+     * program and reused for all enrollments of the program.
+     *
+     * @param enrollments the enrollments to evaluate.
+     * @return a mapping of enrollment identifier and the resulting rule effects.
+     */
+    public Map<String, List<RuleEffect>> evaluateEnrollments( Collection<ProgramInstance> enrollments )
+    {
+        Map<String, List<RuleEffect>> ruleEffects = new HashMap<>();
+
+        Map<Program, List<ProgramInstance>> programEnrollments = enrollments.stream()
+            .filter( Objects::nonNull )
+            .collect( Collectors.groupingBy( ProgramInstance::getProgram, LinkedHashMap::new, Collectors.toList() ) );
+
+        for ( Map.Entry<Program, List<ProgramInstance>> entry : programEnrollments.entrySet() )
+        {
+            CompiledProgramRules compiledRules = getCompiledRules( entry.getKey() );
+
+            if ( compiledRules.isEmpty() )
+            {
+                entry.getValue().forEach( enrollment -> ruleEffects.put( enrollment.getUid(), new ArrayList<>() ) );
+                continue;
+            }
+
+            RuleEngineContext context = ruleEngineContext( compiledRules );
+
+            for ( ProgramInstance enrollment : entry.getValue() )
+            {
+                List<RuleEffect> enrollmentEffects = new ArrayList<>();
+
+                try
+                {
+                    RuleEngine ruleEngine = ruleEngineBuilder( context )
+                        .events( programRuleEntityMapperService.toMappedRuleEvents( enrollment.getProgramStageInstances() ) )
+                        .build();
+
+                    enrollmentEffects = ruleEngine.evaluate( programRuleEntityMapperService.toMappedRuleEnrollment( enrollment ) ).call();
+                }
+                catch ( Exception e )
+                {
+                    log.error( DebugUtils.getStackTrace( e ) );
+                }
+
+                ruleEffects.put( enrollment.getUid(), enrollmentEffects );
+            }
+        }
+
+        return ruleEffects;
+    }
+
     public List<RuleEffect> evaluateEvent( ProgramStageInstance programStageInstance )
     {
         List<RuleEffect> ruleEffects = new ArrayList<>();
@@ -164,15 +218,13 @@ public class ProgramRuleEngine
 
         ProgramInstance enrollment = programStageInstance.getProgramInstance();
 
-        List<ProgramRule> implementableProgramRules = getImplementableRules( enrollment.getProgram() );
+        CompiledProgramRules compiledRules = getCompiledRules( enrollment.getProgram() );
 
-        if ( implementableProgramRules.isEmpty() )
+        if ( compiledRules.isEmpty() )
         {
             return ruleEffects;
         }
 
-        List<ProgramRuleVariable> programRuleVariables = programRuleVariableService.getProgramRuleVariable( enrollment.getProgram() );
-
         RuleEnrollment ruleEnrollment = programRuleEntityMapperService.toMappedRuleEnrollment( enrollment );
 
         List<RuleEvent> ruleEvents = programRuleEntityMapperService.toMappedRuleEvents( enrollment.getProgramStageInstances(), programStageInstance );
@@ -182,7 +234,7 @@ public class ProgramRuleEngine
         try
         {
 
-            ruleEngine = ruleEngineBuilder( implementableProgramRules, programRuleVariables ).enrollment( ruleEnrollment ).events( ruleEvents ).build();
+            ruleEngine = ruleEngineBuilder( ruleEngineContext( compiledRules ) ).enrollment( ruleEnrollment ).events( ruleEvents ).build();
 
             ruleEffects = ruleEngine.evaluate( programRuleEntityMapperService.toMappedRuleEvent( programStageInstance )  ).call();
 
@@ -197,37 +249,82 @@ public class ProgramRuleEngine
         return ruleEffects;
     }
 
-    private RuleEngine.Builder ruleEngineBuilder( List<ProgramRule> programRules, List<ProgramRuleVariable> programRuleVariables )
+    /**
+     * Evaluates the given events. Events are grouped by enrollment, so that the
+     * enrollment and its events are mapped once for all events of the
+     * enrollment, and the rule engine context is created once per program.
+     *
+     * @param events the events to evaluate.
+     * @return a mapping of event identifier and the resulting rule effects.
+     */
+    public Map<String, List<RuleEffect>> evaluateEvents( Collection<ProgramStageInstance> events )
     {
-        Map<String, List<String>> supplementaryData = new HashMap<>();
-
-        Map<String, String> constantMap = constantService.getConstantMap().entrySet().stream()
-            .collect( Collectors.toMap( Map.Entry::getKey, v -> v.getValue().toString() ) );
+        Map<String, List<RuleEffect>> ruleEffects = new HashMap<>();
 
-        List<String> orgUnitGroups = new ArrayList<>();
+        Map<ProgramInstance, List<ProgramStageInstance>> enrollmentEvents = events.stream()
+            .filter( Objects::nonNull )
+            .filter( psi -> psi.getProgramInstance() != null )
+            .collect( Collectors.groupingBy( ProgramStageInstance::getProgramInstance, LinkedHashMap::new, Collectors.toList() ) );
 
-        List<Rule> rules = new ArrayList<>();
+        Map<Program, RuleEngineContext> contexts = new HashMap<>();
 
-        for ( ProgramRule programRule : programRules )
+        for ( Map.Entry<ProgramInstance, List<ProgramStageInstance>> entry : enrollmentEvents.entrySet() )
         {
-            Rule rule = programRuleEntityMapperService.toMappedProgramRule( programRule );
+            ProgramInstance enrollment = entry.getKey();
 
-            if ( rule != null )
+            CompiledProgramRules compiledRules = getCompiledRules( enrollment.getProgram() );
+
+            if ( compiledRules.isEmpty() )
             {
-                rules.add( rule );
+                entry.getValue().forEach( psi -> ruleEffects.put( psi.getUid(), new ArrayList<>() ) );
+                continue;
+            }
 
-                Matcher matcher = PATTERN.matcher( StringUtils.defaultIfBlank( programRule.getCondition(), "" ) );
+            RuleEngineContext context = contexts.computeIfAbsent( enrollment.getProgram(), p -> ruleEngineContext( compiledRules ) );
 
-                while ( matcher.find() )
+            RuleEnrollment ruleEnrollment = programRuleEntityMapperService.toMappedRuleEnrollment( enrollment );
+
+            List<RuleEvent> ruleEvents = programRuleEntityMapperService.toMappedRuleEvents( enrollment.getProgramStageInstances() );
+
+            for ( ProgramStageInstance programStageInstance : entry.getValue() )
+            {
+                List<RuleEffect> eventEffects = new ArrayList<>();
+
+                try
                 {
-                    orgUnitGroups.add( StringUtils.replace( matcher.group( 1 ), "'", "" ) );
+                    RuleEngine ruleEngine = ruleEngineBuilder( context ).enrollment( ruleEnrollment )
+                        .events( ruleEvents.stream().filter( e -> !e.event().equals( programStageInstance.getUid() ) ).collect( Collectors.toList() ) )
+                        .build();
+
+                    eventEffects = ruleEngine.evaluate( programRuleEntityMapperService.toMappedRuleEvent( programStageInstance ) ).call();
                 }
+                catch ( Exception e )
+                {
+                    log.error( DebugUtils.getStackTrace( e ) );
+                }
+
+                ruleEffects.put( programStageInstance.getUid(), eventEffects );
             }
         }
 
-        if ( !orgUnitGroups.isEmpty() )
+        return ruleEffects;
+    }
+
+    private RuleEngine.Builder ruleEngineBuilder( RuleEngineContext context )
+    {
+        return context.toEngineBuilder().triggerEnvironment( TriggerEnvironment.SERVER );
+    }
+
+    private RuleEngineContext ruleEngineContext( CompiledProgramRules compiledRules )
+    {
+        Map<String, List<String>> supplementaryData = new HashMap<>();
+
+        Map<String, String> constantMap = constantService.getConstantMap().entrySet().stream()
+            .collect( Collectors.toMap( Map.Entry::getKey, v -> v.getValue().toString() ) );
+
+        if ( !compiledRules.getOrgUnitGroups().isEmpty() )
         {
-            supplementaryData = orgUnitGroups.stream().collect( Collectors.toMap( g -> g,  g -> organisationUnitGroupService.getOrganisationUnitGroup( g ).getMembers()
+            supplementaryData = compiledRules.getOrgUnitGroups().stream().collect( Collectors.toMap( g -> g,  g -> organisationUnitGroupService.getOrganisationUnitGroup( g ).getMembers()
                 .stream().map( OrganisationUnit::getUid ).collect( Collectors.toList() ) ) );
         }
 
@@ -240,10 +337,55 @@ public class ProgramRuleEngine
             .builder( programRuleExpressionEvaluator )
             .supplementaryData( supplementaryData )
             .calculatedValueMap( inMemoryMap.getVariablesMap() )
-            .rules( rules )
-            .ruleVariables( programRuleEntityMapperService.toMappedProgramRuleVariables( programRuleVariables ) )
+            .rules( compiledRules.getRules() )
+            .ruleVariables( compiledRules.getRuleVariables() )
             .constantsValue( constantMap )
-            .build().toEngineBuilder().triggerEnvironment( TriggerEnvironment.SERVER );
+            .build();
+    }
+
+    private CompiledProgramRules getCompiledRules( Program program )
+    {
+        return programRuleCache.get( program, this::compileRules );
+    }
+
+    /**
+     * Maps the implementable program rules and the program rule variables of
+     * the given program, and finds the organisation unit groups referred to in
+     * the rule conditions.
+     */
+    private CompiledProgramRules compileRules( Program program )
+    {
+        List<ProgramRule> implementableProgramRules = getImplementableRules( program );
+
+        if ( implementableProgramRules.isEmpty() )
+        {
+            return CompiledProgramRules.EMPTY;
+        }
+
+        List<ProgramRuleVariable> programRuleVariables = programRuleVariableService.getProgramRuleVariable( program );
+
+        Set<String> orgUnitGroups = new LinkedHashSet<>();
+
+        List<Rule> rules = new ArrayList<>();
+
+        for ( ProgramRule programRule : implementableProgramRules )
+        {
+            Rule rule = programRuleEntityMapperService.toMappedProgramRule( programRule );
+
+            if ( rule != null )
+            {
+                rules.add( rule );
+
+                Matcher matcher = PATTERN.matcher( StringUtils.defaultIfBlank( programRule.getCondition(), "" ) );
+
+                while ( matcher.find() )
+                {
+                    orgUnitGroups.add( StringUtils.replace( matcher.group( 1 ), "'", "" ) );
+                }
+            }
+        }
+
+        return new CompiledProgramRules( rules, programRuleEntityMapperService.toMappedProgramRuleVariables( programRuleVariables ), orgUnitGroups );
     }
 
     private List<ProgramRule> getImplementableRules( Program program )
@@ -0,0 +1,255 @@
+package org.hisp.dhis.programrule.engine;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.commons.util.DebugUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Coalescing queue of pending program rule evaluations. Evaluations of the
+ * same enrollment or event which are requested before the enrollment or event
+ * is evaluated are merged into one. Pending evaluations are processed in
+ * batches by a single background thread, so that bulk imports result in a few
+ * large evaluation transactions rather than one transaction per event. If the
+ * transaction of a batch fails, the items of the batch are evaluated one by
+ * one in separate transactions, so that one failing item does not discard the
+ * evaluation of the rest of the batch.
+ */
+@Component( "org.hisp.dhis.programrule.engine.ProgramRuleEvaluationQueue" )
+public class ProgramRuleEvaluationQueue
+{
+    private static final Log log = LogFactory.getLog( ProgramRuleEvaluationQueue.class );
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final ProgramRuleEngineService programRuleEngineService;
+
+    /**
+     * Identifiers of enrollments pending evaluation, mapped to the time of
+     * the first request in milliseconds.
+     */
+    private final ConcurrentMap<Long, Long> pendingEnrollments = new ConcurrentHashMap<>();
+
+    /**
+     * Identifiers of events pending evaluation, mapped to the time of the
+     * first request in milliseconds.
+     */
+    private final ConcurrentMap<Long, Long> pendingEvents = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService executor;
+
+    public ProgramRuleEvaluationQueue( ProgramRuleEngineService programRuleEngineService )
+    {
+        checkNotNull( programRuleEngineService );
+
+        this.programRuleEngineService = programRuleEngineService;
+        this.executor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+            Thread thread = new Thread( runnable, "program-rule-evaluation" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        executor.scheduleWithFixedDelay( this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * Stops the background thread, waiting for a flush in progress to finish,
+     * and evaluates the remaining pending evaluations on the calling thread.
+     */
+    @PreDestroy
+    public void shutdown()
+    {
+        executor.shutdown();
+
+        try
+        {
+            if ( !executor.awaitTermination( SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS ) )
+            {
+                log.warn( "Timed out waiting for program rule evaluation to finish on shutdown" );
+            }
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        if ( getQueueDepth() > 0 )
+        {
+            log.info( String.format( "Evaluating %d pending program rule evaluations on shutdown", getQueueDepth() ) );
+
+            flush();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Queue
+    // -------------------------------------------------------------------------
+
+    /**
+     * Requests evaluation of the given enrollment.
+     *
+     * @param programInstance the identifier of the enrollment.
+     */
+    public void addEnrollment( long programInstance )
+    {
+        pendingEnrollments.putIfAbsent( programInstance, System.currentTimeMillis() );
+    }
+
+    /**
+     * Requests evaluation of the given event.
+     *
+     * @param programStageInstance the identifier of the event.
+     */
+    public void addEvent( long programStageInstance )
+    {
+        pendingEvents.putIfAbsent( programStageInstance, System.currentTimeMillis() );
+    }
+
+    /**
+     * Returns the number of pending enrollment and event evaluations.
+     */
+    public int getQueueDepth()
+    {
+        return pendingEnrollments.size() + pendingEvents.size();
+    }
+
+    /**
+     * Returns the time in milliseconds since the oldest pending evaluation
+     * was requested, or 0 if no evaluations are pending.
+     */
+    public long getLag()
+    {
+        OptionalLong oldest = Stream.concat( pendingEnrollments.values().stream(), pendingEvents.values().stream() )
+            .mapToLong( Long::longValue ).min();
+
+        return oldest.isPresent() ? Math.max( 0, System.currentTimeMillis() - oldest.getAsLong() ) : 0;
+    }
+
+    /**
+     * Evaluates all pending enrollments and events in batches. Enrollments are
+     * evaluated before events.
+     */
+    public void flush()
+    {
+        while ( !pendingEnrollments.isEmpty() )
+        {
+            evaluate( drain( pendingEnrollments ), programRuleEngineService::evaluateEnrollments,
+                programRuleEngineService::evaluateEnrollment, "enrollment" );
+        }
+
+        while ( !pendingEvents.isEmpty() )
+        {
+            evaluate( drain( pendingEvents ), programRuleEngineService::evaluateEvents,
+                programRuleEngineService::evaluateEvent, "event" );
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Evaluates the given batch in one transaction. If the transaction fails,
+     * evaluates each item of the batch in a transaction of its own, logging
+     * and skipping items which fail.
+     */
+    private void evaluate( List<Long> batch, Consumer<Collection<Long>> batchEvaluation,
+        Consumer<Long> itemEvaluation, String type )
+    {
+        try
+        {
+            batchEvaluation.accept( batch );
+        }
+        catch ( Exception ex )
+        {
+            log.warn( String.format( "Evaluation of batch of %d %ss failed, evaluating one by one: %s",
+                batch.size(), type, ex.getMessage() ) );
+
+            for ( Long id : batch )
+            {
+                try
+                {
+                    itemEvaluation.accept( id );
+                }
+                catch ( Exception itemEx )
+                {
+                    log.error( String.format( "Evaluation of %s %d failed", type, id ) );
+                    log.error( DebugUtils.getStackTrace( itemEx ) );
+                }
+            }
+        }
+    }
+
+    private List<Long> drain( ConcurrentMap<Long, Long> pending )
+    {
+        List<Long> batch = new ArrayList<>();
+
+        Iterator<Long> iterator = pending.keySet().iterator();
+
+        while ( iterator.hasNext() && batch.size() < BATCH_SIZE )
+        {
+            Long id = iterator.next();
+
+            if ( pending.remove( id ) != null )
+            {
+                batch.add( id );
+            }
+        }
+
+        return batch;
+    }
+}
@@ -0,0 +1,191 @@
+package org.hisp.dhis.programrule.engine;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+import org.hisp.dhis.cache.DefaultCacheProvider;
+import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.programrule.ProgramRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.core.env.Environment;
+
+/**
+ * Tests {@link ProgramRuleCache} with a non-zero maximum size, as the cache
+ * is disabled in test runs.
+ */
+public class ProgramRuleCacheTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private SessionFactoryImplementor sessionFactoryImplementor;
+
+    @Mock
+    private ServiceRegistryImplementor serviceRegistry;
+
+    @Mock
+    private EventListenerRegistry eventListenerRegistry;
+
+    @Mock
+    private Environment env;
+
+    @Mock
+    private EntityPersister persister;
+
+    @Mock
+    private PostUpdateEvent postUpdateEvent;
+
+    private ProgramRuleCache programRuleCache;
+
+    private PostUpdateEventListener updateListener;
+
+    private Program program;
+
+    private AtomicInteger compilations;
+
+    private Function<Program, CompiledProgramRules> compiler;
+
+    @Before
+    public void setUp()
+    {
+        when( sessionFactory.unwrap( SessionFactoryImplementor.class ) ).thenReturn( sessionFactoryImplementor );
+        when( sessionFactoryImplementor.getServiceRegistry() ).thenReturn( serviceRegistry );
+        when( serviceRegistry.getService( EventListenerRegistry.class ) ).thenReturn( eventListenerRegistry );
+        when( env.getActiveProfiles() ).thenReturn( new String[0] );
+
+        programRuleCache = new ProgramRuleCache( new DefaultCacheProvider(), sessionFactory, env );
+        programRuleCache.init();
+
+        ArgumentCaptor<PostUpdateEventListener> listener = ArgumentCaptor.forClass( PostUpdateEventListener.class );
+        verify( eventListenerRegistry ).appendListeners( eq( EventType.POST_COMMIT_UPDATE ), listener.capture() );
+        updateListener = listener.getValue();
+
+        program = new Program( "ProgramA", "ProgramA" );
+        program.setAutoFields();
+
+        compilations = new AtomicInteger();
+        compiler = p -> {
+            compilations.incrementAndGet();
+            return CompiledProgramRules.EMPTY;
+        };
+    }
+
+    @Test
+    public void testGetCachesCompiledRules()
+    {
+        programRuleCache.get( program, compiler );
+        programRuleCache.get( program, compiler );
+
+        assertEquals( 1, compilations.get() );
+
+        Program programB = new Program( "ProgramB", "ProgramB" );
+        programB.setAutoFields();
+
+        programRuleCache.get( programB, compiler );
+
+        assertEquals( 2, compilations.get() );
+    }
+
+    @Test
+    public void testInvalidateOnCommitOfProgramRule()
+    {
+        programRuleCache.get( program, compiler );
+
+        when( postUpdateEvent.getEntity() ).thenReturn( new ProgramRule() );
+        updateListener.onPostUpdate( postUpdateEvent );
+
+        programRuleCache.get( program, compiler );
+
+        assertEquals( 2, compilations.get() );
+    }
+
+    @Test
+    public void testNoInvalidateOnCommitOfOtherEntity()
+    {
+        programRuleCache.get( program, compiler );
+
+        when( postUpdateEvent.getEntity() ).thenReturn( new OrganisationUnit() );
+        updateListener.onPostUpdate( postUpdateEvent );
+
+        programRuleCache.get( program, compiler );
+
+        assertEquals( 1, compilations.get() );
+    }
+
+    @Test
+    public void testInvalidateOnApplicationCacheCleared()
+    {
+        programRuleCache.get( program, compiler );
+
+        programRuleCache.handleApplicationCachesCleared( new ApplicationCacheClearedEvent() );
+
+        programRuleCache.get( program, compiler );
+
+        assertEquals( 2, compilations.get() );
+    }
+
+    @Test
+    public void testRequiresPostCommitHandling()
+    {
+        when( persister.getMappedClass() ).thenReturn( ProgramRule.class );
+        assertTrue( updateListener.requiresPostCommitHanding( persister ) );
+
+        when( persister.getMappedClass() ).thenReturn( OrganisationUnit.class );
+        assertFalse( updateListener.requiresPostCommitHanding( persister ) );
+    }
+}
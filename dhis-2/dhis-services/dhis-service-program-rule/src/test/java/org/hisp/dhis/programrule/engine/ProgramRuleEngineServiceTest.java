@@ -33,10 +33,13 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.program.*;
 import org.hisp.dhis.programrule.ProgramRule;
@@ -77,6 +80,9 @@ public class ProgramRuleEngineServiceTest extends DhisConvenienceTest
     @Mock
     private ProgramRuleEngine programRuleEngine;
 
+    @Mock
+    private IdentifiableObjectManager manager;
+
     @Mock
     private RuleActionSendMessageImplementer ruleActionSendMessage;
 
@@ -200,6 +206,28 @@ public class ProgramRuleEngineServiceTest extends DhisConvenienceTest
         assertTrue( this.ruleEffects.get( 0 ).ruleAction() instanceof RuleActionSendMessage );
     }
 
+    @Test
+    public void testWithImplementableActionExist_programStageInstances()
+    {
+        programStageInstance.setUid( "PSI-UID" );
+
+        List<RuleEffect> effects = new ArrayList<>();
+        effects.add( RuleEffect.create( RuleActionSendMessage.create( NOTIFICATION_UID, DATA ) ) );
+
+        when( manager.getById( eq( ProgramStageInstance.class ), anyCollection() ) ).thenReturn( Collections.singletonList( programStageInstance ) );
+        when( programRuleEngine.evaluateEvents( any() ) ).thenReturn( Collections.singletonMap( "PSI-UID", effects ) );
+
+        setProgramRuleActionType_SendMessage();
+
+        Map<Long, List<RuleEffect>> ruleEffects = service.evaluateEvents( Collections.singletonList( programStageInstance.getId() ) );
+
+        assertEquals( 1, ruleEffects.size() );
+        assertEquals( effects, ruleEffects.get( programStageInstance.getId() ) );
+
+        verify( programRuleEngine, times( 1 ) ).evaluateEvents( any() );
+        verify( ruleActionSendMessage ).implement( any( RuleEffect.class ), eq( programStageInstance ) );
+    }
+
     // -------------------------------------------------------------------------
     // Supportive methods
     // -------------------------------------------------------------------------
@@ -40,6 +40,7 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import org.hisp.dhis.DhisSpringTest;
 import org.hisp.dhis.analytics.AggregationType;
@@ -256,6 +257,24 @@ public class ProgramRuleEngineTest extends DhisSpringTest
         assertEquals( "PNT-1", ruleActionSendMessage.notification() );
     }
 
+    @Test
+    public void testSendMessageForEnrollments()
+    {
+        setUpSendMessageForEnrollment();
+
+        ProgramInstance programInstance = programInstanceService.getProgramInstance( "UID-P1" );
+
+        Map<String, List<RuleEffect>> ruleEffects = programRuleEngine.evaluateEnrollments( Arrays.asList( programInstance ) );
+
+        assertEquals( 1, ruleEffects.size() );
+        assertEquals( 1, ruleEffects.get( "UID-P1" ).size() );
+
+        RuleAction ruleAction = ruleEffects.get( "UID-P1" ).get( 0 ).ruleAction();
+
+        assertTrue( ruleAction instanceof RuleActionSendMessage );
+        assertEquals( "PNT-1", ((RuleActionSendMessage) ruleAction).notification() );
+    }
+
     @Test
     public void testSendMessageForEvent()
     {
@@ -0,0 +1,167 @@
+package org.hisp.dhis.programrule.engine;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.Sets;
+
+public class ProgramRuleEvaluationQueueTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private ProgramRuleEngineService programRuleEngineService;
+
+    private ProgramRuleEvaluationQueue queue;
+
+    @Before
+    public void setUp()
+    {
+        queue = new ProgramRuleEvaluationQueue( programRuleEngineService );
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void testCoalesceEvaluations()
+    {
+        queue.addEnrollment( 1 );
+        queue.addEnrollment( 2 );
+        queue.addEnrollment( 1 );
+        queue.addEvent( 10 );
+        queue.addEvent( 10 );
+
+        assertEquals( 3, queue.getQueueDepth() );
+        assertTrue( queue.getLag() >= 0 );
+
+        queue.flush();
+
+        ArgumentCaptor<Collection<Long>> enrollments = ArgumentCaptor.forClass( Collection.class );
+        ArgumentCaptor<Collection<Long>> events = ArgumentCaptor.forClass( Collection.class );
+
+        verify( programRuleEngineService, times( 1 ) ).evaluateEnrollments( enrollments.capture() );
+        verify( programRuleEngineService, times( 1 ) ).evaluateEvents( events.capture() );
+
+        assertEquals( Sets.newHashSet( 1L, 2L ), new HashSet<>( enrollments.getValue() ) );
+        assertEquals( Sets.newHashSet( 10L ), new HashSet<>( events.getValue() ) );
+        assertEquals( 0, queue.getQueueDepth() );
+        assertEquals( 0, queue.getLag() );
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void testFlushInBatches()
+    {
+        for ( long i = 0; i < 1200; i++ )
+        {
+            queue.addEvent( i );
+        }
+
+        queue.flush();
+
+        ArgumentCaptor<Collection<Long>> events = ArgumentCaptor.forClass( Collection.class );
+
+        verify( programRuleEngineService, never() ).evaluateEnrollments( anyCollection() );
+        verify( programRuleEngineService, times( 3 ) ).evaluateEvents( events.capture() );
+
+        List<Long> evaluated = new ArrayList<>();
+        events.getAllValues().forEach( evaluated::addAll );
+
+        assertEquals( 1200, evaluated.size() );
+        assertEquals( 1200, new HashSet<>( evaluated ).size() );
+    }
+
+    @Test
+    public void testEvaluateItemsSeparatelyWhenBatchFails()
+    {
+        when( programRuleEngineService.evaluateEvents( anyCollection() ) )
+            .thenThrow( new IllegalStateException( "Batch failed" ) );
+        when( programRuleEngineService.evaluateEvent( 2L ) )
+            .thenThrow( new IllegalStateException( "Event failed" ) );
+
+        queue.addEvent( 1 );
+        queue.addEvent( 2 );
+        queue.addEvent( 3 );
+
+        queue.flush();
+
+        verify( programRuleEngineService, times( 1 ) ).evaluateEvents( anyCollection() );
+        verify( programRuleEngineService, times( 1 ) ).evaluateEvent( 1L );
+        verify( programRuleEngineService, times( 1 ) ).evaluateEvent( 2L );
+        verify( programRuleEngineService, times( 1 ) ).evaluateEvent( 3L );
+        assertEquals( 0, queue.getQueueDepth() );
+    }
+
+    @Test
+    public void testNoItemEvaluationWhenBatchSucceeds()
+    {
+        queue.addEnrollment( 1 );
+        queue.addEnrollment( 2 );
+
+        queue.flush();
+
+        verify( programRuleEngineService, times( 1 ) ).evaluateEnrollments( anyCollection() );
+        verify( programRuleEngineService, never() ).evaluateEnrollment( anyLong() );
+    }
+
+    @Test
+    public void testFlushPendingEvaluationsOnShutdown()
+    {
+        queue.addEnrollment( 1 );
+        queue.addEvent( 10 );
+
+        queue.shutdown();
+
+        verify( programRuleEngineService, times( 1 ) ).evaluateEnrollments( anyCollection() );
+        verify( programRuleEngineService, times( 1 ) ).evaluateEvents( anyCollection() );
+        assertEquals( 0, queue.getQueueDepth() );
+    }
+}
@@ -34,6 +34,7 @@ import java.util.Map;
 
 import org.apache.commons.lang3.NotImplementedException;
 import org.hisp.dhis.analytics.AnalyticsService;
+import org.hisp.dhis.analytics.AnalyticsTablesUpdatedEvent;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.common.AnalyticalObject;
 import org.hisp.dhis.common.DimensionType;
@@ -131,6 +132,11 @@ public class MockAnalyticsService
     {
     }
 
+    @Override
+    public void handleAnalyticsTablesUpdated( AnalyticsTablesUpdatedEvent event )
+    {
+    }
+
     // -------------------------------------------------------------------------
     // Supportive methods
     // -------------------------------------------------------------------------
@@ -232,6 +232,7 @@ public class DefaultSchemaService
             pluralSchemaMap.put( schema.getPlural(), schema );
 
             updateSelf( schema );
+            initPropertyAccessors( schema );
 
             schema.getPersistedProperties();
             schema.getNonPersistedProperties();
@@ -287,6 +288,7 @@ public class DefaultSchemaService
         schema.setPropertyMap( new HashMap<>( propertyIntrospectorService.getPropertiesMap( schema.getKlass() ) ) );
 
         updateSelf( schema );
+        initPropertyAccessors( schema );
 
         dynamicClassSchemaMap.put( klass, schema );
 
@@ -368,6 +370,26 @@ public class DefaultSchemaService
         }
     }
 
+    /**
+     * Generates the getter and setter accessors of the properties of the given
+     * schema, so that property values can be read and written without reflection.
+     */
+    private void initPropertyAccessors( Schema schema )
+    {
+        for ( Property property : schema.getPropertyMap().values() )
+        {
+            if ( property.getGetter() == null )
+            {
+                property.setGetter( ReflectionUtils.createGetter( property.getGetterMethod() ) );
+            }
+
+            if ( property.getSetter() == null )
+            {
+                property.setSetter( ReflectionUtils.createSetter( property.getSetterMethod() ) );
+            }
+        }
+    }
+
     private String beautify( Schema schema )
     {
         String[] camelCaseWords = org.apache.commons.lang3.StringUtils.capitalize( schema.getPlural() ).split( "(?=[A-Z])" );
@@ -106,7 +106,7 @@ public class DefaultSchemaValidator implements SchemaValidator
                 continue;
             }
 
-            Object value = ReflectionUtils.invokeMethod( object, property.getGetterMethod() );
+            Object value = ReflectionUtils.invokeGetter( object, property );
 
             if ( value == null )
             {
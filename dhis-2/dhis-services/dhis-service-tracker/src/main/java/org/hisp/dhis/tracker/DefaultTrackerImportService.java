@@ -169,6 +169,7 @@ public class DefaultTrackerImportService implements TrackerImportService
             TrackerImportStrategy.CREATE_AND_UPDATE ) );
         params.setAtomicMode( getEnumWithDefault( AtomicMode.class, parameters, "atomicMode", AtomicMode.ALL ) );
         params.setFlushMode( getEnumWithDefault( FlushMode.class, parameters, "flushMode", FlushMode.AUTO ) );
+        params.setCommitMode( getEnumWithDefault( CommitMode.class, parameters, "commitMode", CommitMode.HIBERNATE ) );
 
         return params;
     }
@@ -99,6 +99,13 @@ public class TrackerImportParams
     @Builder.Default
     private FlushMode flushMode = FlushMode.AUTO;
 
+    /**
+     * Write objects through the Hibernate session or with JDBC batches.
+     */
+    @JsonProperty
+    @Builder.Default
+    private CommitMode commitMode = CommitMode.HIBERNATE;
+
     /**
      * Validation mode to use, defaults to fully validated objects.
      */
@@ -176,6 +183,7 @@ public class TrackerImportParams
             .importStrategy( importStrategy )
             .atomicMode( atomicMode )
             .flushMode( flushMode )
+            .commitMode( commitMode )
             .validationMode( validationMode )
             .reportMode( reportMode )
             .trackedEntities( trackedEntities )
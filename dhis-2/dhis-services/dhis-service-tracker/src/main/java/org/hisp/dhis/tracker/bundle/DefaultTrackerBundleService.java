@@ -35,6 +35,7 @@ import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.dbms.DbmsManager;
 import org.hisp.dhis.program.ProgramInstance;
 import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.tracker.CommitMode;
 import org.hisp.dhis.tracker.FlushMode;
 import org.hisp.dhis.tracker.TrackerType;
 import org.hisp.dhis.tracker.converter.TrackerConverterService;
@@ -74,6 +75,7 @@ public class DefaultTrackerBundleService implements TrackerBundleService
     private final SessionFactory sessionFactory;
     private final HibernateCacheManager cacheManager;
     private final DbmsManager dbmsManager;
+    private final JdbcTrackerBundleWriter jdbcTrackerBundleWriter;
 
     private List<TrackerBundleHook> bundleHooks = new ArrayList<>();
 
@@ -92,7 +94,8 @@ public class DefaultTrackerBundleService implements TrackerBundleService
         IdentifiableObjectManager manager,
         SessionFactory sessionFactory,
         HibernateCacheManager cacheManager,
-        DbmsManager dbmsManager )
+        DbmsManager dbmsManager,
+        JdbcTrackerBundleWriter jdbcTrackerBundleWriter )
     {
         this.trackerPreheatService = trackerPreheatService;
         this.trackedEntityTrackerConverterService = trackedEntityTrackerConverterService;
@@ -103,6 +106,7 @@ public class DefaultTrackerBundleService implements TrackerBundleService
         this.sessionFactory = sessionFactory;
         this.cacheManager = cacheManager;
         this.dbmsManager = dbmsManager;
+        this.jdbcTrackerBundleWriter = jdbcTrackerBundleWriter;
     }
 
     @Override
@@ -158,6 +162,8 @@ public class DefaultTrackerBundleService implements TrackerBundleService
         trackedEntities.forEach( o -> bundleHooks.forEach( hook -> hook.preCreate( TrackedEntity.class, o, bundle ) ) );
         session.flush();
 
+        List<org.hisp.dhis.trackedentity.TrackedEntityInstance> trackedEntityInstances = new ArrayList<>();
+
         for ( int idx = 0; idx < trackedEntities.size(); idx++ )
         {
             TrackedEntity trackedEntity = trackedEntities.get( idx );
@@ -179,14 +185,28 @@ public class DefaultTrackerBundleService implements TrackerBundleService
             trackedEntityInstance.setLastUpdatedAtClient( now );
             trackedEntityInstance.setLastUpdatedBy( bundle.getUser() );
 
-            session.persist( trackedEntityInstance );
-
-            if ( FlushMode.OBJECT == bundle.getFlushMode() )
+            if ( CommitMode.JDBC == bundle.getCommitMode() )
+            {
+                trackedEntityInstances.add( trackedEntityInstance );
+            }
+            else
             {
-                session.flush();
+                session.persist( trackedEntityInstance );
+
+                if ( FlushMode.OBJECT == bundle.getFlushMode() )
+                {
+                    session.flush();
+                }
             }
         }
 
+        if ( CommitMode.JDBC == bundle.getCommitMode() )
+        {
+            detach( session, trackedEntityInstances );
+            jdbcTrackerBundleWriter.writeTrackedEntityInstances( trackedEntityInstances );
+            bundle.getPreheat().putTrackedEntities( bundle.getIdentifier(), trackedEntityInstances );
+        }
+
         session.flush();
         trackedEntities.forEach( o -> bundleHooks.forEach( hook -> hook.postCreate( TrackedEntity.class, o, bundle ) ) );
 
@@ -201,6 +221,8 @@ public class DefaultTrackerBundleService implements TrackerBundleService
         enrollments.forEach( o -> bundleHooks.forEach( hook -> hook.preCreate( Enrollment.class, o, bundle ) ) );
         session.flush();
 
+        List<ProgramInstance> programInstances = new ArrayList<>();
+
         for ( int idx = 0; idx < enrollments.size(); idx++ )
         {
             Enrollment enrollment = enrollments.get( idx );
@@ -221,12 +243,26 @@ public class DefaultTrackerBundleService implements TrackerBundleService
             programInstance.setLastUpdatedAtClient( now );
             programInstance.setLastUpdatedBy( bundle.getUser() );
 
-            session.persist( programInstance );
-
-            if ( FlushMode.OBJECT == bundle.getFlushMode() )
+            if ( CommitMode.JDBC == bundle.getCommitMode() )
             {
-                session.flush();
+                programInstances.add( programInstance );
             }
+            else
+            {
+                session.persist( programInstance );
+
+                if ( FlushMode.OBJECT == bundle.getFlushMode() )
+                {
+                    session.flush();
+                }
+            }
+        }
+
+        if ( CommitMode.JDBC == bundle.getCommitMode() )
+        {
+            detach( session, programInstances );
+            jdbcTrackerBundleWriter.writeProgramInstances( programInstances );
+            bundle.getPreheat().putEnrollments( bundle.getIdentifier(), programInstances );
         }
 
         session.flush();
@@ -243,6 +279,8 @@ public class DefaultTrackerBundleService implements TrackerBundleService
         events.forEach( o -> bundleHooks.forEach( hook -> hook.preCreate( Event.class, o, bundle ) ) );
         session.flush();
 
+        List<ProgramStageInstance> programStageInstances = new ArrayList<>();
+
         for ( int idx = 0; idx < events.size(); idx++ )
         {
             Event event = events.get( idx );
@@ -263,13 +301,27 @@ public class DefaultTrackerBundleService implements TrackerBundleService
             programStageInstance.setLastUpdatedAtClient( now );
             programStageInstance.setLastUpdatedBy( bundle.getUser() );
 
-            session.persist( programStageInstance );
-            typeReport.getStats().incCreated();
-
-            if ( FlushMode.OBJECT == bundle.getFlushMode() )
+            if ( CommitMode.JDBC == bundle.getCommitMode() )
             {
-                session.flush();
+                programStageInstances.add( programStageInstance );
             }
+            else
+            {
+                session.persist( programStageInstance );
+
+                if ( FlushMode.OBJECT == bundle.getFlushMode() )
+                {
+                    session.flush();
+                }
+            }
+
+            typeReport.getStats().incCreated();
+        }
+
+        if ( CommitMode.JDBC == bundle.getCommitMode() )
+        {
+            detach( session, programStageInstances );
+            jdbcTrackerBundleWriter.writeProgramStageInstances( programStageInstances );
         }
 
         session.flush();
@@ -282,6 +334,16 @@ public class DefaultTrackerBundleService implements TrackerBundleService
     // Utility Methods
     //-----------------------------------------------------------------------------------
 
+    /**
+     * Detaches the given objects from the session before they are written
+     * with JDBC, so that objects loaded by the preheat are not written again
+     * by the dirty checking of the next flush.
+     */
+    private void detach( Session session, List<?> objects )
+    {
+        objects.stream().filter( session::contains ).forEach( session::evict );
+    }
+
     private User getUser( User user, String userUid )
     {
         if ( user != null ) // ıf user already set, reload the user to make sure its loaded in the current tx
@@ -0,0 +1,330 @@
+package org.hisp.dhis.tracker.bundle;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.common.BaseIdentifiableObject;
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.eventdatavalue.EventDataValue;
+import org.hisp.dhis.hibernate.jsonb.type.JsonBinaryType;
+import org.hisp.dhis.program.ProgramInstance;
+import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.trackedentity.TrackedEntityInstance;
+import org.postgresql.util.PGobject;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Writes tracked entity instances, enrollments and events of a tracker bundle
+ * with JDBC batch statements. Objects without an identifier are inserted with
+ * identifiers drawn from the table sequence up front, so that objects of
+ * subsequent types can reference them. Objects with an identifier, which were
+ * resolved by the preheat, are updated.
+ */
+@Component
+public class JdbcTrackerBundleWriter
+{
+    private static final Log log = LogFactory.getLog( JdbcTrackerBundleWriter.class );
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final ObjectWriter EVENT_DATA_VALUES_WRITER = JsonBinaryType.MAPPER
+        .writerFor( new TypeReference<Map<String, EventDataValue>>() {} );
+
+    private static final String INSERT_TRACKED_ENTITY_INSTANCE_SQL = "insert into trackedentityinstance " +
+        "(uid, code, created, lastupdated, lastupdatedby, createdatclient, lastupdatedatclient, lastsynchronized, " +
+        "inactive, deleted, geometry, organisationunitid, trackedentitytypeid, trackedentityinstanceid) " +
+        "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ST_GeomFromText(?, ?), ?, ?, ?)";
+
+    private static final String UPDATE_TRACKED_ENTITY_INSTANCE_SQL = "update trackedentityinstance set " +
+        "uid = ?, code = ?, created = ?, lastupdated = ?, lastupdatedby = ?, createdatclient = ?, lastupdatedatclient = ?, " +
+        "lastsynchronized = ?, inactive = ?, deleted = ?, geometry = ST_GeomFromText(?, ?), organisationunitid = ?, " +
+        "trackedentitytypeid = ? where trackedentityinstanceid = ?";
+
+    private static final String INSERT_PROGRAM_INSTANCE_SQL = "insert into programinstance " +
+        "(uid, created, lastupdated, createdatclient, lastupdatedatclient, incidentdate, enrollmentdate, enddate, " +
+        "followup, completedby, storedby, deleted, status, geometry, trackedentityinstanceid, programid, " +
+        "organisationunitid, programinstanceid) " +
+        "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ST_GeomFromText(?, ?), ?, ?, ?, ?)";
+
+    private static final String UPDATE_PROGRAM_INSTANCE_SQL = "update programinstance set " +
+        "uid = ?, created = ?, lastupdated = ?, createdatclient = ?, lastupdatedatclient = ?, incidentdate = ?, " +
+        "enrollmentdate = ?, enddate = ?, followup = ?, completedby = ?, storedby = ?, deleted = ?, status = ?, " +
+        "geometry = ST_GeomFromText(?, ?), trackedentityinstanceid = ?, programid = ?, organisationunitid = ? " +
+        "where programinstanceid = ?";
+
+    private static final String INSERT_PROGRAM_STAGE_INSTANCE_SQL = "insert into programstageinstance " +
+        "(uid, code, created, lastupdated, createdatclient, lastupdatedatclient, lastsynchronized, duedate, " +
+        "executiondate, completedby, completeddate, storedby, deleted, status, geometry, eventdatavalues, " +
+        "programinstanceid, programstageid, attributeoptioncomboid, organisationunitid, assigneduserid, " +
+        "programstageinstanceid) " +
+        "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ST_GeomFromText(?, ?), ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_PROGRAM_STAGE_INSTANCE_SQL = "update programstageinstance set " +
+        "uid = ?, code = ?, created = ?, lastupdated = ?, createdatclient = ?, lastupdatedatclient = ?, " +
+        "lastsynchronized = ?, duedate = ?, executiondate = ?, completedby = ?, completeddate = ?, storedby = ?, " +
+        "deleted = ?, status = ?, geometry = ST_GeomFromText(?, ?), eventdatavalues = ?, programinstanceid = ?, " +
+        "programstageid = ?, attributeoptioncomboid = ?, organisationunitid = ?, assigneduserid = ? " +
+        "where programstageinstanceid = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcTrackerBundleWriter( JdbcTemplate jdbcTemplate )
+    {
+        checkNotNull( jdbcTemplate );
+
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // -------------------------------------------------------------------------
+    // Write methods
+    // -------------------------------------------------------------------------
+
+    public void writeTrackedEntityInstances( List<TrackedEntityInstance> instances )
+    {
+        write( instances, "trackedentityinstance_sequence", INSERT_TRACKED_ENTITY_INSTANCE_SQL,
+            UPDATE_TRACKED_ENTITY_INSTANCE_SQL, ( ps, tei ) -> {
+                int i = 1;
+                ps.setString( i++, tei.getUid() );
+                ps.setString( i++, tei.getCode() );
+                ps.setTimestamp( i++, toTimestamp( tei.getCreated() ) );
+                ps.setTimestamp( i++, toTimestamp( tei.getLastUpdated() ) );
+                setId( ps, i++, tei.getLastUpdatedBy() );
+                ps.setTimestamp( i++, toTimestamp( tei.getCreatedAtClient() ) );
+                ps.setTimestamp( i++, toTimestamp( tei.getLastUpdatedAtClient() ) );
+                ps.setTimestamp( i++, toTimestamp( tei.getLastSynchronized() ) );
+                ps.setObject( i++, tei.isInactive(), Types.BOOLEAN );
+                ps.setObject( i++, tei.isDeleted(), Types.BOOLEAN );
+                i = setGeometry( ps, i, tei.getGeometry() );
+                setId( ps, i++, tei.getOrganisationUnit() );
+                setId( ps, i++, tei.getTrackedEntityType() );
+                ps.setLong( i, tei.getId() );
+            } );
+    }
+
+    public void writeProgramInstances( List<ProgramInstance> programInstances )
+    {
+        write( programInstances, "programinstance_sequence", INSERT_PROGRAM_INSTANCE_SQL,
+            UPDATE_PROGRAM_INSTANCE_SQL, ( ps, pi ) -> {
+                int i = 1;
+                ps.setString( i++, pi.getUid() );
+                ps.setTimestamp( i++, toTimestamp( pi.getCreated() ) );
+                ps.setTimestamp( i++, toTimestamp( pi.getLastUpdated() ) );
+                ps.setTimestamp( i++, toTimestamp( pi.getCreatedAtClient() ) );
+                ps.setTimestamp( i++, toTimestamp( pi.getLastUpdatedAtClient() ) );
+                ps.setTimestamp( i++, toTimestamp( pi.getIncidentDate() ) );
+                ps.setTimestamp( i++, toTimestamp( pi.getEnrollmentDate() ) );
+                ps.setTimestamp( i++, toTimestamp( pi.getEndDate() ) );
+                ps.setObject( i++, pi.getFollowup(), Types.BOOLEAN );
+                ps.setString( i++, pi.getCompletedBy() );
+                ps.setString( i++, pi.getStoredBy() );
+                ps.setObject( i++, pi.isDeleted(), Types.BOOLEAN );
+                ps.setString( i++, pi.getStatus() != null ? pi.getStatus().name() : null );
+                i = setGeometry( ps, i, pi.getGeometry() );
+                setId( ps, i++, pi.getEntityInstance() );
+                setId( ps, i++, pi.getProgram() );
+                setId( ps, i++, pi.getOrganisationUnit() );
+                ps.setLong( i, pi.getId() );
+            } );
+    }
+
+    public void writeProgramStageInstances( List<ProgramStageInstance> programStageInstances )
+    {
+        write( programStageInstances, "programstageinstance_sequence", INSERT_PROGRAM_STAGE_INSTANCE_SQL,
+            UPDATE_PROGRAM_STAGE_INSTANCE_SQL, ( ps, psi ) -> {
+                int i = 1;
+                ps.setString( i++, psi.getUid() );
+                ps.setString( i++, psi.getCode() );
+                ps.setTimestamp( i++, toTimestamp( psi.getCreated() ) );
+                ps.setTimestamp( i++, toTimestamp( psi.getLastUpdated() ) );
+                ps.setTimestamp( i++, toTimestamp( psi.getCreatedAtClient() ) );
+                ps.setTimestamp( i++, toTimestamp( psi.getLastUpdatedAtClient() ) );
+                ps.setTimestamp( i++, toTimestamp( psi.getLastSynchronized() ) );
+                ps.setTimestamp( i++, toTimestamp( psi.getDueDate() ) );
+                ps.setTimestamp( i++, toTimestamp( psi.getExecutionDate() ) );
+                ps.setString( i++, psi.getCompletedBy() );
+                ps.setTimestamp( i++, toTimestamp( psi.getCompletedDate() ) );
+                ps.setString( i++, psi.getStoredBy() );
+                ps.setBoolean( i++, psi.isDeleted() );
+                ps.setString( i++, psi.getStatus() != null ? psi.getStatus().name() : null );
+                i = setGeometry( ps, i, psi.getGeometry() );
+                ps.setObject( i++, toJsonb( psi.getEventDataValues() ) );
+                setId( ps, i++, psi.getProgramInstance() );
+                setId( ps, i++, psi.getProgramStage() );
+                setId( ps, i++, psi.getAttributeOptionCombo() );
+                setId( ps, i++, psi.getOrganisationUnit() );
+                setId( ps, i++, psi.getAssignedUser() );
+                ps.setLong( i, psi.getId() );
+            } );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Assigns identifiers to new objects and writes inserts and updates as
+     * separate batches. The identifier is always the last statement parameter.
+     */
+    private <T extends BaseIdentifiableObject> void write( List<T> objects, String sequence, String insertSql,
+        String updateSql, ParameterizedPreparedStatementSetter<T> setter )
+    {
+        List<T> inserts = new ArrayList<>();
+        List<T> updates = new ArrayList<>();
+
+        for ( T object : objects )
+        {
+            if ( object.getId() > 0 )
+            {
+                updates.add( object );
+            }
+            else
+            {
+                inserts.add( object );
+            }
+        }
+
+        assignIds( inserts, sequence );
+
+        if ( !inserts.isEmpty() )
+        {
+            jdbcTemplate.batchUpdate( insertSql, inserts, BATCH_SIZE, setter );
+        }
+
+        if ( !updates.isEmpty() )
+        {
+            jdbcTemplate.batchUpdate( updateSql, updates, BATCH_SIZE, setter );
+        }
+
+        log.debug( String.format( "Wrote %d inserts and %d updates using sequence %s",
+            inserts.size(), updates.size(), sequence ) );
+    }
+
+    private <T extends BaseIdentifiableObject> void assignIds( List<T> objects, String sequence )
+    {
+        if ( objects.isEmpty() )
+        {
+            return;
+        }
+
+        String sql = "select nextval('" + sequence + "') from generate_series(1, " + objects.size() + ")";
+
+        Iterator<Long> ids = jdbcTemplate.queryForList( sql, Long.class ).iterator();
+
+        objects.forEach( object -> object.setId( ids.next() ) );
+    }
+
+    private static void setId( PreparedStatement ps, int index, IdentifiableObject object )
+        throws SQLException
+    {
+        if ( object != null )
+        {
+            ps.setLong( index, object.getId() );
+        }
+        else
+        {
+            ps.setNull( index, Types.BIGINT );
+        }
+    }
+
+    /**
+     * Sets the geometry as well known text and spatial reference identifier,
+     * which are the arguments of ST_GeomFromText.
+     *
+     * @return the index of the next parameter.
+     */
+    private static int setGeometry( PreparedStatement ps, int index, Geometry geometry )
+        throws SQLException
+    {
+        if ( geometry != null )
+        {
+            ps.setString( index, geometry.toText() );
+            ps.setInt( index + 1, geometry.getSRID() );
+        }
+        else
+        {
+            ps.setNull( index, Types.VARCHAR );
+            ps.setNull( index + 1, Types.INTEGER );
+        }
+
+        return index + 2;
+    }
+
+    private static Timestamp toTimestamp( Date date )
+    {
+        return date != null ? new Timestamp( date.getTime() ) : null;
+    }
+
+    private static PGobject toJsonb( Set<EventDataValue> eventDataValues )
+        throws SQLException
+    {
+        Map<String, EventDataValue> dataValues = new HashMap<>();
+
+        if ( eventDataValues != null )
+        {
+            eventDataValues.forEach( dv -> dataValues.put( dv.getDataElement(), dv ) );
+        }
+
+        PGobject jsonb = new PGobject();
+        jsonb.setType( "jsonb" );
+
+        try
+        {
+            jsonb.setValue( EVENT_DATA_VALUES_WRITER.writeValueAsString( dataValues ) );
+        }
+        catch ( JsonProcessingException ex )
+        {
+            throw new IllegalArgumentException( ex );
+        }
+
+        return jsonb;
+    }
+}
@@ -34,6 +34,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hisp.dhis.tracker.AtomicMode;
+import org.hisp.dhis.tracker.CommitMode;
 import org.hisp.dhis.tracker.FlushMode;
 import org.hisp.dhis.tracker.TrackerBundleReportMode;
 import org.hisp.dhis.tracker.TrackerIdentifier;
@@ -52,7 +53,7 @@ import java.util.List;
  * @author Morten Olav Hansen <mortenoh@gmail.com>
  */
 @Data
-@Builder
+@Builder( toBuilder = true )
 @NoArgsConstructor
 @AllArgsConstructor
 public class TrackerBundle
@@ -92,6 +93,12 @@ public class TrackerBundle
     @Builder.Default
     private FlushMode flushMode = FlushMode.AUTO;
 
+    /**
+     * Write objects through the Hibernate session or with JDBC batches.
+     */
+    @Builder.Default
+    private CommitMode commitMode = CommitMode.HIBERNATE;
+
     /**
      * Validation mode to use, defaults to fully validated objects.
      */
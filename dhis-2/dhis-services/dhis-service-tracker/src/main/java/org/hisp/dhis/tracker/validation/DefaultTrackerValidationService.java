@@ -32,12 +32,19 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.tracker.ValidationMode;
 import org.hisp.dhis.tracker.bundle.TrackerBundle;
+import org.hisp.dhis.tracker.report.TrackerErrorReport;
 import org.hisp.dhis.tracker.report.TrackerValidationReport;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * @author Morten Olav Hansen <mortenoh@gmail.com>
@@ -47,8 +54,23 @@ public class DefaultTrackerValidationService implements TrackerValidationService
 {
     private static final Log log = LogFactory.getLog( DefaultTrackerValidationService.class );
 
+    /**
+     * Bundles with fewer objects per available thread are validated in the
+     * calling thread, as the partitioning overhead would outweigh the gain.
+     */
+    private static final int MIN_OBJECTS_PER_PARTITION = 500;
+
+    private final ThreadPoolTaskExecutor executor;
+
     private List<TrackerValidationHook> validationHooks = new ArrayList<>();
 
+    public DefaultTrackerValidationService( @Qualifier( "trackerValidationExecutor" ) ThreadPoolTaskExecutor executor )
+    {
+        checkNotNull( executor );
+
+        this.executor = executor;
+    }
+
     @Autowired( required = false )
     public void setValidationHooks( List<TrackerValidationHook> validationHooks )
     {
@@ -66,6 +88,14 @@ public class DefaultTrackerValidationService implements TrackerValidationService
             return validationReport;
         }
 
+        int partitions = getPartitionCount( bundle );
+
+        if ( partitions > 1 && !validationHooks.isEmpty() )
+        {
+            validateParallel( bundle, partitions ).forEach( validationReport::add );
+            return validationReport;
+        }
+
         for ( TrackerValidationHook hook : validationHooks )
         {
             validationReport.add( hook.validate( bundle ) );
@@ -78,4 +108,120 @@ public class DefaultTrackerValidationService implements TrackerValidationService
 
         return validationReport;
     }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Validates the bundle by running the hooks over independent partitions of
+     * the bundle on the shared validation executor. The preheat is shared
+     * between the partitions and must only be read by the hooks. Errors are
+     * returned per hook in hook order, and per partition in partition order,
+     * which keeps the report deterministic for a given bundle.
+     *
+     * @param bundle the bundle to validate.
+     * @param partitions the number of partitions.
+     * @return a list of errors per hook.
+     */
+    private List<List<TrackerErrorReport>> validateParallel( TrackerBundle bundle, int partitions )
+    {
+        List<TrackerBundle> bundles = TrackerBundlePartitioner.partition( bundle, partitions );
+        boolean failFast = ValidationMode.FAIL_FAST == bundle.getValidationMode();
+
+        List<Future<List<List<TrackerErrorReport>>>> futures = new ArrayList<>();
+
+        try
+        {
+            for ( TrackerBundle partition : bundles )
+            {
+                futures.add( executor.submit( () -> validatePartition( partition, failFast ) ) );
+            }
+
+            List<List<TrackerErrorReport>> errors = new ArrayList<>();
+
+            for ( int i = 0; i < validationHooks.size(); i++ )
+            {
+                errors.add( new ArrayList<>() );
+            }
+
+            for ( Future<List<List<TrackerErrorReport>>> future : futures )
+            {
+                List<List<TrackerErrorReport>> partitionErrors = future.get();
+
+                for ( int i = 0; i < partitionErrors.size(); i++ )
+                {
+                    errors.get( i ).addAll( partitionErrors.get( i ) );
+                }
+            }
+
+            if ( failFast )
+            {
+                // Keep the errors of the first failing hook only, like the sequential validation
+
+                for ( int i = 0; i < errors.size(); i++ )
+                {
+                    if ( !errors.get( i ).isEmpty() )
+                    {
+                        return errors.subList( 0, i + 1 );
+                    }
+                }
+            }
+
+            return errors;
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "Tracker validation was interrupted", ex );
+        }
+        catch ( ExecutionException ex )
+        {
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw new IllegalStateException( "Tracker validation failed", ex.getCause() );
+        }
+        finally
+        {
+            futures.forEach( future -> future.cancel( true ) );
+        }
+    }
+
+    private List<List<TrackerErrorReport>> validatePartition( TrackerBundle bundle, boolean failFast )
+    {
+        List<List<TrackerErrorReport>> errors = new ArrayList<>();
+
+        for ( TrackerValidationHook hook : validationHooks )
+        {
+            List<TrackerErrorReport> hookErrors = hook.validate( bundle );
+            errors.add( hookErrors );
+
+            if ( failFast && !hookErrors.isEmpty() )
+            {
+                break;
+            }
+        }
+
+        return errors;
+    }
+
+    /**
+     * Determines how many partitions the bundle should be validated in, based
+     * on the size of the validation executor and the number of objects in the
+     * bundle.
+     *
+     * @param bundle the bundle.
+     * @return the number of partitions, 1 for sequential validation.
+     */
+    private int getPartitionCount( TrackerBundle bundle )
+    {
+        int threadPoolSize = executor.getMaxPoolSize();
+
+        int objects = bundle.getTrackedEntities().size() + bundle.getEnrollments().size() + bundle.getEvents().size();
+
+        return Math.max( 1, Math.min( threadPoolSize, objects / MIN_OBJECTS_PER_PARTITION ) );
+    }
 }
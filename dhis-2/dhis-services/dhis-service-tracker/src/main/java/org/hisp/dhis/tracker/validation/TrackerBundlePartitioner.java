@@ -0,0 +1,166 @@
+package org.hisp.dhis.tracker.validation;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.tracker.bundle.TrackerBundle;
+import org.hisp.dhis.tracker.domain.Enrollment;
+import org.hisp.dhis.tracker.domain.Event;
+import org.hisp.dhis.tracker.domain.TrackedEntity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Splits a tracker bundle into independent partitions which can be validated
+ * concurrently. Objects belonging to the same tracked entity instance, i.e. the
+ * tracked entity, its enrollments and its events, always end up in the same
+ * partition. Partitions share the user, modes and the preheat of the original
+ * bundle, and keep the original order of the objects they contain. Objects
+ * without identifiers form groups of their own.
+ */
+final class TrackerBundlePartitioner
+{
+    private TrackerBundlePartitioner()
+    {
+        throw new UnsupportedOperationException( "util" );
+    }
+
+    /**
+     * Partitions the given bundle into at most the given number of bundles.
+     * Groups of related objects are assigned to partitions in round robin
+     * order of first appearance, which makes the result deterministic for a
+     * given bundle.
+     *
+     * @param bundle the bundle to partition.
+     * @param partitions the maximum number of partitions.
+     * @return a list of non-empty bundles.
+     */
+    static List<TrackerBundle> partition( TrackerBundle bundle, int partitions )
+    {
+        checkNotNull( bundle );
+        checkArgument( partitions > 0, "Number of partitions must be positive" );
+
+        Map<String, String> enrollmentKeys = new HashMap<>();
+
+        for ( Enrollment enrollment : bundle.getEnrollments() )
+        {
+            if ( StringUtils.isNotEmpty( enrollment.getEnrollment() ) && StringUtils.isNotEmpty( getKey( enrollment ) ) )
+            {
+                enrollmentKeys.put( enrollment.getEnrollment(), getKey( enrollment ) );
+            }
+        }
+
+        Map<String, Integer> assignments = new HashMap<>();
+        List<Partition> result = new ArrayList<>();
+
+        for ( TrackedEntity trackedEntity : bundle.getTrackedEntities() )
+        {
+            String key = StringUtils.defaultIfEmpty( trackedEntity.getTrackedEntity(), "#" + assignments.size() );
+            getPartition( key, assignments, result, partitions ).trackedEntities.add( trackedEntity );
+        }
+
+        for ( Enrollment enrollment : bundle.getEnrollments() )
+        {
+            String key = StringUtils.defaultIfEmpty( getKey( enrollment ), "#" + assignments.size() );
+            getPartition( key, assignments, result, partitions ).enrollments.add( enrollment );
+        }
+
+        for ( Event event : bundle.getEvents() )
+        {
+            String key = StringUtils.defaultIfEmpty( getKey( event, enrollmentKeys ), "#" + assignments.size() );
+            getPartition( key, assignments, result, partitions ).events.add( event );
+        }
+
+        List<TrackerBundle> bundles = new ArrayList<>( result.size() );
+
+        for ( Partition partition : result )
+        {
+            bundles.add( bundle.toBuilder()
+                .trackedEntities( partition.trackedEntities )
+                .enrollments( partition.enrollments )
+                .events( partition.events )
+                .build() );
+        }
+
+        return bundles;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private static String getKey( Enrollment enrollment )
+    {
+        return StringUtils.isNotEmpty( enrollment.getTrackedEntityInstance() ) ?
+            enrollment.getTrackedEntityInstance() : enrollment.getEnrollment();
+    }
+
+    private static String getKey( Event event, Map<String, String> enrollmentKeys )
+    {
+        if ( StringUtils.isNotEmpty( event.getTrackedEntityInstance() ) )
+        {
+            return event.getTrackedEntityInstance();
+        }
+
+        if ( StringUtils.isNotEmpty( event.getEnrollment() ) )
+        {
+            return enrollmentKeys.getOrDefault( event.getEnrollment(), event.getEnrollment() );
+        }
+
+        return StringUtils.isNotEmpty( event.getEvent() ) ? event.getEvent() : event.getUid();
+    }
+
+    private static Partition getPartition( String key, Map<String, Integer> assignments, List<Partition> result, int partitions )
+    {
+        int index = assignments.computeIfAbsent( key, k -> assignments.size() % partitions );
+
+        if ( index == result.size() )
+        {
+            result.add( new Partition() );
+        }
+
+        return result.get( index );
+    }
+
+    private static class Partition
+    {
+        private final List<TrackedEntity> trackedEntities = new ArrayList<>();
+
+        private final List<Enrollment> enrollments = new ArrayList<>();
+
+        private final List<Event> events = new ArrayList<>();
+    }
+}
@@ -39,6 +39,16 @@ import java.util.List;
  */
 public interface TrackerValidationHook extends Ordered
 {
+    /**
+     * Validates the objects of the given bundle. Large bundles are split into
+     * partitions per tracked entity instance which are validated concurrently,
+     * so implementations must be thread-safe, must only read from the shared
+     * preheat and must not rely on objects outside of the given bundle other
+     * than through the preheat.
+     *
+     * @param bundle the bundle, or a partition of it.
+     * @return a list of errors, empty if the bundle is valid.
+     */
     List<TrackerErrorReport> validate( TrackerBundle bundle );
 
     @Override
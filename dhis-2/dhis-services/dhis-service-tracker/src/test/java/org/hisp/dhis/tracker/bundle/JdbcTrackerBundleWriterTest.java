@@ -0,0 +1,124 @@
+package org.hisp.dhis.tracker.bundle;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.trackedentity.TrackedEntityInstance;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+public class JdbcTrackerBundleWriterTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Captor
+    private ArgumentCaptor<String> sql;
+
+    private JdbcTrackerBundleWriter subject;
+
+    @Before
+    public void setUp()
+    {
+        subject = new JdbcTrackerBundleWriter( jdbcTemplate );
+    }
+
+    @Test
+    public void verifyNewObjectsAreInsertedWithSequenceIds()
+    {
+        when( jdbcTemplate.queryForList( sql.capture(), eq( Long.class ) ) ).thenReturn( Arrays.asList( 11L, 12L ) );
+
+        TrackedEntityInstance teiA = new TrackedEntityInstance();
+        TrackedEntityInstance teiB = new TrackedEntityInstance();
+
+        subject.writeTrackedEntityInstances( Arrays.asList( teiA, teiB ) );
+
+        assertEquals( "select nextval('trackedentityinstance_sequence') from generate_series(1, 2)", sql.getValue() );
+        assertEquals( 11L, teiA.getId() );
+        assertEquals( 12L, teiB.getId() );
+
+        verifyBatch( 1, "insert into trackedentityinstance", 2 );
+    }
+
+    @Test
+    public void verifyPreheatedObjectsAreUpdated()
+    {
+        ProgramStageInstance psi = new ProgramStageInstance();
+        psi.setId( 42L );
+
+        subject.writeProgramStageInstances( Collections.singletonList( psi ) );
+
+        verify( jdbcTemplate, never() ).queryForList( any( String.class ), eq( Long.class ) );
+
+        List<String> statements = verifyBatch( 1, "update programstageinstance", 1 );
+        assertThat( statements.get( 0 ), containsString( "eventdatavalues = ?" ) );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private List<String> verifyBatch( int count, String prefix, int size )
+    {
+        ArgumentCaptor<List<Object>> objects = ArgumentCaptor.forClass( List.class );
+
+        verify( jdbcTemplate, times( count ) ).batchUpdate( sql.capture(), objects.capture(), anyInt(),
+            any( ParameterizedPreparedStatementSetter.class ) );
+
+        assertThat( sql.getValue(), startsWith( prefix ) );
+        assertEquals( size, objects.getValue().size() );
+
+        return sql.getAllValues();
+    }
+}
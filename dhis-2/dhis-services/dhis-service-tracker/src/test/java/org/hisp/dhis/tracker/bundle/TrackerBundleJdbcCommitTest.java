@@ -0,0 +1,203 @@
+package org.hisp.dhis.tracker.bundle;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundle;
+import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundleMode;
+import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundleParams;
+import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundleService;
+import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundleValidationService;
+import org.hisp.dhis.dxf2.metadata.objectbundle.feedback.ObjectBundleValidationReport;
+import org.hisp.dhis.eventdatavalue.EventDataValue;
+import org.hisp.dhis.importexport.ImportStrategy;
+import org.hisp.dhis.program.ProgramInstance;
+import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.program.ProgramStatus;
+import org.hisp.dhis.render.RenderFormat;
+import org.hisp.dhis.render.RenderService;
+import org.hisp.dhis.trackedentity.TrackedEntityInstance;
+import org.hisp.dhis.tracker.CommitMode;
+import org.hisp.dhis.tracker.TrackerImportStrategy;
+import org.hisp.dhis.tracker.TrackerType;
+import org.hisp.dhis.tracker.report.TrackerBundleReport;
+import org.hisp.dhis.user.UserService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Imports a tracked entity instance with an enrollment and an event through
+ * {@link DefaultTrackerBundleService} in {@link CommitMode#JDBC} and reads
+ * them back. Runs against PostgreSQL, as the JDBC writer draws identifiers
+ * from sequences and writes event data values as jsonb.
+ */
+public class TrackerBundleJdbcCommitTest
+    extends IntegrationTestBase
+{
+    @Autowired
+    private ObjectBundleService objectBundleService;
+
+    @Autowired
+    private ObjectBundleValidationService objectBundleValidationService;
+
+    @Autowired
+    private RenderService _renderService;
+
+    @Autowired
+    private UserService _userService;
+
+    @Autowired
+    private TrackerBundleService trackerBundleService;
+
+    @Autowired
+    private IdentifiableObjectManager manager;
+
+    @Override
+    protected void setUpTest() throws IOException
+    {
+        renderService = _renderService;
+        userService = _userService;
+
+        Map<Class<? extends IdentifiableObject>, List<IdentifiableObject>> metadata = renderService.fromMetadata(
+            new ClassPathResource( "tracker/tracker_basic_metadata.json" ).getInputStream(), RenderFormat.JSON );
+
+        ObjectBundleParams params = new ObjectBundleParams();
+        params.setObjectBundleMode( ObjectBundleMode.COMMIT );
+        params.setImportStrategy( ImportStrategy.CREATE );
+        params.setObjects( metadata );
+
+        ObjectBundle bundle = objectBundleService.create( params );
+        ObjectBundleValidationReport validationReport = objectBundleValidationService.validate( bundle );
+        assertTrue( validationReport.getErrorReports().isEmpty() );
+
+        objectBundleService.commit( bundle );
+    }
+
+    @Test
+    public void testJdbcCommit() throws IOException
+    {
+        TrackerBundle trackerBundle = renderService.fromJson( new ClassPathResource( "tracker/trackedentity_enrollment_event_data.json" ).getInputStream(),
+            TrackerBundleParams.class ).toTrackerBundle();
+
+        List<TrackerBundle> trackerBundles = trackerBundleService.create( TrackerBundleParams.builder()
+            .commitMode( CommitMode.JDBC )
+            .trackedEntities( trackerBundle.getTrackedEntities() )
+            .enrollments( trackerBundle.getEnrollments() )
+            .events( trackerBundle.getEvents() )
+            .build() );
+
+        assertEquals( 1, trackerBundles.size() );
+        assertEquals( CommitMode.JDBC, trackerBundles.get( 0 ).getCommitMode() );
+
+        TrackerBundleReport report = trackerBundleService.commit( trackerBundles.get( 0 ) );
+
+        assertEquals( 1, report.getTypeReportMap().get( TrackerType.TRACKED_ENTITY ).getObjectReports().size() );
+        assertEquals( 1, report.getTypeReportMap().get( TrackerType.ENROLLMENT ).getObjectReports().size() );
+        assertEquals( 1, report.getTypeReportMap().get( TrackerType.EVENT ).getObjectReports().size() );
+
+        TrackedEntityInstance trackedEntityInstance = manager.get( TrackedEntityInstance.class, "IOR1AXXl24H" );
+
+        assertNotNull( trackedEntityInstance );
+        assertEquals( "bPJ0FMtcnEh", trackedEntityInstance.getTrackedEntityType().getUid() );
+        assertEquals( "QfUVllTs6cS", trackedEntityInstance.getOrganisationUnit().getUid() );
+
+        ProgramInstance programInstance = manager.get( ProgramInstance.class, "TvctPPhpD8z" );
+
+        assertNotNull( programInstance );
+        assertEquals( "E8o1E9tAppy", programInstance.getProgram().getUid() );
+        assertEquals( trackedEntityInstance.getId(), programInstance.getEntityInstance().getId() );
+        assertEquals( ProgramStatus.ACTIVE, programInstance.getStatus() );
+
+        ProgramStageInstance programStageInstance = manager.get( ProgramStageInstance.class, "ZwwuwNp6gVd" );
+
+        assertNotNull( programStageInstance );
+        assertEquals( "Qmqxq907VNz", programStageInstance.getProgramStage().getUid() );
+        assertEquals( programInstance.getId(), programStageInstance.getProgramInstance().getId() );
+        assertEquals( "HllvX50cXC0", programStageInstance.getAttributeOptionCombo().getUid() );
+        assertEquals( 1, programStageInstance.getEventDataValues().size() );
+
+        EventDataValue eventDataValue = programStageInstance.getEventDataValues().iterator().next();
+
+        assertEquals( "NXzX9s90nT3", eventDataValue.getDataElement() );
+        assertEquals( "10", eventDataValue.getValue() );
+    }
+
+    @Test
+    public void testJdbcCommitUpdate() throws IOException
+    {
+        commit( TrackerImportStrategy.CREATE );
+
+        long trackedEntityInstanceId = manager.get( TrackedEntityInstance.class, "IOR1AXXl24H" ).getId();
+        long programInstanceId = manager.get( ProgramInstance.class, "TvctPPhpD8z" ).getId();
+
+        TrackerBundleReport report = commit( TrackerImportStrategy.UPDATE );
+
+        assertEquals( 1, report.getTypeReportMap().get( TrackerType.TRACKED_ENTITY ).getObjectReports().size() );
+        assertEquals( 1, report.getTypeReportMap().get( TrackerType.ENROLLMENT ).getObjectReports().size() );
+
+        assertEquals( trackedEntityInstanceId, manager.get( TrackedEntityInstance.class, "IOR1AXXl24H" ).getId() );
+        assertEquals( programInstanceId, manager.get( ProgramInstance.class, "TvctPPhpD8z" ).getId() );
+    }
+
+    @Override
+    public boolean emptyDatabaseAfterTest()
+    {
+        return true;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private TrackerBundleReport commit( TrackerImportStrategy importStrategy ) throws IOException
+    {
+        TrackerBundle trackerBundle = renderService.fromJson( new ClassPathResource( "tracker/trackedentity_enrollment_event_data.json" ).getInputStream(),
+            TrackerBundleParams.class ).toTrackerBundle();
+
+        List<TrackerBundle> trackerBundles = trackerBundleService.create( TrackerBundleParams.builder()
+            .commitMode( CommitMode.JDBC )
+            .importStrategy( importStrategy )
+            .trackedEntities( trackerBundle.getTrackedEntities() )
+            .enrollments( trackerBundle.getEnrollments() )
+            .build() );
+
+        return trackerBundleService.commit( trackerBundles.get( 0 ) );
+    }
+}
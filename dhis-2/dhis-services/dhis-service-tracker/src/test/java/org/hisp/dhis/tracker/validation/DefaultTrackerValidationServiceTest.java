@@ -0,0 +1,206 @@
+package org.hisp.dhis.tracker.validation;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.tracker.TrackerErrorCode;
+import org.hisp.dhis.tracker.ValidationMode;
+import org.hisp.dhis.tracker.bundle.TrackerBundle;
+import org.hisp.dhis.tracker.domain.TrackedEntity;
+import org.hisp.dhis.tracker.report.TrackerErrorReport;
+import org.hisp.dhis.tracker.report.TrackerValidationReport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class DefaultTrackerValidationServiceTest
+{
+    private ThreadPoolTaskExecutor executor;
+
+    private DefaultTrackerValidationService validationService;
+
+    @Before
+    public void setUp()
+    {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize( 2 );
+        executor.setMaxPoolSize( 2 );
+        executor.initialize();
+
+        validationService = new DefaultTrackerValidationService( executor );
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testValidateParallelMergesErrorsInHookAndPartitionOrder()
+    {
+        validationService.setValidationHooks( Arrays.asList(
+            new ErrorHook( "A", trackedEntity -> true ),
+            new ErrorHook( "B", trackedEntity -> trackedEntity.endsWith( "0" ) ) ) );
+
+        TrackerBundle bundle = createBundle( 1000, ValidationMode.FULL );
+
+        TrackerValidationReport report = validationService.validate( bundle );
+
+        // Tracked entities are assigned to the two partitions round robin
+
+        List<String> expected = new ArrayList<>();
+        expected.addAll( errors( "A", 0, 1000, trackedEntity -> true ) );
+        expected.addAll( errors( "A", 1, 1000, trackedEntity -> true ) );
+        expected.addAll( errors( "B", 0, 1000, trackedEntity -> trackedEntity.endsWith( "0" ) ) );
+        expected.addAll( errors( "B", 1, 1000, trackedEntity -> trackedEntity.endsWith( "0" ) ) );
+
+        assertEquals( expected, mainIds( report ) );
+    }
+
+    @Test
+    public void testValidateParallelFailFast()
+    {
+        ErrorHook hookA = new ErrorHook( "A", trackedEntity -> trackedEntity.equals( "te1" ) );
+        ErrorHook hookB = new ErrorHook( "B", trackedEntity -> true );
+        ErrorHook hookC = new ErrorHook( "C", trackedEntity -> true );
+
+        validationService.setValidationHooks( Arrays.asList( hookA, hookB, hookC ) );
+
+        TrackerBundle bundle = createBundle( 1000, ValidationMode.FAIL_FAST );
+
+        TrackerValidationReport report = validationService.validate( bundle );
+
+        // Only the errors of the first failing hook are kept, and the failing
+        // partition does not run the subsequent hooks
+
+        assertEquals( Arrays.asList( "A:te1" ), mainIds( report ) );
+        assertEquals( 2, hookA.getInvocations() );
+        assertEquals( 1, hookB.getInvocations() );
+        assertEquals( 0, hookC.getInvocations() );
+    }
+
+    @Test
+    public void testValidateSmallBundleSequentially()
+    {
+        ErrorHook hookA = new ErrorHook( "A", trackedEntity -> true );
+
+        validationService.setValidationHooks( Arrays.asList( hookA ) );
+
+        TrackerValidationReport report = validationService.validate( createBundle( 3, ValidationMode.FULL ) );
+
+        assertEquals( Arrays.asList( "A:te0", "A:te1", "A:te2" ), mainIds( report ) );
+        assertEquals( 1, hookA.getInvocations() );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private static TrackerBundle createBundle( int size, ValidationMode validationMode )
+    {
+        return TrackerBundle.builder()
+            .validationMode( validationMode )
+            .trackedEntities( IntStream.range( 0, size )
+                .mapToObj( i -> TrackedEntity.builder().trackedEntity( "te" + i ).build() )
+                .collect( Collectors.toList() ) )
+            .build();
+    }
+
+    /**
+     * Returns the expected errors of the given hook for the given partition
+     * out of two partitions.
+     */
+    private static List<String> errors( String hook, int partition, int size, Predicate<String> failing )
+    {
+        return IntStream.range( 0, size )
+            .filter( i -> i % 2 == partition )
+            .mapToObj( i -> "te" + i )
+            .filter( failing )
+            .map( trackedEntity -> hook + ":" + trackedEntity )
+            .collect( Collectors.toList() );
+    }
+
+    private static List<String> mainIds( TrackerValidationReport report )
+    {
+        return report.getErrorReports().stream()
+            .map( TrackerErrorReport::getMainId )
+            .collect( Collectors.toList() );
+    }
+
+    /**
+     * Reports an error for each failing tracked entity of the bundle.
+     */
+    private static class ErrorHook
+        implements TrackerValidationHook
+    {
+        private final String name;
+
+        private final Predicate<String> failing;
+
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        ErrorHook( String name, Predicate<String> failing )
+        {
+            this.name = name;
+            this.failing = failing;
+        }
+
+        @Override
+        public List<TrackerErrorReport> validate( TrackerBundle bundle )
+        {
+            invocations.incrementAndGet();
+
+            return bundle.getTrackedEntities().stream()
+                .map( TrackedEntity::getTrackedEntity )
+                .filter( failing )
+                .map( trackedEntity -> {
+                    TrackerErrorReport errorReport = new TrackerErrorReport( TrackedEntity.class, TrackerErrorCode.NONE );
+                    errorReport.setMainId( name + ":" + trackedEntity );
+                    return errorReport;
+                } )
+                .collect( Collectors.toList() );
+        }
+
+        int getInvocations()
+        {
+            return invocations.get();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.hisp.dhis.tracker.validation;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.tracker.ValidationMode;
+import org.hisp.dhis.tracker.bundle.TrackerBundle;
+import org.hisp.dhis.tracker.domain.Enrollment;
+import org.hisp.dhis.tracker.domain.Event;
+import org.hisp.dhis.tracker.domain.TrackedEntity;
+import org.hisp.dhis.tracker.preheat.TrackerPreheat;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class TrackerBundlePartitionerTest
+{
+    @Test
+    public void testPartitionByTrackedEntity()
+    {
+        TrackerPreheat preheat = new TrackerPreheat();
+
+        TrackerBundle bundle = TrackerBundle.builder()
+            .validationMode( ValidationMode.FAIL_FAST )
+            .preheat( preheat )
+            .trackedEntities( Arrays.asList(
+                TrackedEntity.builder().trackedEntity( "teA" ).build(),
+                TrackedEntity.builder().trackedEntity( "teB" ).build(),
+                TrackedEntity.builder().trackedEntity( "teC" ).build() ) )
+            .enrollments( Arrays.asList(
+                Enrollment.builder().enrollment( "enC" ).trackedEntityInstance( "teC" ).build(),
+                Enrollment.builder().enrollment( "enA" ).trackedEntityInstance( "teA" ).build() ) )
+            .events( Arrays.asList(
+                Event.builder().event( "ev1" ).enrollment( "enA" ).build(),
+                Event.builder().event( "ev2" ).trackedEntityInstance( "teB" ).build(),
+                Event.builder().event( "ev3" ).enrollment( "enC" ).build(),
+                Event.builder().event( "ev4" ).build() ) )
+            .build();
+
+        List<TrackerBundle> partitions = TrackerBundlePartitioner.partition( bundle, 2 );
+
+        assertEquals( 2, partitions.size() );
+
+        TrackerBundle first = partitions.get( 0 );
+        TrackerBundle second = partitions.get( 1 );
+
+        assertSame( preheat, first.getPreheat() );
+        assertSame( preheat, second.getPreheat() );
+        assertEquals( ValidationMode.FAIL_FAST, first.getValidationMode() );
+
+        assertEquals( Arrays.asList( "teA", "teC" ), trackedEntities( first ) );
+        assertEquals( Arrays.asList( "teB" ), trackedEntities( second ) );
+
+        assertEquals( 2, first.getEnrollments().size() );
+        assertEquals( "enC", first.getEnrollments().get( 0 ).getEnrollment() );
+        assertEquals( "enA", first.getEnrollments().get( 1 ).getEnrollment() );
+        assertTrue( second.getEnrollments().isEmpty() );
+
+        assertEquals( 2, first.getEvents().size() );
+        assertEquals( "ev1", first.getEvents().get( 0 ).getEvent() );
+        assertEquals( "ev3", first.getEvents().get( 1 ).getEvent() );
+        assertEquals( 2, second.getEvents().size() );
+        assertEquals( "ev2", second.getEvents().get( 0 ).getEvent() );
+        assertEquals( "ev4", second.getEvents().get( 1 ).getEvent() );
+    }
+
+    @Test
+    public void testPartitionSmallBundle()
+    {
+        TrackerBundle bundle = TrackerBundle.builder()
+            .trackedEntities( Arrays.asList( TrackedEntity.builder().trackedEntity( "teA" ).build() ) )
+            .build();
+
+        List<TrackerBundle> partitions = TrackerBundlePartitioner.partition( bundle, 4 );
+
+        assertEquals( 1, partitions.size() );
+        assertEquals( Arrays.asList( "teA" ), trackedEntities( partitions.get( 0 ) ) );
+    }
+
+    private static List<String> trackedEntities( TrackerBundle bundle )
+    {
+        return bundle.getTrackedEntities().stream()
+            .map( TrackedEntity::getTrackedEntity )
+            .collect( Collectors.toList() );
+    }
+}
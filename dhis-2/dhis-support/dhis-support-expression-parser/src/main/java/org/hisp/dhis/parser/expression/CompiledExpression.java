@@ -0,0 +1,229 @@
+package org.hisp.dhis.parser.expression;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.parser.expression.antlr.ExpressionParser.ExprContext;
+import static org.hisp.dhis.parser.expression.antlr.ExpressionParser.ExpressionContext;
+import static org.hisp.dhis.parser.expression.antlr.ExpressionParser.ItemContext;
+import static org.hisp.dhis.parser.expression.antlr.ExpressionParser.NumericLiteralContext;
+
+import java.util.Map;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.hisp.dhis.parser.expression.operator.OperatorGroupingParentheses;
+import org.hisp.dhis.parser.expression.operator.OperatorMathDivide;
+import org.hisp.dhis.parser.expression.operator.OperatorMathMinus;
+import org.hisp.dhis.parser.expression.operator.OperatorMathModulus;
+import org.hisp.dhis.parser.expression.operator.OperatorMathMultiply;
+import org.hisp.dhis.parser.expression.operator.OperatorMathPlus;
+import org.hisp.dhis.parser.expression.operator.OperatorMathPower;
+
+/**
+ * Numeric expression compiled from an ANTLR4 parse tree into a tree of
+ * evaluation nodes using primitive double arithmetic. The parse tree is
+ * walked and the function and item dispatch is resolved once at compile
+ * time, instead of at every evaluation.
+ * <p/>
+ * Only expressions consisting of numeric literals, parentheses, the
+ * arithmetic operators and items which support compilation are compiled.
+ * Items still read their values through the visitor, so that missing
+ * values are handled and counted the same way as when visiting.
+ */
+public class CompiledExpression
+{
+    /**
+     * Node in a compiled expression.
+     */
+    @FunctionalInterface
+    public interface Node
+    {
+        /**
+         * Evaluates the node.
+         *
+         * @param visitor the visitor holding the values to use.
+         * @return the value of the node.
+         */
+        double evaluate( CommonExpressionVisitor visitor );
+    }
+
+    private final Node root;
+
+    private CompiledExpression( Node root )
+    {
+        this.root = root;
+    }
+
+    /**
+     * Evaluates the compiled expression.
+     *
+     * @param visitor the visitor holding the item values, constants,
+     *        organisation unit group counts and missing value counts.
+     * @return the expression value.
+     */
+    public double evaluate( CommonExpressionVisitor visitor )
+    {
+        return root.evaluate( visitor );
+    }
+
+    // -------------------------------------------------------------------------
+    // Compilation
+    // -------------------------------------------------------------------------
+
+    /**
+     * Compiles a parse tree.
+     *
+     * @param parseTree the parse tree.
+     * @param functionMap the functions supported for the expression type.
+     * @param itemMap the items supported for the expression type.
+     * @return the compiled expression, or null if the parse tree contains
+     *         elements which can not be compiled.
+     */
+    public static CompiledExpression compile( ParseTree parseTree, Map<Integer, ExprFunction> functionMap,
+        Map<Integer, ExprItem> itemMap )
+    {
+        Node root = compileNode( parseTree, functionMap, itemMap );
+
+        return root != null ? new CompiledExpression( root ) : null;
+    }
+
+    private static Node compileNode( ParseTree tree, Map<Integer, ExprFunction> functionMap,
+        Map<Integer, ExprItem> itemMap )
+    {
+        if ( tree instanceof ExpressionContext )
+        {
+            return compileNode( ((ExpressionContext) tree).expr(), functionMap, itemMap );
+        }
+
+        if ( tree instanceof ExprContext )
+        {
+            ExprContext ctx = (ExprContext) tree;
+
+            if ( ctx.fun != null )
+            {
+                return compileFunction( ctx, functionMap, itemMap );
+            }
+
+            if ( ctx.expr().size() > 0 )
+            {
+                return compileNode( ctx.expr( 0 ), functionMap, itemMap );
+            }
+
+            return compileNode( ctx.getChild( 0 ), functionMap, itemMap );
+        }
+
+        if ( tree instanceof NumericLiteralContext )
+        {
+            final double value = Double.parseDouble( tree.getText() );
+
+            return visitor -> value;
+        }
+
+        if ( tree instanceof ItemContext )
+        {
+            ItemContext ctx = (ItemContext) tree;
+
+            ExprItem item = itemMap.get( ctx.it.getType() );
+
+            return item != null ? item.compile( ctx ) : null;
+        }
+
+        return null;
+    }
+
+    private static Node compileFunction( ExprContext ctx, Map<Integer, ExprFunction> functionMap,
+        Map<Integer, ExprItem> itemMap )
+    {
+        ExprFunction function = functionMap.get( ctx.fun.getType() );
+
+        if ( function == null || ctx.expr().isEmpty() || ctx.expr().size() > 2 )
+        {
+            return null;
+        }
+
+        final Node left = compileNode( ctx.expr( 0 ), functionMap, itemMap );
+
+        if ( left == null )
+        {
+            return null;
+        }
+
+        if ( function instanceof OperatorGroupingParentheses )
+        {
+            return left;
+        }
+
+        if ( ctx.expr().size() == 1 )
+        {
+            if ( function instanceof OperatorMathPlus )
+            {
+                return left;
+            }
+            else if ( function instanceof OperatorMathMinus )
+            {
+                return visitor -> -left.evaluate( visitor );
+            }
+
+            return null;
+        }
+
+        final Node right = compileNode( ctx.expr( 1 ), functionMap, itemMap );
+
+        if ( right == null )
+        {
+            return null;
+        }
+
+        if ( function instanceof OperatorMathPlus )
+        {
+            return visitor -> left.evaluate( visitor ) + right.evaluate( visitor );
+        }
+        else if ( function instanceof OperatorMathMinus )
+        {
+            return visitor -> left.evaluate( visitor ) - right.evaluate( visitor );
+        }
+        else if ( function instanceof OperatorMathMultiply )
+        {
+            return visitor -> left.evaluate( visitor ) * right.evaluate( visitor );
+        }
+        else if ( function instanceof OperatorMathDivide )
+        {
+            return visitor -> left.evaluate( visitor ) / right.evaluate( visitor );
+        }
+        else if ( function instanceof OperatorMathModulus )
+        {
+            return visitor -> left.evaluate( visitor ) % right.evaluate( visitor );
+        }
+        else if ( function instanceof OperatorMathPower )
+        {
+            return visitor -> Math.pow( left.evaluate( visitor ), right.evaluate( visitor ) );
+        }
+
+        return null;
+    }
+}
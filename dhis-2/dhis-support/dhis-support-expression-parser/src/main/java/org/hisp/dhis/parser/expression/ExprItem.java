@@ -95,4 +95,13 @@ public interface ExprItem
      * @return the regenerated expression (as a String) for the function
      */
     Object regenerate( ItemContext ctx, CommonExpressionVisitor visitor );
+
+    /**
+     * Compiles the item into a node returning the numeric item value
+     * (applies to expression service items).
+     *
+     * @param ctx the expression context
+     * @return the compiled node, or null if the item can not be compiled
+     */
+    CompiledExpression.Node compile( ItemContext ctx );
 }
@@ -40,6 +40,7 @@ import org.hisp.dhis.parser.expression.antlr.ExpressionBaseVisitor;
 import org.hisp.dhis.parser.expression.antlr.ExpressionLexer;
 import org.hisp.dhis.parser.expression.antlr.ExpressionParser;
 
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -91,6 +92,22 @@ public class Parser
         walker.walk( listener, parseTree );
     }
 
+    /**
+     * Parses an expression and compiles it for repeated numeric evaluation.
+     *
+     * @param expr the expression to parse and compile
+     * @param functionMap the functions supported for the expression type
+     * @param itemMap the items supported for the expression type
+     * @return the compiled expression, or null if it can not be compiled
+     */
+    public static CompiledExpression compile( String expr, Map<Integer, ExprFunction> functionMap,
+        Map<Integer, ExprItem> itemMap )
+    {
+        ParseTree parseTree = getParseTree( expr );
+
+        return CompiledExpression.compile( parseTree, functionMap, itemMap );
+    }
+
     // -------------------------------------------------------------------------
     // Supportive methods
     // -------------------------------------------------------------------------
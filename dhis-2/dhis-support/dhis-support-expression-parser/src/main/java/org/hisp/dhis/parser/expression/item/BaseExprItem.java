@@ -29,6 +29,7 @@ package org.hisp.dhis.parser.expression.item;
  */
 
 import org.hisp.dhis.parser.expression.CommonExpressionVisitor;
+import org.hisp.dhis.parser.expression.CompiledExpression;
 import org.hisp.dhis.parser.expression.ExprItem;
 
 import static org.hisp.dhis.parser.expression.antlr.ExpressionParser.ItemContext;
@@ -46,4 +47,10 @@ public abstract class BaseExprItem
     {
         return ctx.getText();
     }
+
+    @Override
+    public CompiledExpression.Node compile( ItemContext ctx )
+    {
+        return null;
+    }
 }
@@ -30,6 +30,7 @@ package org.hisp.dhis.parser.expression.item;
 
 import org.hisp.dhis.constant.Constant;
 import org.hisp.dhis.parser.expression.CommonExpressionVisitor;
+import org.hisp.dhis.parser.expression.CompiledExpression;
 import org.hisp.dhis.parser.expression.ParserExceptionWithoutContext;
 
 import static org.hisp.dhis.parser.expression.ParserUtils.DOUBLE_VALUE_IF_NULL;
@@ -108,4 +109,21 @@ public class ItemConstant
 
         return Double.valueOf( constant.getValue() ).toString();
     }
+
+    @Override
+    public CompiledExpression.Node compile( ItemContext ctx )
+    {
+        final String uid = ctx.uid0.getText();
+
+        return visitor -> {
+            Constant constant = visitor.getConstantMap().get( uid );
+
+            if ( constant == null ) // Shouldn't happen for a valid expression.
+            {
+                throw new ParserExceptionWithoutContext( "Can't find constant to evaluate " + uid );
+            }
+
+            return constant.getValue();
+        };
+    }
 }
@@ -33,6 +33,8 @@ import static org.hisp.dhis.external.conf.ConfigurationKey.CONNECTION_PASSWORD;
 import static org.hisp.dhis.external.conf.ConfigurationKey.CONNECTION_POOL_MAX_SIZE;
 import static org.hisp.dhis.external.conf.ConfigurationKey.CONNECTION_URL;
 import static org.hisp.dhis.external.conf.ConfigurationKey.CONNECTION_USERNAME;
+import static org.hisp.dhis.external.conf.ConfigurationKey.READ_REPLICA_MAX_LAG;
+import static org.hisp.dhis.external.conf.ConfigurationKey.READ_REPLICA_PROBE_INTERVAL;
 
 import java.beans.PropertyVetoException;
 import java.sql.Connection;
@@ -41,6 +43,9 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
@@ -51,6 +56,7 @@ import org.hisp.dhis.commons.util.DebugUtils;
 import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.util.ObjectUtils;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 
 import com.mchange.v2.c3p0.ComboPooledDataSource;
@@ -59,7 +65,7 @@ import com.mchange.v2.c3p0.ComboPooledDataSource;
  * @author Lars Helge Overland
  */
 public class DefaultDataSourceManager
-    implements DataSourceManager, InitializingBean
+    implements DataSourceManager, InitializingBean, DisposableBean
 {
     private static final Log log = LogFactory.getLog( DefaultDataSourceManager.class );
 
@@ -83,6 +89,11 @@ public class DefaultDataSourceManager
      */
     private List<DataSource> internalReadOnlyInstanceList;
 
+    /**
+     * Executor for probing read replicas for availability and lag.
+     */
+    private ScheduledExecutorService probeExecutor;
+
     @Override
     public void afterPropertiesSet()
         throws Exception
@@ -90,7 +101,16 @@ public class DefaultDataSourceManager
         List<DataSource> ds = getReadOnlyDataSources();
 
         this.internalReadOnlyInstanceList = ds;
-        this.internalReadOnlyDataSource = !ds.isEmpty() ? new CircularRoutingDataSource( ds ) : mainDataSource;
+        this.internalReadOnlyDataSource = !ds.isEmpty() ? getRoutingDataSource( ds ) : mainDataSource;
+    }
+
+    @Override
+    public void destroy()
+    {
+        if ( probeExecutor != null )
+        {
+            probeExecutor.shutdownNow();
+        }
     }
 
     // -------------------------------------------------------------------------
@@ -131,6 +151,30 @@ public class DefaultDataSourceManager
     // Supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Returns a data source routing to the given read replicas, and schedules
+     * periodic probing of the read replicas for availability and lag.
+     */
+    private DataSource getRoutingDataSource( List<DataSource> dataSources )
+    {
+        int maxLag = Integer.parseInt( config.getProperty( READ_REPLICA_MAX_LAG ) );
+        int probeInterval = Integer.parseInt( config.getProperty( READ_REPLICA_PROBE_INTERVAL ) );
+
+        ReadReplicaRoutingDataSource dataSource = new ReadReplicaRoutingDataSource( dataSources, mainDataSource, maxLag );
+
+        probeExecutor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+            Thread thread = new Thread( runnable, "read-replica-probe" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+
+        probeExecutor.scheduleWithFixedDelay( dataSource::probe, probeInterval, probeInterval, TimeUnit.SECONDS );
+
+        log.info( String.format( "Read replica probing scheduled, interval: %d seconds, max lag: %d seconds", probeInterval, maxLag ) );
+
+        return dataSource;
+    }
+
     private List<DataSource> getReadOnlyDataSources()
     {
         String mainUser = config.getProperty( ConfigurationKey.CONNECTION_USERNAME );
@@ -0,0 +1,312 @@
+package org.hisp.dhis.datasource;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/**
+ * Data source implementation which routes to the configured read replica
+ * data sources. Replicas are probed periodically through {@link #probe()}
+ * for availability and replication lag. Unavailable replicas and replicas
+ * lagging more than the max lag are taken out of rotation until a later
+ * probe succeeds. Among the eligible replicas, the one with the fewest
+ * active connections is selected. If no replica is eligible, the fallback
+ * data source is used.
+ * <p>
+ * Callers may require a stricter max staleness for the current thread
+ * through {@link #withMaxStaleness(int, Supplier)}.
+ */
+public class ReadReplicaRoutingDataSource
+    extends AbstractDataSource
+{
+    private static final Log log = LogFactory.getLog( ReadReplicaRoutingDataSource.class );
+
+    /**
+     * Returns the replication lag in seconds. The lag is zero if the instance
+     * is not a replica, has replayed all received WAL or has not replayed any
+     * transactions yet. Without the replay check, an idle main database would
+     * make an up to date replica appear to lag by the time since the last
+     * transaction. The WAL functions are named xlog before PostgreSQL 10,
+     * see {@link #getLagSql(int)}.
+     */
+    private static final String LAG_SQL =
+        "select case when not pg_is_in_recovery() then 0 " +
+        "when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 " +
+        "else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end";
+
+    private static final String LEGACY_LAG_SQL = LAG_SQL
+        .replace( "pg_last_wal_receive_lsn", "pg_last_xlog_receive_location" )
+        .replace( "pg_last_wal_replay_lsn", "pg_last_xlog_replay_location" );
+
+    private static final ThreadLocal<Integer> MAX_STALENESS = new ThreadLocal<>();
+
+    private final List<Replica> replicas;
+
+    private final DataSource fallbackDataSource;
+
+    private final int maxLagSeconds;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    /**
+     * @param targetDataSources the read replica data sources.
+     * @param fallbackDataSource the data source to use when no replica is eligible.
+     * @param maxLagSeconds the max replication lag in seconds for a replica
+     *        to stay in rotation.
+     */
+    public ReadReplicaRoutingDataSource( List<DataSource> targetDataSources, DataSource fallbackDataSource, int maxLagSeconds )
+    {
+        checkNotNull( targetDataSources );
+        checkNotNull( fallbackDataSource );
+
+        this.replicas = new ArrayList<>();
+        this.fallbackDataSource = fallbackDataSource;
+        this.maxLagSeconds = maxLagSeconds;
+
+        for ( int i = 0; i < targetDataSources.size(); i++ )
+        {
+            this.replicas.add( new Replica( i + 1, targetDataSources.get( i ) ) );
+        }
+    }
+
+    /**
+     * Executes the given supplier requiring that read replicas used by the
+     * current thread lag at most the given number of seconds behind the
+     * main database.
+     *
+     * @param maxStalenessSeconds the max staleness in seconds.
+     * @param supplier the supplier to execute.
+     * @return the result of the supplier.
+     */
+    public static <T> T withMaxStaleness( int maxStalenessSeconds, Supplier<T> supplier )
+    {
+        Integer previous = MAX_STALENESS.get();
+
+        MAX_STALENESS.set( previous != null ? Math.min( previous, maxStalenessSeconds ) : maxStalenessSeconds );
+
+        try
+        {
+            return supplier.get();
+        }
+        finally
+        {
+            if ( previous != null )
+            {
+                MAX_STALENESS.set( previous );
+            }
+            else
+            {
+                MAX_STALENESS.remove();
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // AbstractDataSource implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public Connection getConnection()
+        throws SQLException
+    {
+        Replica replica = getReplica();
+
+        return replica != null ? replica.track( replica.dataSource.getConnection() ) : fallbackDataSource.getConnection();
+    }
+
+    @Override
+    public Connection getConnection( String username, String password )
+        throws SQLException
+    {
+        Replica replica = getReplica();
+
+        return replica != null ? replica.track( replica.dataSource.getConnection( username, password ) ) :
+            fallbackDataSource.getConnection( username, password );
+    }
+
+    // -------------------------------------------------------------------------
+    // Probing
+    // -------------------------------------------------------------------------
+
+    /**
+     * Probes all replicas for availability and replication lag.
+     */
+    public void probe()
+    {
+        replicas.forEach( Replica::probe );
+    }
+
+    /**
+     * Returns the number of replicas currently in rotation.
+     */
+    public int getAvailableReplicaCount()
+    {
+        return (int) replicas.stream().filter( r -> r.isEligible( maxLagSeconds ) ).count();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the eligible replica with the fewest active connections, or null
+     * if no replica is eligible. Ties are broken in a circular fashion.
+     */
+    private Replica getReplica()
+    {
+        Integer staleness = MAX_STALENESS.get();
+
+        int maxLag = staleness != null ? Math.min( staleness, maxLagSeconds ) : maxLagSeconds;
+        int offset = Math.abs( counter.getAndIncrement() % replicas.size() );
+
+        Replica selected = null;
+
+        for ( int i = 0; i < replicas.size(); i++ )
+        {
+            Replica replica = replicas.get( ( offset + i ) % replicas.size() );
+
+            if ( replica.isEligible( maxLag ) && ( selected == null || replica.active.get() < selected.active.get() ) )
+            {
+                selected = replica;
+            }
+        }
+
+        if ( selected == null )
+        {
+            log.debug( String.format( "No read replica within max lag of %d seconds, using fallback data source", maxLag ) );
+        }
+
+        return selected;
+    }
+
+    /**
+     * Returns the replication lag query for the given PostgreSQL major
+     * version.
+     */
+    static String getLagSql( int majorVersion )
+    {
+        return majorVersion >= 10 ? LAG_SQL : LEGACY_LAG_SQL;
+    }
+
+    private static class Replica
+    {
+        private final int index;
+
+        private final DataSource dataSource;
+
+        private final AtomicInteger active = new AtomicInteger();
+
+        private volatile boolean healthy = true;
+
+        private volatile double lagSeconds = 0d;
+
+        Replica( int index, DataSource dataSource )
+        {
+            this.index = index;
+            this.dataSource = dataSource;
+        }
+
+        boolean isEligible( int maxLag )
+        {
+            return healthy && lagSeconds <= maxLag;
+        }
+
+        void probe()
+        {
+            try ( Connection conn = dataSource.getConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery( getLagSql( conn.getMetaData().getDatabaseMajorVersion() ) ) )
+            {
+                lagSeconds = rs.next() ? rs.getDouble( 1 ) : 0d;
+
+                if ( !healthy )
+                {
+                    log.info( String.format( "Read replica available again, index: %d", index ) );
+                }
+
+                healthy = true;
+            }
+            catch ( SQLException ex )
+            {
+                if ( healthy )
+                {
+                    log.warn( String.format( "Read replica unavailable, index: %d, message: %s", index, ex.getMessage() ) );
+                }
+
+                healthy = false;
+            }
+        }
+
+        /**
+         * Wraps the given connection so that the number of active connections
+         * is decremented once the connection is closed.
+         */
+        Connection track( Connection connection )
+        {
+            active.incrementAndGet();
+
+            AtomicBoolean closed = new AtomicBoolean();
+
+            return (Connection) Proxy.newProxyInstance( Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                ( proxy, method, args ) -> {
+                    if ( "close".equals( method.getName() ) && closed.compareAndSet( false, true ) )
+                    {
+                        active.decrementAndGet();
+                    }
+
+                    try
+                    {
+                        return method.invoke( connection, args );
+                    }
+                    catch ( InvocationTargetException ex )
+                    {
+                        throw ex.getTargetException();
+                    }
+                } );
+        }
+    }
+}
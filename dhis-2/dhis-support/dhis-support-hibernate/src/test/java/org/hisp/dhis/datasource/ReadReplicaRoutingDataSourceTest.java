@@ -0,0 +1,257 @@
+package org.hisp.dhis.datasource;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Unit tests for {@link ReadReplicaRoutingDataSource}. Each data source
+ * hands out connections which report the name of the data source as
+ * catalog, so that the routing target can be asserted.
+ */
+public class ReadReplicaRoutingDataSourceTest
+{
+    private static final int MAX_LAG = 60;
+
+    private DataSource fallback;
+
+    @Before
+    public void setUp()
+        throws SQLException
+    {
+        fallback = mockDataSource( "main", 0d );
+    }
+
+    @Test
+    public void testRouteToReplica()
+        throws SQLException
+    {
+        ReadReplicaRoutingDataSource dataSource = getDataSource( mockDataSource( "replicaA", 0d ) );
+        dataSource.probe();
+
+        assertEquals( 1, dataSource.getAvailableReplicaCount() );
+        assertEquals( "replicaA", getTarget( dataSource ) );
+    }
+
+    @Test
+    public void testEjectUnavailableReplica()
+        throws SQLException
+    {
+        DataSource replicaB = mock( DataSource.class );
+        when( replicaB.getConnection() ).thenThrow( new SQLException( "Connection refused" ) );
+
+        ReadReplicaRoutingDataSource dataSource = getDataSource( mockDataSource( "replicaA", 0d ), replicaB );
+        dataSource.probe();
+
+        assertEquals( 1, dataSource.getAvailableReplicaCount() );
+
+        for ( int i = 0; i < 4; i++ )
+        {
+            assertEquals( "replicaA", getTarget( dataSource ) );
+        }
+    }
+
+    @Test
+    public void testEjectLaggingReplica()
+        throws SQLException
+    {
+        ReadReplicaRoutingDataSource dataSource = getDataSource(
+            mockDataSource( "replicaA", 120d ), mockDataSource( "replicaB", 0d ) );
+        dataSource.probe();
+
+        assertEquals( 1, dataSource.getAvailableReplicaCount() );
+
+        for ( int i = 0; i < 4; i++ )
+        {
+            assertEquals( "replicaB", getTarget( dataSource ) );
+        }
+    }
+
+    @Test
+    public void testReplicaBackInRotation()
+        throws SQLException
+    {
+        Connection connection = mockConnection( "replicaA", 0d );
+
+        DataSource replicaA = mock( DataSource.class );
+        when( replicaA.getConnection() )
+            .thenThrow( new SQLException( "Connection refused" ) )
+            .thenReturn( connection );
+
+        ReadReplicaRoutingDataSource dataSource = getDataSource( replicaA );
+
+        dataSource.probe();
+
+        assertEquals( 0, dataSource.getAvailableReplicaCount() );
+        assertEquals( "main", getTarget( dataSource ) );
+
+        dataSource.probe();
+
+        assertEquals( 1, dataSource.getAvailableReplicaCount() );
+        assertEquals( "replicaA", getTarget( dataSource ) );
+    }
+
+    @Test
+    public void testFallbackWhenNoReplicaEligible()
+        throws SQLException
+    {
+        ReadReplicaRoutingDataSource dataSource = getDataSource(
+            mockDataSource( "replicaA", 90d ), mockDataSource( "replicaB", 300d ) );
+        dataSource.probe();
+
+        assertEquals( 0, dataSource.getAvailableReplicaCount() );
+        assertEquals( "main", getTarget( dataSource ) );
+    }
+
+    @Test
+    public void testWithMaxStaleness()
+        throws SQLException
+    {
+        ReadReplicaRoutingDataSource dataSource = getDataSource( mockDataSource( "replicaA", 10d ) );
+        dataSource.probe();
+
+        assertEquals( "replicaA", getTarget( dataSource ) );
+        assertEquals( "main", ReadReplicaRoutingDataSource.withMaxStaleness( 5, () -> getTarget( dataSource ) ) );
+        assertEquals( "replicaA", ReadReplicaRoutingDataSource.withMaxStaleness( 30, () -> getTarget( dataSource ) ) );
+        assertEquals( "replicaA", getTarget( dataSource ) );
+    }
+
+    @Test
+    public void testWithNestedMaxStaleness()
+        throws SQLException
+    {
+        ReadReplicaRoutingDataSource dataSource = getDataSource( mockDataSource( "replicaA", 10d ) );
+        dataSource.probe();
+
+        assertEquals( "main", ReadReplicaRoutingDataSource.withMaxStaleness( 5,
+            () -> ReadReplicaRoutingDataSource.withMaxStaleness( 30, () -> getTarget( dataSource ) ) ) );
+    }
+
+    @Test
+    public void testRouteToReplicaWithFewestActiveConnections()
+        throws SQLException
+    {
+        ReadReplicaRoutingDataSource dataSource = getDataSource(
+            mockDataSource( "replicaA", 0d ), mockDataSource( "replicaB", 0d ) );
+        dataSource.probe();
+
+        Connection connA = dataSource.getConnection();
+        Connection connB = dataSource.getConnection();
+
+        assertNotEquals( connA.getCatalog(), connB.getCatalog() );
+
+        connA.close();
+
+        Connection connC = dataSource.getConnection();
+
+        assertEquals( connA.getCatalog(), connC.getCatalog() );
+    }
+
+    @Test
+    public void testGetLagSql()
+    {
+        assertTrue( ReadReplicaRoutingDataSource.getLagSql( 12 ).contains( "pg_last_wal_replay_lsn()" ) );
+        assertTrue( ReadReplicaRoutingDataSource.getLagSql( 9 ).contains( "pg_last_xlog_replay_location()" ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private ReadReplicaRoutingDataSource getDataSource( DataSource... replicas )
+    {
+        return new ReadReplicaRoutingDataSource( Lists.newArrayList( replicas ), fallback, MAX_LAG );
+    }
+
+    /**
+     * Returns the catalog of a connection obtained from the given data source
+     * and closes the connection.
+     */
+    private String getTarget( DataSource dataSource )
+    {
+        try ( Connection connection = dataSource.getConnection() )
+        {
+            return connection.getCatalog();
+        }
+        catch ( SQLException ex )
+        {
+            throw new IllegalStateException( ex );
+        }
+    }
+
+    private DataSource mockDataSource( String name, double lagSeconds )
+        throws SQLException
+    {
+        Connection connection = mockConnection( name, lagSeconds );
+
+        DataSource dataSource = mock( DataSource.class );
+        when( dataSource.getConnection() ).thenReturn( connection );
+
+        return dataSource;
+    }
+
+    private Connection mockConnection( String name, double lagSeconds )
+        throws SQLException
+    {
+        ResultSet resultSet = mock( ResultSet.class );
+        when( resultSet.next() ).thenReturn( true );
+        when( resultSet.getDouble( 1 ) ).thenReturn( lagSeconds );
+
+        Statement statement = mock( Statement.class );
+        when( statement.executeQuery( anyString() ) ).thenReturn( resultSet );
+
+        DatabaseMetaData metaData = mock( DatabaseMetaData.class );
+        when( metaData.getDatabaseMajorVersion() ).thenReturn( 12 );
+
+        Connection connection = mock( Connection.class );
+        when( connection.createStatement() ).thenReturn( statement );
+        when( connection.getMetaData() ).thenReturn( metaData );
+        when( connection.getCatalog() ).thenReturn( name );
+
+        return connection;
+    }
+}
@@ -0,0 +1,208 @@
+package org.hisp.dhis.system.audit;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Buffers audit records in a bounded in-memory queue and writes them in
+ * batches from a background thread, so that audits do not cost a database
+ * round trip in the request which produced them.
+ * <p>
+ * A batch is written when the buffer holds at least a full batch, and at the
+ * latest after the flush interval. When the buffer is full the producing
+ * thread writes a batch itself, which slows producers down instead of dropping
+ * audits or growing the heap. A batch which fails to be written is logged and
+ * discarded. {@link #shutdown()} writes all remaining audits.
+ *
+ * @param <T> the audit type.
+ */
+public class BufferedAuditWriter<T>
+{
+    private static final Log log = LogFactory.getLog( BufferedAuditWriter.class );
+
+    private static final int DEFAULT_CAPACITY = 10_000;
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 2_000;
+
+    private final String name;
+
+    private final int batchSize;
+
+    private final BlockingQueue<T> queue;
+
+    private final Consumer<List<T>> batchWriter;
+
+    private final ScheduledExecutorService executor;
+
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+
+    /**
+     * Creates a writer buffering up to 10000 audits, written in batches of
+     * up to 500 at least every 2 seconds.
+     *
+     * @param name the name of the audits, used for logging and the thread name.
+     * @param batchWriter the writer of a batch of audits.
+     */
+    public BufferedAuditWriter( String name, Consumer<List<T>> batchWriter )
+    {
+        this( name, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS, batchWriter );
+    }
+
+    /**
+     * @param name the name of the audits, used for logging and the thread name.
+     * @param capacity the max number of buffered audits.
+     * @param batchSize the max number of audits written in one batch.
+     * @param flushIntervalMillis the max time in milliseconds an audit stays buffered.
+     * @param batchWriter the writer of a batch of audits.
+     */
+    public BufferedAuditWriter( String name, int capacity, int batchSize, long flushIntervalMillis, Consumer<List<T>> batchWriter )
+    {
+        checkNotNull( name );
+        checkNotNull( batchWriter );
+        checkArgument( batchSize > 0 && capacity >= batchSize, "Capacity must be at least the batch size" );
+        checkArgument( flushIntervalMillis > 0, "Flush interval must be positive" );
+
+        this.name = name;
+        this.batchSize = batchSize;
+        this.queue = new LinkedBlockingQueue<>( capacity );
+        this.batchWriter = batchWriter;
+        this.executor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+            Thread thread = new Thread( runnable, name + "-audit-writer" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+
+        this.executor.scheduleWithFixedDelay( this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * Adds the given audit to the buffer. Writes a batch in the calling thread
+     * if the buffer is full.
+     *
+     * @param audit the audit.
+     */
+    public void add( T audit )
+    {
+        checkNotNull( audit );
+
+        while ( !queue.offer( audit ) )
+        {
+            writeBatch();
+        }
+
+        if ( queue.size() >= batchSize && !executor.isShutdown() && flushPending.compareAndSet( false, true ) )
+        {
+            executor.execute( () -> {
+                flushPending.set( false );
+                flush();
+            } );
+        }
+    }
+
+    /**
+     * Writes all buffered audits.
+     */
+    public void flush()
+    {
+        while ( writeBatch() > 0 )
+        {
+            // Continue until the buffer is drained
+        }
+    }
+
+    /**
+     * Stops the background writer and writes all buffered audits.
+     */
+    public void shutdown()
+    {
+        executor.shutdown();
+
+        try
+        {
+            executor.awaitTermination( 30, TimeUnit.SECONDS );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        flush();
+    }
+
+    /**
+     * Returns the number of buffered audits.
+     */
+    public int size()
+    {
+        return queue.size();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private int writeBatch()
+    {
+        List<T> batch = new ArrayList<>( batchSize );
+
+        queue.drainTo( batch, batchSize );
+
+        if ( !batch.isEmpty() )
+        {
+            try
+            {
+                batchWriter.accept( batch );
+            }
+            catch ( RuntimeException ex )
+            {
+                log.error( String.format( "Failed to write batch of %d %s audits", batch.size(), name ), ex );
+            }
+        }
+
+        return batch.size();
+    }
+}
@@ -30,12 +30,17 @@ package org.hisp.dhis.system.util;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.primitives.Primitives;
 import javassist.util.proxy.ProxyFactory;
 import org.hibernate.collection.spi.PersistentCollection;
 import org.hisp.dhis.schema.Property;
 import org.springframework.util.StringUtils;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -48,6 +53,8 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -437,6 +444,126 @@ public class ReflectionUtils
         }
     }
 
+    /**
+     * Invokes the getter of the given property on the target object. The generated
+     * getter accessor of the property is used if present, otherwise the getter
+     * method is invoked through reflection.
+     *
+     * @param target the target object.
+     * @param property the property.
+     * @return the property value, null if the target is null.
+     */
+    @SuppressWarnings( "unchecked" )
+    public static <T> T invokeGetter( Object target, Property property )
+    {
+        Function<Object, Object> getter = property.getGetter();
+
+        if ( target == null || getter == null )
+        {
+            return invokeMethod( target, property.getGetterMethod() );
+        }
+
+        return (T) getter.apply( target );
+    }
+
+    /**
+     * Invokes the setter of the given property on the target object. The generated
+     * setter accessor of the property is used if present, otherwise the setter
+     * method is invoked through reflection.
+     *
+     * @param target the target object.
+     * @param property the property.
+     * @param value the value to set.
+     */
+    public static void invokeSetter( Object target, Property property, Object value )
+    {
+        BiConsumer<Object, Object> setter = property.getSetter();
+
+        if ( target == null || setter == null )
+        {
+            invokeMethod( target, property.getSetterMethod(), value );
+            return;
+        }
+
+        setter.accept( target, value );
+    }
+
+    /**
+     * Generates a getter accessor for the given method through {@link LambdaMetafactory}.
+     * Invoking the accessor performs like a direct method call, as opposed to
+     * {@link Method#invoke(Object, Object...)}.
+     *
+     * @param method the getter method.
+     * @return the getter accessor, null if the method is not a public instance method
+     *         without parameters, or if no accessor can be generated for it.
+     */
+    @SuppressWarnings( "unchecked" )
+    public static Function<Object, Object> createGetter( Method method )
+    {
+        if ( !isAccessorMethod( method, 0 ) )
+        {
+            return null;
+        }
+
+        try
+        {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            CallSite callSite = LambdaMetafactory.metafactory( lookup, "apply",
+                MethodType.methodType( Function.class ),
+                MethodType.methodType( Object.class, Object.class ),
+                lookup.unreflect( method ),
+                MethodType.methodType( Primitives.wrap( method.getReturnType() ), method.getDeclaringClass() ) );
+
+            return (Function<Object, Object>) callSite.getTarget().invoke();
+        }
+        catch ( Throwable ex )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Generates a setter accessor for the given method through {@link LambdaMetafactory}.
+     * Invoking the accessor performs like a direct method call, as opposed to
+     * {@link Method#invoke(Object, Object...)}.
+     *
+     * @param method the setter method.
+     * @return the setter accessor, null if the method is not a public instance method
+     *         with one parameter, or if no accessor can be generated for it.
+     */
+    @SuppressWarnings( "unchecked" )
+    public static BiConsumer<Object, Object> createSetter( Method method )
+    {
+        if ( !isAccessorMethod( method, 1 ) )
+        {
+            return null;
+        }
+
+        try
+        {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            CallSite callSite = LambdaMetafactory.metafactory( lookup, "accept",
+                MethodType.methodType( BiConsumer.class ),
+                MethodType.methodType( void.class, Object.class, Object.class ),
+                lookup.unreflect( method ),
+                MethodType.methodType( void.class, method.getDeclaringClass(), Primitives.wrap( method.getParameterTypes()[0] ) ) );
+
+            return (BiConsumer<Object, Object>) callSite.getTarget().invoke();
+        }
+        catch ( Throwable ex )
+        {
+            return null;
+        }
+    }
+
+    private static boolean isAccessorMethod( Method method, int parameterCount )
+    {
+        return method != null && Modifier.isPublic( method.getModifiers() ) && !Modifier.isStatic( method.getModifiers() )
+            && method.getParameterCount() == parameterCount;
+    }
+
     public static Collection<Field> collectFields( Class<?> clazz, Predicate<Field> predicate )
     {
         Class<?> type = clazz;
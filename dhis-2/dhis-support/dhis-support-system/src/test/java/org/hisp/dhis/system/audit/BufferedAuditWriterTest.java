@@ -0,0 +1,96 @@
+package org.hisp.dhis.system.audit;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+
+public class BufferedAuditWriterTest
+{
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void testFlushWritesInBatches()
+    {
+        BufferedAuditWriter<Integer> writer = new BufferedAuditWriter<>( "test", 100, 4, 60_000, batch -> batches.add( new ArrayList<>( batch ) ) );
+
+        for ( int i = 0; i < 3; i++ )
+        {
+            writer.add( i );
+        }
+
+        writer.shutdown();
+
+        assertEquals( 1, batches.size() );
+        assertEquals( 3, batches.get( 0 ).size() );
+        assertEquals( 0, writer.size() );
+    }
+
+    @Test
+    public void testFullBufferWritesInCallingThread()
+    {
+        BufferedAuditWriter<Integer> writer = new BufferedAuditWriter<>( "test", 2, 2, 60_000, batch -> batches.add( new ArrayList<>( batch ) ) );
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            writer.add( i );
+        }
+
+        assertTrue( writer.size() <= 2 );
+
+        writer.shutdown();
+
+        assertEquals( 10, batches.stream().mapToInt( List::size ).sum() );
+        assertTrue( batches.stream().allMatch( batch -> batch.size() <= 2 ) );
+    }
+
+    @Test
+    public void testFailedBatchIsDiscarded()
+    {
+        BufferedAuditWriter<Integer> writer = new BufferedAuditWriter<>( "test", 10, 5, 60_000, batch -> {
+            batches.add( new ArrayList<>( batch ) );
+            throw new IllegalStateException( "Database unavailable" );
+        } );
+
+        writer.add( 1 );
+        writer.add( 2 );
+
+        writer.shutdown();
+
+        assertEquals( 1, batches.size() );
+        assertEquals( 0, writer.size() );
+    }
+}
@@ -30,13 +30,17 @@ package org.hisp.dhis.system.util;
 
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.schema.Property;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import static org.hisp.dhis.system.util.ReflectionUtils.*;
 import static org.junit.Assert.*;
@@ -102,4 +106,59 @@ public class ReflectionUtilsTest
         assertTrue( isCollection( colC ) );
         assertFalse( isCollection( dataElementA ) );
     }
+
+    @Test
+    public void testCreateGetter() throws Exception
+    {
+        dataElementA.setZeroIsSignificant( true );
+
+        Function<Object, Object> nameGetter = createGetter( DataElement.class.getMethod( "getName" ) );
+        Function<Object, Object> zeroIsSignificantGetter = createGetter( DataElement.class.getMethod( "isZeroIsSignificant" ) );
+
+        assertNotNull( nameGetter );
+        assertNotNull( zeroIsSignificantGetter );
+        assertEquals( "NameA", nameGetter.apply( dataElementA ) );
+        assertEquals( true, zeroIsSignificantGetter.apply( dataElementA ) );
+        assertNull( createGetter( null ) );
+        assertNull( createGetter( DataElement.class.getMethod( "setName", String.class ) ) );
+    }
+
+    @Test
+    public void testCreateSetter() throws Exception
+    {
+        BiConsumer<Object, Object> nameSetter = createSetter( DataElement.class.getMethod( "setName", String.class ) );
+        BiConsumer<Object, Object> zeroIsSignificantSetter = createSetter( DataElement.class.getMethod( "setZeroIsSignificant", boolean.class ) );
+
+        assertNotNull( nameSetter );
+        assertNotNull( zeroIsSignificantSetter );
+
+        nameSetter.accept( dataElementA, "NameB" );
+        zeroIsSignificantSetter.accept( dataElementA, true );
+
+        assertEquals( "NameB", dataElementA.getName() );
+        assertTrue( dataElementA.isZeroIsSignificant() );
+        assertNull( createSetter( DataElement.class.getMethod( "getName" ) ) );
+    }
+
+    @Test
+    public void testInvokeGetterAndSetter() throws Exception
+    {
+        Method getter = DataElement.class.getMethod( "getName" );
+        Method setter = DataElement.class.getMethod( "setName", String.class );
+
+        Property reflectiveProperty = new Property( String.class, getter, setter );
+        Property generatedProperty = new Property( String.class, getter, setter );
+        generatedProperty.setGetter( createGetter( getter ) );
+        generatedProperty.setSetter( createSetter( setter ) );
+
+        assertEquals( "NameA", invokeGetter( dataElementA, reflectiveProperty ) );
+        assertEquals( "NameA", invokeGetter( dataElementA, generatedProperty ) );
+        assertNull( invokeGetter( null, generatedProperty ) );
+
+        invokeSetter( dataElementA, reflectiveProperty, "NameB" );
+        assertEquals( "NameB", dataElementA.getName() );
+
+        invokeSetter( dataElementA, generatedProperty, "NameC" );
+        assertEquals( "NameC", dataElementA.getName() );
+    }
 }
@@ -33,7 +33,10 @@ import org.hisp.dhis.node.types.RootNode;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.UserSettingService;
 import org.hisp.dhis.webapi.service.ContextService;
+import org.hisp.dhis.webapi.service.MetadataExportCache;
+import org.hisp.dhis.webapi.service.ResponseTagService;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.InjectMocks;
@@ -42,6 +45,17 @@ import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for {@link MetadataExportControllerTest}.
@@ -62,24 +76,77 @@ public class MetadataExportControllerTest
     @Mock
     private UserSettingService userSettingService;
 
+    @Mock
+    private MetadataExportCache metadataExportCache;
+
+    @Mock
+    private ResponseTagService responseTagService;
+
     @InjectMocks
     private MetadataImportExportController controller;
 
     @Rule
     public MockitoRule rule = MockitoJUnit.rule();
 
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @Before
+    public void setUp()
+    {
+        request = new MockHttpServletRequest();
+        response = new MockHttpServletResponse();
+
+        when( responseTagService.getTag( any(), any() ) ).thenReturn( "tag" );
+    }
+
     @Test
-    public void withoutDownload()
+    public void withoutDownload() throws IOException
     {
-        ResponseEntity<RootNode> responseEntity = controller.getMetadata( false, null, false );
+        ResponseEntity<RootNode> responseEntity = controller.getMetadata( false, null, false, request, response );
         Assert.assertNull( responseEntity.getHeaders().get( HttpHeaders.CONTENT_DISPOSITION ) );
     }
 
     @Test
-    public void withDownload()
+    public void withDownload() throws IOException
     {
-        ResponseEntity<RootNode> responseEntity = controller.getMetadata( false, null, true );
+        ResponseEntity<RootNode> responseEntity = controller.getMetadata( false, null, true, request, response );
         Assert.assertNotNull( responseEntity.getHeaders().get( HttpHeaders.CONTENT_DISPOSITION ) );
         Assert.assertEquals( "attachment; filename=metadata", responseEntity.getHeaders().get( HttpHeaders.CONTENT_DISPOSITION ).get( 0 ) );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void notModified() throws IOException
+    {
+        request.addHeader( HttpHeaders.IF_NONE_MATCH, "\"tag\"" );
+
+        Assert.assertNull( controller.getMetadata( false, null, false, request, response ) );
+        Assert.assertEquals( HttpServletResponse.SC_NOT_MODIFIED, response.getStatus() );
+        Assert.assertEquals( "\"tag\"", response.getHeader( HttpHeaders.ETAG ) );
+        verify( metadataExportService, never() ).getMetadataAsNode( any() );
+    }
+
+    @Test
+    public void cached() throws IOException
+    {
+        when( metadataExportCache.isCacheable( request ) ).thenReturn( true );
+        when( metadataExportCache.write( "tag", request, response ) ).thenReturn( true );
+
+        Assert.assertNull( controller.getMetadata( false, null, false, request, response ) );
+        verify( metadataExportService, never() ).getMetadataAsNode( any() );
+    }
+
+    @Test
+    public void notCached() throws IOException
+    {
+        RootNode rootNode = new RootNode( "metadata" );
+
+        when( metadataExportService.getMetadataAsNode( any() ) ).thenReturn( rootNode );
+        when( metadataExportCache.isCacheable( request ) ).thenReturn( true );
+        when( metadataExportCache.write( "tag", request, response ) ).thenReturn( false, true );
+
+        Assert.assertNull( controller.getMetadata( false, null, false, request, response ) );
+        verify( metadataExportCache ).put( eq( "tag" ), eq( rootNode ) );
+    }
+}
@@ -151,6 +151,27 @@ public class DataElementControllerDocumentation
                 responseFields( fieldDescriptors.toArray( new FieldDescriptor[fieldDescriptors.size()] ) ) ) );
     }
 
+    @Test
+    public void testGetNotModified() throws Exception
+    {
+        MockHttpSession session = getSession( "ALL" );
+        manager.save( createDataElement( 'A' ) );
+
+        String tag = mvc.perform( get( "/dataElements" ).session( session ).accept( MediaType.APPLICATION_JSON ) )
+            .andExpect( status().isOk() )
+            .andExpect( header().exists( "ETag" ) )
+            .andReturn().getResponse().getHeader( "ETag" );
+
+        mvc.perform( get( "/dataElements" ).session( session ).accept( MediaType.APPLICATION_JSON ).header( "If-None-Match", tag ) )
+            .andExpect( status().isNotModified() );
+
+        manager.save( createDataElement( 'B' ) );
+
+        mvc.perform( get( "/dataElements" ).session( session ).accept( MediaType.APPLICATION_JSON ).header( "If-None-Match", tag ) )
+            .andExpect( status().isOk() )
+            .andExpect( jsonPath( "$.dataElements[*].id" ).exists() );
+    }
+
     @Test
     public void testAddDeleteCollectionItem() throws Exception
     {
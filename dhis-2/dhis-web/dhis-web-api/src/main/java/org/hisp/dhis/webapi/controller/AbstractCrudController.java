@@ -39,6 +39,7 @@ import org.hisp.dhis.common.DhisApiVersion;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.IdentifiableObjects;
+import org.hisp.dhis.common.MetadataObject;
 import org.hisp.dhis.common.Pager;
 import org.hisp.dhis.common.PagerUtils;
 import org.hisp.dhis.common.SubscribableObject;
@@ -97,6 +98,7 @@ import org.hisp.dhis.user.UserSettingService;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
 import org.hisp.dhis.webapi.service.ContextService;
 import org.hisp.dhis.webapi.service.LinkService;
+import org.hisp.dhis.webapi.service.ResponseTagService;
 import org.hisp.dhis.webapi.service.WebMessageService;
 import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.hisp.dhis.webapi.webdomain.WebMetadata;
@@ -119,6 +121,7 @@ import java.io.IOException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -193,6 +196,9 @@ public abstract class AbstractCrudController<T extends IdentifiableObject>
     @Autowired
     protected AttributeService attributeService;
 
+    @Autowired
+    protected ResponseTagService responseTagService;
+
     //--------------------------------------------------------------------------
     // GET
     //--------------------------------------------------------------------------
@@ -219,6 +225,13 @@ public abstract class AbstractCrudController<T extends IdentifiableObject>
             throw new ReadAccessDeniedException( "You don't have the proper permissions to read objects of this type." );
         }
 
+        response.setHeader( ContextUtils.HEADER_CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue() );
+
+        if ( isNotModified( request, response, currentUser ) )
+        {
+            return null;
+        }
+
         List<T> entities = getEntityList( metadata, options, filters, orders );
         Pager pager = metadata.getPager();
 
@@ -244,11 +257,9 @@ public abstract class AbstractCrudController<T extends IdentifiableObject>
             rootNode.addChild( NodeUtils.createPager( pager ) );
         }
 
-        rootNode.addChild( fieldFilterService.toCollectionNode( getEntityClass(),
+        rootNode.addChild( fieldFilterService.toStreamingCollectionNode( getEntityClass(),
             new FieldFilterParams( entities, fields, Defaults.valueOf( options.get( "defaults", DEFAULTS ) ) ) ) );
 
-        response.setHeader( ContextUtils.HEADER_CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue() );
-
         return rootNode;
     }
 
@@ -275,6 +286,11 @@ public abstract class AbstractCrudController<T extends IdentifiableObject>
 
         response.setHeader( ContextUtils.HEADER_CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue() );
 
+        if ( isNotModified( request, response, user ) )
+        {
+            return null;
+        }
+
         return getObjectInternal( pvUid, rpParameters, filters, fields, user );
     }
 
@@ -1129,6 +1145,40 @@ public abstract class AbstractCrudController<T extends IdentifiableObject>
             translateParams.getLocaleWithDefault( (Locale) userSettingService.getUserSetting( UserSettingKey.DB_LOCALE ) ) : null;
     }
 
+    /**
+     * Returns the tag used for validating cached GET responses of this controller,
+     * or null if responses should not be validated by tag. The tag is derived from
+     * the last updated time and the count of the objects of the entity type, which
+     * are read with aggregate queries, and from the tag of {@link ResponseTagService},
+     * which covers the request, the current user and its credentials, and the time of
+     * the last change of metadata, user credentials and interpretations, as responses
+     * may embed other metadata objects, access and interpretation counts. Only metadata
+     * types are validated by default, as changes of other types are not tracked.
+     *
+     * @param request the request.
+     * @param user the current user.
+     * @return the tag, or null.
+     */
+    protected String getConditionalTag( HttpServletRequest request, User user )
+    {
+        if ( !MetadataObject.class.isAssignableFrom( getEntityClass() ) )
+        {
+            return null;
+        }
+
+        Date lastUpdated = manager.getLastUpdated( getEntityClass() );
+        int count = manager.getCount( getEntityClass() );
+
+        return responseTagService.getTag( request, user, lastUpdated != null ? lastUpdated.getTime() : null, count );
+    }
+
+    private boolean isNotModified( HttpServletRequest request, HttpServletResponse response, User user )
+    {
+        String tag = getConditionalTag( request, user );
+
+        return tag != null && ContextUtils.isNotModified( request, response, tag );
+    }
+
     @SuppressWarnings( "unchecked" )
     protected List<T> getEntityList( WebMetadata metadata, WebOptions options, List<String> filters, List<Order> orders )
         throws QueryParserException
@@ -28,6 +28,11 @@ package org.hisp.dhis.webapi.controller;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.csvreader.CsvWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.mutable.MutableInt;
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.EventOutputType;
 import org.hisp.dhis.analytics.Rectangle;
@@ -35,6 +40,7 @@ import org.hisp.dhis.analytics.SortOrder;
 import org.hisp.dhis.analytics.event.EventAnalyticsService;
 import org.hisp.dhis.analytics.event.EventDataQueryService;
 import org.hisp.dhis.analytics.event.EventQueryParams;
+import org.hisp.dhis.analytics.event.EventRowHandler;
 import org.hisp.dhis.common.*;
 import org.hisp.dhis.common.cache.CacheStrategy;
 import org.hisp.dhis.event.EventStatus;
@@ -52,7 +58,12 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.Date;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -75,6 +86,9 @@ public class EventAnalyticsController
     @Autowired
     private ContextUtils contextUtils;
 
+    @Autowired
+    private ObjectMapper jsonMapper;
+
     // -------------------------------------------------------------------------
     // Aggregate
     // -------------------------------------------------------------------------
@@ -513,9 +527,10 @@ public class EventAnalyticsController
         @RequestParam( required = false ) Date relativePeriodDate,
         @RequestParam( required = false ) String userOrgUnit,
         @RequestParam( required = false ) String coordinateField,
+        @RequestParam( required = false ) boolean stream,
         DhisApiVersion apiVersion,
         Model model,
-        HttpServletResponse response )
+        HttpServletResponse response ) throws Exception
     {
         EventDataQueryRequest request = EventDataQueryRequest.newBuilder().program( program ).stage( stage )
             .startDate( startDate ).endDate( endDate ).dimension( dimension ).filter( filter ).ouMode( ouMode )
@@ -528,6 +543,13 @@ public class EventAnalyticsController
         EventQueryParams params = eventDataQueryService.getFromRequest( request );
 
         contextUtils.configureResponse( response, ContextUtils.CONTENT_TYPE_JSON, CacheStrategy.RESPECT_SYSTEM_SETTING );
+
+        if ( stream )
+        {
+            streamJson( params, response.getOutputStream() );
+            return null;
+        }
+
         return analyticsService.getEvents( params );
     }
 
@@ -661,8 +683,7 @@ public class EventAnalyticsController
         EventQueryParams params = eventDataQueryService.getFromRequest( request );
 
         contextUtils.configureResponse( response, ContextUtils.CONTENT_TYPE_CSV, CacheStrategy.RESPECT_SYSTEM_SETTING, "events.csv", true );
-        Grid grid = analyticsService.getEvents( params );
-        GridUtils.toCsv( grid, response.getWriter() );
+        streamCsv( params, response.getWriter() );
     }
 
     @RequestMapping( value = RESOURCE_PATH + "/query/{program}.html", method = RequestMethod.GET )
@@ -752,4 +773,120 @@ public class EventAnalyticsController
         Grid grid = analyticsService.getEvents( params );
         GridUtils.toHtmlCss( grid, response.getWriter() );
     }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Writes the events of the given query as a JSON grid to the given output
+     * stream, row by row as they are read from the database.
+     */
+    private void streamJson( EventQueryParams params, OutputStream out )
+        throws IOException
+    {
+        JsonGenerator generator = jsonMapper.getFactory().createGenerator( out );
+
+        MutableInt height = new MutableInt();
+        MutableInt headerWidth = new MutableInt();
+
+        generator.writeStartObject();
+
+        analyticsService.streamEvents( params, new EventRowHandler()
+        {
+            @Override
+            public void start( Grid grid )
+            {
+                headerWidth.setValue( grid.getHeaderWidth() );
+
+                write( () -> {
+                    generator.writeObjectField( "headers", grid.getHeaders() );
+                    generator.writeObjectField( "metaData", grid.getMetaData() );
+                    generator.writeArrayFieldStart( "rows" );
+                } );
+            }
+
+            @Override
+            public void row( List<Object> row )
+            {
+                height.increment();
+
+                write( () -> {
+                    generator.writeStartArray();
+
+                    for ( Object value : row )
+                    {
+                        generator.writeString( value != null ? String.valueOf( value ) : StringUtils.EMPTY );
+                    }
+
+                    generator.writeEndArray();
+                } );
+            }
+        } );
+
+        generator.writeEndArray();
+        generator.writeNumberField( "height", height.intValue() );
+        generator.writeNumberField( "width", height.intValue() > 0 ? headerWidth.intValue() : 0 );
+        generator.writeNumberField( "headerWidth", headerWidth.intValue() );
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    /**
+     * Writes the events of the given query as CSV to the given writer, row by
+     * row as they are read from the database.
+     */
+    private void streamCsv( EventQueryParams params, Writer writer )
+        throws IOException
+    {
+        CsvWriter csvWriter = new CsvWriter( writer, ',' );
+
+        analyticsService.streamEvents( params, new EventRowHandler()
+        {
+            @Override
+            public void start( Grid grid )
+            {
+                write( () -> {
+                    for ( GridHeader header : grid.getHeaders() )
+                    {
+                        csvWriter.write( header.getColumn() );
+                    }
+
+                    csvWriter.endRecord();
+                } );
+            }
+
+            @Override
+            public void row( List<Object> row )
+            {
+                write( () -> {
+                    for ( Object value : row )
+                    {
+                        csvWriter.write( value != null ? String.valueOf( value ) : StringUtils.EMPTY );
+                    }
+
+                    csvWriter.endRecord();
+                } );
+            }
+        } );
+
+        csvWriter.flush();
+    }
+
+    private interface IoAction
+    {
+        void run() throws IOException;
+    }
+
+    private static void write( IoAction action )
+    {
+        try
+        {
+            action.run();
+        }
+        catch ( IOException ex )
+        {
+            throw new UncheckedIOException( ex );
+        }
+    }
 }
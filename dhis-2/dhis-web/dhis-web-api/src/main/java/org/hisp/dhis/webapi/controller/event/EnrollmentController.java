@@ -31,6 +31,7 @@ package org.hisp.dhis.webapi.controller.event;
 import com.google.common.collect.Lists;
 import org.hisp.dhis.common.DhisApiVersion;
 import org.hisp.dhis.common.OrganisationUnitSelectionMode;
+import org.hisp.dhis.common.PageToken;
 import org.hisp.dhis.common.PagerUtils;
 import org.hisp.dhis.commons.util.StreamUtils;
 import org.hisp.dhis.commons.util.TextUtils;
@@ -139,6 +140,8 @@ public class EnrollmentController
         @RequestParam( required = false ) boolean totalPages,
         @RequestParam( required = false ) Boolean skipPaging,
         @RequestParam( required = false ) Boolean paging,
+        @RequestParam( required = false ) boolean keysetPaging,
+        @RequestParam( required = false ) String pageToken,
         @RequestParam( required = false, defaultValue = "false" ) boolean includeDeleted
     )
     {
@@ -163,6 +166,9 @@ public class EnrollmentController
                 lastUpdatedDuration, program, programStatus, programStartDate, programEndDate, trackedEntityType,
                 trackedEntityInstance, followUp, page, pageSize, totalPages, skipPaging, includeDeleted );
 
+            params.setKeysetPaging( keysetPaging )
+                .setPageToken( pageToken != null ? PageToken.decode( pageToken ) : null );
+
             Enrollments enrollments = enrollmentService.getEnrollments( params );
 
             if ( enrollments.getPager() != null )
@@ -498,6 +498,8 @@ public class EventController
         @RequestParam( required = false ) boolean totalPages,
         @RequestParam( required = false ) Boolean skipPaging,
         @RequestParam( required = false ) Boolean paging,
+        @RequestParam( required = false ) boolean keysetPaging,
+        @RequestParam( required = false ) String pageToken,
         @RequestParam( required = false ) String order,
         @RequestParam( required = false ) String attachment,
         @RequestParam( required = false, defaultValue = "false" ) boolean includeDeleted,
@@ -534,6 +536,9 @@ public class EventController
             false, eventIds, skipEventId, assignedUserMode, assignedUserIds, filter, dataElementOrders.keySet(),
             false, includeDeleted );
 
+        params.setKeysetPaging( keysetPaging )
+            .setPageToken( pageToken != null ? PageToken.decode( pageToken ) : null );
+
         Events events = eventService.getEvents( params );
 
         if ( hasHref( fields, skipEventId ) )
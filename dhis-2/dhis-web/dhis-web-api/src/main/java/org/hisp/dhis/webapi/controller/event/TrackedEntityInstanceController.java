@@ -39,6 +39,7 @@ import org.hisp.dhis.common.DhisApiVersion;
 import org.hisp.dhis.common.DxfNamespaces;
 import org.hisp.dhis.common.Grid;
 import org.hisp.dhis.common.OrganisationUnitSelectionMode;
+import org.hisp.dhis.common.PageToken;
 import org.hisp.dhis.common.Pager;
 import org.hisp.dhis.common.PagerUtils;
 import org.hisp.dhis.common.ValueType;
@@ -203,6 +204,8 @@ public class TrackedEntityInstanceController
         @RequestParam( required = false ) boolean totalPages,
         @RequestParam( required = false ) Boolean skipPaging,
         @RequestParam( required = false ) Boolean paging,
+        @RequestParam( required = false ) boolean keysetPaging,
+        @RequestParam( required = false ) String pageToken,
         @RequestParam( required = false ) boolean includeDeleted,
         @RequestParam( required = false ) boolean includeAllAttributes,
         @RequestParam( required = false ) String order ) throws Exception
@@ -232,6 +235,9 @@ public class TrackedEntityInstanceController
             trackedEntityType, eventStatus, eventStartDate, eventEndDate, assignedUserMode, assignedUsers, skipMeta,
             page, pageSize, totalPages, skipPaging, includeDeleted, includeAllAttributes, getOrderParams( order ) );
 
+        queryParams.setKeysetPaging( keysetPaging )
+            .setPageToken( pageToken != null ? PageToken.decode( pageToken ) : null );
+
         if ( trackedEntityInstance == null )
         {
             trackedEntityInstances = trackedEntityInstanceService.getTrackedEntityInstances( queryParams,
@@ -246,10 +252,17 @@ public class TrackedEntityInstanceController
                 .collect( Collectors.toList() ) : null;
         }
 
-        if ( queryParams.isPaging() && queryParams.isTotalPages() )
+        if ( queryParams.isPaging() && ( queryParams.isTotalPages() || queryParams.isKeysetPaging() ) )
         {
-            int count = trackedEntityInstanceService.getTrackedEntityInstanceCount( queryParams, true, false );
+            int count = queryParams.isTotalPages() ?
+                trackedEntityInstanceService.getTrackedEntityInstanceCount( queryParams, true, false ) : 0;
             Pager pager = new Pager( queryParams.getPageWithDefault(), count, queryParams.getPageSizeWithDefault() );
+
+            if ( queryParams.getNextPageToken() != null )
+            {
+                pager.setNextPageToken( queryParams.getNextPageToken().encode() );
+            }
+
             rootNode.addChild( NodeUtils.createPager( pager ) );
         }
 
@@ -52,6 +52,8 @@ import org.hisp.dhis.user.UserSettingKey;
 import org.hisp.dhis.user.UserSettingService;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
 import org.hisp.dhis.webapi.service.ContextService;
+import org.hisp.dhis.webapi.service.MetadataExportCache;
+import org.hisp.dhis.webapi.service.ResponseTagService;
 import org.hisp.dhis.webapi.service.WebMessageService;
 import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.springframework.beans.factory.ObjectFactory;
@@ -114,6 +116,12 @@ public class MetadataImportExportController
     @Autowired
     private UserSettingService userSettingService;
 
+    @Autowired
+    private MetadataExportCache metadataExportCache;
+
+    @Autowired
+    private ResponseTagService responseTagService;
+
     @Autowired
     private ObjectFactory<MetadataAsyncImporter> metadataAsyncImporterFactory;
 
@@ -239,17 +247,46 @@ public class MetadataImportExportController
     @GetMapping
     public ResponseEntity<RootNode> getMetadata(
         @RequestParam( required = false, defaultValue = "false" ) boolean translate, @RequestParam( required = false ) String locale,
-        @RequestParam( required = false, defaultValue = "false" ) boolean download )
+        @RequestParam( required = false, defaultValue = "false" ) boolean download,
+        HttpServletRequest request, HttpServletResponse response ) throws IOException
     {
+        User user = currentUserService.getCurrentUser();
+
         if ( translate )
         {
             TranslateParams translateParams = new TranslateParams( true, locale );
-            setUserContext( currentUserService.getCurrentUser(), translateParams );
+            setUserContext( user, translateParams );
         }
 
         MetadataExportParams params = metadataExportService.getParamsFromMap( contextService.getParameterValuesMap() );
         metadataExportService.validate( params );
+
+        String tag = responseTagService.getTag( request, user );
+
+        if ( tag != null && ContextUtils.isNotModified( request, response, tag ) )
+        {
+            return null;
+        }
+
+        boolean cacheable = tag != null && !download && metadataExportCache.isCacheable( request );
+
+        if ( cacheable && metadataExportCache.write( tag, request, response ) )
+        {
+            return null;
+        }
+
         RootNode rootNode = metadataExportService.getMetadataAsNode( params );
+
+        if ( cacheable )
+        {
+            metadataExportCache.put( tag, rootNode );
+
+            if ( metadataExportCache.write( tag, request, response ) )
+            {
+                return null;
+            }
+        }
+
         return MetadataExportControllerUtils.createResponseEntity( rootNode, download );
     }
 
@@ -185,6 +185,16 @@ public class UserController
         return users;
     }
 
+    /**
+     * Users are not validated by tag, as they may be filtered relative to the
+     * current time, such as by last login or inactivity.
+     */
+    @Override
+    protected String getConditionalTag( HttpServletRequest request, User user )
+    {
+        return null;
+    }
+
     // -------------------------------------------------------------------------
     // POST
     // -------------------------------------------------------------------------
@@ -0,0 +1,305 @@
+package org.hisp.dhis.webapi.service;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hisp.dhis.common.MetadataObject;
+import org.hisp.dhis.common.UserContext;
+import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.interpretation.Interpretation;
+import org.hisp.dhis.interpretation.InterpretationComment;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserCredentials;
+import org.hisp.dhis.user.UserSettingKey;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Tracks the time of the last committed change of metadata through Hibernate
+ * post-commit listeners, and derives response tags from it. User credentials
+ * and interpretations are tracked as well, as metadata responses depend on
+ * the authorities of the user and embed interpretations and their counts.
+ * <p>
+ * The last change time is kept in memory and changes committed by other
+ * instances are not seen, so no tags are provided when clustering is enabled.
+ */
+@Service
+public class DefaultResponseTagService
+    implements ResponseTagService
+{
+    private static final Log log = LogFactory.getLog( DefaultResponseTagService.class );
+
+    private static final String SEP = "-";
+
+    /**
+     * Classes which are not metadata, but on which metadata responses depend.
+     */
+    private static final Set<Class<?>> TRACKED_CLASSES = ImmutableSet.of(
+        UserCredentials.class, Interpretation.class, InterpretationComment.class );
+
+    private final SessionFactory sessionFactory;
+
+    private final DhisConfigurationProvider config;
+
+    /**
+     * Time of the last committed change, or of the start of the application
+     * if nothing has been changed since.
+     */
+    private final AtomicLong lastChanged = new AtomicLong( System.currentTimeMillis() );
+
+    public DefaultResponseTagService( SessionFactory sessionFactory, DhisConfigurationProvider config )
+    {
+        checkNotNull( sessionFactory );
+        checkNotNull( config );
+
+        this.sessionFactory = sessionFactory;
+        this.config = config;
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        if ( config.isClusterEnabled() )
+        {
+            log.info( "Response tags disabled as clustering is enabled" );
+            return;
+        }
+
+        EventListenerRegistry registry = sessionFactory.unwrap( SessionFactoryImplementor.class )
+            .getServiceRegistry().getService( EventListenerRegistry.class );
+
+        ChangeListener listener = new ChangeListener();
+
+        registry.appendListeners( EventType.POST_COMMIT_INSERT, listener );
+        registry.appendListeners( EventType.POST_COMMIT_UPDATE, listener );
+        registry.appendListeners( EventType.POST_COMMIT_DELETE, listener );
+
+        CollectionChangeListener collectionListener = new CollectionChangeListener();
+
+        registry.appendListeners( EventType.POST_COLLECTION_RECREATE, collectionListener );
+        registry.appendListeners( EventType.POST_COLLECTION_UPDATE, collectionListener );
+        registry.appendListeners( EventType.POST_COLLECTION_REMOVE, collectionListener );
+    }
+
+    // -------------------------------------------------------------------------
+    // ResponseTagService implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getTag( HttpServletRequest request, User user, Object... values )
+    {
+        if ( config.isClusterEnabled() )
+        {
+            return null;
+        }
+
+        UserCredentials credentials = user != null ? user.getUserCredentials() : null;
+
+        StringBuilder builder = new StringBuilder()
+            .append( lastChanged.get() ).append( SEP )
+            .append( request.getRequestURI() ).append( SEP )
+            .append( request.getHeader( HttpHeaders.ACCEPT ) ).append( SEP )
+            .append( user != null ? user.getUid() : null ).append( SEP )
+            .append( credentials != null && credentials.getLastUpdated() != null ? credentials.getLastUpdated().getTime() : null ).append( SEP )
+            .append( UserContext.getUserSetting( UserSettingKey.DB_LOCALE ) );
+
+        new TreeMap<>( request.getParameterMap() ).forEach( ( name, parameterValues ) ->
+            builder.append( SEP ).append( name ).append( '=' ).append( String.join( ",", parameterValues ) ) );
+
+        for ( Object value : values )
+        {
+            builder.append( SEP ).append( value );
+        }
+
+        return Hashing.sha256().hashString( builder, StandardCharsets.UTF_8 ).toString();
+    }
+
+    @Override
+    public long getLastChanged()
+    {
+        return lastChanged.get();
+    }
+
+    @EventListener
+    public void handleApplicationCachesCleared( ApplicationCacheClearedEvent event )
+    {
+        lastChanged.updateAndGet( this::getChangeTime );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private static boolean isTracked( Class<?> klass )
+    {
+        return klass != null && ( MetadataObject.class.isAssignableFrom( klass ) ||
+            TRACKED_CLASSES.stream().anyMatch( trackedClass -> trackedClass.isAssignableFrom( klass ) ) );
+    }
+
+    private long getChangeTime( long lastChangeTime )
+    {
+        return Math.max( lastChangeTime + 1, System.currentTimeMillis() );
+    }
+
+    private void changed( Object entity )
+    {
+        if ( entity != null && isTracked( entity.getClass() ) )
+        {
+            log.debug( "Response tags changed by change of " + entity.getClass().getSimpleName() );
+
+            lastChanged.updateAndGet( this::getChangeTime );
+        }
+    }
+
+    /**
+     * Registers committed changes of tracked entities. Appended to the
+     * Hibernate event listener registry in {@link #init()}, as Hibernate does
+     * not pick up Spring beans as event listeners.
+     */
+    private class ChangeListener
+        implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener
+    {
+        @Override
+        public void onPostInsert( PostInsertEvent event )
+        {
+            changed( event.getEntity() );
+        }
+
+        @Override
+        public void onPostUpdate( PostUpdateEvent event )
+        {
+            changed( event.getEntity() );
+        }
+
+        @Override
+        public void onPostDelete( PostDeleteEvent event )
+        {
+            changed( event.getEntity() );
+        }
+
+        @Override
+        public void onPostInsertCommitFailed( PostInsertEvent event )
+        {
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed( PostUpdateEvent event )
+        {
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed( PostDeleteEvent event )
+        {
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding( EntityPersister persister )
+        {
+            return isTracked( persister.getMappedClass() );
+        }
+    }
+
+    /**
+     * Registers committed changes of collections owned by tracked entities,
+     * such as the user roles of user credentials. Hibernate does not signal
+     * such changes through the entity post-commit listeners when only the
+     * collection changed, and has no post-commit collection events, so the
+     * change is registered for after completion of the transaction.
+     */
+    private class CollectionChangeListener
+        implements PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener
+    {
+        @Override
+        public void onPostRecreateCollection( PostCollectionRecreateEvent event )
+        {
+            changedAfterCommit( event );
+        }
+
+        @Override
+        public void onPostUpdateCollection( PostCollectionUpdateEvent event )
+        {
+            changedAfterCommit( event );
+        }
+
+        @Override
+        public void onPostRemoveCollection( PostCollectionRemoveEvent event )
+        {
+            changedAfterCommit( event );
+        }
+
+        private void changedAfterCommit( AbstractCollectionEvent event )
+        {
+            Object owner = event.getAffectedOwnerOrNull();
+
+            if ( owner != null && isTracked( owner.getClass() ) )
+            {
+                event.getSession().getActionQueue().registerProcess( (AfterTransactionCompletionProcess) ( success, session ) -> {
+                    if ( success )
+                    {
+                        changed( owner );
+                    }
+                } );
+            }
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package org.hisp.dhis.webapi.service;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
+import org.hisp.dhis.node.NodeService;
+import org.hisp.dhis.node.types.RootNode;
+import org.hisp.dhis.webapi.utils.ContextUtils;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Cache of rendered metadata exports. Exports rendered as JSON are stored GZIP
+ * compressed in a temporary directory and indexed in memory by the tag of the
+ * export, as provided by {@link ResponseTagService}. The cache is invalidated
+ * when the last change time of the tag service advances.
+ */
+@Component( "org.hisp.dhis.webapi.service.MetadataExportCache" )
+public class MetadataExportCache
+{
+    private static final Log log = LogFactory.getLog( MetadataExportCache.class );
+
+    private static final int MAX_ENTRIES = 50;
+
+    private static final MediaType APPLICATION_JSON_GZIP = new MediaType( "application", "json+gzip" );
+
+    private final ResponseTagService responseTagService;
+
+    private final NodeService nodeService;
+
+    private final ContentNegotiationManager contentNegotiationManager;
+
+    /**
+     * Last change time of the tag service when the cached exports were
+     * rendered.
+     */
+    private final AtomicLong lastChanged = new AtomicLong();
+
+    private Cache<String, File> exportFiles;
+
+    private File directory;
+
+    public MetadataExportCache( ResponseTagService responseTagService, NodeService nodeService,
+        ContentNegotiationManager contentNegotiationManager )
+    {
+        checkNotNull( responseTagService );
+        checkNotNull( nodeService );
+        checkNotNull( contentNegotiationManager );
+
+        this.responseTagService = responseTagService;
+        this.nodeService = nodeService;
+        this.contentNegotiationManager = contentNegotiationManager;
+    }
+
+    @PostConstruct
+    public void init()
+        throws IOException
+    {
+        directory = Files.createTempDirectory( "dhis2-metadata-export" ).toFile();
+
+        exportFiles = CacheBuilder.newBuilder()
+            .maximumSize( MAX_ENTRIES )
+            .removalListener( (RemovalListener<String, File>) this::deleteIfNotCurrent )
+            .build();
+
+        lastChanged.set( responseTagService.getLastChanged() );
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        exportFiles.invalidateAll();
+        FileUtils.deleteQuietly( directory );
+    }
+
+    /**
+     * Indicates whether the export for the given request can be cached, which
+     * is the case when it is rendered as JSON, optionally GZIP compressed.
+     *
+     * @param request the request.
+     * @return true if the export can be cached, false if not.
+     */
+    public boolean isCacheable( HttpServletRequest request )
+    {
+        return getMediaType( request ) != null;
+    }
+
+    /**
+     * Writes the cached export with the given tag to the response.
+     *
+     * @param tag the tag of the export.
+     * @param request the request.
+     * @param response the response.
+     * @return true if the export was cached and written to the response, false
+     *         if the export is not cached.
+     * @throws IOException if writing the response failed.
+     */
+    public boolean write( String tag, HttpServletRequest request, HttpServletResponse response )
+        throws IOException
+    {
+        invalidateIfChanged();
+
+        MediaType mediaType = getMediaType( request );
+        File file = exportFiles.getIfPresent( tag );
+
+        if ( mediaType == null || file == null || !file.exists() )
+        {
+            return false;
+        }
+
+        try ( InputStream in = new FileInputStream( file ) )
+        {
+            if ( APPLICATION_JSON_GZIP.equalsTypeAndSubtype( mediaType ) )
+            {
+                response.setContentType( APPLICATION_JSON_GZIP.toString() );
+                response.setHeader( ContextUtils.HEADER_CONTENT_DISPOSITION, "attachment; filename=metadata.json.gz" );
+                response.setHeader( ContextUtils.HEADER_CONTENT_TRANSFER_ENCODING, "binary" );
+                IOUtils.copy( in, response.getOutputStream() );
+            }
+            else if ( isAcceptGzipEncoding( request ) )
+            {
+                response.setContentType( ContextUtils.CONTENT_TYPE_JSON );
+                response.setHeader( HttpHeaders.CONTENT_ENCODING, "gzip" );
+                IOUtils.copy( in, response.getOutputStream() );
+            }
+            else
+            {
+                response.setContentType( ContextUtils.CONTENT_TYPE_JSON );
+                IOUtils.copy( new GZIPInputStream( in ), response.getOutputStream() );
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Renders the given export as JSON and caches it with the given tag. The
+     * export is rendered to a file of its own, so that concurrent renders of
+     * the same export do not write to the same file, and the file is only
+     * cached once it is complete.
+     *
+     * @param tag the tag of the export.
+     * @param rootNode the export.
+     * @throws IOException if writing the export failed.
+     */
+    public void put( String tag, RootNode rootNode )
+        throws IOException
+    {
+        invalidateIfChanged();
+
+        File file = File.createTempFile( tag, ".json.gz", directory );
+
+        try ( OutputStream out = new GZIPOutputStream( new FileOutputStream( file ) ) )
+        {
+            nodeService.serialize( rootNode, MediaType.APPLICATION_JSON_VALUE, out );
+        }
+        catch ( IOException | RuntimeException ex )
+        {
+            FileUtils.deleteQuietly( file );
+            throw ex;
+        }
+
+        exportFiles.put( tag, file );
+    }
+
+    public void invalidateAll()
+    {
+        exportFiles.invalidateAll();
+    }
+
+    @EventListener
+    public void handleApplicationCachesCleared( ApplicationCacheClearedEvent event )
+    {
+        invalidateAll();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the media type of the export for the given request if it can be
+     * cached, which is JSON or GZIP compressed JSON, or null otherwise. The
+     * JSON renderer is the first registered one, so JSON is also used when any
+     * media type is accepted.
+     */
+    private MediaType getMediaType( HttpServletRequest request )
+    {
+        try
+        {
+            List<MediaType> mediaTypes = contentNegotiationManager.resolveMediaTypes( new ServletWebRequest( request ) );
+            MediaType mediaType = mediaTypes.isEmpty() ? MediaType.ALL : mediaTypes.get( 0 );
+
+            if ( APPLICATION_JSON_GZIP.equalsTypeAndSubtype( mediaType ) )
+            {
+                return APPLICATION_JSON_GZIP;
+            }
+
+            if ( MediaType.ALL.equalsTypeAndSubtype( mediaType ) || MediaType.APPLICATION_JSON.equalsTypeAndSubtype( mediaType ) )
+            {
+                return MediaType.APPLICATION_JSON;
+            }
+        }
+        catch ( HttpMediaTypeNotAcceptableException ex )
+        {
+            log.debug( "Media type of metadata export could not be resolved", ex );
+        }
+
+        return null;
+    }
+
+    /**
+     * Deletes the file of a removed cache entry, unless it is still the file
+     * of the current entry with the same tag.
+     */
+    private void deleteIfNotCurrent( RemovalNotification<String, File> notification )
+    {
+        File file = notification.getValue();
+
+        if ( file != null && !file.equals( exportFiles.asMap().get( notification.getKey() ) ) )
+        {
+            FileUtils.deleteQuietly( file );
+        }
+    }
+
+    private boolean isAcceptGzipEncoding( HttpServletRequest request )
+    {
+        String acceptEncoding = request.getHeader( HttpHeaders.ACCEPT_ENCODING );
+
+        return acceptEncoding != null && acceptEncoding.contains( "gzip" );
+    }
+
+    /**
+     * Invalidates the cached exports if metadata has changed since they were
+     * rendered. Exports are indexed by tag, which includes the change time, so
+     * outdated exports would not be served, but would hold on to disk space.
+     */
+    private void invalidateIfChanged()
+    {
+        long changed = responseTagService.getLastChanged();
+
+        if ( lastChanged.getAndSet( changed ) != changed )
+        {
+            log.debug( "Metadata export cache invalidated by change of metadata" );
+
+            invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.hisp.dhis.webapi.service;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.user.User;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Provides tags for validating cached responses by ETag. Tags change whenever
+ * metadata, or other objects which metadata responses depend on, are changed.
+ * Changes are tracked per instance, so tags are not provided when the
+ * instance is part of a cluster.
+ */
+public interface ResponseTagService
+{
+    /**
+     * Returns the tag of the response for the given request. The tag changes
+     * whenever metadata is changed, and is different for different request
+     * parameters, representations, users, user credentials and translation
+     * locales.
+     *
+     * @param request the request.
+     * @param user the current user.
+     * @param values additional values the response depends on.
+     * @return the tag, or null if tags are not provided.
+     */
+    String getTag( HttpServletRequest request, User user, Object... values );
+
+    /**
+     * Returns the time of the last committed change of metadata, or of other
+     * objects which metadata responses depend on, in milliseconds.
+     */
+    long getLastChanged();
+}
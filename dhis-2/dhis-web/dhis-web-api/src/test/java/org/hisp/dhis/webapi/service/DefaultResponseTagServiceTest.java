@@ -0,0 +1,302 @@
+package org.hisp.dhis.webapi.service;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hibernate.SessionFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.datavalue.DataValue;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.interpretation.Interpretation;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserCredentials;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultResponseTagService}.
+ */
+public class DefaultResponseTagServiceTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private SessionFactoryImplementor sessionFactoryImplementor;
+
+    @Mock
+    private ServiceRegistryImplementor serviceRegistry;
+
+    @Mock
+    private EventListenerRegistry eventListenerRegistry;
+
+    @Mock
+    private PersistentCollection collection;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    private DefaultResponseTagService service;
+
+    private PostUpdateEventListener updateListener;
+
+    private PostCollectionUpdateEventListener collectionUpdateListener;
+
+    private MockHttpServletRequest request;
+
+    private User user;
+
+    @Before
+    public void setUp()
+    {
+        when( sessionFactory.unwrap( SessionFactoryImplementor.class ) ).thenReturn( sessionFactoryImplementor );
+        when( sessionFactoryImplementor.getServiceRegistry() ).thenReturn( serviceRegistry );
+        when( serviceRegistry.getService( EventListenerRegistry.class ) ).thenReturn( eventListenerRegistry );
+
+        service = new DefaultResponseTagService( sessionFactory, config );
+        service.init();
+
+        ArgumentCaptor<PostUpdateEventListener> listener = ArgumentCaptor.forClass( PostUpdateEventListener.class );
+        verify( eventListenerRegistry ).appendListeners( eq( EventType.POST_COMMIT_UPDATE ), listener.capture() );
+        updateListener = listener.getValue();
+
+        ArgumentCaptor<PostCollectionUpdateEventListener> collectionListener = ArgumentCaptor.forClass( PostCollectionUpdateEventListener.class );
+        verify( eventListenerRegistry ).appendListeners( eq( EventType.POST_COLLECTION_UPDATE ), collectionListener.capture() );
+        collectionUpdateListener = collectionListener.getValue();
+
+        request = new MockHttpServletRequest( "GET", "/api/dataElements" );
+
+        user = new User();
+        user.setAutoFields();
+        user.setUserCredentials( new UserCredentials() );
+        user.getUserCredentials().setLastUpdated( new Date( 1000 ) );
+    }
+
+    @Test
+    public void testTagDependsOnRequest()
+    {
+        String tag = service.getTag( request, user );
+
+        assertEquals( tag, service.getTag( request, user ) );
+
+        request.addParameter( "fields", "id" );
+
+        String parameterTag = service.getTag( request, user );
+
+        assertNotEquals( tag, parameterTag );
+
+        request.addHeader( HttpHeaders.ACCEPT, "application/xml" );
+
+        assertNotEquals( parameterTag, service.getTag( request, user ) );
+    }
+
+    @Test
+    public void testTagDependsOnUserAndCredentials()
+    {
+        String tag = service.getTag( request, user );
+
+        User otherUser = new User();
+        otherUser.setAutoFields();
+
+        assertNotEquals( tag, service.getTag( request, otherUser ) );
+
+        user.getUserCredentials().setLastUpdated( new Date( 2000 ) );
+
+        assertNotEquals( tag, service.getTag( request, user ) );
+    }
+
+    @Test
+    public void testTagDependsOnValues()
+    {
+        assertEquals( service.getTag( request, user, 1L, 10 ), service.getTag( request, user, 1L, 10 ) );
+        assertNotEquals( service.getTag( request, user, 1L, 10 ), service.getTag( request, user, 1L, 11 ) );
+    }
+
+    @Test
+    public void testTagChangesOnCommitOfMetadata()
+    {
+        String tag = service.getTag( request, user );
+        long lastChanged = service.getLastChanged();
+
+        commitUpdate( new DataElement() );
+
+        assertNotEquals( tag, service.getTag( request, user ) );
+        assertNotEquals( lastChanged, service.getLastChanged() );
+    }
+
+    @Test
+    public void testTagChangesOnCommitOfUserCredentialsAndInterpretations()
+    {
+        String tag = service.getTag( request, user );
+
+        commitUpdate( new UserCredentials() );
+
+        String credentialsTag = service.getTag( request, user );
+
+        assertNotEquals( tag, credentialsTag );
+
+        commitUpdate( new Interpretation() );
+
+        assertNotEquals( credentialsTag, service.getTag( request, user ) );
+    }
+
+    @Test
+    public void testTagUnchangedOnCommitOfOtherEntity()
+    {
+        String tag = service.getTag( request, user );
+
+        commitUpdate( new DataValue() );
+
+        assertEquals( tag, service.getTag( request, user ) );
+    }
+
+    @Test
+    public void testTagChangesOnApplicationCacheCleared()
+    {
+        String tag = service.getTag( request, user );
+
+        service.handleApplicationCachesCleared( new ApplicationCacheClearedEvent() );
+
+        assertNotEquals( tag, service.getTag( request, user ) );
+    }
+
+    @Test
+    public void testTagChangesAfterCommitOfCollectionChange()
+    {
+        String tag = service.getTag( request, user );
+
+        AfterTransactionCompletionProcess process = updateCollection( new UserCredentials() );
+
+        assertEquals( tag, service.getTag( request, user ) );
+
+        process.doAfterTransactionCompletion( true, null );
+
+        assertNotEquals( tag, service.getTag( request, user ) );
+    }
+
+    @Test
+    public void testTagUnchangedAfterRollbackOfCollectionChange()
+    {
+        String tag = service.getTag( request, user );
+
+        updateCollection( new UserCredentials() ).doAfterTransactionCompletion( false, null );
+
+        assertEquals( tag, service.getTag( request, user ) );
+    }
+
+    @Test
+    public void testCollectionChangeOfOtherEntityIgnored()
+    {
+        EventSource session = mockSession( new DataValue() );
+
+        collectionUpdateListener.onPostUpdateCollection( new PostCollectionUpdateEvent( null, collection, session ) );
+
+        verify( session, never() ).getActionQueue();
+    }
+
+    @Test
+    public void testNoTagWhenClusterEnabled()
+    {
+        when( config.isClusterEnabled() ).thenReturn( true );
+
+        assertNull( service.getTag( request, user ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void commitUpdate( Object entity )
+    {
+        PostUpdateEvent event = mock( PostUpdateEvent.class );
+        when( event.getEntity() ).thenReturn( entity );
+
+        updateListener.onPostUpdate( event );
+    }
+
+    private EventSource mockSession( Object owner )
+    {
+        EventSource session = mock( EventSource.class );
+        PersistenceContext persistenceContext = mock( PersistenceContext.class );
+
+        when( session.getPersistenceContext() ).thenReturn( persistenceContext );
+        when( persistenceContext.getLoadedCollectionOwnerOrNull( collection ) ).thenReturn( owner );
+
+        return session;
+    }
+
+    private AfterTransactionCompletionProcess updateCollection( Object owner )
+    {
+        EventSource session = mockSession( owner );
+        ActionQueue actionQueue = mock( ActionQueue.class );
+
+        when( session.getActionQueue() ).thenReturn( actionQueue );
+
+        collectionUpdateListener.onPostUpdateCollection( new PostCollectionUpdateEvent( null, collection, session ) );
+
+        ArgumentCaptor<AfterTransactionCompletionProcess> process = ArgumentCaptor.forClass( AfterTransactionCompletionProcess.class );
+        verify( actionQueue ).registerProcess( process.capture() );
+
+        return process.getValue();
+    }
+}
@@ -0,0 +1,246 @@
+package org.hisp.dhis.webapi.service;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.apache.commons.io.IOUtils;
+import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
+import org.hisp.dhis.node.NodeService;
+import org.hisp.dhis.node.types.RootNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.accept.ContentNegotiationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link MetadataExportCache}.
+ */
+public class MetadataExportCacheTest
+{
+    private static final String JSON = "{\"dataElements\":[]}";
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private ResponseTagService responseTagService;
+
+    @Mock
+    private NodeService nodeService;
+
+    private MetadataExportCache cache;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @Before
+    public void setUp()
+        throws IOException
+    {
+        when( responseTagService.getLastChanged() ).thenReturn( 1L );
+
+        doAnswer( invocation -> {
+            invocation.getArgument( 2, OutputStream.class ).write( JSON.getBytes( StandardCharsets.UTF_8 ) );
+            return null;
+        } ).when( nodeService ).serialize( any(), any(), any() );
+
+        cache = new MetadataExportCache( responseTagService, nodeService, new ContentNegotiationManager() );
+        cache.init();
+
+        request = new MockHttpServletRequest( "GET", "/api/metadata" );
+        response = new MockHttpServletResponse();
+    }
+
+    @After
+    public void tearDown()
+    {
+        cache.destroy();
+    }
+
+    // -------------------------------------------------------------------------
+    // Serving
+    // -------------------------------------------------------------------------
+
+    @Test
+    public void testCacheableRepresentations()
+    {
+        assertTrue( cache.isCacheable( request ) );
+
+        request.addHeader( HttpHeaders.ACCEPT, "application/json+gzip" );
+
+        assertTrue( cache.isCacheable( request ) );
+
+        MockHttpServletRequest xmlRequest = new MockHttpServletRequest( "GET", "/api/metadata" );
+        xmlRequest.addHeader( HttpHeaders.ACCEPT, "application/xml" );
+
+        assertFalse( cache.isCacheable( xmlRequest ) );
+    }
+
+    @Test
+    public void testWriteNotCached()
+        throws IOException
+    {
+        assertFalse( cache.write( "tag", request, response ) );
+    }
+
+    @Test
+    public void testWriteIdentity()
+        throws IOException
+    {
+        cache.put( "tag", new RootNode( "metadata" ) );
+
+        assertTrue( cache.write( "tag", request, response ) );
+
+        assertNull( response.getHeader( HttpHeaders.CONTENT_ENCODING ) );
+        assertEquals( JSON, response.getContentAsString() );
+    }
+
+    @Test
+    public void testWriteGzipContentEncoding()
+        throws IOException
+    {
+        request.addHeader( HttpHeaders.ACCEPT_ENCODING, "gzip, deflate" );
+
+        cache.put( "tag", new RootNode( "metadata" ) );
+
+        assertTrue( cache.write( "tag", request, response ) );
+
+        assertEquals( "gzip", response.getHeader( HttpHeaders.CONTENT_ENCODING ) );
+        assertEquals( JSON, gunzip( response.getContentAsByteArray() ) );
+    }
+
+    @Test
+    public void testWriteGzipMediaType()
+        throws IOException
+    {
+        request.addHeader( HttpHeaders.ACCEPT, "application/json+gzip" );
+
+        cache.put( "tag", new RootNode( "metadata" ) );
+
+        assertTrue( cache.write( "tag", request, response ) );
+
+        assertEquals( "application/json+gzip", response.getContentType() );
+        assertNull( response.getHeader( HttpHeaders.CONTENT_ENCODING ) );
+        assertEquals( JSON, gunzip( response.getContentAsByteArray() ) );
+    }
+
+    @Test
+    public void testWriteAfterReplace()
+        throws IOException
+    {
+        cache.put( "tag", new RootNode( "metadata" ) );
+        cache.put( "tag", new RootNode( "metadata" ) );
+
+        assertTrue( cache.write( "tag", request, response ) );
+
+        assertEquals( JSON, response.getContentAsString() );
+    }
+
+    // -------------------------------------------------------------------------
+    // Eviction
+    // -------------------------------------------------------------------------
+
+    @Test
+    public void testEvictOnChange()
+        throws IOException
+    {
+        cache.put( "tag", new RootNode( "metadata" ) );
+
+        assertTrue( cache.write( "tag", request, new MockHttpServletResponse() ) );
+
+        when( responseTagService.getLastChanged() ).thenReturn( 2L );
+
+        assertFalse( cache.write( "tag", request, response ) );
+    }
+
+    @Test
+    public void testEvictOnApplicationCacheCleared()
+        throws IOException
+    {
+        cache.put( "tag", new RootNode( "metadata" ) );
+
+        cache.handleApplicationCachesCleared( new ApplicationCacheClearedEvent() );
+
+        assertFalse( cache.write( "tag", request, response ) );
+    }
+
+    @Test
+    public void testEvictBeyondMaximumSize()
+        throws IOException
+    {
+        for ( int i = 0; i < 60; i++ )
+        {
+            cache.put( "tag" + i, new RootNode( "metadata" ) );
+        }
+
+        int cached = 0;
+
+        for ( int i = 0; i < 60; i++ )
+        {
+            if ( cache.write( "tag" + i, request, new MockHttpServletResponse() ) )
+            {
+                cached++;
+            }
+        }
+
+        assertTrue( cached <= 50 );
+        assertTrue( cache.write( "tag59", request, response ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private String gunzip( byte[] content )
+        throws IOException
+    {
+        return IOUtils.toString( new GZIPInputStream( new ByteArrayInputStream( content ) ), StandardCharsets.UTF_8 );
+    }
+}